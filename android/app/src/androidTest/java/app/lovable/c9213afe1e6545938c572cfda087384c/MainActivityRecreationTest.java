@@ -0,0 +1,114 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+import android.webkit.WebView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.getcapacitor.JSObject;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Recreates MainActivity (as a rotation or theme change would) and checks
+ * that NativeEventQueue follows the current bridge without holding on to
+ * the previous ones, that events piling up meanwhile stay bounded, and that
+ * every destroyed activity and its WebView can be collected.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MainActivityRecreationTest {
+    private static final int RECREATIONS = 10;
+    private static final int EVENTS_PER_ACTIVITY = NativeEventQueue.MAX_PENDING / 4;
+    private static final int GC_ATTEMPTS = 20;
+
+    @Test
+    public void queueFollowsTheCurrentBridgeAndStaysBounded() {
+        List<WeakReference<MainActivity>> activities = new ArrayList<>();
+        List<WeakReference<WebView>> webViews = new ArrayList<>();
+        // In its own frame, so no local of this one keeps a bridge reachable
+        recreateRepeatedly(activities, webViews);
+
+        for (int attempt = 0; attempt < GC_ATTEMPTS && !(allCleared(activities) && allCleared(webViews)); attempt++) {
+            Runtime.getRuntime().gc();
+            System.runFinalization();
+            // A destroyed WebView lets go of its activity once Chromium has released it
+            SystemClock.sleep(100);
+        }
+        for (int i = 0; i < activities.size(); i++) {
+            assertNull("activity " + i + " leaked", activities.get(i).get());
+            assertNull("WebView of activity " + i + " leaked", webViews.get(i).get());
+        }
+    }
+
+    private static void recreateRepeatedly(List<WeakReference<MainActivity>> activities,
+                                           List<WeakReference<WebView>> webViews) {
+        NativeEventQueue queue = NativeEventQueue.getInstance();
+        long droppedBefore = queue.getDroppedCount();
+        NativeEventsPlugin last;
+
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            NativeEventsPlugin previous = null;
+            for (int i = 0; i < RECREATIONS; i++) {
+                track(scenario, activities, webViews);
+                NativeEventsPlugin current = nativeEventsPlugin(scenario);
+                assertTrue("queue not attached to the bridge of activity " + i, queue.isAttachedTo(current));
+                if (previous != null) {
+                    assertNotSame(previous, current);
+                    assertFalse("queue still attached to a destroyed bridge", queue.isAttachedTo(previous));
+                }
+
+                // Nothing handles these, so they stay queued and pile up across activities
+                for (int j = 0; j < EVENTS_PER_ACTIVITY; j++) {
+                    JSObject payload = new JSObject();
+                    payload.put("activity", i);
+                    payload.put("event", j);
+                    queue.emit("recreationTest", payload);
+                }
+                assertTrue(queue.getPendingCount() <= NativeEventQueue.MAX_PENDING);
+
+                previous = current;
+                scenario.recreate();
+            }
+            track(scenario, activities, webViews);
+            last = nativeEventsPlugin(scenario);
+        }
+
+        // Activity destroyed: no bridge left to deliver to
+        assertFalse(queue.isAttachedTo(last));
+        assertTrue(queue.getPendingCount() <= NativeEventQueue.MAX_PENDING);
+        assertTrue(queue.getDroppedCount() - droppedBefore >= (long) RECREATIONS * EVENTS_PER_ACTIVITY
+            - NativeEventQueue.MAX_PENDING);
+    }
+
+    private static void track(ActivityScenario<MainActivity> scenario, List<WeakReference<MainActivity>> activities,
+                              List<WeakReference<WebView>> webViews) {
+        scenario.onActivity(activity -> {
+            activities.add(new WeakReference<>(activity));
+            webViews.add(new WeakReference<>(activity.getBridge().getWebView()));
+        });
+    }
+
+    private static boolean allCleared(List<? extends WeakReference<?>> refs) {
+        for (WeakReference<?> ref : refs) {
+            if (ref.get() != null) return false;
+        }
+        return true;
+    }
+
+    private static NativeEventsPlugin nativeEventsPlugin(ActivityScenario<MainActivity> scenario) {
+        AtomicReference<NativeEventsPlugin> plugin = new AtomicReference<>();
+        scenario.onActivity(activity ->
+            plugin.set((NativeEventsPlugin) activity.getBridge().getPlugin("NativeEvents").getInstance()));
+        assertNotNull(plugin.get());
+        return plugin.get();
+    }
+}
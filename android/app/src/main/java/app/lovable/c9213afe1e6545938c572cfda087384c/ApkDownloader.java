@@ -0,0 +1,694 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.SystemClock;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resumable APK download engine behind ApkInstallerPlugin.downloadApk.
+ *
+ * The APK is streamed through a fixed BUFFER_SIZE buffer into a file
+ * preallocated to the announced length, and hashed (SHA-256) as the bytes
+ * go by, so verification needs no second pass over the file. When the
+ * connection drops, the next attempt asks for the rest with an HTTP Range
+ * (guarded by If-Range, so a replaced file on the server restarts from
+ * zero) and keeps feeding the same digest. Progress is checkpointed to
+ * prefs every CHECKPOINT_BYTES; after a process restart only the
+ * checkpointed prefix is read back to rebuild the digest.
+ *
+ * Downloads run one at a time on a worker thread; a finished and verified
+ * APK is kept and returned at once when the same URL is asked for again.
+ * Background jobs (submitBackground) can be held to a bandwidth limit,
+ * which is lifted as soon as a foreground job (submit) is queued behind
+ * them; the app's own jobs (submitInternal) leave it in place.
+ *
+ * When a release also ships a patch against the installed version,
+ * downloadUpdate() fetches the (much smaller) patch instead and rebuilds the
+ * APK with ApkPatcher; the full APK is downloaded if the patch does not
+ * apply or its result does not match the release's SHA-256.
+ */
+final class ApkDownloader {
+    private static final String TAG = "ApkDownloader";
+    private static final String PREFS_NAME = "apk_downloads";
+    private static final String DIR_NAME = "updates";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long CHECKPOINT_BYTES = 1024 * 1024L;
+    private static final long PROGRESS_INTERVAL_MS = 250L;
+    // Consecutive attempts that made no progress before giving up
+    private static final int MAX_STALLED_ATTEMPTS = 6;
+    private static final long BASE_RETRY_MS = 1000L;
+    private static final long MAX_RETRY_MS = 30000L;
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 20000;
+
+    private static volatile ApkDownloader instance;
+
+    interface Listener {
+        void onProgress(long downloaded, long total);
+
+        void onComplete(Result result);
+
+        void onFailed(String message);
+    }
+
+    static final class Result {
+        final File file;
+        final String sha256;
+        final long bytes;
+        // Continued a download that an earlier attempt or process had started
+        final boolean resumed;
+        // Rebuilt from the installed APK and a patch, with the apply measurements
+        final ApkPatcher.Result patch;
+
+        Result(File file, String sha256, long bytes, boolean resumed, ApkPatcher.Result patch) {
+            this.file = file;
+            this.sha256 = sha256;
+            this.bytes = bytes;
+            this.resumed = resumed;
+            this.patch = patch;
+        }
+    }
+
+    /**
+     * Where downloaded bytes go: a preallocated file, or a PackageInstaller session.
+     */
+    interface Sink {
+        /**
+         * A channel writing at offset; total is -1 when the server did not announce it.
+         */
+        WritableByteChannel openWrite(long offset, long total) throws IOException;
+
+        /**
+         * Make what was written durable, so a resume can trust the saved offset.
+         */
+        void checkpoint(WritableByteChannel channel) throws IOException;
+
+        ReadableByteChannel openRead() throws IOException;
+
+        /**
+         * Discard what was written; the download restarts from zero.
+         */
+        void reset() throws IOException;
+    }
+
+    /**
+     * The bytes arrived but are not the release that was announced.
+     */
+    static final class DigestMismatchException extends IOException {
+        DigestMismatchException(String expected, String actual) {
+            super("SHA-256 mismatch: expected " + expected + ", got " + actual);
+        }
+    }
+
+    /**
+     * Where a download stands; persisted as one tab-separated prefs value per URL.
+     */
+    private static final class State {
+        final String url;
+        String validator;
+        long total = -1;
+        long written;
+        String sha256;
+        // Not persisted: this run continued bytes written before it
+        boolean resumed;
+
+        State(String url) {
+            this.url = url;
+        }
+
+        boolean isComplete() {
+            return sha256 != null;
+        }
+
+        String encode() {
+            return url + "\t" + (validator != null ? validator : "") + "\t" + total + "\t" + written
+                + "\t" + (sha256 != null ? sha256 : "");
+        }
+
+        static State decode(String stored) {
+            if (stored == null) return null;
+            String[] parts = stored.split("\t", -1);
+            if (parts.length != 5) return null;
+            try {
+                State state = new State(parts[0]);
+                state.validator = parts[1].isEmpty() ? null : parts[1];
+                state.total = Long.parseLong(parts[2]);
+                state.written = Long.parseLong(parts[3]);
+                state.sha256 = parts[4].isEmpty() ? null : parts[4];
+                return state;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final File dir;
+    private final long retryBaseMs;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "apk-download"));
+    private volatile boolean cancelled;
+    // 0 = unlimited; only set while a background job runs
+    private volatile long maxBytesPerSecond;
+    private final AtomicInteger foregroundSubmits = new AtomicInteger();
+    private volatile int backgroundSeq = -1;
+
+    static ApkDownloader getInstance(Context context) {
+        ApkDownloader local = instance;
+        if (local == null) {
+            synchronized (ApkDownloader.class) {
+                local = instance;
+                if (local == null) {
+                    Context app = context.getApplicationContext();
+                    local = new ApkDownloader(app, new File(app.getCacheDir(), DIR_NAME), BASE_RETRY_MS);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @param retryBaseMs first retry delay; tests against a local HTTP stand-in that drops connections can shorten it
+     */
+    ApkDownloader(Context context, File dir, long retryBaseMs) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.dir = dir;
+        this.retryBaseMs = retryBaseMs;
+    }
+
+    /**
+     * Download on the worker thread. expectedSha256 (hex) is optional; without
+     * it the computed digest is only reported.
+     */
+    void start(String url, String expectedSha256, Listener listener) {
+        startUpdate(url, expectedSha256, null, -1, listener);
+    }
+
+    /**
+     * Like start(), but through patchUrl when the installed versionCode is
+     * patchBaseVersionCode.
+     */
+    void startUpdate(String url, String expectedSha256, String patchUrl, int patchBaseVersionCode, Listener listener) {
+        submit(() -> {
+            try {
+                listener.onComplete(downloadUpdate(url, expectedSha256, patchUrl, patchBaseVersionCode, listener));
+            } catch (IOException e) {
+                AppLog.w(TAG, "⚠️ APK download failed: {}", e.getMessage());
+                listener.onFailed(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Run a download job on the worker, after any running one.
+     */
+    void submit(Runnable job) {
+        cancelled = false;
+        foregroundSubmits.incrementAndGet();
+        // Someone is waiting now; a background job ahead of this one finishes at full speed
+        maxBytesPerSecond = 0L;
+        worker.execute(job);
+    }
+
+    /**
+     * Run the app's own work (web bundle checks, cleanup) on the worker,
+     * after any running job. Unlike submit() it is not a user waiting: a
+     * background download ahead of it keeps its limit and stays cancellable.
+     */
+    void submitInternal(Runnable job) {
+        worker.execute(() -> {
+            // Only now, on the worker: a cancel meant for the job before this one must not leak into it
+            cancelled = false;
+            job.run();
+        });
+    }
+
+    /**
+     * Run a job nobody is waiting for, downloading at most maxBytesPerSecond
+     * unless a foreground job was submitted since.
+     */
+    void submitBackground(long maxBytesPerSecond, Runnable job) {
+        int seq = foregroundSubmits.get();
+        worker.execute(() -> {
+            boolean waitedOn = foregroundSubmits.get() != seq;
+            cancelled = false;
+            backgroundSeq = seq;
+            this.maxBytesPerSecond = waitedOn ? 0L : maxBytesPerSecond;
+            try {
+                job.run();
+            } finally {
+                backgroundSeq = -1;
+                this.maxBytesPerSecond = 0L;
+            }
+        });
+    }
+
+    /**
+     * Stop a running background job, unless a foreground job now waits for its download.
+     */
+    void cancelBackground() {
+        int seq = backgroundSeq;
+        if (seq != -1 && foregroundSubmits.get() == seq) {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * The finished, verified download of url, or null. Only a digest that
+     * matches expectedSha256 counts when it is given.
+     */
+    File cached(String url, String expectedSha256) {
+        String key = keyFor(url);
+        File file = new File(dir, key + ".apk");
+        State state = State.decode(prefs.getString(key, null));
+        if (state == null || !state.isComplete() || !url.equals(state.url)) return null;
+        if (!file.isFile() || file.length() != state.written) return null;
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(state.sha256)) return null;
+        return file;
+    }
+
+    /**
+     * Stop the running download at the next buffer; what was written is kept for a resume.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Blocking; call off the main thread. A patch is only tried when the
+     * result can be verified, i.e. expectedSha256 is known.
+     */
+    Result downloadUpdate(String url, String expectedSha256, String patchUrl, int patchBaseVersionCode,
+                          Listener listener) throws IOException {
+        if (patchUrl != null && expectedSha256 != null && patchBaseVersionCode > 0
+                && installedVersionCode() == patchBaseVersionCode) {
+            State done = State.decode(prefs.getString(keyFor(url), null));
+            if (done == null || !done.isComplete()) {
+                try {
+                    return patch(url, expectedSha256, patchUrl, listener);
+                } catch (IOException e) {
+                    if (cancelled) throw e;
+                    AppLog.w(TAG, "⚠️ Patch update failed ({}), downloading the full APK", e.getMessage());
+                }
+            }
+        }
+        return download(url, expectedSha256, listener);
+    }
+
+    private Result patch(String url, String expectedSha256, String patchUrl, Listener listener) throws IOException {
+        Result patchDownload = download(patchUrl, null, ".patch", listener);
+        String key = keyFor(url);
+        File file = new File(dir, key + ".apk");
+        File oldApk = new File(context.getApplicationInfo().sourceDir);
+        ApkPatcher.Result applied = ApkPatcher.apply(oldApk, patchDownload.file, file);
+        forget(patchDownload.file, keyFor(patchUrl));
+        if (!expectedSha256.equalsIgnoreCase(applied.sha256)) {
+            file.delete();
+            throw new DigestMismatchException(expectedSha256, applied.sha256);
+        }
+
+        // Recorded like a finished download, so asking again returns it at once
+        State state = new State(url);
+        state.total = applied.bytes;
+        state.written = applied.bytes;
+        state.sha256 = applied.sha256;
+        save(key, state);
+        AppLog.i(TAG, "✅ APK rebuilt from a {}-byte patch", patchDownload.bytes);
+        return new Result(file, applied.sha256, applied.bytes, patchDownload.resumed, applied);
+    }
+
+    /**
+     * Blocking download with retries; call off the main thread.
+     */
+    Result download(String url, String expectedSha256, Listener listener) throws IOException {
+        return download(url, expectedSha256, ".apk", listener);
+    }
+
+    private Result download(String url, String expectedSha256, String extension, Listener listener) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        String key = keyFor(url);
+        File file = new File(dir, key + extension);
+        purgeExcept(key);
+
+        State state = State.decode(prefs.getString(key, null));
+        if (state == null || !url.equals(state.url) || !file.exists()) {
+            state = new State(url);
+        }
+        if (state.isComplete()) {
+            if (expectedSha256 == null || expectedSha256.equalsIgnoreCase(state.sha256)) {
+                AppLog.i(TAG, "📦 APK already downloaded: {}", file.getName());
+                return new Result(file, state.sha256, file.length(), true, null);
+            }
+            state = new State(url);
+        }
+
+        String sha256 = stream(key, state, new FileSink(file), listener);
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+            forget(file, key);
+            throw new DigestMismatchException(expectedSha256, sha256);
+        }
+        state.sha256 = sha256;
+        save(key, state);
+        AppLog.i(TAG, "✅ APK downloaded: {} bytes, sha256 {}", state.written, sha256);
+        return new Result(file, sha256, state.written, state.resumed, null);
+    }
+
+    /**
+     * Blocking download of url into another sink, resumable like download().
+     * Progress is kept under stateKey; the caller clears it with forget() when
+     * the sink starts over empty. Returns the verified SHA-256.
+     */
+    String downloadTo(String url, String expectedSha256, String stateKey, Sink sink, Listener listener) throws IOException {
+        State state = State.decode(prefs.getString(stateKey, null));
+        if (state == null || !url.equals(state.url)) {
+            state = new State(url);
+        }
+        if (state.isComplete() && (expectedSha256 == null || expectedSha256.equalsIgnoreCase(state.sha256))) {
+            return state.sha256;
+        }
+        state.sha256 = null;
+
+        String sha256 = stream(stateKey, state, sink, listener);
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+            forget(stateKey);
+            throw new DigestMismatchException(expectedSha256, sha256);
+        }
+        state.sha256 = sha256;
+        save(stateKey, state);
+        return sha256;
+    }
+
+    void forget(String stateKey) {
+        prefs.edit().remove(stateKey).apply();
+    }
+
+    /**
+     * The retry loop: connect, stream, and resume after drops until the whole
+     * body is in the sink. Returns the SHA-256 of everything written.
+     */
+    private String stream(String key, State state, Sink sink, Listener listener) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        if (state.written > 0) {
+            // Only after a process restart: the in-memory digest of the prefix is gone
+            rehashPrefix(sink, state, digest, buffer);
+        }
+        state.resumed = state.written > 0;
+
+        int stalled = 0;
+        while (true) {
+            long before = state.written;
+            try {
+                transfer(key, state, sink, digest, buffer, listener);
+                return toHex(digest.digest());
+            } catch (IOException e) {
+                save(key, state);
+                if (cancelled) throw new IOException("Download cancelled");
+                stalled = state.written > before ? 0 : stalled + 1;
+                if (stalled >= MAX_STALLED_ATTEMPTS) throw e;
+                state.resumed = state.resumed || state.written > 0;
+                long delay = Math.min(MAX_RETRY_MS, retryBaseMs << Math.max(0, stalled - 1));
+                AppLog.w(TAG, "⚠️ APK download interrupted at {} bytes ({}), retrying in {} ms",
+                    state.written, e.getMessage(), delay);
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * One connection: request what is missing and stream it to the sink.
+     * Throws on any drop; state.written always matches the bytes in digest.
+     */
+    private void transfer(String key, State state, Sink sink, MessageDigest digest, ByteBuffer buffer,
+                          Listener listener) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(state.url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            // Byte offsets must refer to the stored representation
+            connection.setRequestProperty("Accept-Encoding", "identity");
+            if (state.written > 0) {
+                connection.setRequestProperty("Range", "bytes=" + state.written + "-");
+                if (state.validator != null) connection.setRequestProperty("If-Range", state.validator);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == 416 && state.written > 0 && state.written == state.total) {
+                return;
+            }
+            if (status == HttpURLConnection.HTTP_PARTIAL) {
+                long start = rangeStart(connection.getHeaderField("Content-Range"));
+                if (start != state.written) {
+                    restart(state, digest, sink);
+                    throw new IOException("Unexpected Content-Range " + connection.getHeaderField("Content-Range"));
+                }
+            } else if (status == HttpURLConnection.HTTP_OK) {
+                if (state.written > 0) {
+                    // Range ignored, or the file changed on the server (If-Range failed)
+                    AppLog.w(TAG, "⚠️ Server sent the whole APK, restarting from zero");
+                    restart(state, digest, sink);
+                }
+            } else {
+                throw new IOException("HTTP " + status);
+            }
+
+            if (state.written == 0) {
+                long length = connection.getContentLengthLong();
+                state.total = length > 0 ? length : -1;
+                String etag = connection.getHeaderField("ETag");
+                state.validator = etag != null ? etag : connection.getHeaderField("Last-Modified");
+            }
+
+            try (ReadableByteChannel in = Channels.newChannel(connection.getInputStream());
+                 WritableByteChannel out = sink.openWrite(state.written, state.total)) {
+                long checkpointAt = state.written;
+                long progressAt = 0L;
+                long throttleStartedAt = SystemClock.elapsedRealtime();
+                long throttledBytes = 0L;
+                buffer.clear();
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (cancelled) throw new IOException("Download cancelled");
+                    if (read == 0) continue;
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    // Hash only what reached the sink, so a failed write cannot skew the digest
+                    buffer.rewind();
+                    digest.update(buffer);
+                    buffer.clear();
+                    state.written += read;
+                    throttledBytes += read;
+                    long limit = maxBytesPerSecond;
+                    if (limit > 0) {
+                        // Average rate since this connection opened, checked once per buffer
+                        long aheadMs = throttledBytes * 1000L / limit - (SystemClock.elapsedRealtime() - throttleStartedAt);
+                        if (aheadMs > 0) sleep(aheadMs);
+                    }
+
+                    if (state.written - checkpointAt >= CHECKPOINT_BYTES) {
+                        sink.checkpoint(out);
+                        save(key, state);
+                        checkpointAt = state.written;
+                    }
+                    long now = System.currentTimeMillis();
+                    if (listener != null && now - progressAt >= PROGRESS_INTERVAL_MS) {
+                        progressAt = now;
+                        listener.onProgress(state.written, state.total);
+                    }
+                }
+                sink.checkpoint(out);
+            }
+
+            if (state.total > 0 && state.written != state.total) {
+                throw new IOException("Connection closed at " + state.written + " of " + state.total + " bytes");
+            }
+            if (state.total <= 0) {
+                state.total = state.written;
+            }
+            if (listener != null) listener.onProgress(state.written, state.total);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void rehashPrefix(Sink sink, State state, MessageDigest digest, ByteBuffer buffer) throws IOException {
+        try (ReadableByteChannel in = sink.openRead()) {
+            long remaining = state.written;
+            while (remaining > 0) {
+                buffer.clear();
+                if (remaining < buffer.capacity()) buffer.limit((int) remaining);
+                int read = in.read(buffer);
+                if (read <= 0) {
+                    restart(state, digest, sink);
+                    return;
+                }
+                buffer.flip();
+                digest.update(buffer);
+                remaining -= read;
+            }
+        } catch (IOException e) {
+            // Nothing usable left from the earlier run
+            restart(state, digest, sink);
+            return;
+        }
+        AppLog.d(TAG, "♻️ Resuming APK download at {} bytes", state.written);
+    }
+
+    private static void restart(State state, MessageDigest digest, Sink sink) throws IOException {
+        if (state.written > 0) sink.reset();
+        state.written = 0;
+        state.total = -1;
+        state.validator = null;
+        digest.reset();
+    }
+
+    private void save(String key, State state) {
+        prefs.edit().putString(key, state.encode()).apply();
+    }
+
+    private void forget(File file, String key) {
+        forget(key);
+        file.delete();
+    }
+
+    /**
+     * A file preallocated to the announced length.
+     */
+    static final class FileSink implements Sink {
+        private final File file;
+
+        FileSink(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public WritableByteChannel openWrite(long offset, long total) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                if (offset == 0) {
+                    // Preallocate, so a full disk fails now rather than at 95%
+                    raf.setLength(Math.max(0L, total));
+                }
+                FileChannel channel = raf.getChannel();
+                channel.position(offset);
+                return channel;
+            } catch (IOException e) {
+                raf.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void checkpoint(WritableByteChannel channel) throws IOException {
+            ((FileChannel) channel).force(false);
+        }
+
+        @Override
+        public ReadableByteChannel openRead() throws IOException {
+            return new FileInputStream(file).getChannel();
+        }
+
+        @Override
+        public void reset() {
+            // openWrite(0, total) truncates to the new length
+        }
+    }
+
+    /**
+     * Only the newest download is kept; anything older is a superseded release.
+     */
+    private void purgeExcept(String key) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        SharedPreferences.Editor editor = prefs.edit();
+        for (File file : files) {
+            String name = file.getName();
+            int dot = name.indexOf('.');
+            if (file.isFile() && dot > 0 && !name.startsWith(key + ".")) {
+                file.delete();
+                editor.remove(name.substring(0, dot));
+            }
+        }
+        editor.apply();
+    }
+
+    long installedVersionCode() {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).getLongVersionCode();
+            }
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            return -1L;
+        }
+    }
+
+    // "bytes 1000-1999/2000" -> 1000
+    private static long rangeStart(String contentRange) {
+        if (contentRange == null) return -1;
+        int space = contentRange.indexOf(' ');
+        int dash = contentRange.indexOf('-');
+        if (space < 0 || dash < space) return -1;
+        try {
+            return Long.parseLong(contentRange.substring(space + 1, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static String keyFor(String url) {
+        byte[] hash = newDigest().digest(url.getBytes(StandardCharsets.UTF_8));
+        return toHex(hash).substring(0, 16);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private void sleep(long ms) throws IOException {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Receives the outcome of install sessions committed by ApkSessionInstaller.
+ */
+public class ApkInstallStatusReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        ApkSessionInstaller.getInstance(context).onStatus(intent);
+    }
+}
@@ -1,6 +1,7 @@
 package app.lovable.c9213afe1e6545938c572cfda087384c;
 
 import android.content.Intent;
+import android.content.pm.PackageInstaller;
 import android.net.Uri;
 import android.os.Build;
 import androidx.core.content.FileProvider;
@@ -13,15 +14,120 @@ import java.io.File;
 
 @CapacitorPlugin(name = "ApkInstaller")
 public class ApkInstallerPlugin extends Plugin {
+    private static final String TAG = "ApkInstaller";
+    static final String EVENT_DOWNLOAD_PROGRESS = "downloadProgress";
+
+    /**
+     * Download an APK natively (resumable, SHA-256 verified) and resolve with
+     * the file to pass to installApk. Progress arrives as "downloadProgress" events.
+     * With patchUrl/patchBaseVersionCode (and sha256), a patch against the
+     * installed APK is tried first.
+     */
+    @PluginMethod
+    public void downloadApk(PluginCall call) {
+        String url = call.getString("url");
+        String sha256 = call.getString("sha256");
+        String patchUrl = call.getString("patchUrl");
+        int patchBaseVersionCode = call.getInt("patchBaseVersionCode", -1);
+        if (url == null || url.isEmpty()) {
+            call.reject("URL is required");
+            return;
+        }
+
+        AppLog.d(TAG, "⬇️ downloadApk called with url: {}", url);
+        ApkDownloader.getInstance(getContext()).startUpdate(url, sha256, patchUrl, patchBaseVersionCode, new ApkDownloader.Listener() {
+            @Override
+            public void onProgress(long downloaded, long total) {
+                notifyListeners(EVENT_DOWNLOAD_PROGRESS, progressEvent(url, downloaded, total));
+            }
+
+            @Override
+            public void onComplete(ApkDownloader.Result result) {
+                JSObject ret = new JSObject();
+                ret.put("filePath", result.file.getAbsolutePath());
+                ret.put("sha256", result.sha256);
+                ret.put("bytes", result.bytes);
+                ret.put("resumed", result.resumed);
+                ret.put("patched", result.patch != null);
+                if (result.patch != null) {
+                    ret.put("patchApplyMs", result.patch.applyMs);
+                    ret.put("patchPeakHeapBytes", result.patch.peakHeapBytes);
+                }
+                call.resolve(ret);
+            }
+
+            @Override
+            public void onFailed(String message) {
+                call.reject("Failed to download APK: " + message);
+            }
+        });
+    }
+
+    /**
+     * Download an APK straight into a PackageInstaller session and commit it.
+     * Resolves with the installer's real outcome rather than when a dialog
+     * opens; after a successful self-update the app restarts instead.
+     */
+    @PluginMethod
+    public void installFromUrl(PluginCall call) {
+        String url = call.getString("url");
+        String sha256 = call.getString("sha256");
+        if (url == null || url.isEmpty()) {
+            call.reject("URL is required");
+            return;
+        }
+
+        AppLog.d(TAG, "⬇️ installFromUrl called with url: {}", url);
+        ApkSessionInstaller.getInstance(getContext()).install(url, sha256, new ApkSessionInstaller.Callback() {
+            @Override
+            public void onProgress(long downloaded, long total) {
+                notifyListeners(EVENT_DOWNLOAD_PROGRESS, progressEvent(url, downloaded, total));
+            }
+
+            @Override
+            public void onComplete(ApkDownloader.Result result) {}
+
+            @Override
+            public void onFailed(String message) {
+                call.reject("Failed to download APK: " + message);
+            }
+
+            @Override
+            public void onStatus(int status, String message) {
+                JSObject ret = new JSObject();
+                ret.put("success", status == PackageInstaller.STATUS_SUCCESS);
+                ret.put("status", status);
+                ret.put("message", message);
+                call.resolve(ret);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void cancelDownload(PluginCall call) {
+        ApkDownloader.getInstance(getContext()).cancel();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    private static JSObject progressEvent(String url, long downloaded, long total) {
+        JSObject progress = new JSObject();
+        progress.put("url", url);
+        progress.put("downloaded", downloaded);
+        progress.put("total", total);
+        progress.put("percent", total > 0 ? (int) (downloaded * 100 / total) : -1);
+        return progress;
+    }
 
     @PluginMethod
     public void installApk(PluginCall call) {
         String filePath = call.getString("filePath");
         
-        android.util.Log.d("ApkInstaller", "📦 installApk called with filePath: " + filePath);
+        AppLog.d(TAG, "📦 installApk called with filePath: {}", filePath);
         
         if (filePath == null || filePath.isEmpty()) {
-            android.util.Log.e("ApkInstaller", "❌ File path is null or empty");
+            AppLog.e(TAG, "❌ File path is null or empty");
             call.reject("File path is required");
             return;
         }
@@ -29,18 +135,13 @@ public class ApkInstallerPlugin extends Plugin {
         try {
             File file = new File(filePath);
             
-            android.util.Log.d("ApkInstaller", "📂 File object created: " + file.getAbsolutePath());
-            android.util.Log.d("ApkInstaller", "📂 File exists: " + file.exists());
-            android.util.Log.d("ApkInstaller", "📂 File size: " + file.length());
-            
             if (!file.exists()) {
-                android.util.Log.e("ApkInstaller", "❌ APK file not found at path: " + filePath);
+                AppLog.e(TAG, "❌ APK file not found at path: {}", filePath);
                 call.reject("APK file not found at: " + filePath);
                 return;
             }
 
             String authority = getContext().getPackageName() + ".fileprovider";
-            android.util.Log.d("ApkInstaller", "🔧 FileProvider authority: " + authority);
             
             Uri apkUri = FileProvider.getUriForFile(
                 getContext(),
@@ -48,13 +149,12 @@ public class ApkInstallerPlugin extends Plugin {
                 file
             );
             
-            android.util.Log.d("ApkInstaller", "🔧 FileProvider URI: " + apkUri.toString());
+            AppLog.d(TAG, "📂 Installing {} via {}", file, apkUri);
             
             Intent intent;
             
             // Use ACTION_INSTALL_PACKAGE for direct installation (API 24+)
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                android.util.Log.d("ApkInstaller", "🚀 Using ACTION_INSTALL_PACKAGE for direct install");
                 intent = new Intent(Intent.ACTION_INSTALL_PACKAGE);
                 intent.setData(apkUri);
                 intent.setFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
@@ -62,25 +162,22 @@ public class ApkInstallerPlugin extends Plugin {
                 intent.putExtra(Intent.EXTRA_RETURN_RESULT, true);
             } else {
                 // Fallback for older Android (API 23-)
-                android.util.Log.d("ApkInstaller", "🔧 Using ACTION_VIEW fallback for older Android");
                 intent = new Intent(Intent.ACTION_VIEW);
                 intent.setDataAndType(Uri.fromFile(file), "application/vnd.android.package-archive");
             }
             
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
             
-            android.util.Log.d("ApkInstaller", "🚀 Starting install activity...");
             getContext().startActivity(intent);
             
-            android.util.Log.d("ApkInstaller", "✅ Install activity started successfully");
+            AppLog.i(TAG, "✅ Install activity started successfully");
             
             JSObject ret = new JSObject();
             ret.put("success", true);
             call.resolve(ret);
             
         } catch (Exception e) {
-            android.util.Log.e("ApkInstaller", "❌ Failed to install APK: " + e.getMessage());
-            android.util.Log.e("ApkInstaller", "❌ Exception details: ", e);
+            AppLog.e(TAG, "❌ Failed to install APK", e);
             call.reject("Failed to install APK: " + e.getMessage());
         }
     }
@@ -95,7 +192,7 @@ public class ApkInstallerPlugin extends Plugin {
         }
 
         try {
-            android.util.Log.d("ApkInstaller", "🌐 Opening browser to: " + url);
+            AppLog.d(TAG, "🌐 Opening browser to: {}", url);
             Uri uri = Uri.parse(url);
             Intent browserIntent = new Intent(Intent.ACTION_VIEW, uri);
             browserIntent.addCategory(Intent.CATEGORY_BROWSABLE);
@@ -104,7 +201,7 @@ public class ApkInstallerPlugin extends Plugin {
 
             // Immediately show uninstall dialog
             String packageName = getContext().getPackageName();
-            android.util.Log.d("ApkInstaller", "🗑️ Triggering uninstall for package: " + packageName);
+            AppLog.d(TAG, "🗑️ Triggering uninstall for package: {}", packageName);
             Uri packageUri = Uri.parse("package:" + packageName);
             Intent deleteIntent = new Intent(Intent.ACTION_DELETE, packageUri);
             deleteIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
@@ -114,7 +211,7 @@ public class ApkInstallerPlugin extends Plugin {
             ret.put("success", true);
             call.resolve(ret);
         } catch (Exception e) {
-            android.util.Log.e("ApkInstaller", "❌ Failed uninstallThenOpen: " + e.getMessage());
+            AppLog.e(TAG, "❌ Failed uninstallThenOpen", e);
             call.reject("Failed to start uninstallThenOpen: " + e.getMessage());
         }
     }
@@ -123,13 +220,12 @@ public class ApkInstallerPlugin extends Plugin {
     public void uninstallApp(PluginCall call) {
         try {
             String packageName = getContext().getPackageName();
-            android.util.Log.d("ApkInstaller", "🗑️ Starting uninstall for package: " + packageName);
+            AppLog.d(TAG, "🗑️ Starting uninstall for package: {}", packageName);
             
             Uri packageUri = Uri.parse("package:" + packageName);
             Intent intent = new Intent(Intent.ACTION_DELETE, packageUri);
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            
-            android.util.Log.d("ApkInstaller", "🚀 Launching uninstall activity...");
+
             getContext().startActivity(intent);
             
             JSObject ret = new JSObject();
@@ -137,7 +233,7 @@ public class ApkInstallerPlugin extends Plugin {
             call.resolve(ret);
             
         } catch (Exception e) {
-            android.util.Log.e("ApkInstaller", "❌ Failed to uninstall app: " + e.getMessage());
+            AppLog.e(TAG, "❌ Failed to uninstall app", e);
             call.reject("Failed to uninstall app: " + e.getMessage());
         }
     }
@@ -0,0 +1,159 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.SystemClock;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Applies a binary patch to the installed APK to rebuild a new release.
+ *
+ * Patch format ("RMPATCH1"): the 8-byte magic, the new file's length as a
+ * big-endian int64, then one gzip stream of bsdiff records:
+ *
+ *   int64 diffLength, int64 extraLength, int64 oldSeek
+ *   diffLength bytes, each added (mod 256) to the old byte at the same offset
+ *   extraLength bytes, copied as they are
+ *   oldSeek, added to the old offset afterwards (may be negative)
+ *
+ * i.e. bsdiff's control/diff/extra triples interleaved in one stream (as in
+ * the BSDIFF43 container) with gzip instead of bzip2, which Android lacks.
+ * Everything is streamed: the old APK is read through positioned channel
+ * reads, the new one written and hashed through a BUFFER_SIZE buffer, so
+ * memory stays bounded whatever the APK size. Time and heap growth of each
+ * apply are measured and reported with the result.
+ */
+final class ApkPatcher {
+    private static final String TAG = "ApkPatcher";
+    private static final byte[] MAGIC = "RMPATCH1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Heap is sampled every this many output bytes
+    private static final long SAMPLE_BYTES = 1024 * 1024L;
+
+    static final class Result {
+        final String sha256;
+        final long bytes;
+        final long applyMs;
+        final long peakHeapBytes;
+
+        Result(String sha256, long bytes, long applyMs, long peakHeapBytes) {
+            this.sha256 = sha256;
+            this.bytes = bytes;
+            this.applyMs = applyMs;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+    }
+
+    private ApkPatcher() {}
+
+    /**
+     * Write oldFile + patch to newFile. The caller verifies the returned digest;
+     * newFile is deleted if the patch is corrupt or does not fit oldFile.
+     */
+    static Result apply(File oldFile, File patchFile, File newFile) throws IOException {
+        long startedAt = SystemClock.elapsedRealtime();
+        Runtime runtime = Runtime.getRuntime();
+        long baseHeap = runtime.totalMemory() - runtime.freeMemory();
+        long peakHeap = 0L;
+        MessageDigest digest = ApkDownloader.newDigest();
+        ByteBuffer oldBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer outBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] chunk = outBuffer.array();
+
+        boolean ok = false;
+        try (RandomAccessFile oldRaf = new RandomAccessFile(oldFile, "r");
+             FileChannel oldChannel = oldRaf.getChannel();
+             RandomAccessFile newRaf = new RandomAccessFile(newFile, "rw");
+             FileChannel out = newRaf.getChannel();
+             InputStream patchIn = new FileInputStream(patchFile)) {
+            DataInputStream header = new DataInputStream(patchIn);
+            byte[] magic = new byte[MAGIC.length];
+            header.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a RMPATCH1 patch");
+            long newSize = header.readLong();
+            long oldSize = oldChannel.size();
+            if (newSize < 0) throw new IOException("Corrupt patch header");
+            newRaf.setLength(newSize);
+
+            try (DataInputStream records = new DataInputStream(
+                     new GZIPInputStream(new BufferedInputStream(patchIn, BUFFER_SIZE), BUFFER_SIZE))) {
+                long newPos = 0L;
+                long oldPos = 0L;
+                long sampledAt = 0L;
+                while (newPos < newSize) {
+                    long diffLength = records.readLong();
+                    long extraLength = records.readLong();
+                    long oldSeek = records.readLong();
+                    if (diffLength < 0 || extraLength < 0 || newPos + diffLength + extraLength > newSize) {
+                        throw new IOException("Corrupt patch record at " + newPos);
+                    }
+
+                    // Diff: old bytes plus the patch's deltas
+                    long remaining = diffLength;
+                    while (remaining > 0) {
+                        int n = (int) Math.min(remaining, BUFFER_SIZE);
+                        records.readFully(chunk, 0, n);
+                        if (oldPos < 0 || oldPos + n > oldSize) throw new IOException("Patch does not fit the installed APK");
+                        oldBuffer.clear();
+                        oldBuffer.limit(n);
+                        while (oldBuffer.hasRemaining()) {
+                            if (oldChannel.read(oldBuffer, oldPos + oldBuffer.position()) < 0) throw new EOFException();
+                        }
+                        byte[] old = oldBuffer.array();
+                        for (int i = 0; i < n; i++) {
+                            chunk[i] += old[i];
+                        }
+                        write(out, outBuffer, n, digest);
+                        oldPos += n;
+                        remaining -= n;
+                    }
+
+                    // Extra: bytes that are new in this release
+                    remaining = extraLength;
+                    while (remaining > 0) {
+                        int n = (int) Math.min(remaining, BUFFER_SIZE);
+                        records.readFully(chunk, 0, n);
+                        write(out, outBuffer, n, digest);
+                        remaining -= n;
+                    }
+
+                    newPos += diffLength + extraLength;
+                    oldPos += oldSeek;
+                    if (newPos - sampledAt >= SAMPLE_BYTES) {
+                        sampledAt = newPos;
+                        peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory() - baseHeap);
+                    }
+                }
+            }
+            out.force(false);
+            ok = true;
+
+            long applyMs = SystemClock.elapsedRealtime() - startedAt;
+            String sha256 = ApkDownloader.toHex(digest.digest());
+            AppLog.i(TAG, "🩹 Patch applied: {} bytes in {} ms, heap +{} bytes", newSize, applyMs, peakHeap);
+            return new Result(sha256, newSize, applyMs, peakHeap);
+        } finally {
+            if (!ok) newFile.delete();
+        }
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer, int length, MessageDigest digest) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        digest.update(buffer.array(), 0, length);
+    }
+}
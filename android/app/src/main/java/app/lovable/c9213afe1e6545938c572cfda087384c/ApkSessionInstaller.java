@@ -0,0 +1,265 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInstaller;
+import android.os.Build;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Installs an update by streaming the download straight into a
+ * PackageInstaller session, instead of writing an APK file and handing a
+ * FileProvider URI to ACTION_INSTALL_PACKAGE.
+ *
+ * The bytes go through ApkDownloader's engine (resume, SHA-256 while
+ * streaming) with the session as the sink, so no intermediate copy is
+ * written. The session id is kept in prefs: a download interrupted by a
+ * process restart continues in the same session. The session is committed
+ * only after the digest matched, and the real outcome comes back through
+ * ApkInstallStatusReceiver. A successful self-update kills this process,
+ * so success is usually observed as the app restarting on the new version.
+ * An APK already downloaded and verified (e.g. by UpdatePrefetchJobService)
+ * is copied into the session instead of being downloaded again.
+ */
+final class ApkSessionInstaller {
+    private static final String TAG = "ApkSessionInstaller";
+    private static final String PREFS_NAME = "apk_session";
+    private static final String KEY_SESSION_ID = "session_id";
+    private static final String KEY_URL = "url";
+    private static final String APK_NAME = "base.apk";
+    // Download progress of the session, in ApkDownloader's prefs
+    private static final String STATE_KEY = "session";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static volatile ApkSessionInstaller instance;
+
+    interface Callback extends ApkDownloader.Listener {
+        /**
+         * Final PackageInstaller status (STATUS_SUCCESS, STATUS_FAILURE_*, ...).
+         */
+        void onStatus(int status, String message);
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final PackageInstaller packageInstaller;
+    private final Map<Integer, Callback> pending = new HashMap<>();
+
+    static ApkSessionInstaller getInstance(Context context) {
+        ApkSessionInstaller local = instance;
+        if (local == null) {
+            synchronized (ApkSessionInstaller.class) {
+                local = instance;
+                if (local == null) {
+                    local = new ApkSessionInstaller(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private ApkSessionInstaller(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.packageInstaller = context.getPackageManager().getPackageInstaller();
+    }
+
+    /**
+     * Download url into a session and commit it once verified. Download
+     * failures go to onFailed; the install outcome to onStatus.
+     */
+    void install(String url, String expectedSha256, Callback callback) {
+        ApkDownloader downloader = ApkDownloader.getInstance(context);
+        downloader.submit(() -> {
+            SessionSink sink = null;
+            try {
+                sink = new SessionSink(url);
+                File cached = downloader.cached(url, expectedSha256);
+                if (cached != null) {
+                    AppLog.i(TAG, "📦 Installing {} from the verified cache", cached.getName());
+                    sink.copyFrom(cached);
+                    callback.onProgress(cached.length(), cached.length());
+                } else {
+                    downloader.downloadTo(url, expectedSha256, STATE_KEY, sink, callback);
+                }
+                int sessionId = sink.sessionId;
+                synchronized (pending) {
+                    pending.put(sessionId, callback);
+                }
+                commit(sink.session, sessionId);
+                AppLog.i(TAG, "📦 Install session {} committed", sessionId);
+            } catch (ApkDownloader.DigestMismatchException e) {
+                // Not the announced release; the next attempt must start over
+                if (sink != null) sink.abandon();
+                callback.onFailed(e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                // The session is kept, so the next attempt resumes where this one stopped
+                AppLog.w(TAG, "⚠️ Session install failed: {}", e.getMessage());
+                if (sink != null) sink.close();
+                callback.onFailed(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Status from the installer, via ApkInstallStatusReceiver.
+     */
+    void onStatus(Intent intent) {
+        int status = intent.getIntExtra(PackageInstaller.EXTRA_STATUS, PackageInstaller.STATUS_FAILURE);
+        int sessionId = intent.getIntExtra(PackageInstaller.EXTRA_SESSION_ID, -1);
+        String message = intent.getStringExtra(PackageInstaller.EXTRA_STATUS_MESSAGE);
+
+        if (status == PackageInstaller.STATUS_PENDING_USER_ACTION) {
+            // The system needs the user to confirm; show its dialog, the final status follows
+            Intent confirm = intent.getParcelableExtra(Intent.EXTRA_INTENT);
+            if (confirm != null) {
+                confirm.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                context.startActivity(confirm);
+            }
+            return;
+        }
+
+        AppLog.i(TAG, "📦 Install session {} finished with status {} ({})", sessionId, status, message);
+        // A committed session is gone whatever the outcome
+        if (prefs.getInt(KEY_SESSION_ID, -1) == sessionId) {
+            clear();
+        }
+        Callback callback;
+        synchronized (pending) {
+            callback = pending.remove(sessionId);
+        }
+        if (callback != null) {
+            callback.onStatus(status, message);
+        }
+    }
+
+    private void commit(PackageInstaller.Session session, int sessionId) {
+        Intent intent = new Intent(context, ApkInstallStatusReceiver.class);
+        // The installer fills in the status extras, so this one must be mutable
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT
+            | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S ? PendingIntent.FLAG_MUTABLE : 0);
+        PendingIntent statusIntent = PendingIntent.getBroadcast(context, sessionId, intent, flags);
+        session.commit(statusIntent.getIntentSender());
+        session.close();
+    }
+
+    private void clear() {
+        prefs.edit().clear().apply();
+        ApkDownloader.getInstance(context).forget(STATE_KEY);
+    }
+
+    /**
+     * The session's APK as a download sink. Reuses the stored session when it
+     * is still open for the same URL; otherwise starts a new one.
+     */
+    private final class SessionSink implements ApkDownloader.Sink {
+        private final String url;
+        PackageInstaller.Session session;
+        int sessionId;
+        private OutputStream current;
+
+        SessionSink(String url) throws IOException {
+            this.url = url;
+            int stored = prefs.getInt(KEY_SESSION_ID, -1);
+            if (stored != -1 && url.equals(prefs.getString(KEY_URL, null))
+                    && packageInstaller.getSessionInfo(stored) != null) {
+                try {
+                    session = packageInstaller.openSession(stored);
+                    sessionId = stored;
+                    AppLog.d(TAG, "♻️ Reusing install session {}", stored);
+                    return;
+                } catch (IOException | SecurityException e) {
+                    AppLog.w(TAG, "⚠️ Install session {} is gone: {}", stored, e.getMessage());
+                }
+            }
+            if (stored != -1) {
+                abandonQuietly(stored);
+            }
+            create();
+        }
+
+        private void create() throws IOException {
+            PackageInstaller.SessionParams params =
+                new PackageInstaller.SessionParams(PackageInstaller.SessionParams.MODE_FULL_INSTALL);
+            params.setAppPackageName(context.getPackageName());
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                // Updating ourselves as the installer of record needs no confirmation dialog
+                params.setRequireUserAction(PackageInstaller.SessionParams.USER_ACTION_NOT_REQUIRED);
+            }
+            sessionId = packageInstaller.createSession(params);
+            session = packageInstaller.openSession(sessionId);
+            prefs.edit().putInt(KEY_SESSION_ID, sessionId).putString(KEY_URL, url).apply();
+            // A new session is empty; earlier progress no longer applies
+            ApkDownloader.getInstance(context).forget(STATE_KEY);
+            AppLog.d(TAG, "🆕 Created install session {}", sessionId);
+        }
+
+        @Override
+        public WritableByteChannel openWrite(long offset, long total) throws IOException {
+            current = session.openWrite(APK_NAME, offset, total > 0 ? total - offset : -1);
+            return Channels.newChannel(current);
+        }
+
+        @Override
+        public void checkpoint(WritableByteChannel channel) throws IOException {
+            session.fsync(current);
+        }
+
+        @Override
+        public ReadableByteChannel openRead() throws IOException {
+            return Channels.newChannel(session.openRead(APK_NAME));
+        }
+
+        @Override
+        public void reset() throws IOException {
+            // A session file cannot be truncated; start a fresh session instead
+            abandon();
+            create();
+        }
+
+        /**
+         * Write a local APK as the session's whole content.
+         */
+        void copyFrom(File apk) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = new FileInputStream(apk);
+                 OutputStream out = session.openWrite(APK_NAME, 0, apk.length())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                session.fsync(out);
+            }
+        }
+
+        void close() {
+            if (session != null) session.close();
+        }
+
+        void abandon() {
+            if (session != null) {
+                session.abandon();
+                session = null;
+            }
+            clear();
+        }
+
+        private void abandonQuietly(int id) {
+            try {
+                packageInstaller.openSession(id).abandon();
+            } catch (IOException | SecurityException ignored) {}
+        }
+    }
+}
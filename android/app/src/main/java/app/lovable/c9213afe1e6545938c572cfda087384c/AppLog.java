@@ -0,0 +1,148 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.util.Log;
+
+/**
+ * Logging facade for the native layer.
+ *
+ * Messages are templates with "{}" placeholders and up to three arguments,
+ * formatted only when an event is actually written to logcat or dumped from
+ * the ring, so a disabled level costs one int comparison. Use fixed-arity
+ * overloads (no varargs) to keep call sites allocation-free, and pass
+ * immutable arguments since formatting may happen later.
+ *
+ * Debug builds log DEBUG and up to logcat; release builds only WARN and up.
+ * Events at RING_LEVEL and up are also kept in an in-memory DiagnosticRing
+ * that the Diagnostics plugin can dump for field debugging.
+ */
+final class AppLog {
+    private static final int LOGCAT_LEVEL = BuildConfig.DEBUG ? Log.DEBUG : Log.WARN;
+    private static final int RING_LEVEL = BuildConfig.DEBUG ? Log.DEBUG : Log.INFO;
+    private static final int RING_CAPACITY = 512;
+
+    private static final DiagnosticRing RING = new DiagnosticRing(RING_CAPACITY);
+
+    private AppLog() {}
+
+    static DiagnosticRing ring() {
+        return RING;
+    }
+
+    /**
+     * Guard for blocks that need more than three arguments or a loop to describe.
+     */
+    static boolean isDebugEnabled() {
+        return LOGCAT_LEVEL <= Log.DEBUG || RING_LEVEL <= Log.DEBUG;
+    }
+
+    static void d(String tag, String message) {
+        log(Log.DEBUG, tag, message, 0, null, null, null, null);
+    }
+
+    static void d(String tag, String template, Object a) {
+        log(Log.DEBUG, tag, template, 1, a, null, null, null);
+    }
+
+    static void d(String tag, String template, Object a, Object b) {
+        log(Log.DEBUG, tag, template, 2, a, b, null, null);
+    }
+
+    static void d(String tag, String template, Object a, Object b, Object c) {
+        log(Log.DEBUG, tag, template, 3, a, b, c, null);
+    }
+
+    static void i(String tag, String message) {
+        log(Log.INFO, tag, message, 0, null, null, null, null);
+    }
+
+    static void i(String tag, String template, Object a) {
+        log(Log.INFO, tag, template, 1, a, null, null, null);
+    }
+
+    static void i(String tag, String template, Object a, Object b) {
+        log(Log.INFO, tag, template, 2, a, b, null, null);
+    }
+
+    static void i(String tag, String template, Object a, Object b, Object c) {
+        log(Log.INFO, tag, template, 3, a, b, c, null);
+    }
+
+    static void w(String tag, String message) {
+        log(Log.WARN, tag, message, 0, null, null, null, null);
+    }
+
+    static void w(String tag, String template, Object a) {
+        log(Log.WARN, tag, template, 1, a, null, null, null);
+    }
+
+    static void w(String tag, String template, Object a, Object b) {
+        log(Log.WARN, tag, template, 2, a, b, null, null);
+    }
+
+    static void e(String tag, String message) {
+        log(Log.ERROR, tag, message, 0, null, null, null, null);
+    }
+
+    static void e(String tag, String template, Object a) {
+        log(Log.ERROR, tag, template, 1, a, null, null, null);
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        log(Log.ERROR, tag, message, 0, null, null, null, error);
+    }
+
+    static void e(String tag, String template, Object a, Throwable error) {
+        log(Log.ERROR, tag, template, 1, a, null, null, error);
+    }
+
+    private static void log(int level, String tag, String template, int argCount,
+                            Object a, Object b, Object c, Throwable error) {
+        boolean toRing = level >= RING_LEVEL;
+        boolean toLogcat = level >= LOGCAT_LEVEL;
+        if (!toRing && !toLogcat) return;
+
+        if (toRing) {
+            // The throwable rides along as an extra argument so the dump shows it
+            if (error != null && argCount < 3) {
+                if (argCount == 0) a = error; else if (argCount == 1) b = error; else c = error;
+                template = template + " {}";
+                argCount++;
+            }
+            RING.record(System.currentTimeMillis(), level, tag, template, argCount, a, b, c);
+        }
+        if (toLogcat) {
+            String message = format(template, argCount, a, b, c);
+            if (error != null && !toRing) {
+                message = message + '\n' + Log.getStackTraceString(error);
+            }
+            Log.println(level, tag, message);
+        }
+    }
+
+    /**
+     * Replace successive "{}" in the template with the arguments.
+     */
+    static String format(String template, int argCount, Object a, Object b, Object c) {
+        if (template == null) return "";
+        if (argCount == 0) return template;
+
+        StringBuilder sb = new StringBuilder(template.length() + 32 * argCount);
+        int from = 0;
+        int used = 0;
+        while (used < argCount) {
+            int idx = template.indexOf("{}", from);
+            if (idx < 0) break;
+            sb.append(template, from, idx);
+            Object arg = used == 0 ? a : (used == 1 ? b : c);
+            if (arg instanceof Throwable) {
+                sb.append(Log.getStackTraceString((Throwable) arg));
+            } else {
+                sb.append(arg);
+            }
+            used++;
+            from = idx + 2;
+        }
+        sb.append(template, from, template.length());
+        return sb.toString();
+    }
+}
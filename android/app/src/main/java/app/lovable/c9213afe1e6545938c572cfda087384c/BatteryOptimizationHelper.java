@@ -7,7 +7,7 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.PowerManager;
 import android.provider.Settings;
-import android.util.Log;
+import java.util.Locale;
 
 /**
  * Helper class for handling battery optimization exemption requests
@@ -17,6 +17,8 @@ import android.util.Log;
 public class BatteryOptimizationHelper {
     private static final String TAG = "BatteryOptimization";
 
+    private static volatile Boolean xiaomiDevice;
+
     /**
      * Check if the app is already whitelisted from battery optimizations
      */
@@ -25,7 +27,7 @@ public class BatteryOptimizationHelper {
             PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
             if (powerManager != null) {
                 boolean isIgnoring = powerManager.isIgnoringBatteryOptimizations(context.getPackageName());
-                Log.d(TAG, "Battery optimization status: " + (isIgnoring ? "EXEMPTED" : "RESTRICTED"));
+                AppLog.d(TAG, "Battery optimization status: {}", isIgnoring ? "EXEMPTED" : "RESTRICTED");
                 return isIgnoring;
             }
         }
@@ -41,7 +43,7 @@ public class BatteryOptimizationHelper {
             PowerManager powerManager = (PowerManager) activity.getSystemService(Context.POWER_SERVICE);
             
             if (powerManager != null && !powerManager.isIgnoringBatteryOptimizations(activity.getPackageName())) {
-                Log.d(TAG, "Requesting battery optimization exemption...");
+                AppLog.d(TAG, "Requesting battery optimization exemption...");
                 
                 try {
                     // Use ACTION_REQUEST_IGNORE_BATTERY_OPTIMIZATIONS
@@ -49,22 +51,22 @@ public class BatteryOptimizationHelper {
                     Intent intent = new Intent(Settings.ACTION_REQUEST_IGNORE_BATTERY_OPTIMIZATIONS);
                     intent.setData(Uri.parse("package:" + activity.getPackageName()));
                     activity.startActivity(intent);
-                    Log.d(TAG, "✅ Battery optimization exemption dialog shown");
+                    AppLog.d(TAG, "✅ Battery optimization exemption dialog shown");
                 } catch (Exception e) {
-                    Log.e(TAG, "❌ Failed to request battery optimization exemption", e);
+                    AppLog.e(TAG, "❌ Failed to request battery optimization exemption", e);
                     
                     // Fallback: Open app details settings
                     try {
                         Intent intent = new Intent(Settings.ACTION_APPLICATION_DETAILS_SETTINGS);
                         intent.setData(Uri.parse("package:" + activity.getPackageName()));
                         activity.startActivity(intent);
-                        Log.d(TAG, "✅ Opened app settings as fallback");
+                        AppLog.d(TAG, "✅ Opened app settings as fallback");
                     } catch (Exception e2) {
-                        Log.e(TAG, "❌ Failed to open app settings", e2);
+                        AppLog.e(TAG, "❌ Failed to open app settings", e2);
                     }
                 }
             } else {
-                Log.d(TAG, "App is already exempted from battery optimization");
+                AppLog.d(TAG, "App is already exempted from battery optimization");
             }
         }
     }
@@ -73,12 +75,17 @@ public class BatteryOptimizationHelper {
      * Check if the device is a Xiaomi/Redmi device
      */
     public static boolean isXiaomiDevice() {
-        String manufacturer = Build.MANUFACTURER.toLowerCase();
-        boolean isXiaomi = manufacturer.contains("xiaomi") || manufacturer.contains("redmi");
-        if (isXiaomi) {
-            Log.d(TAG, "🔍 Xiaomi/Redmi device detected: " + Build.MANUFACTURER + " " + Build.MODEL);
+        // Build.MANUFACTURER never changes; classify (and log) once per process
+        Boolean cached = xiaomiDevice;
+        if (cached == null) {
+            String manufacturer = Build.MANUFACTURER.toLowerCase(Locale.ROOT);
+            cached = manufacturer.contains("xiaomi") || manufacturer.contains("redmi");
+            if (cached) {
+                AppLog.d(TAG, "🔍 Xiaomi/Redmi device detected: {} {}", Build.MANUFACTURER, Build.MODEL);
+            }
+            xiaomiDevice = cached;
         }
-        return isXiaomi;
+        return cached;
     }
 
     /**
@@ -87,11 +94,11 @@ public class BatteryOptimizationHelper {
      */
     public static void openAutostartSettings(Activity activity) {
         if (!isXiaomiDevice()) {
-            Log.d(TAG, "Not a Xiaomi device, skipping autostart settings");
+            AppLog.d(TAG, "Not a Xiaomi device, skipping autostart settings");
             return;
         }
 
-        Log.d(TAG, "Opening autostart settings for Xiaomi device...");
+        AppLog.d(TAG, "Opening autostart settings for Xiaomi device...");
         
         try {
             // Try MIUI autostart settings
@@ -99,9 +106,9 @@ public class BatteryOptimizationHelper {
             intent.setClassName("com.miui.securitycenter",
                     "com.miui.permcenter.autostart.AutoStartManagementActivity");
             activity.startActivity(intent);
-            Log.d(TAG, "✅ Opened MIUI autostart settings");
+            AppLog.d(TAG, "✅ Opened MIUI autostart settings");
         } catch (Exception e) {
-            Log.e(TAG, "Failed to open MIUI autostart settings", e);
+            AppLog.e(TAG, "Failed to open MIUI autostart settings", e);
             
             try {
                 // Fallback: Try HyperOS autostart settings
@@ -110,18 +117,18 @@ public class BatteryOptimizationHelper {
                         "com.miui.appmanager.ApplicationsDetailsActivity");
                 intent.putExtra("package_name", activity.getPackageName());
                 activity.startActivity(intent);
-                Log.d(TAG, "✅ Opened HyperOS autostart settings");
+                AppLog.d(TAG, "✅ Opened HyperOS autostart settings");
             } catch (Exception e2) {
-                Log.e(TAG, "Failed to open HyperOS autostart settings", e2);
+                AppLog.e(TAG, "Failed to open HyperOS autostart settings", e2);
                 
                 // Last resort: Open app settings
                 try {
                     Intent intent = new Intent(Settings.ACTION_APPLICATION_DETAILS_SETTINGS);
                     intent.setData(Uri.parse("package:" + activity.getPackageName()));
                     activity.startActivity(intent);
-                    Log.d(TAG, "✅ Opened app settings as fallback");
+                    AppLog.d(TAG, "✅ Opened app settings as fallback");
                 } catch (Exception e3) {
-                    Log.e(TAG, "❌ All methods failed", e3);
+                    AppLog.e(TAG, "❌ All methods failed", e3);
                 }
             }
         }
@@ -0,0 +1,114 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.List;
+
+/**
+ * Capacitor plugin exposing the push delivery timeline to the web layer.
+ * The web app reads percentile summaries for display and uploads raw
+ * per-message records to mobile-api in batches, acknowledging each batch
+ * so it is not sent again.
+ */
+@CapacitorPlugin(name = "DeliveryMetrics")
+public class DeliveryMetricsPlugin extends Plugin {
+    private static final int DEFAULT_BATCH_LIMIT = 50;
+    // Give late stages (first frame, tap) time to land before a record is uploaded
+    private static final long SETTLE_MS = 2 * 60 * 1000L;
+
+    @PluginMethod
+    public void getSummary(PluginCall call) {
+        DeliveryTimeline timeline = DeliveryTimeline.getInstance(getContext());
+        getBridge().execute(() -> {
+            List<DeliveryTimeline.Message> messages = timeline.loadMessages();
+
+            int deprioritized = 0;
+            for (DeliveryTimeline.Message message : messages) {
+                if (message.priorities != null && isDeprioritized(message.priorities)) deprioritized++;
+            }
+
+            JSObject result = new JSObject();
+            result.put("messages", messages.size());
+            result.put("deprioritized", deprioritized);
+            result.put("fcm", stats(messages, DeliveryTimeline.STAGE_SENT, DeliveryTimeline.STAGE_RECEIVED));
+            result.put("dispatch", stats(messages, DeliveryTimeline.STAGE_RECEIVED, DeliveryTimeline.STAGE_NOTIFIED));
+            result.put("launch", stats(messages, DeliveryTimeline.STAGE_NOTIFIED, DeliveryTimeline.STAGE_ACTIVITY_CREATED));
+            result.put("render", stats(messages, DeliveryTimeline.STAGE_ACTIVITY_CREATED, DeliveryTimeline.STAGE_FIRST_FRAME));
+            result.put("response", stats(messages, DeliveryTimeline.STAGE_NOTIFIED, DeliveryTimeline.STAGE_TAPPED));
+            // Native answers from IncomingOrderActivity: tap to server confirmation
+            result.put("answer", stats(messages, DeliveryTimeline.STAGE_TAPPED, DeliveryTimeline.STAGE_ANSWERED));
+            result.put("endToEnd", stats(messages, DeliveryTimeline.STAGE_SENT, DeliveryTimeline.STAGE_NOTIFIED));
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void getPendingBatch(PluginCall call) {
+        int limit = call.getInt("limit", DEFAULT_BATCH_LIMIT);
+        DeliveryTimeline timeline = DeliveryTimeline.getInstance(getContext());
+        getBridge().execute(() -> {
+            List<DeliveryTimeline.Message> pending = timeline.pendingUpload(Math.max(1, limit), SETTLE_MS);
+
+            JSArray records = new JSArray();
+            long cursor = 0L;
+            for (DeliveryTimeline.Message message : pending) {
+                JSObject record = new JSObject();
+                record.put("messageId", message.key);
+                record.put("sentAt", orNull(message.times[DeliveryTimeline.STAGE_SENT]));
+                record.put("receivedAt", orNull(message.times[DeliveryTimeline.STAGE_RECEIVED]));
+                record.put("notifiedAt", orNull(message.times[DeliveryTimeline.STAGE_NOTIFIED]));
+                record.put("activityCreatedAt", orNull(message.times[DeliveryTimeline.STAGE_ACTIVITY_CREATED]));
+                record.put("firstFrameAt", orNull(message.times[DeliveryTimeline.STAGE_FIRST_FRAME]));
+                record.put("tappedAt", orNull(message.times[DeliveryTimeline.STAGE_TAPPED]));
+                record.put("answeredAt", orNull(message.times[DeliveryTimeline.STAGE_ANSWERED]));
+                record.put("priorities", message.priorities);
+                record.put("action", message.action);
+                records.put(record);
+                cursor = Math.max(cursor, message.times[DeliveryTimeline.STAGE_RECEIVED]);
+            }
+
+            JSObject result = new JSObject();
+            result.put("records", records);
+            result.put("cursor", cursor);
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void ackBatch(PluginCall call) {
+        Long cursor = call.getLong("cursor");
+        if (cursor == null) {
+            call.reject("cursor is required");
+            return;
+        }
+        DeliveryTimeline.getInstance(getContext()).acknowledgeUpload(cursor);
+        call.resolve();
+    }
+
+    private static JSObject stats(List<DeliveryTimeline.Message> messages, int fromStage, int toStage) {
+        long[] sorted = DeliveryTimeline.latencies(messages, fromStage, toStage);
+        JSObject stats = new JSObject();
+        stats.put("count", sorted.length);
+        stats.put("p50", DeliveryTimeline.percentile(sorted, 50));
+        stats.put("p90", DeliveryTimeline.percentile(sorted, 90));
+        stats.put("p99", DeliveryTimeline.percentile(sorted, 99));
+        return stats;
+    }
+
+    /**
+     * FCM downgrades high-priority messages from apps that rarely show them;
+     * "priority/originalPriority" differs when that happened.
+     */
+    private static boolean isDeprioritized(String priorities) {
+        int slash = priorities.indexOf('/');
+        return slash > 0 && !priorities.substring(0, slash).equals(priorities.substring(slash + 1));
+    }
+
+    private static Object orNull(long time) {
+        return time == 0 ? JSObject.NULL : time;
+    }
+}
@@ -0,0 +1,260 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * On-device record of how long each push took to reach the specialist.
+ *
+ * Every stage of a message (FCM sent, received, notify(), IncomingOrderActivity
+ * created / first frame, tap, server confirmation of a native answer) is
+ * appended as one short line to a log file in filesDir. Writes happen on a
+ * single background thread and the log rotates at MAX_FILE_BYTES (one
+ * previous generation kept), so it never grows unbounded.
+ *
+ * Line format: key,stage,wallClockMs[,extra]
+ * Taps that arrive without a message key (plain notification taps) use key "*"
+ * and are attributed to the latest message notified before the tap.
+ */
+final class DeliveryTimeline {
+    private static final String TAG = "DeliveryTimeline";
+
+    static final int STAGE_SENT = 0;
+    static final int STAGE_RECEIVED = 1;
+    static final int STAGE_NOTIFIED = 2;
+    static final int STAGE_ACTIVITY_CREATED = 3;
+    static final int STAGE_FIRST_FRAME = 4;
+    static final int STAGE_TAPPED = 5;
+    static final int STAGE_ANSWERED = 6;
+    private static final int STAGE_COUNT = 7;
+
+    static final String EXTRA_TIMELINE_KEY = "timelineKey";
+    static final String UNKNOWN_KEY = "*";
+
+    private static final String FILE_NAME = "delivery_timeline.log";
+    private static final String OLD_FILE_NAME = "delivery_timeline.old.log";
+    private static final long MAX_FILE_BYTES = 128 * 1024L;
+    // Taps more than this long after notify() are not attributed to the message
+    private static final long TAP_ATTRIBUTION_WINDOW_MS = 5 * 60 * 1000L;
+
+    private static final String PREFS_NAME = "delivery_timeline";
+    private static final String KEY_UPLOADED_THROUGH = "uploaded_through";
+
+    private static volatile DeliveryTimeline instance;
+
+    private final File file;
+    private final File oldFile;
+    private final SharedPreferences prefs;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "delivery-timeline"));
+
+    static DeliveryTimeline getInstance(Context context) {
+        DeliveryTimeline local = instance;
+        if (local == null) {
+            synchronized (DeliveryTimeline.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DeliveryTimeline(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private DeliveryTimeline(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        this.oldFile = new File(context.getFilesDir(), OLD_FILE_NAME);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Record arrival of a push together with FCM's sent time and priorities.
+     */
+    void onReceived(String key, long sentTime, long receivedAt, int priority, int originalPriority) {
+        if (key == null) return;
+        if (sentTime > 0) {
+            append(key, STAGE_SENT, sentTime, null);
+        }
+        append(key, STAGE_RECEIVED, receivedAt, priority + "/" + originalPriority);
+    }
+
+    void record(String key, int stage, long timeMillis) {
+        append(key != null ? key : UNKNOWN_KEY, stage, timeMillis, null);
+    }
+
+    void record(String key, int stage, long timeMillis, String extra) {
+        append(key != null ? key : UNKNOWN_KEY, stage, timeMillis, extra);
+    }
+
+    private void append(String key, int stage, long timeMillis, String extra) {
+        writer.execute(() -> {
+            StringBuilder line = new StringBuilder(64)
+                .append(sanitize(key)).append(',').append(stage).append(',').append(timeMillis);
+            if (extra != null) {
+                line.append(',').append(sanitize(extra));
+            }
+            line.append('\n');
+            try {
+                if (file.length() > MAX_FILE_BYTES) {
+                    if (oldFile.exists() && !oldFile.delete()) {
+                        AppLog.w(TAG, "⚠️ Could not delete old timeline file");
+                    }
+                    if (!file.renameTo(oldFile)) {
+                        AppLog.w(TAG, "⚠️ Could not rotate timeline file");
+                    }
+                }
+                try (FileOutputStream out = new FileOutputStream(file, true)) {
+                    out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                AppLog.e(TAG, "❌ Failed to append timeline entry", e);
+            }
+        });
+    }
+
+    /**
+     * Per-message stage times, ordered by receive time. Unknown stages are 0.
+     */
+    List<Message> loadMessages() {
+        Map<String, Message> byKey = new HashMap<>();
+        List<Message> ordered = new ArrayList<>();
+        List<long[]> looseTaps = new ArrayList<>();
+        readInto(oldFile, byKey, ordered, looseTaps);
+        readInto(file, byKey, ordered, looseTaps);
+
+        // Attribute key-less taps to the latest message notified before them
+        for (long[] tap : looseTaps) {
+            Message best = null;
+            for (Message message : ordered) {
+                long notified = message.times[STAGE_NOTIFIED];
+                if (notified == 0 || notified > tap[0] || tap[0] - notified > TAP_ATTRIBUTION_WINDOW_MS) continue;
+                if (message.times[STAGE_TAPPED] != 0) continue;
+                if (best == null || notified > best.times[STAGE_NOTIFIED]) best = message;
+            }
+            if (best != null) best.times[STAGE_TAPPED] = tap[0];
+        }
+        ordered.sort((a, b) -> Long.compare(a.times[STAGE_RECEIVED], b.times[STAGE_RECEIVED]));
+        return ordered;
+    }
+
+    private void readInto(File source, Map<String, Message> byKey, List<Message> ordered, List<long[]> looseTaps) {
+        if (!source.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new FileReader(source))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int c1 = line.indexOf(',');
+                int c2 = c1 < 0 ? -1 : line.indexOf(',', c1 + 1);
+                if (c2 < 0) continue;
+                int c3 = line.indexOf(',', c2 + 1);
+                String key = line.substring(0, c1);
+                int stage;
+                long time;
+                try {
+                    stage = Integer.parseInt(line.substring(c1 + 1, c2));
+                    time = Long.parseLong(c3 < 0 ? line.substring(c2 + 1) : line.substring(c2 + 1, c3));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (stage < 0 || stage >= STAGE_COUNT) continue;
+                String extra = c3 < 0 ? null : line.substring(c3 + 1);
+
+                if (UNKNOWN_KEY.equals(key)) {
+                    if (stage == STAGE_TAPPED) looseTaps.add(new long[]{time});
+                    continue;
+                }
+                Message message = byKey.get(key);
+                if (message == null) {
+                    message = new Message(key);
+                    byKey.put(key, message);
+                    ordered.add(message);
+                }
+                // First occurrence wins, e.g. the first frame rather than a re-render
+                if (message.times[stage] == 0) message.times[stage] = time;
+                if (stage == STAGE_RECEIVED && extra != null) message.priorities = extra;
+                if (stage == STAGE_TAPPED && extra != null) message.action = extra;
+            }
+        } catch (IOException e) {
+            AppLog.e(TAG, "❌ Failed to read timeline", e);
+        }
+    }
+
+    /**
+     * Messages received after the last acknowledged upload that are old enough
+     * for their later stages to have been recorded.
+     */
+    List<Message> pendingUpload(int limit, long settleMs) {
+        long uploadedThrough = prefs.getLong(KEY_UPLOADED_THROUGH, 0L);
+        long settledBefore = System.currentTimeMillis() - settleMs;
+        List<Message> pending = new ArrayList<>();
+        for (Message message : loadMessages()) {
+            long received = message.times[STAGE_RECEIVED];
+            if (received <= uploadedThrough || received == 0 || received > settledBefore) continue;
+            pending.add(message);
+            if (pending.size() >= limit) break;
+        }
+        return pending;
+    }
+
+    void acknowledgeUpload(long receivedThrough) {
+        if (receivedThrough > prefs.getLong(KEY_UPLOADED_THROUGH, 0L)) {
+            prefs.edit().putLong(KEY_UPLOADED_THROUGH, receivedThrough).apply();
+        }
+    }
+
+    /**
+     * Sorted latencies between two stages for every message that has both.
+     */
+    static long[] latencies(List<Message> messages, int fromStage, int toStage) {
+        long[] values = new long[messages.size()];
+        int count = 0;
+        for (Message message : messages) {
+            long from = message.times[fromStage];
+            long to = message.times[toStage];
+            if (from == 0 || to == 0 || to < from) continue;
+            values[count++] = to - from;
+        }
+        long[] result = Arrays.copyOf(values, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Nearest-rank percentile of a sorted array, or -1 when empty.
+     */
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return -1L;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static String sanitize(String value) {
+        return value.indexOf(',') < 0 && value.indexOf('\n') < 0
+            ? value
+            : value.replace(',', ';').replace('\n', ' ');
+    }
+
+    static final class Message {
+        final String key;
+        final long[] times = new long[STAGE_COUNT];
+        /** "priority/originalPriority" as reported by RemoteMessage. */
+        String priorities;
+        String action;
+
+        Message(String key) {
+            this.key = key;
+        }
+    }
+}
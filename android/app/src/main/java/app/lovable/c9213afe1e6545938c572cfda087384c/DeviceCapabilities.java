@@ -0,0 +1,203 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.ActivityManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.provider.Settings;
+import androidx.core.app.NotificationManagerCompat;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * One cached snapshot of everything the app needs to know about how the
+ * device will treat its alerts: full-screen intent and overlay permission,
+ * battery exemption, OEM, standby bucket, notification permission and the
+ * importance of each of our channels.
+ *
+ * Computing it costs several Binder calls, so it is built once off the main
+ * thread and reused until refreshed; DeviceCapabilitiesPlugin refreshes it
+ * whenever MainActivity resumes, which covers returning from a settings screen.
+ */
+final class DeviceCapabilities {
+    private static final String TAG = "DeviceCapabilities";
+
+    static final String[] CHANNEL_IDS = {
+        NotificationChannelRegistry.ORDERS_CHANNEL_ID,
+        NotificationChannelRegistry.CALL_CHANNEL_ID,
+        NotificationChannelRegistry.UPDATE_CHANNEL_ID,
+        NotificationChannelRegistry.DIGEST_CHANNEL_ID
+    };
+
+    private static volatile DeviceCapabilities instance;
+
+    private final Context context;
+    private volatile Snapshot cached;
+
+    static DeviceCapabilities getInstance(Context context) {
+        DeviceCapabilities local = instance;
+        if (local == null) {
+            synchronized (DeviceCapabilities.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DeviceCapabilities(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private DeviceCapabilities(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Cached snapshot, computed on the calling thread if there is none. Do not call on the main thread.
+     */
+    Snapshot get() {
+        Snapshot local = cached;
+        if (local == null) {
+            local = compute();
+            cached = local;
+        }
+        return local;
+    }
+
+    /**
+     * Cached snapshot without computing it, or null if there is none yet. Safe on the main thread.
+     */
+    Snapshot peek() {
+        return cached;
+    }
+
+    /**
+     * Recompute the cached snapshot and report whether anything changed.
+     * Nothing to compare against before the first get(), which computes it anyway.
+     */
+    boolean refresh() {
+        Snapshot previous = cached;
+        if (previous == null) return false;
+        Snapshot next = compute();
+        cached = next;
+        return !previous.sameAs(next);
+    }
+
+    private Snapshot compute() {
+        long start = SystemClock.elapsedRealtime();
+
+        boolean fullScreenIntent = true;
+        NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            fullScreenIntent = notificationManager != null && notificationManager.canUseFullScreenIntent();
+        }
+
+        boolean overlay = Build.VERSION.SDK_INT < Build.VERSION_CODES.M || Settings.canDrawOverlays(context);
+        boolean batteryExempt = BatteryOptimizationHelper.isIgnoringBatteryOptimizations(context);
+
+        boolean backgroundRestricted = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            ActivityManager activityManager = context.getSystemService(ActivityManager.class);
+            backgroundRestricted = activityManager != null && activityManager.isBackgroundRestricted();
+        }
+
+        String standbyBucket = "unknown";
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            UsageStatsManager usageStats = context.getSystemService(UsageStatsManager.class);
+            if (usageStats != null) {
+                standbyBucket = bucketName(usageStats.getAppStandbyBucket());
+            }
+        }
+
+        boolean notificationsEnabled = NotificationManagerCompat.from(context).areNotificationsEnabled();
+
+        // -1: channel missing (or pre-O, where channels do not exist)
+        int[] channelImportance = new int[CHANNEL_IDS.length];
+        Arrays.fill(channelImportance, -1);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && notificationManager != null) {
+            for (int i = 0; i < CHANNEL_IDS.length; i++) {
+                NotificationChannel channel = notificationManager.getNotificationChannel(CHANNEL_IDS[i]);
+                if (channel != null) channelImportance[i] = channel.getImportance();
+            }
+        }
+
+        Snapshot snapshot = new Snapshot(
+            fullScreenIntent, overlay, batteryExempt, backgroundRestricted,
+            oem(), Build.MANUFACTURER, standbyBucket, notificationsEnabled,
+            channelImportance, System.currentTimeMillis());
+        AppLog.d(TAG, "📱 Capabilities computed in {}ms", SystemClock.elapsedRealtime() - start);
+        return snapshot;
+    }
+
+    private static String oem() {
+        if (BatteryOptimizationHelper.isXiaomiDevice()) return "xiaomi";
+        String manufacturer = Build.MANUFACTURER.toLowerCase(Locale.ROOT);
+        if (manufacturer.contains("samsung")) return "samsung";
+        if (manufacturer.contains("huawei") || manufacturer.contains("honor")) return "huawei";
+        if (manufacturer.contains("oppo") || manufacturer.contains("realme")) return "oppo";
+        if (manufacturer.contains("vivo")) return "vivo";
+        if (manufacturer.contains("oneplus")) return "oneplus";
+        return "other";
+    }
+
+    private static String bucketName(int bucket) {
+        switch (bucket) {
+            case UsageStatsManager.STANDBY_BUCKET_ACTIVE: return "active";
+            case UsageStatsManager.STANDBY_BUCKET_WORKING_SET: return "working_set";
+            case UsageStatsManager.STANDBY_BUCKET_FREQUENT: return "frequent";
+            case UsageStatsManager.STANDBY_BUCKET_RARE: return "rare";
+            case UsageStatsManager.STANDBY_BUCKET_RESTRICTED: return "restricted";
+            default: return bucket <= UsageStatsManager.STANDBY_BUCKET_ACTIVE ? "exempted" : "unknown";
+        }
+    }
+
+    static final class Snapshot {
+        final boolean fullScreenIntent;
+        final boolean overlay;
+        final boolean batteryExempt;
+        final boolean backgroundRestricted;
+        /** xiaomi, samsung, huawei, oppo, vivo, oneplus or other. */
+        final String oem;
+        final String manufacturer;
+        final String standbyBucket;
+        final boolean notificationsEnabled;
+        /** Importance per CHANNEL_IDS entry, -1 when the channel does not exist. */
+        final int[] channelImportance;
+        final long computedAt;
+
+        Snapshot(boolean fullScreenIntent, boolean overlay, boolean batteryExempt, boolean backgroundRestricted,
+                 String oem, String manufacturer, String standbyBucket, boolean notificationsEnabled,
+                 int[] channelImportance, long computedAt) {
+            this.fullScreenIntent = fullScreenIntent;
+            this.overlay = overlay;
+            this.batteryExempt = batteryExempt;
+            this.backgroundRestricted = backgroundRestricted;
+            this.oem = oem;
+            this.manufacturer = manufacturer;
+            this.standbyBucket = standbyBucket;
+            this.notificationsEnabled = notificationsEnabled;
+            this.channelImportance = channelImportance;
+            this.computedAt = computedAt;
+        }
+
+        boolean isXiaomi() {
+            return "xiaomi".equals(oem);
+        }
+
+        /**
+         * Same device state, ignoring when it was computed.
+         */
+        boolean sameAs(Snapshot other) {
+            return fullScreenIntent == other.fullScreenIntent
+                && overlay == other.overlay
+                && batteryExempt == other.batteryExempt
+                && backgroundRestricted == other.backgroundRestricted
+                && notificationsEnabled == other.notificationsEnabled
+                && standbyBucket.equals(other.standbyBucket)
+                && Arrays.equals(channelImportance, other.channelImportance);
+        }
+    }
+}
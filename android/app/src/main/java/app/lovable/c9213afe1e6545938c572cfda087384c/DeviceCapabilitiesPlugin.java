@@ -0,0 +1,64 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Capacitor plugin returning the DeviceCapabilities snapshot in one call.
+ * The snapshot is refreshed off the main thread whenever the activity
+ * resumes, and a "capabilitiesChanged" event carries it to JS when
+ * something changed (e.g. the user granted a permission in settings).
+ */
+@CapacitorPlugin(name = "DeviceCapabilities")
+public class DeviceCapabilitiesPlugin extends Plugin {
+    static final String EVENT_CHANGED = "capabilitiesChanged";
+
+    @PluginMethod
+    public void get(PluginCall call) {
+        DeviceCapabilities capabilities = DeviceCapabilities.getInstance(getContext());
+        getBridge().execute(() -> call.resolve(toJSObject(capabilities.get())));
+    }
+
+    @PluginMethod
+    public void refresh(PluginCall call) {
+        DeviceCapabilities capabilities = DeviceCapabilities.getInstance(getContext());
+        getBridge().execute(() -> {
+            capabilities.refresh();
+            call.resolve(toJSObject(capabilities.get()));
+        });
+    }
+
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        DeviceCapabilities capabilities = DeviceCapabilities.getInstance(getContext());
+        getBridge().execute(() -> {
+            if (capabilities.refresh()) {
+                notifyListeners(EVENT_CHANGED, toJSObject(capabilities.get()));
+            }
+        });
+    }
+
+    private static JSObject toJSObject(DeviceCapabilities.Snapshot snapshot) {
+        JSObject channels = new JSObject();
+        for (int i = 0; i < DeviceCapabilities.CHANNEL_IDS.length; i++) {
+            channels.put(DeviceCapabilities.CHANNEL_IDS[i], snapshot.channelImportance[i]);
+        }
+
+        JSObject result = new JSObject();
+        result.put("fullScreenIntent", snapshot.fullScreenIntent);
+        result.put("overlay", snapshot.overlay);
+        result.put("batteryExempt", snapshot.batteryExempt);
+        result.put("backgroundRestricted", snapshot.backgroundRestricted);
+        result.put("oem", snapshot.oem);
+        result.put("manufacturer", snapshot.manufacturer);
+        result.put("standbyBucket", snapshot.standbyBucket);
+        result.put("notificationsEnabled", snapshot.notificationsEnabled);
+        result.put("channelImportance", channels);
+        result.put("computedAt", snapshot.computedAt);
+        return result;
+    }
+}
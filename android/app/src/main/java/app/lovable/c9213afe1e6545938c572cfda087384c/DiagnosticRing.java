@@ -0,0 +1,149 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of recent log events.
+ * Slots are preallocated and events are stored unformatted (template + args),
+ * so recording costs a few volatile writes and no string building; formatting
+ * only happens when the ring is dumped.
+ *
+ * Each slot carries a sequence stamp: a writer claims a sequence number,
+ * then claims the slot by a CAS from the older published stamp it expects
+ * to find, fills it and then publishes the stamp. A writer that finds the
+ * slot being written, or already holding a newer lap, drops its event, so
+ * a slot only ever has one writer and, until cleared, its stamp only grows. A reader keeps
+ * an entry only if the stamp was the same before and after reading it,
+ * which filters out slots overwritten mid-read.
+ */
+final class DiagnosticRing {
+    private static final long CLEARING = Long.MIN_VALUE;
+
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    // 0 = empty, -(seq + 1) = being written, seq + 1 = published, CLEARING = being cleared
+    private final AtomicLongArray stamps;
+    private final AtomicLongArray times;
+    private final AtomicIntegerArray levels;
+    private final AtomicIntegerArray argCounts;
+    private final AtomicReferenceArray<String> tags;
+    private final AtomicReferenceArray<String> templates;
+    private final AtomicReferenceArray<Object> args0;
+    private final AtomicReferenceArray<Object> args1;
+    private final AtomicReferenceArray<Object> args2;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    DiagnosticRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.stamps = new AtomicLongArray(size);
+        this.times = new AtomicLongArray(size);
+        this.levels = new AtomicIntegerArray(size);
+        this.argCounts = new AtomicIntegerArray(size);
+        this.tags = new AtomicReferenceArray<>(size);
+        this.templates = new AtomicReferenceArray<>(size);
+        this.args0 = new AtomicReferenceArray<>(size);
+        this.args1 = new AtomicReferenceArray<>(size);
+        this.args2 = new AtomicReferenceArray<>(size);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Total number of events ever recorded (including overwritten ones).
+     */
+    long recordedCount() {
+        return cursor.get();
+    }
+
+    void record(long timeMillis, int level, String tag, String template, int argCount, Object a, Object b, Object c) {
+        long seq = cursor.getAndIncrement();
+        int slot = (int) (seq & mask);
+        if (!claim(slot, seq)) return;
+        times.set(slot, timeMillis);
+        levels.set(slot, level);
+        argCounts.set(slot, argCount);
+        tags.set(slot, tag);
+        templates.set(slot, template);
+        args0.set(slot, a);
+        args1.set(slot, b);
+        args2.set(slot, c);
+        stamps.set(slot, seq + 1);
+    }
+
+    /**
+     * Take the slot for seq unless a writer (or clear) holds it or a later
+     * lap already published there; only then is the event lost.
+     */
+    private boolean claim(int slot, long seq) {
+        while (true) {
+            long current = stamps.get(slot);
+            if (current < 0 || current >= seq + 1) return false;
+            if (stamps.compareAndSet(slot, current, -(seq + 1))) return true;
+        }
+    }
+
+    /**
+     * Snapshot of the events still in the ring, oldest first.
+     */
+    List<Entry> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - capacity());
+        List<Entry> out = new ArrayList<>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            int slot = (int) (seq & mask);
+            long before = stamps.get(slot);
+            if (before != seq + 1) continue;
+
+            long time = times.get(slot);
+            int level = levels.get(slot);
+            int argCount = argCounts.get(slot);
+            String tag = tags.get(slot);
+            String template = templates.get(slot);
+            Object a = args0.get(slot);
+            Object b = args1.get(slot);
+            Object c = args2.get(slot);
+
+            if (stamps.get(slot) != before) continue;
+            out.add(new Entry(seq, time, level, tag, AppLog.format(template, argCount, a, b, c)));
+        }
+        return out;
+    }
+
+    void clear() {
+        for (int i = 0; i <= mask; i++) {
+            long current = stamps.get(i);
+            // A slot being written keeps its event
+            if (current <= 0 || !stamps.compareAndSet(i, current, CLEARING)) continue;
+            args0.set(i, null);
+            args1.set(i, null);
+            args2.set(i, null);
+            stamps.set(i, 0L);
+        }
+    }
+
+    static final class Entry {
+        final long sequence;
+        final long timeMillis;
+        final int level;
+        final String tag;
+        final String message;
+
+        Entry(long sequence, long timeMillis, int level, String tag, String message) {
+            this.sequence = sequence;
+            this.timeMillis = timeMillis;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+}
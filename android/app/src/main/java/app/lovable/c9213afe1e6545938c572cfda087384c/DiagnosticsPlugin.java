@@ -0,0 +1,126 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Capacitor plugin exposing native diagnostics to the web layer.
+ * Allows support screens to dump the in-memory log ring, read
+ * battery-related counters and the cold-start breakdown on demand.
+ */
+@CapacitorPlugin(name = "Diagnostics")
+public class DiagnosticsPlugin extends Plugin {
+
+    @PluginMethod
+    public void dumpLog(PluginCall call) {
+        DiagnosticRing ring = AppLog.ring();
+        List<DiagnosticRing.Entry> entries = ring.snapshot();
+
+        JSArray items = new JSArray();
+        for (DiagnosticRing.Entry entry : entries) {
+            JSObject item = new JSObject();
+            item.put("seq", entry.sequence);
+            item.put("time", entry.timeMillis);
+            item.put("level", levelName(entry.level));
+            item.put("tag", entry.tag);
+            item.put("message", entry.message);
+            items.put(item);
+        }
+
+        JSObject result = new JSObject();
+        result.put("entries", items);
+        result.put("capacity", ring.capacity());
+        result.put("recorded", ring.recordedCount());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clearLog(PluginCall call) {
+        AppLog.ring().clear();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getWakeLockStats(PluginCall call) {
+        WakeLockCoordinator coordinator = WakeLockCoordinator.getInstance(getContext());
+
+        JSObject result = new JSObject();
+        result.put("held", coordinator.isHeld());
+        result.put("cumulativeHeldMs", coordinator.getCumulativeHeldMillis());
+        result.put("leases", coordinator.getLeaseCount());
+        result.put("extensions", coordinator.getExtensionCount());
+        result.put("acquisitions", coordinator.getAcquisitionCount());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getStartupReport(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("coldStart", toJSObject(StartupReport.getColdStart()));
+        result.put("latest", toJSObject(StartupReport.getLatest()));
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void setWebViewPrewarm(PluginCall call) {
+        WebViewWarmer.getInstance(getContext()).setEnabled(call.getBoolean("enabled", false));
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getWebViewPrewarmStatus(PluginCall call) {
+        WebViewWarmer warmer = WebViewWarmer.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("enabled", warmer.isEnabled());
+        result.put("state", warmer.getState());
+        result.put("lastWarmMs", warmer.getLastWarmMillis());
+        result.put("warmCount", warmer.getWarmCount());
+        result.put("skippedForMemory", warmer.getSkippedForMemory());
+        call.resolve(result);
+    }
+
+    private static Object toJSObject(StartupReport report) {
+        if (report == null) return JSObject.NULL;
+
+        JSArray tasks = new JSArray();
+        for (StartupReport.TaskTiming timing : report.getTasks()) {
+            JSObject task = new JSObject();
+            task.put("name", timing.name);
+            task.put("mode", timing.mode.name().toLowerCase(Locale.ROOT));
+            task.put("thread", timing.thread);
+            task.put("startMs", timing.startOffsetMs);
+            task.put("durationMs", timing.durationMs);
+            task.put("failed", timing.failed);
+            tasks.put(task);
+        }
+        JSObject marks = new JSObject();
+        for (StartupReport.Mark mark : report.getMarks()) {
+            marks.put(mark.name, mark.offsetMs);
+        }
+
+        JSObject result = new JSObject();
+        result.put("cold", report.cold);
+        result.put("processToCreateMs", report.processToCreateMs);
+        result.put("webViewState", report.getWebViewState());
+        result.put("tasks", tasks);
+        result.put("marks", marks);
+        return result;
+    }
+
+    private static String levelName(int level) {
+        switch (level) {
+            case android.util.Log.VERBOSE: return "verbose";
+            case android.util.Log.DEBUG: return "debug";
+            case android.util.Log.INFO: return "info";
+            case android.util.Log.WARN: return "warn";
+            case android.util.Log.ERROR: return "error";
+            default: return "assert";
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import java.util.List;
+
+/**
+ * Fires at the end of a digest window and posts the queued summary.
+ */
+public class DigestAlarmReceiver extends BroadcastReceiver {
+    private static final String TAG = "DigestAlarmReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        List<DigestScheduler.Entry> entries = DigestScheduler.getInstance(context).drain();
+        AppLog.d(TAG, "⏰ Digest window elapsed with {} queued", entries.size());
+        if (!entries.isEmpty()) {
+            NotificationDispatcher.getInstance(context).dispatchDigest(entries);
+        }
+    }
+}
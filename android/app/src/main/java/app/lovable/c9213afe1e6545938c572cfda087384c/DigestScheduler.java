@@ -0,0 +1,220 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batches low-urgency pushes (status updates, reminders) into one summary.
+ *
+ * Pushes classified as digestible are appended to a persisted queue instead of
+ * being posted. The first queued item arms a non-wakeup RTC alarm for the end
+ * of the window; when it fires (or the next push finds the window already
+ * elapsed) the whole queue is posted as a single InboxStyle notification on
+ * the lower-importance digest channel. Orders and anything unknown are never
+ * delayed.
+ */
+final class DigestScheduler {
+    private static final String TAG = "DigestScheduler";
+    private static final String PREFS_NAME = "notification_digest";
+    private static final String KEY_QUEUE = "queue";
+    private static final String KEY_FLUSH_AT = "flush_at";
+    private static final String KEY_WINDOW_MS = "window_ms";
+
+    static final long DEFAULT_WINDOW_MS = 10 * 60 * 1000L;
+    static final long MAX_WINDOW_MS = 60 * 60 * 1000L;
+    private static final int MAX_QUEUED = 50;
+    private static final int ALARM_REQUEST_CODE = 3;
+
+    static final String URGENCY_DIGEST = "digest";
+    static final String URGENCY_IMMEDIATE = "immediate";
+
+    private static volatile DigestScheduler instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+
+    static DigestScheduler getInstance(Context context) {
+        DigestScheduler local = instance;
+        if (local == null) {
+            synchronized (DigestScheduler.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DigestScheduler(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private DigestScheduler(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Whether a push may wait for the digest. A window of 0 disables digesting.
+     */
+    boolean isDigestible(OrderPush push) {
+        if (getWindowMillis() <= 0 || push.callStyle || push.isAppUpdate()) return false;
+        if (URGENCY_IMMEDIATE.equals(push.urgency)) return false;
+        if (URGENCY_DIGEST.equals(push.urgency)) return true;
+        switch (push.type) {
+            case "order_update":
+            case "order_status_change":
+            case "order_expired":
+            case "readiness_reminder":
+                return true;
+            default:
+                // new orders, quotes, bookings, readiness checks and unknown types stay immediate
+                return false;
+        }
+    }
+
+    /**
+     * Queue a push for the next digest. Returns the entries to post now if the
+     * window had already elapsed (e.g. the alarm was lost across a reboot).
+     */
+    synchronized List<Entry> enqueue(OrderPush push, long nowMillis) {
+        List<Entry> queue = load();
+        queue.add(new Entry(nowMillis, push.title, push.body, push.route));
+        while (queue.size() > MAX_QUEUED) {
+            queue.remove(0);
+        }
+
+        long flushAt = prefs.getLong(KEY_FLUSH_AT, 0L);
+        if (flushAt != 0L && flushAt <= nowMillis) {
+            clear();
+            return queue;
+        }
+
+        SharedPreferences.Editor editor = prefs.edit().putString(KEY_QUEUE, encode(queue));
+        if (flushAt == 0L) {
+            flushAt = nowMillis + getWindowMillis();
+            editor.putLong(KEY_FLUSH_AT, flushAt);
+            scheduleAlarm(flushAt);
+        }
+        editor.apply();
+        AppLog.d(TAG, "🗂️ Queued {} for digest ({} pending)", push.type, queue.size());
+        return Collections.emptyList();
+    }
+
+    /**
+     * Take everything queued and reset the window.
+     */
+    synchronized List<Entry> drain() {
+        List<Entry> queue = load();
+        clear();
+        return queue;
+    }
+
+    long getWindowMillis() {
+        return prefs.getLong(KEY_WINDOW_MS, DEFAULT_WINDOW_MS);
+    }
+
+    void setWindowMillis(long windowMs) {
+        long clamped = Math.max(0L, Math.min(MAX_WINDOW_MS, windowMs));
+        prefs.edit().putLong(KEY_WINDOW_MS, clamped).apply();
+        AppLog.i(TAG, "⚙️ Digest window set to {}ms", clamped);
+    }
+
+    synchronized int getPendingCount() {
+        return load().size();
+    }
+
+    long getFlushAt() {
+        return prefs.getLong(KEY_FLUSH_AT, 0L);
+    }
+
+    private void clear() {
+        prefs.edit().remove(KEY_QUEUE).remove(KEY_FLUSH_AT).apply();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(alarmIntent());
+        }
+    }
+
+    private void scheduleAlarm(long flushAt) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) return;
+        // RTC (not RTC_WAKEUP): a sleeping device flushes when it next wakes instead of being woken for it
+        alarmManager.set(AlarmManager.RTC, flushAt, alarmIntent());
+    }
+
+    private PendingIntent alarmIntent() {
+        Intent intent = new Intent(context, DigestAlarmReceiver.class);
+        return PendingIntent.getBroadcast(
+            context,
+            ALARM_REQUEST_CODE,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private List<Entry> load() {
+        List<Entry> queue = new ArrayList<>();
+        String stored = prefs.getString(KEY_QUEUE, null);
+        if (stored == null || stored.isEmpty()) return queue;
+
+        // Format: time '\t' title '\t' body '\t' route '\n' ...
+        int start = 0;
+        int length = stored.length();
+        while (start < length) {
+            int lineEnd = stored.indexOf('\n', start);
+            if (lineEnd < 0) lineEnd = length;
+            int t1 = stored.indexOf('\t', start);
+            int t2 = t1 < 0 ? -1 : stored.indexOf('\t', t1 + 1);
+            int t3 = t2 < 0 ? -1 : stored.indexOf('\t', t2 + 1);
+            if (t3 > 0 && t3 < lineEnd) {
+                try {
+                    queue.add(new Entry(
+                        Long.parseLong(stored.substring(start, t1)),
+                        stored.substring(t1 + 1, t2),
+                        stored.substring(t2 + 1, t3),
+                        stored.substring(t3 + 1, lineEnd)
+                    ));
+                } catch (NumberFormatException ignored) {}
+            }
+            start = lineEnd + 1;
+        }
+        return queue;
+    }
+
+    private static String encode(List<Entry> queue) {
+        StringBuilder sb = new StringBuilder(queue.size() * 96);
+        for (Entry entry : queue) {
+            sb.append(entry.timeMillis).append('\t')
+                .append(flatten(entry.title)).append('\t')
+                .append(flatten(entry.body)).append('\t')
+                .append(flatten(entry.route)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String flatten(String value) {
+        if (value == null) return "";
+        return value.indexOf('\t') < 0 && value.indexOf('\n') < 0
+            ? value
+            : value.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    static final class Entry {
+        final long timeMillis;
+        final String title;
+        final String body;
+        final String route;
+
+        Entry(long timeMillis, String title, String body, String route) {
+            this.timeMillis = timeMillis;
+            this.title = title;
+            this.body = body;
+            this.route = route;
+        }
+    }
+}
@@ -6,18 +6,46 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.Button;
+import android.widget.LinearLayout;
 import android.widget.TextView;
-import android.util.Log;
+import android.widget.Toast;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.json.JSONObject;
 
-public class IncomingOrderActivity extends Activity {
+public class IncomingOrderActivity extends Activity implements IncomingOrderQueue.Listener {
     private static final String TAG = "IncomingOrderActivity";
 
+    private final IncomingOrderQueue queue = IncomingOrderQueue.getInstance();
+    // Timeline keys launched by an intent whose first frame is still to be recorded
+    private final Set<String> launchedKeys = new HashSet<>();
+    private final List<Button> tierButtons = new ArrayList<>();
+
+    private TextView titleView;
+    private TextView bodyView;
+    private LinearLayout pager;
+    private TextView positionView;
+    private LinearLayout quotePanel;
+    private LinearLayout tierRow;
+    private Button submitButton;
+    private Button acceptButton;
+    private Button skipButton;
+    private CharSequence submitLabel;
+
+    private IncomingOrderQueue.Entry current;
+    private String currentKey;
+    private int currentIndex;
+    private double[] tierPrices = new double[0];
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        
+
         // Ensure screen wakes and shows over lock screen on all versions
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
             setShowWhenLocked(true);
@@ -44,56 +72,305 @@ public class IncomingOrderActivity extends Activity {
                 }
             }
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error dismissing keyguard: " + e.getMessage());
+            AppLog.e(TAG, "❌ Error dismissing keyguard: {}", e.getMessage());
         }
 
         setContentView(R.layout.activity_incoming_order);
+        titleView = findViewById(R.id.orderTitle);
+        bodyView = findViewById(R.id.orderBody);
+        pager = findViewById(R.id.queuePager);
+        positionView = findViewById(R.id.queuePosition);
+        quotePanel = findViewById(R.id.quoteTierPanel);
+        tierRow = findViewById(R.id.quoteTierRow);
+        submitButton = findViewById(R.id.submitQuoteButton);
+        acceptButton = findViewById(R.id.acceptPriceButton);
+        skipButton = findViewById(R.id.skipButton);
+        submitLabel = submitButton.getText();
+        wireButtons();
+
+        QuoteTiers.getInstance(this).refreshIfStale();
+        queue.setListener(this);
+        onIntent(getIntent());
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        // singleTop: further orders reuse this activity and its views instead of relaunching it
+        onIntent(intent);
+    }
+
+    @Override
+    public void onQueueChanged() {
+        render();
+    }
 
-        // Get data from intent
-        String title = getIntent().getStringExtra("title");
-        String body = getIntent().getStringExtra("body");
-        String route = getIntent().getStringExtra("route");
-        String orderId = getIntent().getStringExtra("orderId");
+    /**
+     * Queue the order an intent was launched for (unless the dispatcher already
+     * did) and show it.
+     */
+    private void onIntent(Intent intent) {
+        String intentTimelineKey = intent.getStringExtra(DeliveryTimeline.EXTRA_TIMELINE_KEY);
+        String orderId = intent.getStringExtra("orderId");
+        DeliveryTimeline.getInstance(this).record(intentTimelineKey, DeliveryTimeline.STAGE_ACTIVITY_CREATED, System.currentTimeMillis());
+        if (intentTimelineKey != null) launchedKeys.add(intentTimelineKey);
 
-        Log.d(TAG, "📱 Full-screen activity launched - Title: " + title + ", Route: " + route);
+        AppLog.d(TAG, "📱 Full-screen activity launched - Order: {}, Route: {}", orderId, intent.getStringExtra("route"));
 
-        // Set the text
-        TextView titleView = findViewById(R.id.orderTitle);
-        TextView bodyView = findViewById(R.id.orderBody);
-        
-        if (titleView != null && title != null) {
-            titleView.setText(title);
+        String key = orderId != null ? orderId : (intentTimelineKey != null ? "msg:" + intentTimelineKey : null);
+        if (key != null && queue.get(key) == null) {
+            // Relaunches (e.g. after the process died) may lose the queue; the extras and the push snapshot still have the order
+            String title = intent.getStringExtra("title");
+            String body = intent.getStringExtra("body");
+            String route = intent.getStringExtra("route");
+            JSONObject snapshot = OrderSnapshotStore.getInstance(this).get(orderId);
+            if (snapshot != null) {
+                if (title == null) title = snapshot.optString("title", null);
+                if (body == null) body = snapshot.optString("body", null);
+                if (route == null) route = snapshot.optString("route", null);
+            }
+            queue.offer(orderId,
+                snapshot != null ? snapshot.optString("type", null) : null,
+                title, body, route,
+                snapshot != null ? snapshot.optString("price", null) : null,
+                intentTimelineKey);
         }
-        if (bodyView != null && body != null) {
-            bodyView.setText(body);
+        if (key != null) currentKey = key;
+        render();
+    }
+
+    /**
+     * Show the current order, or the nearest one if it has gone; finish when
+     * nothing is left.
+     */
+    private void render() {
+        List<IncomingOrderQueue.Entry> entries = queue.snapshot();
+        if (entries.isEmpty()) {
+            AppLog.d(TAG, "📭 No pending orders left");
+            finish();
+            return;
         }
+        int index = indexOf(entries, currentKey);
+        if (index < 0) index = Math.min(currentIndex, entries.size() - 1);
+        currentIndex = index;
+        IncomingOrderQueue.Entry entry = entries.get(index);
+
+        pager.setVisibility(entries.size() > 1 ? View.VISIBLE : View.GONE);
+        positionView.setText((index + 1) + " / " + entries.size());
+        if (current != entry || launchedKeys.contains(entry.timelineKey)) {
+            bind(entry);
+        }
+    }
+
+    /**
+     * Rebind the reused views to an order; only the tier buttons it needs are shown.
+     */
+    private void bind(IncomingOrderQueue.Entry entry) {
+        boolean sameOrder = current != null && current.key().equals(entry.key());
+        current = entry;
+        currentKey = entry.key();
+
+        String body = entry.body;
+        JSONObject snapshot = OrderSnapshotStore.getInstance(this).get(entry.orderId);
+        if (snapshot != null) {
+            String details = snapshotDetails(snapshot);
+            if (details != null) body = body != null ? body + "\n" + details : details;
+        }
+        titleView.setText(entry.title != null ? entry.title : "");
+        bodyView.setText(body != null ? body : "");
+
+        // Accept at the listed price (the customer budget send-push-notification
+        // puts in the push, as /order-actions stores it) - only offered when it
+        // can be sent without the app
+        boolean canSend = entry.orderId != null && OrderActionOutbox.getInstance(this).canSend();
+        QuoteTiers quoteTiers = QuoteTiers.getInstance(this);
+        double listedPrice = QuoteTiers.parsePrice(entry.price);
+        if (canSend && listedPrice > 0) {
+            acceptButton.setText("قبول بسعر " + QuoteTiers.format(listedPrice) + " " + quoteTiers.getCurrency());
+            acceptButton.setVisibility(View.VISIBLE);
+        } else {
+            acceptButton.setVisibility(View.GONE);
+        }
+
+        // Quote tiers from the local cache, so the panel needs no network
+        tierPrices = canSend ? quoteTiers.pricesFor(entry.price) : new double[0];
+        bindQuotePanel(tierPrices, quoteTiers.getCurrency());
+        if (!sameOrder) {
+            quotePanel.setVisibility(View.GONE);
+            submitButton.setText(submitLabel);
+        }
+
+        if (entry.timelineKey != null && launchedKeys.remove(entry.timelineKey)) {
+            recordFirstFrame(entry.timelineKey);
+        }
+    }
+
+    private void wireButtons() {
+        findViewById(R.id.previousOrderButton).setOnClickListener(v -> page(-1));
+        findViewById(R.id.nextOrderButton).setOnClickListener(v -> page(1));
 
-        // Skip button - skip the order and navigate
-        Button skipButton = findViewById(R.id.skipButton);
+        // Skip button - answered natively when possible, otherwise the app handles the skip
         skipButton.setOnClickListener(v -> {
-            Log.d(TAG, "⏭️ Skip button clicked");
+            IncomingOrderQueue.Entry entry = current;
+            if (entry == null) return;
+            AppLog.d(TAG, "⏭️ Skip button clicked");
+            DeliveryTimeline.getInstance(this).record(entry.timelineKey, DeliveryTimeline.STAGE_TAPPED, System.currentTimeMillis(), "skip");
+            if (answerNatively(entry, OrderActionOutbox.ACTION_SKIP, 0, "تم تخطي الطلب")) return;
             // Navigate with skip action parameter so app can handle the skip
-            String skipRoute = orderId != null 
-                ? "/specialist-orders/new?orderId=" + orderId + "&action=skip"
-                : (route != null ? route + "?action=skip" : "/specialist-orders/new?action=skip");
-            navigateToApp(skipRoute);
-            finish();
+            String skipRoute = entry.orderId != null
+                ? "/specialist-orders/new?orderId=" + entry.orderId + "&action=skip"
+                : (entry.route != null ? entry.route + "?action=skip" : "/specialist-orders/new?action=skip");
+            openInApp(entry, skipRoute);
+        });
+
+        acceptButton.setOnClickListener(v -> {
+            IncomingOrderQueue.Entry entry = current;
+            if (entry == null) return;
+            AppLog.d(TAG, "✅ Accept at listed price clicked");
+            DeliveryTimeline.getInstance(this).record(entry.timelineKey, DeliveryTimeline.STAGE_TAPPED, System.currentTimeMillis(), "accept");
+            if (answerNatively(entry, OrderActionOutbox.ACTION_ACCEPT, 0, "تم إرسال عرضك")) return;
+            openInApp(entry, "/specialist-orders/new?orderId=" + entry.orderId + "&action=submit");
         });
 
-        // Submit Quote button - navigate to pricing page
-        Button submitButton = findViewById(R.id.submitQuoteButton);
+        // Submit Quote button - opens the native quote panel, or the pricing page for any other price
         submitButton.setOnClickListener(v -> {
-            Log.d(TAG, "💰 Submit Quote button clicked");
+            IncomingOrderQueue.Entry entry = current;
+            if (entry == null) return;
+            AppLog.d(TAG, "💰 Submit Quote button clicked");
+            if (tierPrices.length > 0 && quotePanel.getVisibility() != View.VISIBLE) {
+                quotePanel.setVisibility(View.VISIBLE);
+                submitButton.setText("سعر آخر");
+                return;
+            }
+            DeliveryTimeline.getInstance(this).record(entry.timelineKey, DeliveryTimeline.STAGE_TAPPED, System.currentTimeMillis(), "submit");
             // Navigate to pricing selection page with action parameter
-            String submitRoute = orderId != null 
-                ? "/specialist-orders/new?orderId=" + orderId + "&action=submit"
-                : (route != null ? route + "?action=submit" : "/specialist-orders/new?action=submit");
-            navigateToApp(submitRoute);
-            finish();
+            String submitRoute = entry.orderId != null
+                ? "/specialist-orders/new?orderId=" + entry.orderId + "&action=submit"
+                : (entry.route != null ? entry.route + "?action=submit" : "/specialist-orders/new?action=submit");
+            openInApp(entry, submitRoute);
+        });
+    }
+
+    private void page(int delta) {
+        List<IncomingOrderQueue.Entry> entries = queue.snapshot();
+        if (entries.isEmpty()) {
+            render();
+            return;
+        }
+        int index = indexOf(entries, currentKey);
+        index = Math.floorMod((index < 0 ? currentIndex : index) + delta, entries.size());
+        currentKey = entries.get(index).key();
+        render();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // The window keeps the screen on from here, so the push wake lock is no longer needed
+        WakeLockCoordinator.getInstance(this).release("incoming order shown");
+    }
+
+    /**
+     * One button per cached tier; a tap sends that quote natively. Buttons are
+     * created once and reused across orders.
+     */
+    private void bindQuotePanel(double[] prices, String currency) {
+        int margin = Math.round(4 * getResources().getDisplayMetrics().density);
+        while (tierButtons.size() < prices.length) {
+            int slot = tierButtons.size();
+            Button tier = new Button(this);
+            tier.setTextColor(0xFFFFFFFF);
+            tier.setBackgroundResource(R.drawable.button_secondary_bg);
+            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1f);
+            params.setMarginStart(margin);
+            params.setMarginEnd(margin);
+            tier.setOnClickListener(v -> onTierClicked(slot, tier.getText().toString()));
+            tierRow.addView(tier, params);
+            tierButtons.add(tier);
+        }
+        for (int i = 0; i < tierButtons.size(); i++) {
+            Button tier = tierButtons.get(i);
+            if (i < prices.length) {
+                tier.setText(QuoteTiers.format(prices[i]) + " " + currency);
+                tier.setVisibility(View.VISIBLE);
+            } else {
+                tier.setVisibility(View.GONE);
+            }
+        }
+    }
+
+    private void onTierClicked(int slot, String label) {
+        IncomingOrderQueue.Entry entry = current;
+        if (entry == null || slot >= tierPrices.length) return;
+        AppLog.d(TAG, "💰 Quote tier clicked: {}", label);
+        DeliveryTimeline.getInstance(this).record(entry.timelineKey, DeliveryTimeline.STAGE_TAPPED, System.currentTimeMillis(), "quote");
+        if (answerNatively(entry, OrderActionOutbox.ACTION_QUOTE, tierPrices[slot], "تم إرسال عرضك: " + label)) return;
+        openInApp(entry, "/specialist-orders/new?orderId=" + entry.orderId + "&action=submit");
+    }
+
+    /**
+     * Queue the answer in OrderActionOutbox and move on to the next pending
+     * order without starting the app.
+     * Returns false if it cannot be sent natively (e.g. the device token is not known yet).
+     */
+    private boolean answerNatively(IncomingOrderQueue.Entry entry, String action, double price, String confirmation) {
+        if (!OrderActionOutbox.getInstance(this).enqueue(entry.orderId, action, price, entry.timelineKey)) return false;
+        // Optimistic: the outbox retries until the server has it and reports failures itself
+        NotificationDispatcher.getInstance(this).cancelOrder(entry.orderId, entry.type != null ? entry.type : OrderPush.TYPE_NEW_ORDER);
+        OrderSnapshotStore.getInstance(this).remove(entry.orderId);
+        Toast.makeText(getApplicationContext(), confirmation, Toast.LENGTH_SHORT).show();
+        queue.remove(entry.key());
+        render();
+        return true;
+    }
+
+    /**
+     * Hand the order to the app; the rest of the queue is shown again on the next order push.
+     */
+    private void openInApp(IncomingOrderQueue.Entry entry, String route) {
+        queue.remove(entry.key());
+        navigateToApp(route, entry.timelineKey);
+        finish();
+    }
+
+    private static int indexOf(List<IncomingOrderQueue.Entry> entries, String key) {
+        if (key == null) return -1;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).key().equals(key)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Service type and price from the snapshot, when the push carried them.
+     */
+    private static String snapshotDetails(JSONObject snapshot) {
+        String serviceType = snapshot.optString("serviceType", null);
+        String price = snapshot.optString("price", null);
+        if (serviceType == null && price == null) return null;
+        if (serviceType == null) return "💰 " + price;
+        if (price == null) return "🔧 " + serviceType;
+        return "🔧 " + serviceType + "  •  💰 " + price;
+    }
+
+    /**
+     * Record when a launched order is first drawn; the listener removes itself after one frame.
+     */
+    private void recordFirstFrame(String timelineKey) {
+        View decor = getWindow().getDecorView();
+        decor.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decor.getViewTreeObserver().removeOnPreDrawListener(this);
+                DeliveryTimeline.getInstance(IncomingOrderActivity.this)
+                    .record(timelineKey, DeliveryTimeline.STAGE_FIRST_FRAME, System.currentTimeMillis());
+                return true;
+            }
         });
     }
 
-    private void navigateToApp(String route) {
+    private void navigateToApp(String route, String timelineKey) {
         try {
             Uri deepLink = Uri.parse("request-mastermind://open?route=" + Uri.encode(route));
             Intent intent = new Intent(Intent.ACTION_VIEW, deepLink);
@@ -101,16 +378,19 @@ public class IncomingOrderActivity extends Activity {
             intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
             intent.putExtra("fromNotification", true);
             intent.putExtra("route", route);
+            // The tap was already recorded here; MainActivity must not count it again
+            intent.putExtra(DeliveryTimeline.EXTRA_TIMELINE_KEY, timelineKey != null ? timelineKey : DeliveryTimeline.UNKNOWN_KEY);
             startActivity(intent);
-            Log.d(TAG, "✅ Navigating to: " + route);
+            AppLog.d(TAG, "✅ Navigating to: {}", route);
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error navigating: " + e.getMessage());
+            AppLog.e(TAG, "❌ Error navigating: {}", e.getMessage());
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        Log.d(TAG, "🔚 Full-screen activity destroyed");
+        queue.removeListener(this);
+        AppLog.d(TAG, "🔚 Full-screen activity destroyed");
     }
 }
@@ -0,0 +1,205 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * In-process queue of the call-style orders waiting for an answer in
+ * IncomingOrderActivity.
+ *
+ * Every push used to relaunch the activity with CLEAR_TOP, tearing down the
+ * order on screen and re-inflating the layout, so during a burst only the
+ * last order could be answered. Orders now land here first; one running
+ * activity shows the whole queue and is told about changes through a
+ * listener, and a new full-screen intent only brings it to the front.
+ *
+ * Entries are keyed by order id (a re-sent order replaces its entry),
+ * capped at MAX_ENTRIES and dropped after ENTRY_TTL_MS, when the ring and the
+ * offer are long over. Listeners run on the main thread.
+ */
+final class IncomingOrderQueue {
+    private static final String TAG = "IncomingOrderQueue";
+    private static final int MAX_ENTRIES = 20;
+    static final long ENTRY_TTL_MS = 5 * 60 * 1000L;
+
+    private static final IncomingOrderQueue instance = new IncomingOrderQueue();
+
+    interface Listener {
+        void onQueueChanged();
+    }
+
+    static final class Entry {
+        final String orderId;
+        final String type;
+        final String title;
+        final String body;
+        final String route;
+        final String price;
+        final String timelineKey;
+        // elapsedRealtime, so wall clock changes don't expire or keep entries
+        final long expiresAt;
+
+        Entry(String orderId, String type, String title, String body, String route, String price,
+              String timelineKey, long expiresAt) {
+            this.orderId = orderId;
+            this.type = type;
+            this.title = title;
+            this.body = body;
+            this.route = route;
+            this.price = price;
+            this.timelineKey = timelineKey;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * One entry per order, so a repeated call for it refreshes the queued
+         * one; orders without an id fall back to their timeline key. Coarser
+         * than PushDeduplicator.deliveryKey, which also tells types and
+         * statuses apart: by the time a push gets here it is already deduplicated.
+         */
+        String key() {
+            return orderId != null ? orderId : "msg:" + timelineKey;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable pruneRunnable = this::pruneAndNotify;
+    private final List<Entry> entries = new ArrayList<>();
+    private Listener listener;
+
+    static IncomingOrderQueue getInstance() {
+        return instance;
+    }
+
+    private IncomingOrderQueue() {}
+
+    /**
+     * Add a call-style order, or refresh the entry of an order already queued.
+     */
+    void offer(OrderPush push) {
+        offer(push.orderId, push.type, push.title, push.body, push.route, push.price, push.messageId);
+    }
+
+    void offer(String orderId, String type, String title, String body, String route, String price,
+               String timelineKey) {
+        if (orderId == null && timelineKey == null) return;
+        Entry entry = new Entry(orderId, type, title, body, route, price, timelineKey,
+            SystemClock.elapsedRealtime() + ENTRY_TTL_MS);
+        synchronized (this) {
+            String key = entry.key();
+            int existing = indexOf(key);
+            if (existing >= 0) {
+                // Keep its place, so a re-sent order does not jump ahead of older ones
+                entries.set(existing, entry);
+            } else {
+                entries.add(entry);
+            }
+            while (entries.size() > MAX_ENTRIES) {
+                Entry dropped = entries.remove(0);
+                AppLog.w(TAG, "⚠️ Incoming order queue full, dropping {}", dropped.key());
+            }
+        }
+        AppLog.d(TAG, "📥 Order {} queued for the full-screen UI", entry.key());
+        changed();
+    }
+
+    /**
+     * The order was answered, expired or cancelled; drop it from the full-screen UI.
+     */
+    void remove(String key) {
+        if (key == null) return;
+        boolean removed;
+        synchronized (this) {
+            int index = indexOf(key);
+            removed = index >= 0;
+            if (removed) entries.remove(index);
+        }
+        if (removed) changed();
+    }
+
+    /**
+     * Live entries in arrival order.
+     */
+    synchronized List<Entry> snapshot() {
+        prune(SystemClock.elapsedRealtime());
+        return new ArrayList<>(entries);
+    }
+
+    synchronized Entry get(String key) {
+        int index = indexOf(key);
+        return index >= 0 ? entries.get(index) : null;
+    }
+
+    /**
+     * Set the activity showing the queue. Main thread.
+     */
+    void setListener(Listener listener) {
+        this.listener = listener;
+        scheduleExpiry();
+    }
+
+    /**
+     * Detach listener, unless a newer activity has already replaced it. Main thread.
+     */
+    void removeListener(Listener listener) {
+        if (this.listener == listener) setListener(null);
+    }
+
+    private void changed() {
+        mainHandler.post(() -> {
+            scheduleExpiry();
+            Listener current = listener;
+            if (current != null) current.onQueueChanged();
+        });
+    }
+
+    // Wake up when the oldest live entry expires, so the screen drops it without a push
+    private void scheduleExpiry() {
+        mainHandler.removeCallbacks(pruneRunnable);
+        if (listener == null) return;
+        long next = Long.MAX_VALUE;
+        synchronized (this) {
+            for (Entry entry : entries) {
+                next = Math.min(next, entry.expiresAt);
+            }
+        }
+        if (next != Long.MAX_VALUE) {
+            mainHandler.postDelayed(pruneRunnable, Math.max(0L, next - SystemClock.elapsedRealtime()));
+        }
+    }
+
+    private void pruneAndNotify() {
+        boolean pruned;
+        synchronized (this) {
+            pruned = prune(SystemClock.elapsedRealtime());
+        }
+        scheduleExpiry();
+        Listener current = listener;
+        if (pruned && current != null) current.onQueueChanged();
+    }
+
+    private boolean prune(long now) {
+        boolean pruned = false;
+        Iterator<Entry> it = entries.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.expiresAt <= now) {
+                it.remove();
+                pruned = true;
+                AppLog.d(TAG, "⌛ Order {} expired from the full-screen UI", entry.key());
+            }
+        }
+        return pruned;
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).key().equals(key)) return i;
+        }
+        return -1;
+    }
+}
@@ -1,62 +1,117 @@
 package app.lovable.c9213afe1e6545938c572cfda087384c;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.media.AudioAttributes;
 import android.provider.Settings;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.webkit.WebView;
 import com.getcapacitor.BridgeActivity;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
+import com.getcapacitor.WebViewListener;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
 public class MainActivity extends BridgeActivity {
-    private static WebView webView;
+    private static final String TAG = "MainActivity";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
+        StartupReport report = StartupReport.begin();
+        WebViewWarmer warmer = WebViewWarmer.getInstance(this);
+        report.setWebViewState(warmer.onBridgeCreating());
+        // Picks the web bundle the bridge will load, so it must run before super.onCreate
+        WebBundleUpdater webBundles = WebBundleUpdater.getInstance(this);
+        webBundles.onColdStart();
+
+        // BridgeActivity builds the bridge inside super.onCreate, so plugins must be registered first
         registerPlugin(NotificationPermissionPlugin.class);
         registerPlugin(BatteryOptimizationPlugin.class);
         registerPlugin(NotificationRoutePlugin.class);
         registerPlugin(ApkInstallerPlugin.class);
-        
-        // Register update broadcast receiver
-        UpdateBroadcastReceiver.register(this);
-        
-        // Store webview reference
-        webView = getBridge().getWebView();
-        
-        createNotificationChannel();
-        checkAndRequestPermissions();
-        
-        // Log intent details for debugging
-        Intent intent = getIntent();
-        android.util.Log.d("MainActivity", "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        android.util.Log.d("MainActivity", "onCreate called");
-        android.util.Log.d("MainActivity", "Intent action: " + (intent != null ? intent.getAction() : "null"));
-        android.util.Log.d("MainActivity", "Intent data: " + (intent != null ? intent.getData() : "null"));
-        android.util.Log.d("MainActivity", "Intent extras: " + (intent != null ? intent.getExtras() : "null"));
-        if (intent != null && intent.getExtras() != null) {
-            for (String key : intent.getExtras().keySet()) {
-                android.util.Log.d("MainActivity", "  Extra: " + key + " = " + intent.getExtras().get(key));
+        registerPlugin(DiagnosticsPlugin.class);
+        registerPlugin(DeliveryMetricsPlugin.class);
+        registerPlugin(OrderSnapshotPlugin.class);
+        registerPlugin(TokenSyncPlugin.class);
+        registerPlugin(NativeEventsPlugin.class);
+        registerPlugin(DeviceCapabilitiesPlugin.class);
+        registerPlugin(RoutePrefetchPlugin.class);
+        registerPlugin(OrderActionsPlugin.class);
+        registerPlugin(WebBundlePlugin.class);
+        super.onCreate(savedInstanceState);
+        report.mark("bridgeCreated");
+        warmer.onBridgeCreated();
+        webBundles.onBridgeCreated(getBridge());
+
+        // Time-to-interactive for the cold/pre-warmed comparison
+        getBridge().addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageLoaded(WebView view) {
+                report.mark("pageLoaded");
             }
-        }
-        android.util.Log.d("MainActivity", "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        
-        ensureWakeAndShowIfFromNotification(intent);
-        handleNotificationRoute(intent);
+        });
+
+        new StartupScheduler(report)
+            // The notification route decides the first screen, so it cannot wait
+            .add("notificationIntent", StartupScheduler.Mode.CRITICAL, () -> {
+                Intent intent = getIntent();
+                logIntent("onCreate", intent);
+                ensureWakeAndShowIfFromNotification(intent);
+                handleNotificationRoute(intent);
+            })
+            .add("notificationChannels", StartupScheduler.Mode.BACKGROUND,
+                () -> NotificationChannelRegistry.ensureChannels(this))
+            // Retry any token rotation that failed while the app was closed
+            .add("tokenSync", StartupScheduler.Mode.BACKGROUND,
+                () -> TokenSyncOutbox.getInstance(this).flush())
+            // Same for order answers given from the full-screen UI
+            .add("orderActions", StartupScheduler.Mode.BACKGROUND,
+                () -> OrderActionOutbox.getInstance(this).flush())
+            // Keeps the full-screen quote panel's tiers current without a network call there
+            .add("quoteTiers", StartupScheduler.Mode.IDLE,
+                () -> QuoteTiers.getInstance(this).refreshIfStale())
+            // Downloads in the background; a new bundle is only switched to on the next cold start
+            .add("webBundle", StartupScheduler.Mode.IDLE,
+                () -> webBundles.checkForUpdate(false))
+            // Binder-heavy; computed once here and shared with the prompts and the web layer
+            .add("deviceCapabilities", StartupScheduler.Mode.BACKGROUND,
+                () -> DeviceCapabilities.getInstance(this).get(), "notificationChannels")
+            // Once per process; events reach whichever bridge is current through NativeEventQueue
+            .add("updateReceiver", StartupScheduler.Mode.IDLE,
+                () -> UpdateBroadcastReceiver.register(this))
+            // Prompts open settings screens; nothing to gain from showing them before the app
+            .add("permissionPrompts", StartupScheduler.Mode.IDLE,
+                this::checkAndRequestPermissions, "deviceCapabilities")
+            .start();
+
+        markFirstFrame(report);
     }
 
-    public static WebView getWebView() {
-        return webView;
+    @Override
+    public void onDestroy() {
+        WebViewWarmer.getInstance(this).onBridgeDestroyed();
+        super.onDestroy();
+    }
+
+    /**
+     * Record when the activity window first draws; the listener removes itself after one frame.
+     */
+    private void markFirstFrame(StartupReport report) {
+        View decor = getWindow().getDecorView();
+        decor.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decor.getViewTreeObserver().removeOnPreDrawListener(this);
+                report.mark("firstFrame");
+                return true;
+            }
+        });
     }
 
     @Override
@@ -65,22 +120,30 @@ public class MainActivity extends BridgeActivity {
         setIntent(intent);
         
         // Log intent details for debugging
-        android.util.Log.d("MainActivity", "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        android.util.Log.d("MainActivity", "onNewIntent called");
-        android.util.Log.d("MainActivity", "Intent action: " + (intent != null ? intent.getAction() : "null"));
-        android.util.Log.d("MainActivity", "Intent data: " + (intent != null ? intent.getData() : "null"));
-        android.util.Log.d("MainActivity", "Intent extras: " + (intent != null ? intent.getExtras() : "null"));
-        if (intent != null && intent.getExtras() != null) {
-            for (String key : intent.getExtras().keySet()) {
-                android.util.Log.d("MainActivity", "  Extra: " + key + " = " + intent.getExtras().get(key));
-            }
-        }
-        android.util.Log.d("MainActivity", "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        logIntent("onNewIntent", intent);
         
         ensureWakeAndShowIfFromNotification(intent);
         handleNotificationRoute(intent);
     }
     
+    /**
+     * Dump intent details; the extras walk only runs when debug logging is on.
+     */
+    private static void logIntent(String source, Intent intent) {
+        if (intent == null) {
+            AppLog.d(TAG, "{} called with null intent", source);
+            return;
+        }
+        AppLog.d(TAG, "{} called - action: {}, data: {}", source, intent.getAction(), intent.getData());
+        if (!AppLog.isDebugEnabled()) return;
+        Bundle extras = intent.getExtras();
+        if (extras != null) {
+            for (String key : extras.keySet()) {
+                AppLog.d(TAG, "  Extra: {} = {}", key, extras.get(key));
+            }
+        }
+    }
+
     private void handleNotificationRoute(Intent intent) {
         if (intent == null) return;
         
@@ -102,7 +165,13 @@ public class MainActivity extends BridgeActivity {
             } catch (Exception ignored) {}
         }
         
-        android.util.Log.d("MainActivity", "📍 handleNotificationRoute - fromNotification: " + fromNotification + ", route: " + route);
+        AppLog.d(TAG, "📍 handleNotificationRoute - fromNotification: {}, route: {}", fromNotification, route);
+
+        // Notification taps carry no message id; IncomingOrderActivity taps set one and were recorded there
+        if (fromNotification && !intent.hasExtra(DeliveryTimeline.EXTRA_TIMELINE_KEY)) {
+            DeliveryTimeline.getInstance(this).record(null, DeliveryTimeline.STAGE_TAPPED, System.currentTimeMillis(), "notification");
+            intent.putExtra(DeliveryTimeline.EXTRA_TIMELINE_KEY, DeliveryTimeline.UNKNOWN_KEY);
+        }
         
         // Accept route whether or not fromNotification flag is set (system taps may omit it)
         if (route != null && !route.isEmpty()) {
@@ -116,24 +185,14 @@ public class MainActivity extends BridgeActivity {
                 targetRoute = route;
             }
             
-            final String finalRoute = targetRoute;
-            
-            // CRITICAL: Save route to SharedPreferences so DeepLinkController can pick it up
-            // This handles cold starts where JS isn't ready when notification is tapped
-            try {
-                SharedPreferences prefs = getSharedPreferences("CapacitorStorage", MODE_PRIVATE);
-                prefs.edit().putString("pendingRoute", finalRoute).apply();
-                android.util.Log.d("MainActivity", "💾 Saved route to CapacitorStorage: " + finalRoute);
-            } catch (Exception e) {
-                android.util.Log.e("MainActivity", "❌ Failed to save route to preferences", e);
-            }
-            
-            // Also trigger JS event for warm starts (when app is already running)
-            new android.os.Handler().postDelayed(() -> {
-                getBridge().triggerJSEvent("notificationRoute", "window", 
-                    "{\"route\":\"" + finalRoute + "\"}");
-                android.util.Log.d("MainActivity", "✅ Sent notificationRoute event with route: " + finalRoute);
-            }, 500);
+            // Overlap the screen's first queries with WebView startup; the page takes the results
+            RoutePrefetcher.getInstance(this).prefetch(targetRoute);
+
+            // Queued until DeepLinkController is listening; cold and warm starts take the same path
+            com.getcapacitor.JSObject payload = new com.getcapacitor.JSObject();
+            payload.put("route", targetRoute);
+            NativeEventQueue.getInstance().emit("notificationRoute", payload);
+            AppLog.d(TAG, "✅ Queued notificationRoute event with route: {}", targetRoute);
         }
     }
     
@@ -157,9 +216,15 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
     
     private void checkAndRequestPermissions() {
         SharedPreferences prefs = getSharedPreferences("permission_prefs", MODE_PRIVATE);
+        // Computed by the deviceCapabilities startup task; never computed here, on the main thread
+        DeviceCapabilities.Snapshot capabilities = DeviceCapabilities.getInstance(this).peek();
+        if (capabilities == null) {
+            AppLog.w(TAG, "⚠️ Device capabilities not ready, permission prompts left for the next launch");
+            return;
+        }
 
         // 1) Battery optimization exemption (critical for background delivery)
-        boolean batteryExempt = BatteryOptimizationHelper.isIgnoringBatteryOptimizations(this);
+        boolean batteryExempt = capabilities.batteryExempt;
         if (!batteryExempt) {
             boolean batteryPromptDone = prefs.getBoolean("battery_prompt_done", false);
             if (!batteryPromptDone) {
@@ -175,7 +240,7 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
 
         // 2) Display over other apps permission (needed for full-screen notification UI)
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            boolean overlayAllowed = Settings.canDrawOverlays(this);
+            boolean overlayAllowed = capabilities.overlay;
             boolean overlayPromptDone = prefs.getBoolean("overlay_prompt_done", false);
             if (!overlayAllowed && !overlayPromptDone) {
                 new android.os.Handler().postDelayed(() -> {
@@ -188,7 +253,7 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
         }
 
         // 3) Xiaomi/Redmi autostart settings: only open once
-        if (BatteryOptimizationHelper.isXiaomiDevice()) {
+        if (capabilities.isXiaomi()) {
             boolean autostartPromptDone = prefs.getBoolean("autostart_prompt_done", false);
             if (!autostartPromptDone) {
                 new android.os.Handler().postDelayed(() -> {
@@ -200,8 +265,7 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
 
         // 4) Android 12+ Full-screen intent: open setting only once if not allowed
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-            boolean fullScreenAllowed = notificationManager != null && notificationManager.canUseFullScreenIntent();
+            boolean fullScreenAllowed = capabilities.fullScreenIntent;
             boolean fsPromptDone = prefs.getBoolean("fs_intent_prompt_done", false);
             if (!fullScreenAllowed && !fsPromptDone) {
                 new android.os.Handler().postDelayed(() -> {
@@ -214,7 +278,7 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
         }
 
         // 5) Xiaomi/MIUI: Display pop-up windows permission (critical for lockscreen UI)
-        if (BatteryOptimizationHelper.isXiaomiDevice()) {
+        if (capabilities.isXiaomi()) {
             boolean miuiPopupPromptDone = prefs.getBoolean("miui_popup_prompt_done", false);
             if (!miuiPopupPromptDone) {
                 new android.os.Handler().postDelayed(() -> {
@@ -235,90 +299,6 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
         }
     }
 
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-
-            // If channels exist with lower importance, delete to recreate with MAX
-            try {
-                NotificationChannel existing1 = notificationManager.getNotificationChannel("new-orders-v6");
-                if (existing1 != null && existing1.getImportance() < NotificationManager.IMPORTANCE_MAX) {
-                    notificationManager.deleteNotificationChannel("new-orders-v6");
-                }
-                NotificationChannel existing2 = notificationManager.getNotificationChannel("booking-calls-v6");
-                if (existing2 != null && existing2.getImportance() < NotificationManager.IMPORTANCE_MAX) {
-                    notificationManager.deleteNotificationChannel("booking-calls-v6");
-                }
-            } catch (Exception ignored) {}
-
-            // Unified audio attributes to use the device RINGTONE for all notifications
-            AudioAttributes ringtoneAttributes = new AudioAttributes.Builder()
-                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE)
-                .build();
-
-            // Use device's default PHONE RINGTONE (not notification sound)
-            Uri defaultRingtoneUri = android.media.RingtoneManager.getDefaultUri(android.media.RingtoneManager.TYPE_RINGTONE);
-
-            // Primary channel for normal notifications (use ringtone) - IMPORTANCE_MAX
-            NotificationChannel channel = new NotificationChannel(
-                "new-orders-v6",
-                "New Orders",
-                NotificationManager.IMPORTANCE_MAX
-            );
-            channel.setDescription("Notifications for new orders");
-            channel.enableVibration(true);
-            channel.setVibrationPattern(new long[]{0, 1000, 500, 1000, 500, 1000, 500, 1000});
-            channel.setShowBadge(true);
-            channel.setBypassDnd(true);
-            channel.enableLights(true);
-            channel.setLightColor(0xFFFF0000);
-            channel.setLockscreenVisibility(androidx.core.app.NotificationCompat.VISIBILITY_PUBLIC);
-            channel.setSound(defaultRingtoneUri, ringtoneAttributes);
-            notificationManager.createNotificationChannel(channel);
-
-            // Call-style channel for urgent bookings (also ringtone) - IMPORTANCE_MAX
-            NotificationChannel callChannel = new NotificationChannel(
-                "booking-calls-v6",
-                "Booking Calls",
-                NotificationManager.IMPORTANCE_MAX
-            );
-            callChannel.setDescription("Incoming booking alerts (call style)");
-            callChannel.enableVibration(true);
-            callChannel.setVibrationPattern(new long[]{0, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000});
-            callChannel.setShowBadge(true);
-            callChannel.setBypassDnd(true);
-            callChannel.enableLights(true);
-            callChannel.setLightColor(0xFFFF0000);
-            callChannel.setLockscreenVisibility(androidx.core.app.NotificationCompat.VISIBILITY_PUBLIC);
-            callChannel.setSound(defaultRingtoneUri, ringtoneAttributes);
-            notificationManager.createNotificationChannel(callChannel);
-
-            // App Updates channel - IMPORTANCE_HIGH (not MAX to avoid being too intrusive)
-            NotificationChannel updateChannel = new NotificationChannel(
-                "app-updates",
-                "App Updates",
-                NotificationManager.IMPORTANCE_HIGH
-            );
-            updateChannel.setDescription("Notifications for new app versions");
-            updateChannel.enableVibration(true);
-            updateChannel.setVibrationPattern(new long[]{0, 500, 200, 500});
-            updateChannel.setShowBadge(true);
-            updateChannel.enableLights(true);
-            updateChannel.setLightColor(0xFF0066FF);
-            updateChannel.setLockscreenVisibility(androidx.core.app.NotificationCompat.VISIBILITY_PUBLIC);
-            // Use default notification sound (not ringtone) for updates
-            updateChannel.setSound(
-                android.media.RingtoneManager.getDefaultUri(android.media.RingtoneManager.TYPE_NOTIFICATION),
-                new AudioAttributes.Builder()
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .setUsage(AudioAttributes.USAGE_NOTIFICATION)
-                    .build()
-            );
-            notificationManager.createNotificationChannel(updateChannel);
-        }
-    }
-    
     @CapacitorPlugin(name = "NotificationRoute")
     public static class NotificationRoutePlugin extends Plugin {
         @PluginMethod
@@ -397,5 +377,36 @@ private void ensureWakeAndShowIfFromNotification(Intent intent) {
             ret.put("overlayAllowed", overlayAllowed);
             call.resolve(ret);
         }
+
+        @PluginMethod
+        public void getChannelStatus(PluginCall call) {
+            com.getcapacitor.JSObject ret = new com.getcapacitor.JSObject();
+            ret.put("schemaVersion", NotificationChannelRegistry.getSchemaVersion());
+            ret.put("lastReconcileMs", NotificationChannelRegistry.getLastReconcileMillis(getContext()));
+            ret.put("reconciledAt", NotificationChannelRegistry.getLastReconciledAt(getContext()));
+            call.resolve(ret);
+        }
+
+        @PluginMethod
+        public void getDigestSettings(PluginCall call) {
+            DigestScheduler digest = DigestScheduler.getInstance(getContext());
+            com.getcapacitor.JSObject ret = new com.getcapacitor.JSObject();
+            ret.put("windowMs", digest.getWindowMillis());
+            ret.put("maxWindowMs", DigestScheduler.MAX_WINDOW_MS);
+            ret.put("pending", digest.getPendingCount());
+            ret.put("flushAt", digest.getFlushAt());
+            call.resolve(ret);
+        }
+
+        @PluginMethod
+        public void setDigestWindow(PluginCall call) {
+            Long windowMs = call.getLong("windowMs");
+            if (windowMs == null) {
+                call.reject("windowMs is required");
+                return;
+            }
+            DigestScheduler.getInstance(getContext()).setWindowMillis(windowMs);
+            call.resolve();
+        }
     }
 }
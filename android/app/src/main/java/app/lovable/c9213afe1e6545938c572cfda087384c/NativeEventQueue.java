@@ -0,0 +1,263 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Process-wide queue of native -> JS events.
+ *
+ * Events are held until the web layer calls NativeEvents.ready(), then
+ * delivered in order through the NativeEvents plugin. Each event carries an
+ * increasing seq and stays queued until JS acknowledges it, so a page reload
+ * between delivery and handling redelivers it; the JS side skips seqs it has
+ * already handled, which together gives exactly-once handling.
+ *
+ * Every event is serialized once, when it is emitted. Events emitted within
+ * the same frame go to JS as one batch (one WebView dispatch instead of one
+ * per event), and state-like events emitted with emitLatest() replace their
+ * undelivered predecessor instead of queueing behind it. The queue is bounded;
+ * when JS falls behind, the oldest events are dropped and counted.
+ *
+ * Only a weak reference to the current bridge's plugin is held, so the queue
+ * never keeps a destroyed activity or WebView alive. Readiness is cleared
+ * when the WebView starts loading a page or the bridge is destroyed, because
+ * the listeners of the previous page are gone at that point.
+ */
+final class NativeEventQueue {
+    private static final String TAG = "NativeEventQueue";
+    static final int MAX_PENDING = 64;
+    // Frames stop while the screen is off; do not hold events for longer than this
+    private static final long MAX_FLUSH_DELAY_MS = 100L;
+
+    private static final NativeEventQueue instance = new NativeEventQueue();
+
+    // Lets JS tell a new process (seq restarted) from a page reload
+    private final long epoch = System.currentTimeMillis();
+    private final ArrayDeque<Event> pending = new ArrayDeque<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flush();
+    private WeakReference<NativeEventsPlugin> sink = new WeakReference<>(null);
+    private boolean ready;
+    private boolean flushScheduled;
+    private long nextSeq = 1;
+    private long dropped;
+    private long batches;
+
+    static NativeEventQueue getInstance() {
+        return instance;
+    }
+
+    private NativeEventQueue() {}
+
+    /**
+     * Queue an event for JS; sent with the next frame's batch if the page is ready.
+     */
+    void emit(String name, JSObject payload) {
+        synchronized (this) {
+            enqueue(name, null, payload);
+            if (!ready) {
+                AppLog.d(TAG, "⏳ Queued {} until the web layer is ready", name);
+            }
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Queue a state event where only the latest value matters. An undelivered
+     * event with the same name and key is replaced rather than kept.
+     */
+    void emitLatest(String name, String key, JSObject payload) {
+        synchronized (this) {
+            Iterator<Event> it = pending.iterator();
+            while (it.hasNext()) {
+                Event event = it.next();
+                if (!event.sent && name.equals(event.name) && key.equals(event.key)) {
+                    it.remove();
+                }
+            }
+            enqueue(name, key, payload);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Deliver only if a page is listening right now, otherwise drop the event.
+     * For signals that would be wrong to act on later, e.g. closing the app.
+     */
+    void emitIfReady(String name, JSObject payload) {
+        synchronized (this) {
+            if (!ready || sink.get() == null) {
+                AppLog.d(TAG, "🚫 No page listening, dropping {}", name);
+                return;
+            }
+            enqueue(name, null, payload);
+        }
+        scheduleFlush();
+    }
+
+    private void enqueue(String name, String key, JSObject payload) {
+        pending.addLast(new Event(epoch, nextSeq++, name, key, payload != null ? payload : new JSObject()));
+        while (pending.size() > MAX_PENDING) {
+            Event oldest = pending.removeFirst();
+            dropped++;
+            AppLog.w(TAG, "⚠️ Event queue full, dropping #{} {}", oldest.seq, oldest.name);
+        }
+    }
+
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (!ready || flushScheduled) return;
+            flushScheduled = true;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame();
+        } else {
+            mainHandler.post(this::postFrame);
+        }
+    }
+
+    private void postFrame() {
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+        mainHandler.postDelayed(flushRunnable, MAX_FLUSH_DELAY_MS);
+    }
+
+    /**
+     * Send every event not yet sent to the current page as one batch. Main thread.
+     */
+    private void flush() {
+        // Whichever of frame and timeout fired first, the other is now redundant
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        mainHandler.removeCallbacks(flushRunnable);
+
+        JSArray batch;
+        NativeEventsPlugin target;
+        synchronized (this) {
+            if (!flushScheduled) return;
+            flushScheduled = false;
+            target = ready ? sink.get() : null;
+            if (target == null) return;
+            batch = takeUnsent();
+        }
+        if (batch.length() > 0) {
+            target.deliver(batch);
+        }
+    }
+
+    private JSArray takeUnsent() {
+        JSArray batch = new JSArray();
+        for (Event event : pending) {
+            if (event.sent) continue;
+            event.sent = true;
+            batch.put(event.json);
+        }
+        if (batch.length() > 0) batches++;
+        return batch;
+    }
+
+    synchronized void attach(NativeEventsPlugin plugin) {
+        sink = new WeakReference<>(plugin);
+        resetDelivery();
+    }
+
+    /**
+     * The plugin's bridge is going away; queue events until the next one is ready.
+     */
+    synchronized void detach(NativeEventsPlugin plugin) {
+        if (sink.get() == plugin) {
+            sink = new WeakReference<>(null);
+            resetDelivery();
+        }
+    }
+
+    /**
+     * The web layer has its listeners in place; send everything not yet acknowledged.
+     * Runs synchronously so the batch reaches JS ahead of the ready() result.
+     */
+    void onReady(NativeEventsPlugin plugin) {
+        JSArray batch;
+        synchronized (this) {
+            sink = new WeakReference<>(plugin);
+            ready = true;
+            batch = takeUnsent();
+        }
+        if (batch.length() > 0) {
+            AppLog.d(TAG, "📤 Flushing {} queued event(s)", batch.length());
+            plugin.deliver(batch);
+        }
+    }
+
+    synchronized void acknowledge(long seq) {
+        Iterator<Event> it = pending.iterator();
+        while (it.hasNext()) {
+            if (it.next().seq == seq) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    synchronized void onPageStarted() {
+        resetDelivery();
+    }
+
+    // The page that received unacknowledged events is gone; they go out again on ready()
+    private void resetDelivery() {
+        ready = false;
+        for (Event event : pending) {
+            event.sent = false;
+        }
+    }
+
+    /**
+     * Whether events currently go to this plugin's bridge.
+     */
+    synchronized boolean isAttachedTo(NativeEventsPlugin plugin) {
+        return plugin != null && sink.get() == plugin;
+    }
+
+    /**
+     * Whether an activity's bridge is alive, loaded page or not.
+     */
+    synchronized boolean hasBridge() {
+        return sink.get() != null;
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    synchronized long getBatchCount() {
+        return batches;
+    }
+
+    private static final class Event {
+        final long seq;
+        final String name;
+        final String key;
+        // Built once; redeliveries after a reload reuse it
+        final JSObject json;
+        boolean sent;
+
+        Event(long epoch, long seq, String name, String key, JSObject payload) {
+            this.seq = seq;
+            this.name = name;
+            this.key = key;
+            this.json = new JSObject();
+            json.put("epoch", epoch);
+            json.put("seq", seq);
+            json.put("name", name);
+            json.put("payload", payload);
+        }
+    }
+}
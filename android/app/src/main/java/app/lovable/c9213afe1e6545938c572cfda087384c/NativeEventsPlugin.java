@@ -0,0 +1,85 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.webkit.WebView;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.WebViewListener;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import org.json.JSONException;
+
+/**
+ * Capacitor side of NativeEventQueue. JS subscribes to "nativeEvents", calls
+ * ready() once its handlers are registered and acks the events it handled.
+ * Each "nativeEvents" dispatch carries a batch: { events: [{ epoch, seq, name, payload }] }.
+ */
+@CapacitorPlugin(name = "NativeEvents")
+public class NativeEventsPlugin extends Plugin {
+    static final String EVENT_NAME = "nativeEvents";
+
+    @Override
+    public void load() {
+        NativeEventQueue.getInstance().attach(this);
+        getBridge().addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageStarted(WebView view) {
+                NativeEventQueue.getInstance().onPageStarted();
+            }
+        });
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        NativeEventQueue.getInstance().detach(this);
+    }
+
+    @PluginMethod
+    public void ready(PluginCall call) {
+        // Flush before resolving so queued events reach JS ahead of the ready() result
+        NativeEventQueue.getInstance().onReady(this);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void ack(PluginCall call) {
+        JSArray seqs = call.getArray("seqs");
+        Long seq = call.getLong("seq");
+        if (seqs == null && seq == null) {
+            call.reject("seq or seqs is required");
+            return;
+        }
+        NativeEventQueue queue = NativeEventQueue.getInstance();
+        if (seq != null) {
+            queue.acknowledge(seq);
+        }
+        if (seqs != null) {
+            try {
+                for (int i = 0; i < seqs.length(); i++) {
+                    queue.acknowledge(seqs.getLong(i));
+                }
+            } catch (JSONException e) {
+                call.reject("seqs must be numbers", e);
+                return;
+            }
+        }
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getPendingCount(PluginCall call) {
+        JSObject result = new JSObject();
+        NativeEventQueue queue = NativeEventQueue.getInstance();
+        result.put("pending", queue.getPendingCount());
+        result.put("dropped", queue.getDroppedCount());
+        result.put("batches", queue.getBatchCount());
+        call.resolve(result);
+    }
+
+    void deliver(JSArray events) {
+        JSObject batch = new JSObject();
+        batch.put("events", events);
+        notifyListeners(EVENT_NAME, batch);
+    }
+}
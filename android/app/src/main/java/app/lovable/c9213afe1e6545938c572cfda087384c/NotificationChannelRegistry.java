@@ -0,0 +1,209 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.AudioAttributes;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import androidx.core.app.NotificationCompat;
+
+/**
+ * Single definition of the app's notification channels.
+ * Channels are reconciled with NotificationManager once per install/upgrade
+ * (tracked by SCHEMA_VERSION in prefs); after that ensureChannels() is a
+ * field read, so the push path never pays for channel Binder calls.
+ *
+ * Bump SCHEMA_VERSION whenever a channel definition below changes.
+ */
+final class NotificationChannelRegistry {
+    private static final String TAG = "ChannelRegistry";
+
+    static final String ORDERS_CHANNEL_ID = "new-orders-v6";
+    static final String CALL_CHANNEL_ID = "booking-calls-v6";
+    static final String UPDATE_CHANNEL_ID = "app-updates";
+    static final String DIGEST_CHANNEL_ID = "order-digest";
+
+    private static final int SCHEMA_VERSION = 2;
+    private static final String PREFS_NAME = "notification_channels";
+    private static final String KEY_SCHEMA_VERSION = "schema_version";
+    private static final String KEY_APP_VERSION = "app_version_code";
+    private static final String KEY_LAST_RECONCILE_MS = "last_reconcile_ms";
+    private static final String KEY_RECONCILED_AT = "reconciled_at";
+
+    private static final long[] ORDER_VIBRATION = new long[]{0, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000};
+    private static final long[] UPDATE_VIBRATION = new long[]{0, 500, 200, 500};
+
+    private static volatile boolean ready;
+
+    private NotificationChannelRegistry() {}
+
+    /**
+     * Make sure all channels exist with the current definitions.
+     * Cheap after the first call in a process; reconciles at most once per schema/app version.
+     */
+    static void ensureChannels(Context context) {
+        if (ready) return;
+        synchronized (NotificationChannelRegistry.class) {
+            if (ready) return;
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+                ready = true;
+                return;
+            }
+
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            long appVersion = currentAppVersion(context);
+            if (prefs.getInt(KEY_SCHEMA_VERSION, 0) == SCHEMA_VERSION
+                && prefs.getLong(KEY_APP_VERSION, -1L) == appVersion) {
+                ready = true;
+                return;
+            }
+
+            long start = SystemClock.elapsedRealtime();
+            reconcile(context);
+            long elapsed = SystemClock.elapsedRealtime() - start;
+
+            prefs.edit()
+                .putInt(KEY_SCHEMA_VERSION, SCHEMA_VERSION)
+                .putLong(KEY_APP_VERSION, appVersion)
+                .putLong(KEY_LAST_RECONCILE_MS, elapsed)
+                .putLong(KEY_RECONCILED_AT, System.currentTimeMillis())
+                .apply();
+            ready = true;
+
+            AppLog.i(TAG, "✅ Notification channels reconciled (schema v{}) in {}ms", SCHEMA_VERSION, elapsed);
+        }
+    }
+
+    /**
+     * Force a reconcile on the next ensureChannels() call, e.g. after the user reset app settings.
+     */
+    static void invalidate(Context context) {
+        synchronized (NotificationChannelRegistry.class) {
+            context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().remove(KEY_SCHEMA_VERSION).apply();
+            ready = false;
+        }
+    }
+
+    static int getSchemaVersion() {
+        return SCHEMA_VERSION;
+    }
+
+    /**
+     * Duration of the last reconcile in ms, or -1 if channels were never reconciled.
+     */
+    static long getLastReconcileMillis(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(KEY_LAST_RECONCILE_MS, -1L);
+    }
+
+    static long getLastReconciledAt(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(KEY_RECONCILED_AT, 0L);
+    }
+
+    private static void reconcile(Context context) {
+        NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+        if (notificationManager == null) return;
+
+        // If channels exist with lower importance, delete to recreate with MAX
+        try {
+            NotificationChannel existingOrders = notificationManager.getNotificationChannel(ORDERS_CHANNEL_ID);
+            if (existingOrders != null && existingOrders.getImportance() < NotificationManager.IMPORTANCE_MAX) {
+                notificationManager.deleteNotificationChannel(ORDERS_CHANNEL_ID);
+            }
+            NotificationChannel existingCalls = notificationManager.getNotificationChannel(CALL_CHANNEL_ID);
+            if (existingCalls != null && existingCalls.getImportance() < NotificationManager.IMPORTANCE_MAX) {
+                notificationManager.deleteNotificationChannel(CALL_CHANNEL_ID);
+            }
+        } catch (Exception ignored) {}
+
+        // Order channels use the device PHONE RINGTONE (not notification sound)
+        AudioAttributes ringtoneAttributes = new AudioAttributes.Builder()
+            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+            .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE)
+            .build();
+        Uri defaultRingtoneUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
+
+        // Default channel with MAXIMUM interruption (IMPORTANCE_MAX for lock screen)
+        NotificationChannel channel = new NotificationChannel(
+            ORDERS_CHANNEL_ID,
+            "New Orders",
+            NotificationManager.IMPORTANCE_MAX
+        );
+        channel.setDescription("Notifications for new orders");
+        channel.enableVibration(true);
+        channel.setVibrationPattern(ORDER_VIBRATION);
+        channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        channel.setShowBadge(true);
+        channel.setBypassDnd(true);
+        channel.enableLights(true);
+        channel.setLightColor(0xFFFF0000);
+        channel.setSound(defaultRingtoneUri, ringtoneAttributes);
+        notificationManager.createNotificationChannel(channel);
+
+        // Call-style channel with MAXIMUM interruption (IMPORTANCE_MAX for lock screen)
+        NotificationChannel callChannel = new NotificationChannel(
+            CALL_CHANNEL_ID,
+            "Booking Calls",
+            NotificationManager.IMPORTANCE_MAX
+        );
+        callChannel.setDescription("Incoming booking alerts (call style)");
+        callChannel.enableVibration(true);
+        callChannel.setVibrationPattern(ORDER_VIBRATION);
+        callChannel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        callChannel.setShowBadge(true);
+        callChannel.setBypassDnd(true);
+        callChannel.enableLights(true);
+        callChannel.setLightColor(0xFFFF0000);
+        callChannel.setSound(defaultRingtoneUri, ringtoneAttributes);
+        notificationManager.createNotificationChannel(callChannel);
+
+        // App Updates channel - IMPORTANCE_HIGH (not MAX to avoid being too intrusive)
+        NotificationChannel updateChannel = new NotificationChannel(
+            UPDATE_CHANNEL_ID,
+            "App Updates",
+            NotificationManager.IMPORTANCE_HIGH
+        );
+        updateChannel.setDescription("Notifications for new app versions");
+        updateChannel.enableVibration(true);
+        updateChannel.setVibrationPattern(UPDATE_VIBRATION);
+        updateChannel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        updateChannel.setShowBadge(true);
+        updateChannel.enableLights(true);
+        updateChannel.setLightColor(0xFF0066FF);
+        // Use default notification sound (not ringtone) for updates
+        updateChannel.setSound(
+            RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION),
+            new AudioAttributes.Builder()
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .setUsage(AudioAttributes.USAGE_NOTIFICATION)
+                .build()
+        );
+        notificationManager.createNotificationChannel(updateChannel);
+
+        // Digest channel - IMPORTANCE_DEFAULT: batched status updates make a sound but never peek or wake the screen
+        NotificationChannel digestChannel = new NotificationChannel(
+            DIGEST_CHANNEL_ID,
+            "Order Updates",
+            NotificationManager.IMPORTANCE_DEFAULT
+        );
+        digestChannel.setDescription("Batched order status updates and reminders");
+        digestChannel.enableVibration(false);
+        digestChannel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PRIVATE);
+        digestChannel.setShowBadge(true);
+        notificationManager.createNotificationChannel(digestChannel);
+    }
+
+    private static long currentAppVersion(Context context) {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).getLongVersionCode();
+            }
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+}
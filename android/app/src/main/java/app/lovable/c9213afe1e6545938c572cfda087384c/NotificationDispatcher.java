@@ -0,0 +1,653 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.Process;
+import android.view.WindowManager;
+import androidx.core.app.NotificationCompat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated stage that posts push notifications off the FCM callback thread.
+ * The service only decodes the payload and hands off here; everything after
+ * that (duplicate check, order snapshot, digest batching) and everything that
+ * costs a Binder round trip (channels, PendingIntents, notify, wake lock)
+ * runs on a single bounded worker with the static parts of each notification
+ * prepared once per process. All state below is confined to that worker.
+ *
+ * Only pushes go through the bounded queue, and only the FCM thread may wait
+ * on it. Work handed over from the main thread or the outboxes (digests,
+ * cancellations, failure notices) goes to an unbounded control queue that the
+ * worker empties before each push, so those callers never block.
+ */
+final class NotificationDispatcher {
+    private static final String TAG = "NotificationDispatcher";
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int CONTENT_INTENT_CACHE_SIZE = 16;
+    private static final int UPDATE_NOTIFICATION_ID = 999;
+    private static final int BURST_SUMMARY_ID = 998;
+    private static final int DIGEST_NOTIFICATION_ID = 997;
+    private static final int ACTION_FAILED_NOTIFICATION_ID = 996;
+    private static final int DIGEST_MAX_LINES = 7;
+    private static final String BURST_GROUP_KEY = "order-burst";
+    private static final String OFFERS_ROUTE = "/specialist/offers";
+
+    private static volatile NotificationDispatcher instance;
+
+    private final Context context;
+    private final NotificationManager notificationManager;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentLinkedQueue<Runnable> control = new ConcurrentLinkedQueue<>();
+    private final Runnable drainControl = new ControlDrain(this::drainControl);
+    private final Template callTemplate;
+    private final Template orderTemplate;
+    private final OrderBurstCoalescer burstCoalescer = new OrderBurstCoalescer();
+    private final DeliveryTimeline timeline;
+    // Pushes without an orderId still need distinct ids; seeded so restarts don't reuse live ids
+    private final AtomicInteger anonymousIds =
+        new AtomicInteger(0x40000000 | (int) ((System.currentTimeMillis() / 1000L) & 0x0FFFFFFF));
+    // Deep-link PendingIntents differ only by route, so repeated routes skip the Binder call
+    private final Map<String, PendingIntent> contentIntents =
+        new LinkedHashMap<String, PendingIntent>(CONTENT_INTENT_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PendingIntent> eldest) {
+                return size() > CONTENT_INTENT_CACHE_SIZE;
+            }
+        };
+
+    static NotificationDispatcher getInstance(Context context) {
+        NotificationDispatcher local = instance;
+        if (local == null) {
+            synchronized (NotificationDispatcher.class) {
+                local = instance;
+                if (local == null) {
+                    local = new NotificationDispatcher(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private NotificationDispatcher(Context context) {
+        this.context = context;
+        this.notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+
+        Uri ringtoneUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
+        this.callTemplate = Template.call(ringtoneUri);
+        this.orderTemplate = Template.standard();
+        this.timeline = DeliveryTimeline.getInstance(context);
+
+        this.executor = new ThreadPoolExecutor(
+            1, 1,
+            30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_FOREGROUND);
+                runnable.run();
+            }, "notification-dispatcher"),
+            new DropOldestStandard()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Start the worker thread and prepare channels ahead of the first message.
+     */
+    void warmUp() {
+        runOnWorker(this::ensureChannels);
+    }
+
+    /**
+     * Hand a decoded push to the worker, which decides what to do with it.
+     * Only plain status notifications may be dropped if the queue overflows.
+     */
+    void dispatch(long receivedAtNanos, OrderPush push) {
+        long queuedAt = System.nanoTime();
+        long receivedAtMillis = System.currentTimeMillis();
+        boolean droppable = !push.callStyle && !push.isAppUpdate();
+        executor.execute(new Task(droppable, () -> {
+            drainControl();
+            route(receivedAtNanos, queuedAt, receivedAtMillis, push);
+        }));
+    }
+
+    void dispatchDigest(List<DigestScheduler.Entry> entries) {
+        runOnWorker(() -> postDigest(entries));
+    }
+
+    /**
+     * Tell the specialist that an answer given from IncomingOrderActivity did not go through.
+     */
+    void dispatchActionFailed(String orderId) {
+        runOnWorker(() -> postActionFailed(orderId));
+    }
+
+    /**
+     * Remove the notification of an order answered outside the app, e.g. from IncomingOrderActivity.
+     */
+    void cancelOrder(String orderId, String type) {
+        runOnWorker(() -> notificationManager.cancel(notificationIdFor(orderId, type)));
+    }
+
+    /**
+     * Queue non-push work without waiting: if the bounded queue is full, the
+     * pushes in it drain the control queue before they run.
+     */
+    private void runOnWorker(Runnable job) {
+        control.add(job);
+        executor.execute(drainControl);
+    }
+
+    private void drainControl() {
+        Runnable job;
+        while ((job = control.poll()) != null) {
+            job.run();
+        }
+    }
+
+    private void route(long receivedAt, long queuedAt, long receivedAtMillis, OrderPush push) {
+        // FCM retries and the notification+data payload can deliver the same order twice
+        if (!PushDeduplicator.getInstance(context).shouldDeliver(push)) {
+            return;
+        }
+
+        // Cache offer fields so order screens can render before their network query
+        if (push.hasOrderId()) {
+            OrderSnapshotStore snapshots = OrderSnapshotStore.getInstance(context);
+            if (OrderPush.TYPE_ORDER_EXPIRED.equals(push.type)) {
+                snapshots.remove(push.orderId);
+                IncomingOrderQueue.getInstance().remove(push.orderId);
+            } else {
+                snapshots.put(push, receivedAtMillis);
+            }
+        }
+
+        // A single local notification for updates, to avoid duplicates
+        if (push.isAppUpdate()) {
+            postAppUpdate(receivedAt, queuedAt, push);
+            return;
+        }
+
+        // Status updates and reminders wait for the next digest instead of alerting one by one
+        DigestScheduler digest = DigestScheduler.getInstance(context);
+        if (digest.isDigestible(push)) {
+            List<DigestScheduler.Entry> due = digest.enqueue(push, receivedAtMillis);
+            if (!due.isEmpty()) {
+                postDigest(due);
+            }
+            return;
+        }
+
+        // Only new orders get the full-screen call interface (works when app is closed)
+        if (push.callStyle) {
+            postCall(receivedAt, queuedAt, push);
+            // A tap is likely to follow; get the WebView engine up while the phone rings
+            WebViewWarmer.getInstance(context).warmForPush();
+        } else {
+            postStandard(receivedAt, queuedAt, push);
+        }
+    }
+
+    private void postCall(long receivedAt, long queuedAt, OrderPush push) {
+        long startedAt = System.nanoTime();
+        ensureChannels();
+        int notificationId = notificationIdFor(push.orderId, push.type);
+        // A running IncomingOrderActivity picks the order up from here, coalesced or not
+        IncomingOrderQueue.getInstance().offer(push);
+
+        if (burstCoalescer.onOrder(push.title + " — " + push.body)) {
+            postBurstMember(notificationId, push.title, push.body, push.route);
+            timeline.record(push.messageId, DeliveryTimeline.STAGE_NOTIFIED, System.currentTimeMillis());
+            logTimings("call-coalesced", receivedAt, queuedAt, startedAt, System.nanoTime(), System.nanoTime());
+            return;
+        }
+
+        // Full-screen intent - launches custom Activity for incoming orders (fallback for other devices).
+        // SINGLE_TOP hands later orders to the running activity's onNewIntent instead of recreating it.
+        Intent fullScreenIntent = new Intent(context, IncomingOrderActivity.class);
+        fullScreenIntent.setFlags(
+            Intent.FLAG_ACTIVITY_NEW_TASK |
+            Intent.FLAG_ACTIVITY_SINGLE_TOP |
+            Intent.FLAG_ACTIVITY_NO_HISTORY
+        );
+        fullScreenIntent.addFlags(WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON);
+        fullScreenIntent.addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+        fullScreenIntent.addFlags(WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED);
+        fullScreenIntent.addFlags(WindowManager.LayoutParams.FLAG_DISMISS_KEYGUARD);
+        fullScreenIntent.putExtra("title", push.title);
+        fullScreenIntent.putExtra("body", push.body);
+        fullScreenIntent.putExtra("route", push.route);
+        fullScreenIntent.putExtra("orderId", push.orderId);
+        fullScreenIntent.putExtra(DeliveryTimeline.EXTRA_TIMELINE_KEY, push.messageId);
+
+        // Same component for every order, so this one must be refreshed per message
+        PendingIntent fullScreenPendingIntent = PendingIntent.getActivity(
+            context,
+            1,
+            fullScreenIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        NotificationCompat.Builder builder = callTemplate.newBuilder(context)
+            .setContentTitle(push.title)
+            .setContentText(push.body)
+            .setStyle(new NotificationCompat.BigTextStyle()
+                .bigText(push.body)
+                .setBigContentTitle(push.title))
+            .setContentIntent(contentIntent(push.route))
+            .setFullScreenIntent(fullScreenPendingIntent, true); // Wake screen
+        long builtAt = System.nanoTime();
+
+        notificationManager.notify(notificationId, builder.build());
+        long notifiedAt = System.nanoTime();
+        timeline.record(push.messageId, DeliveryTimeline.STAGE_NOTIFIED, System.currentTimeMillis());
+
+        // Ringing has started; keep the screen up for the full-screen UI afterwards.
+        // Overlapping orders extend one shared lease instead of stacking wake locks.
+        WakeLockCoordinator.getInstance(context).acquireLease(WakeLockCoordinator.DEFAULT_LEASE_MS);
+
+        logTimings("call", receivedAt, queuedAt, startedAt, builtAt, notifiedAt);
+    }
+
+    private void postStandard(long receivedAt, long queuedAt, OrderPush push) {
+        long startedAt = System.nanoTime();
+        ensureChannels();
+
+        NotificationCompat.Builder builder = orderTemplate.newBuilder(context)
+            .setContentTitle(push.title)
+            .setContentText(push.body)
+            .setContentIntent(contentIntent(push.route));
+        long builtAt = System.nanoTime();
+
+        notificationManager.notify(notificationIdFor(push.orderId, push.type), builder.build());
+        long notifiedAt = System.nanoTime();
+        timeline.record(push.messageId, DeliveryTimeline.STAGE_NOTIFIED, System.currentTimeMillis());
+
+        logTimings("standard", receivedAt, queuedAt, startedAt, builtAt, notifiedAt);
+    }
+
+    /**
+     * Orders beyond the burst threshold are posted silently into a group whose
+     * summary alerts once, instead of each one ringing full-screen.
+     */
+    private void postBurstMember(int notificationId, String title, String body, String route) {
+        NotificationCompat.Builder child = orderTemplate.newBuilder(context)
+            .setContentTitle(title)
+            .setContentText(body)
+            .setContentIntent(contentIntent(route))
+            .setGroup(BURST_GROUP_KEY)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY);
+        notificationManager.notify(notificationId, child.build());
+
+        int count = burstCoalescer.getCoalescedCount();
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle()
+            .setBigContentTitle("+" + count + " طلبات جديدة");
+        for (String line : burstCoalescer.getSummaryLines()) {
+            inbox.addLine(line);
+        }
+
+        NotificationCompat.Builder summary = orderTemplate.newBuilder(context)
+            .setContentTitle("+" + count + " طلبات جديدة")
+            .setContentText(title)
+            .setStyle(inbox)
+            .setNumber(count)
+            .setCategory(NotificationCompat.CATEGORY_CALL)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setContentIntent(contentIntent(OFFERS_ROUTE))
+            .setGroup(BURST_GROUP_KEY)
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+            .setOnlyAlertOnce(true); // Ring once per burst, later updates are silent
+        notificationManager.notify(BURST_SUMMARY_ID, summary.build());
+
+        AppLog.i(TAG, "📚 Order coalesced into burst summary ({} so far)", count);
+    }
+
+    /**
+     * One InboxStyle summary for everything queued during a digest window.
+     */
+    private void postDigest(List<DigestScheduler.Entry> entries) {
+        ensureChannels();
+        DigestScheduler.Entry latest = entries.get(entries.size() - 1);
+        int count = entries.size();
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannelRegistry.DIGEST_CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_stat_icon_config_sample)
+            .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+            .setCategory(NotificationCompat.CATEGORY_STATUS)
+            .setAutoCancel(true)
+            .setOnlyAlertOnce(true)
+            // Tapping opens the screen of the most recent update
+            .setContentIntent(contentIntent(latest.route));
+
+        if (count == 1) {
+            builder.setContentTitle(latest.title).setContentText(latest.body);
+        } else {
+            String title = count + " تحديثات جديدة";
+            NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle().setBigContentTitle(title);
+            // Newest first, like the notification shade
+            for (int i = count - 1; i >= 0 && count - i <= DIGEST_MAX_LINES; i--) {
+                DigestScheduler.Entry entry = entries.get(i);
+                inbox.addLine(entry.title + " — " + entry.body);
+            }
+            if (count > DIGEST_MAX_LINES) {
+                inbox.setSummaryText("+" + (count - DIGEST_MAX_LINES));
+            }
+            builder.setContentTitle(title)
+                .setContentText(latest.title)
+                .setStyle(inbox)
+                .setNumber(count);
+        }
+
+        notificationManager.notify(DIGEST_NOTIFICATION_ID, builder.build());
+        AppLog.i(TAG, "🗂️ Digest posted with {} updates", count);
+    }
+
+    /**
+     * Handle app update notifications with action buttons
+     */
+    private void postAppUpdate(long receivedAt, long queuedAt, OrderPush push) {
+        long startedAt = System.nanoTime();
+        ensureChannels();
+
+        AppLog.d(TAG, "🔄 Creating update notification - Version: {}", push.versionName);
+
+        // Create intent to open app and show update dialog
+        Uri deepLink = Uri.parse("request-mastermind://open?route=" + Uri.encode(push.route));
+        Intent intent = new Intent(Intent.ACTION_VIEW, deepLink);
+        intent.setPackage(context.getPackageName());
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            (int) System.currentTimeMillis(),
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        // Build notification with action button
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannelRegistry.UPDATE_CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_stat_icon_config_sample)
+            .setContentTitle(push.title)
+            .setContentText(push.body)
+            .setStyle(new NotificationCompat.BigTextStyle()
+                .bigText(push.changelog != null ? push.changelog : push.body))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_REMINDER)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent)
+            .setColor(0xFF0066FF);
+
+        // Add "Update Now" action button: the update sheet, which installs an
+        // APK UpdatePrefetchJobService already verified straight from the cache
+        Intent updateIntent = new Intent(context, UpdateNotificationActivity.class);
+        updateIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        updateIntent.putExtra("version_id", push.versionId);
+        updateIntent.putExtra("version_code", push.versionCode);
+        updateIntent.putExtra("version_name", push.versionName);
+        updateIntent.putExtra("apk_url", push.apkUrl);
+        updateIntent.putExtra("apk_sha256", push.apkSha256);
+        updateIntent.putExtra("is_mandatory", String.valueOf(push.mandatory));
+        updateIntent.putExtra("changelog", push.changelog);
+        updateIntent.putExtra("route", push.route);
+        PendingIntent updatePendingIntent = PendingIntent.getActivity(
+            context,
+            UPDATE_NOTIFICATION_ID,
+            updateIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        builder.addAction(
+            R.drawable.ic_stat_icon_config_sample,
+            "تحديث الآن",
+            updatePendingIntent
+        );
+        long builtAt = System.nanoTime();
+
+        notificationManager.notify(UPDATE_NOTIFICATION_ID, builder.build()); // Use fixed ID 999 for updates
+        long notifiedAt = System.nanoTime();
+
+        logTimings("app_update", receivedAt, queuedAt, startedAt, builtAt, notifiedAt);
+
+        // Fetch the APK on Wi-Fi while charging, so "Update now" needs no download
+        UpdatePrefetchJobService.schedule(context, push);
+    }
+
+    /**
+     * One notification for all failed answers, opening the offer the latest one was about.
+     */
+    private void postActionFailed(String orderId) {
+        ensureChannels();
+        NotificationCompat.Builder builder = orderTemplate.newBuilder(context)
+            .setContentTitle("تعذر إرسال ردك على الطلب")
+            .setContentText("افتح التطبيق لمراجعة الطلب")
+            .setContentIntent(contentIntent(OFFERS_ROUTE + "?orderId=" + orderId));
+        notificationManager.notify(ACTION_FAILED_NOTIFICATION_ID, builder.build());
+    }
+
+    /**
+     * No-op once the registry has reconciled channels for this install.
+     */
+    private void ensureChannels() {
+        NotificationChannelRegistry.ensureChannels(context);
+    }
+
+    /**
+     * Stable id per order + type, so a re-delivered order replaces its own
+     * notification instead of colliding on System.currentTimeMillis().
+     */
+    private int notificationIdFor(String orderId, String type) {
+        String key = PushDeduplicator.keyFor(orderId, type, null);
+        if (key == null) {
+            return anonymousIds.getAndIncrement() & 0x7FFFFFFF;
+        }
+        int id = key.hashCode() & 0x3FFFFFFF;
+        if (id == UPDATE_NOTIFICATION_ID || id == BURST_SUMMARY_ID || id == DIGEST_NOTIFICATION_ID
+            || id == ACTION_FAILED_NOTIFICATION_ID) {
+            id += 4;
+        }
+        return id;
+    }
+
+    private PendingIntent contentIntent(String route) {
+        PendingIntent cached = contentIntents.get(route);
+        if (cached != null) return cached;
+
+        // Intent to launch MainActivity when notification is tapped (deep link)
+        Uri deepLink = Uri.parse("request-mastermind://open?route=" + Uri.encode(route));
+        Intent intent = new Intent(Intent.ACTION_VIEW, deepLink);
+        intent.setPackage(context.getPackageName());
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        // Ensure MainActivity knows this was from a notification and pass the route explicitly
+        intent.putExtra("fromNotification", true);
+        intent.putExtra("route", route);
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        contentIntents.put(route, pendingIntent);
+        return pendingIntent;
+    }
+
+    private static void logTimings(String kind, long receivedAt, long queuedAt, long startedAt, long builtAt, long notifiedAt) {
+        // Timings are the one thing worth keeping in release builds, so they go to the ring at INFO
+        AppLog.i(TAG, "⏱️ {} decode/queue/build/notify(us)={} total(us)={}", kind,
+            new StageTimings(queuedAt - receivedAt, startedAt - queuedAt, builtAt - startedAt, notifiedAt - builtAt),
+            micros(notifiedAt - receivedAt));
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000L;
+    }
+
+    /**
+     * A queued push, marked with whether it may be dropped under overload.
+     */
+    private static final class Task implements Runnable {
+        final boolean droppable;
+        private final Runnable body;
+
+        Task(boolean droppable, Runnable body) {
+            this.droppable = droppable;
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            body.run();
+        }
+    }
+
+    /**
+     * Wakes the worker for the control queue; never needs a slot of its own.
+     */
+    private static final class ControlDrain implements Runnable {
+        private final Runnable body;
+
+        ControlDrain(Runnable body) {
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            body.run();
+        }
+    }
+
+    /**
+     * Full queue: drop the oldest plain status notification to make room.
+     * Calls and updates are never dropped; when nothing can be, the FCM
+     * thread waits for a free slot instead of posting itself, so the
+     * dispatcher's state is never touched from two threads. A control drain
+     * is simply not queued: every queued push drains the control queue first.
+     */
+    private static final class DropOldestStandard implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown() || task instanceof ControlDrain) return;
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            for (Runnable queued : queue) {
+                if (queued instanceof Task && ((Task) queued).droppable && queue.remove(queued)) {
+                    AppLog.w(TAG, "⚠️ Dispatcher queue full, dropped the oldest status notification");
+                    executor.execute(task);
+                    return;
+                }
+            }
+            if (task instanceof Task && ((Task) task).droppable) {
+                AppLog.w(TAG, "⚠️ Dispatcher queue full of calls, dropped a status notification");
+                return;
+            }
+            try {
+                queue.put(task);
+                executor.prestartCoreThread();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Per-stage durations, only turned into text if the event is logged or dumped.
+     */
+    private static final class StageTimings {
+        private final long decode;
+        private final long queue;
+        private final long build;
+        private final long notify;
+
+        StageTimings(long decode, long queue, long build, long notify) {
+            this.decode = decode;
+            this.queue = queue;
+            this.build = build;
+            this.notify = notify;
+        }
+
+        @Override
+        public String toString() {
+            return micros(decode) + "/" + micros(queue) + "/" + micros(build) + "/" + micros(notify);
+        }
+    }
+
+    /**
+     * The per-channel parts of a notification that never change between messages.
+     */
+    private static final class Template {
+        private final String channelId;
+        private final int priority;
+        private final String category;
+        private final Uri sound;
+        private final long[] vibrationPattern;
+        private final boolean callStyle;
+
+        private Template(String channelId, int priority, String category, Uri sound, long[] vibrationPattern, boolean callStyle) {
+            this.channelId = channelId;
+            this.priority = priority;
+            this.category = category;
+            this.sound = sound;
+            this.vibrationPattern = vibrationPattern;
+            this.callStyle = callStyle;
+        }
+
+        static Template call(Uri ringtoneUri) {
+            // Long vibration pattern (10 seconds of continuous vibration)
+            long[] vibrationPattern = new long[]{0, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000, 500, 1000};
+            return new Template(
+                NotificationChannelRegistry.CALL_CHANNEL_ID,
+                NotificationCompat.PRIORITY_MAX,
+                NotificationCompat.CATEGORY_CALL, // Always use CALL category for maximum interruption
+                ringtoneUri,
+                vibrationPattern,
+                true
+            );
+        }
+
+        static Template standard() {
+            return new Template(
+                NotificationChannelRegistry.ORDERS_CHANNEL_ID,
+                NotificationCompat.PRIORITY_HIGH,
+                null,
+                null,
+                null,
+                false
+            );
+        }
+
+        NotificationCompat.Builder newBuilder(Context context) {
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
+                .setSmallIcon(R.drawable.ic_stat_icon_config_sample)
+                .setPriority(priority)
+                .setAutoCancel(true);
+            if (!callStyle) {
+                return builder;
+            }
+            // Maximum priority and ensure both sound and UI appear
+            return builder
+                .setCategory(category)
+                .setSound(sound) // Use device's default phone ringtone
+                .setVibrate(vibrationPattern) // Explicitly set vibration
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC) // Show on lock screen
+                .setColor(0xFFFF0000)
+                .setLights(0xFFFF0000, 500, 500)
+                .setOngoing(true)
+                .setTimeoutAfter(30000)
+                .setDefaults(0) // Don't use defaults, use explicit settings
+                .setOnlyAlertOnce(false); // Alert every time
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.getcapacitor.JSObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable outbox for order answers given in IncomingOrderActivity.
+ *
+ * Skipping an offer, accepting it at the listed price or quoting one of the
+ * cached QuoteTiers prices used to launch MainActivity with an action deep
+ * link, paying a full WebView cold start for one update. The activity now
+ * queues the answer here and closes right away; the outbox sends it to
+ * mobile-api's /order-actions route as the signed-in user (see
+ * SupabaseSession), whose JWT identifies the specialist. Each action carries
+ * a client id that the server stores with the answer, so a retry of an
+ * action that already landed comes back "applied", while an offer answered
+ * some other way meanwhile comes back "conflict".
+ *
+ * Failed sends are retried with capped exponential backoff via an inexact
+ * alarm. Every outcome is reported to the web layer as an
+ * "orderActionResult" native event, and an answer the server refused
+ * (offer expired or answered elsewhere, no listed price) also gets a
+ * notification, because the specialist believes it went through.
+ */
+final class OrderActionOutbox {
+    private static final String TAG = "OrderActionOutbox";
+    private static final String PREFS_NAME = "order_actions";
+    private static final String KEY_PENDING = "pending";
+    private static final String KEY_LAST_SYNC_AT = "last_sync_at";
+
+    static final String ACTION_SKIP = "skip";
+    static final String ACTION_ACCEPT = "accept";
+    static final String ACTION_QUOTE = "quote";
+    static final String EVENT_RESULT = "orderActionResult";
+
+    private static final String ACTIONS_PATH = "/functions/v1/mobile-api/order-actions";
+    // mobile-api accepts at most this many actions per request
+    private static final int MAX_PENDING = 20;
+    private static final long BASE_BACKOFF_MS = 15 * 1000L;
+    private static final long MAX_BACKOFF_MS = 30 * 60 * 1000L;
+    private static final int ALARM_REQUEST_CODE = 5;
+
+    private static volatile OrderActionOutbox instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final OutboxTransport transport;
+    private final SupabaseSession session;
+    private final String endpoint;
+    private final String apiKey;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "order-actions"));
+
+    static OrderActionOutbox getInstance(Context context) {
+        OrderActionOutbox local = instance;
+        if (local == null) {
+            synchronized (OrderActionOutbox.class) {
+                local = instance;
+                if (local == null) {
+                    local = new OrderActionOutbox(
+                        context.getApplicationContext(),
+                        BuildConfig.SUPABASE_URL,
+                        BuildConfig.SUPABASE_ANON_KEY
+                    );
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @param baseUrl Supabase project URL
+     */
+    OrderActionOutbox(Context context, String baseUrl, String apiKey) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.transport = new OutboxTransport(context, prefs, TAG, BASE_BACKOFF_MS, MAX_BACKOFF_MS,
+            OrderActionReceiver.class, ALARM_REQUEST_CODE);
+        this.session = new SupabaseSession(context, baseUrl, apiKey);
+        this.endpoint = baseUrl + ACTIONS_PATH;
+        this.apiKey = apiKey;
+        // Actions waiting for the page to refresh the session go out once it is stored
+        SupabaseSession.addStoreListener(context, this::flush);
+    }
+
+    /**
+     * Whether answers can be sent without the app: someone must be signed in.
+     */
+    boolean canSend() {
+        return SupabaseSession.isSignedIn(context);
+    }
+
+    /**
+     * Queue an answer for an order and try to send it. Returns false if it
+     * cannot be sent natively, in which case the caller should open the app.
+     *
+     * @param price quoted price for ACTION_QUOTE, ignored otherwise
+     * @param timelineKey DeliveryTimeline key of the push, so the answer's round trip is recorded
+     */
+    synchronized boolean enqueue(String orderId, String action, double price, String timelineKey) {
+        if (orderId == null || orderId.isEmpty() || !canSend()) return false;
+
+        List<Action> pending = loadPending();
+        for (Action queued : pending) {
+            // The first answer to an order is the one that counts
+            if (queued.orderId.equals(orderId)) return true;
+        }
+        if (pending.size() >= MAX_PENDING) {
+            AppLog.w(TAG, "⚠️ Order action outbox full, opening the app instead");
+            return false;
+        }
+        pending.add(new Action(UUID.randomUUID().toString(), orderId, action,
+            ACTION_QUOTE.equals(action) ? price : 0, timelineKey, System.currentTimeMillis()));
+        SharedPreferences.Editor editor = prefs.edit().putString(KEY_PENDING, encode(pending));
+        transport.resetBackoff(editor);
+        editor.apply();
+        AppLog.i(TAG, "📮 {} queued for order {} ({} pending)", action, orderId, pending.size());
+        flush();
+        return true;
+    }
+
+    /**
+     * Send pending actions on the worker thread unless a backoff is still running.
+     */
+    void flush() {
+        worker.execute(this::flushNow);
+    }
+
+    synchronized List<String> getPendingOrderIds() {
+        List<Action> pending = loadPending();
+        List<String> orderIds = new ArrayList<>(pending.size());
+        for (Action action : pending) {
+            orderIds.add(action.orderId);
+        }
+        return orderIds;
+    }
+
+    int getAttempts() {
+        return transport.getAttempts();
+    }
+
+    long getNextAttemptAt() {
+        return transport.getNextAttemptAt();
+    }
+
+    long getLastSyncAt() {
+        return prefs.getLong(KEY_LAST_SYNC_AT, 0L);
+    }
+
+    private void flushNow() {
+        List<Action> batch;
+        synchronized (this) {
+            batch = loadPending();
+            if (batch.isEmpty() || transport.isBackingOff()) return;
+        }
+
+        if (!SupabaseSession.isSignedIn(context)) {
+            AppLog.e(TAG, "❌ Signed out, dropping {} action(s)", batch.size());
+            finish(batch, null, "signed_out");
+            return;
+        }
+        String accessToken = session.accessToken();
+        if (accessToken == null) {
+            if (SupabaseSession.isRefreshedByPage()) {
+                AppLog.i(TAG, "⏳ Waiting for the app to refresh the session, {} action(s) parked", batch.size());
+                return;
+            }
+            AppLog.w(TAG, "⚠️ Could not refresh the user session, retrying later");
+            transport.retryLater();
+            return;
+        }
+
+        OutboxTransport.Response result;
+        JSONObject response;
+        try {
+            JSONArray actions = new JSONArray();
+            for (Action action : batch) {
+                JSONObject json = new JSONObject()
+                    .put("id", action.id)
+                    .put("orderId", action.orderId)
+                    .put("action", action.action)
+                    .put("at", action.queuedAt);
+                if (ACTION_QUOTE.equals(action.action)) {
+                    json.put("price", action.price);
+                }
+                actions.put(json);
+            }
+            result = OutboxTransport.post(endpoint, apiKey, accessToken,
+                new JSONObject().put("actions", actions).toString());
+            response = result.body.isEmpty() ? new JSONObject() : new JSONObject(result.body);
+        } catch (IOException | JSONException e) {
+            AppLog.w(TAG, "⚠️ Order actions failed: {}", e.getMessage());
+            transport.retryLater();
+            return;
+        }
+
+        if (result.isSuccess()) {
+            finish(batch, response.optJSONArray("results"), "unknown");
+        } else if (result.isRetryable() || result.status == 401) {
+            // A 401 is a session revoked or expired on the way; the next attempt refreshes it
+            AppLog.w(TAG, "⚠️ Order actions got HTTP {}, retrying later", result.status);
+            transport.retryLater();
+        } else {
+            // Anything else will not succeed on retry
+            AppLog.e(TAG, "❌ Order actions rejected with HTTP {}", result.status);
+            finish(batch, null, "rejected");
+        }
+    }
+
+    /**
+     * Remove a sent batch and report each action's outcome; actions missing
+     * from the server's results get fallbackStatus.
+     */
+    private void finish(List<Action> batch, JSONArray results, String fallbackStatus) {
+        Map<String, String> statuses = new HashMap<>();
+        for (int i = 0; results != null && i < results.length(); i++) {
+            JSONObject result = results.optJSONObject(i);
+            if (result != null) {
+                statuses.put(result.optString("id"), result.optString("status", fallbackStatus));
+            }
+        }
+
+        synchronized (this) {
+            List<Action> pending = loadPending();
+            pending.removeAll(batch);
+            SharedPreferences.Editor editor = prefs.edit()
+                .putString(KEY_PENDING, encode(pending))
+                .putLong(KEY_LAST_SYNC_AT, System.currentTimeMillis());
+            transport.clearBackoff(editor);
+            editor.apply();
+            if (!pending.isEmpty()) {
+                flush();
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        DeliveryTimeline timeline = DeliveryTimeline.getInstance(context);
+        for (Action action : batch) {
+            String status = statuses.containsKey(action.id) ? statuses.get(action.id) : fallbackStatus;
+            boolean applied = "applied".equals(status);
+            // Tap to server confirmation, retries included
+            long roundTripMs = now - action.queuedAt;
+            AppLog.i(TAG, "{} {} for order {}: {} in {}ms", applied ? "✅" : "❌", action.action, action.orderId,
+                status, roundTripMs);
+            if (applied && action.timelineKey != null) {
+                timeline.record(action.timelineKey, DeliveryTimeline.STAGE_ANSWERED, now, action.action);
+            }
+
+            JSObject payload = new JSObject();
+            payload.put("orderId", action.orderId);
+            payload.put("action", action.action);
+            payload.put("status", status);
+            payload.put("applied", applied);
+            payload.put("roundTripMs", roundTripMs);
+            NativeEventQueue.getInstance().emit(EVENT_RESULT, payload);
+            if (!applied) {
+                NotificationDispatcher.getInstance(context).dispatchActionFailed(action.orderId);
+            }
+        }
+    }
+
+    private List<Action> loadPending() {
+        List<Action> pending = new ArrayList<>();
+        String stored = prefs.getString(KEY_PENDING, null);
+        if (stored == null || stored.isEmpty()) return pending;
+
+        // Format: id '\t' orderId '\t' action '\t' price '\t' timelineKey '\t' queuedAt '\n' ...
+        // (an empty timelineKey stands for none)
+        for (String line : stored.split("\n")) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 6) continue;
+            try {
+                pending.add(new Action(fields[0], fields[1], fields[2], Double.parseDouble(fields[3]),
+                    fields[4].isEmpty() ? null : fields[4], Long.parseLong(fields[5])));
+            } catch (NumberFormatException ignored) {}
+        }
+        return pending;
+    }
+
+    private static String encode(List<Action> pending) {
+        StringBuilder sb = new StringBuilder(pending.size() * 128);
+        for (Action action : pending) {
+            sb.append(action.id).append('\t')
+                .append(action.orderId).append('\t')
+                .append(action.action).append('\t')
+                .append(action.price).append('\t')
+                .append(action.timelineKey != null ? action.timelineKey : "").append('\t')
+                .append(action.queuedAt).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static final class Action {
+        final String id;
+        final String orderId;
+        final String action;
+        final double price;
+        final String timelineKey;
+        final long queuedAt;
+
+        Action(String id, String orderId, String action, double price, String timelineKey, long queuedAt) {
+            this.id = id;
+            this.orderId = orderId;
+            this.action = action;
+            this.price = price;
+            this.timelineKey = timelineKey;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Action && id.equals(((Action) other).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Retries pending order answers when their backoff elapses.
+ */
+public class OrderActionReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        OrderActionOutbox.getInstance(context).flush();
+    }
+}
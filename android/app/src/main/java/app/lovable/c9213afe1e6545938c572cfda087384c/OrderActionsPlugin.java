@@ -0,0 +1,28 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Capacitor plugin exposing OrderActionOutbox, so the offers screen can hide
+ * orders already answered from IncomingOrderActivity while the answer is
+ * still on its way to the server.
+ */
+@CapacitorPlugin(name = "OrderActions")
+public class OrderActionsPlugin extends Plugin {
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        OrderActionOutbox outbox = OrderActionOutbox.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("pendingOrderIds", new JSArray(outbox.getPendingOrderIds()));
+        result.put("attempts", outbox.getAttempts());
+        result.put("nextAttemptAt", outbox.getNextAttemptAt());
+        result.put("lastSyncAt", outbox.getLastSyncAt());
+        call.resolve(result);
+    }
+}
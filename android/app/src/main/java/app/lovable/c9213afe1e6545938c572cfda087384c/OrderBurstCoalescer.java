@@ -0,0 +1,64 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.SystemClock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects bursts of new orders so they can be shown as one grouped summary
+ * instead of one full-screen ring per order.
+ * The first BURST_THRESHOLD orders inside WINDOW_MS ring normally; every order
+ * after that joins the summary until the window has been quiet again.
+ */
+final class OrderBurstCoalescer {
+    static final int BURST_THRESHOLD = 3;
+    static final long WINDOW_MS = 10_000L;
+    private static final int MAX_SUMMARY_LINES = 6;
+
+    private final ArrayDeque<Long> arrivals = new ArrayDeque<>();
+    private final ArrayDeque<String> summaryLines = new ArrayDeque<>();
+    private int coalescedCount;
+
+    /**
+     * Register an incoming order.
+     *
+     * @return true if it belongs to a burst and should be folded into the summary
+     */
+    synchronized boolean onOrder(String line) {
+        long now = SystemClock.elapsedRealtime();
+        while (!arrivals.isEmpty() && now - arrivals.peekFirst() > WINDOW_MS) {
+            arrivals.pollFirst();
+        }
+        if (arrivals.isEmpty()) {
+            // Quiet window: the previous burst (if any) is over
+            coalescedCount = 0;
+            summaryLines.clear();
+        }
+        arrivals.addLast(now);
+
+        if (arrivals.size() <= BURST_THRESHOLD) {
+            return false;
+        }
+
+        coalescedCount++;
+        if (line != null) {
+            summaryLines.addFirst(line);
+            while (summaryLines.size() > MAX_SUMMARY_LINES) {
+                summaryLines.pollLast();
+            }
+        }
+        return true;
+    }
+
+    synchronized int getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Most recent coalesced orders first.
+     */
+    synchronized List<String> getSummaryLines() {
+        return new ArrayList<>(summaryLines);
+    }
+}
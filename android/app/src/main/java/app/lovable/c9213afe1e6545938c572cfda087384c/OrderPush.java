@@ -0,0 +1,212 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable view of one FCM push, decoded once in onMessageReceived.
+ * Every later stage (dedup, dispatcher, activities) reads from this instead of
+ * going back to the raw data map, so defaults and validation live in one place.
+ *
+ * Handles three payload shapes:
+ *  - current: data block from send-push-notification / notify-app-update
+ *  - legacy: data block without orderId, where the id only lives in the route query
+ *  - notification-only: title/body from the notification block, no data
+ */
+final class OrderPush {
+    static final String TYPE_NEW_ORDER = "new_order";
+    static final String TYPE_TEST = "test";
+    static final String TYPE_APP_UPDATE = "app_update";
+    static final String TYPE_ORDER_EXPIRED = "order_expired";
+
+    static final String DEFAULT_ORDER_TITLE = "طلب جديد";
+    static final String DEFAULT_ORDER_BODY = "لديك طلب جديد";
+    static final String DEFAULT_UPDATE_TITLE = "تحديث متوفر";
+    static final String DEFAULT_UPDATE_BODY = "إصدار جديد من التطبيق";
+    static final String DEFAULT_ORDER_ROUTE = "/specialist/offers";
+    static final String DEFAULT_UPDATE_ROUTE = "/specialist-orders?showUpdate=true";
+
+    private static final String ORDER_ID_PARAM = "orderId=";
+
+    final String messageId;
+    /** Lower-cased push type, empty when the payload carried none. */
+    final String type;
+    final String title;
+    final String body;
+    final String route;
+    final String orderId;
+    final String customerId;
+    final String serviceType;
+    final String price;
+    /** Whether this push should use the full-screen call channel. */
+    final boolean callStyle;
+    /** Server-side override of the digest classification: "digest", "immediate" or null. */
+    final String urgency;
+    /** New order status of a status-change push, as sent by the order screens. */
+    final String status;
+
+    // app_update only
+    final String versionId;
+    final String versionCode;
+    final String versionName;
+    final String apkUrl;
+    /** Hex SHA-256 of the APK; null when the release has none recorded. */
+    final String apkSha256;
+    final String changelog;
+    final boolean mandatory;
+
+    private OrderPush(Builder b) {
+        this.messageId = b.messageId;
+        this.type = b.type;
+        this.title = b.title;
+        this.body = b.body;
+        this.route = b.route;
+        this.orderId = b.orderId;
+        this.customerId = b.customerId;
+        this.serviceType = b.serviceType;
+        this.price = b.price;
+        this.callStyle = b.callStyle;
+        this.urgency = b.urgency;
+        this.status = b.status;
+        this.versionId = b.versionId;
+        this.versionCode = b.versionCode;
+        this.versionName = b.versionName;
+        this.apkUrl = b.apkUrl;
+        this.apkSha256 = b.apkSha256;
+        this.changelog = b.changelog;
+        this.mandatory = b.mandatory;
+    }
+
+    boolean isAppUpdate() {
+        return TYPE_APP_UPDATE.equals(type);
+    }
+
+    boolean hasOrderId() {
+        return orderId != null;
+    }
+
+    /**
+     * Decode a data payload in a single pass over the map.
+     */
+    static OrderPush fromData(Map<String, String> data, String messageId) {
+        Builder b = new Builder();
+        b.messageId = messageId;
+
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String value = clean(entry.getValue());
+            if (value == null) continue;
+            switch (entry.getKey()) {
+                case "type": b.type = value.toLowerCase(Locale.ROOT); break;
+                case "title": b.title = value; break;
+                case "body": b.body = value; break;
+                case "route": b.route = value; break;
+                case "orderId": b.orderId = value; break;
+                case "customerId": b.customerId = value; break;
+                case "serviceType": b.serviceType = value; break;
+                case "price": b.price = value; break;
+                case "urgency": b.urgency = value.toLowerCase(Locale.ROOT); break;
+                case "status": b.status = value; break;
+                case "version_id": b.versionId = value; break;
+                case "version_code": b.versionCode = value; break;
+                case "version_name": b.versionName = value; break;
+                case "apk_url": b.apkUrl = value; break;
+                case "apk_sha256": b.apkSha256 = value; break;
+                case "changelog": b.changelog = value; break;
+                case "is_mandatory": b.mandatory = "true".equalsIgnoreCase(value); break;
+                default: break;
+            }
+        }
+
+        boolean update = TYPE_APP_UPDATE.equals(b.type);
+        if (b.title == null) b.title = update ? DEFAULT_UPDATE_TITLE : DEFAULT_ORDER_TITLE;
+        if (b.body == null) b.body = update ? DEFAULT_UPDATE_BODY : DEFAULT_ORDER_BODY;
+        if (!isValidRoute(b.route)) b.route = update ? DEFAULT_UPDATE_ROUTE : DEFAULT_ORDER_ROUTE;
+        // Legacy payloads only carried the id inside the route query
+        if (b.orderId == null) b.orderId = orderIdFromRoute(b.route);
+        b.callStyle = TYPE_NEW_ORDER.equals(b.type) || TYPE_TEST.equals(b.type);
+        return new OrderPush(b);
+    }
+
+    /**
+     * Notification-only payloads are treated as new orders (backward compatibility).
+     */
+    static OrderPush fromNotification(String title, String body, String messageId) {
+        Builder b = new Builder();
+        b.messageId = messageId;
+        b.title = clean(title) != null ? clean(title) : DEFAULT_ORDER_TITLE;
+        b.body = clean(body) != null ? clean(body) : DEFAULT_ORDER_BODY;
+        b.route = DEFAULT_ORDER_ROUTE;
+        b.callStyle = true;
+        return new OrderPush(b);
+    }
+
+    /**
+     * Extract orderId from "...?orderId=123&x=y" without regex or split.
+     */
+    static String orderIdFromRoute(String route) {
+        if (route == null) return null;
+        int from = 0;
+        while (true) {
+            int idx = route.indexOf(ORDER_ID_PARAM, from);
+            if (idx < 0) return null;
+            // Must be a whole parameter name, not e.g. "parentOrderId="
+            if (idx > 0 && (route.charAt(idx - 1) == '?' || route.charAt(idx - 1) == '&')) {
+                int start = idx + ORDER_ID_PARAM.length();
+                int end = start;
+                int length = route.length();
+                while (end < length) {
+                    char c = route.charAt(end);
+                    if (c == '&' || c == '#') break;
+                    end++;
+                }
+                return end > start ? route.substring(start, end) : null;
+            }
+            from = idx + ORDER_ID_PARAM.length();
+        }
+    }
+
+    private static boolean isValidRoute(String route) {
+        return route != null && route.length() > 1 && route.charAt(0) == '/';
+    }
+
+    /**
+     * Trimmed value, or null when blank (send-push-notification sends "" for missing fields).
+     */
+    private static String clean(String value) {
+        if (value == null) return null;
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') start++;
+        while (end > start && value.charAt(end - 1) <= ' ') end--;
+        if (start == end) return null;
+        return (start == 0 && end == value.length()) ? value : value.substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderPush{type=" + type + ", orderId=" + orderId + ", route=" + route
+            + ", callStyle=" + callStyle + ", messageId=" + messageId + "}";
+    }
+
+    private static final class Builder {
+        String messageId;
+        String type = "";
+        String title;
+        String body;
+        String route;
+        String orderId;
+        String customerId;
+        String serviceType;
+        String price;
+        boolean callStyle;
+        String urgency;
+        String status;
+        String versionId;
+        String versionCode;
+        String versionName;
+        String apkUrl;
+        String apkSha256;
+        String changelog;
+        boolean mandatory;
+    }
+}
@@ -0,0 +1,60 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Capacitor plugin exposing order snapshots cached from pushes, so order
+ * screens can render before their Supabase query returns.
+ */
+@CapacitorPlugin(name = "OrderSnapshot")
+public class OrderSnapshotPlugin extends Plugin {
+    private static final String TAG = "OrderSnapshotPlugin";
+
+    @PluginMethod
+    public void get(PluginCall call) {
+        String orderId = call.getString("orderId");
+        if (orderId == null || orderId.isEmpty()) {
+            call.reject("orderId is required");
+            return;
+        }
+
+        JSObject result = new JSObject();
+        JSONObject snapshot = OrderSnapshotStore.getInstance(getContext()).get(orderId);
+        result.put("snapshot", snapshot != null ? toJSObject(snapshot) : JSObject.NULL);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void list(PluginCall call) {
+        JSArray snapshots = new JSArray();
+        for (JSONObject snapshot : OrderSnapshotStore.getInstance(getContext()).getAll()) {
+            snapshots.put(toJSObject(snapshot));
+        }
+
+        JSObject result = new JSObject();
+        result.put("snapshots", snapshots);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void remove(PluginCall call) {
+        OrderSnapshotStore.getInstance(getContext()).remove(call.getString("orderId"));
+        call.resolve();
+    }
+
+    private static JSObject toJSObject(JSONObject snapshot) {
+        try {
+            return JSObject.fromJSONObject(snapshot);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "❌ Failed to convert snapshot", e);
+            return new JSObject();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Small on-device cache of the order fields carried by an offer push
+ * (orderId, serviceType, price, customerId, title/body), keyed by order id.
+ * Written on the dispatcher's worker when the push arrives, so
+ * IncomingOrderActivity and the offers screen can paint immediately and
+ * revalidate against Supabase afterwards. Later pushes about the same order
+ * (status changes, reminders) do not replace the offer's snapshot.
+ *
+ * Entries expire after TTL_MS and the store is capped at MAX_ENTRIES,
+ * evicting the oldest snapshot first. Eviction works from an in-memory
+ * index of receive times, so a write never reads back stored snapshots.
+ */
+final class OrderSnapshotStore {
+    private static final String TAG = "OrderSnapshotStore";
+    private static final String PREFS_NAME = "order_snapshots";
+    private static final int MAX_ENTRIES = 32;
+    private static final long TTL_MS = 30 * 60 * 1000L;
+
+    private static volatile OrderSnapshotStore instance;
+
+    private final SharedPreferences prefs;
+    // orderId -> receivedAt of every stored snapshot; loaded on first write
+    private Map<String, Long> index;
+
+    static OrderSnapshotStore getInstance(Context context) {
+        OrderSnapshotStore local = instance;
+        if (local == null) {
+            synchronized (OrderSnapshotStore.class) {
+                local = instance;
+                if (local == null) {
+                    local = new OrderSnapshotStore(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private OrderSnapshotStore(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Store the order fields of an offer push. Other pushes are ignored.
+     */
+    synchronized void put(OrderPush push, long receivedAtMillis) {
+        // Only offers open the full-screen UI and the offers screen that read snapshots
+        if (!push.hasOrderId() || !push.callStyle) return;
+
+        JSONObject snapshot = new JSONObject();
+        try {
+            snapshot.put("orderId", push.orderId);
+            snapshot.put("type", push.type);
+            snapshot.put("title", push.title);
+            snapshot.put("body", push.body);
+            snapshot.put("route", push.route);
+            snapshot.putOpt("customerId", push.customerId);
+            snapshot.putOpt("serviceType", push.serviceType);
+            snapshot.putOpt("price", push.price);
+            snapshot.put("receivedAt", receivedAtMillis);
+            snapshot.put("expiresAt", receivedAtMillis + TTL_MS);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "❌ Failed to encode snapshot for {}", push.orderId, e);
+            return;
+        }
+
+        SharedPreferences.Editor editor = prefs.edit();
+        evict(editor, System.currentTimeMillis(), push.orderId);
+        editor.putString(push.orderId, snapshot.toString()).apply();
+        index.put(push.orderId, receivedAtMillis);
+        AppLog.d(TAG, "💾 Snapshot stored for order {}", push.orderId);
+    }
+
+    /**
+     * Snapshot for an order, or null if missing or expired.
+     */
+    synchronized JSONObject get(String orderId) {
+        if (orderId == null) return null;
+        JSONObject snapshot = decode(prefs.getString(orderId, null));
+        if (snapshot == null || snapshot.optLong("expiresAt") <= System.currentTimeMillis()) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * All live snapshots, newest first.
+     */
+    synchronized List<JSONObject> getAll() {
+        long now = System.currentTimeMillis();
+        List<JSONObject> live = new ArrayList<>();
+        for (Object value : prefs.getAll().values()) {
+            JSONObject snapshot = decode(value instanceof String ? (String) value : null);
+            if (snapshot != null && snapshot.optLong("expiresAt") > now) {
+                live.add(snapshot);
+            }
+        }
+        live.sort((a, b) -> Long.compare(b.optLong("receivedAt"), a.optLong("receivedAt")));
+        return live;
+    }
+
+    synchronized void remove(String orderId) {
+        if (orderId == null) return;
+        prefs.edit().remove(orderId).apply();
+        if (index != null) index.remove(orderId);
+    }
+
+    /**
+     * Drop expired snapshots and make room for one more entry.
+     */
+    private void evict(SharedPreferences.Editor editor, long now, String incomingId) {
+        ensureIndex();
+        String oldestKey = null;
+        long oldestAt = Long.MAX_VALUE;
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getKey().equals(incomingId)) continue;
+            long receivedAt = entry.getValue();
+            if (receivedAt + TTL_MS <= now) {
+                editor.remove(entry.getKey());
+                it.remove();
+                continue;
+            }
+            if (receivedAt < oldestAt) {
+                oldestAt = receivedAt;
+                oldestKey = entry.getKey();
+            }
+        }
+        int live = index.size() - (index.containsKey(incomingId) ? 1 : 0);
+        if (live >= MAX_ENTRIES && oldestKey != null) {
+            editor.remove(oldestKey);
+            index.remove(oldestKey);
+        }
+    }
+
+    /**
+     * Build the index from what earlier processes stored; once per process.
+     */
+    private void ensureIndex() {
+        if (index != null) return;
+        index = new HashMap<>();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            JSONObject snapshot = decode(entry.getValue() instanceof String ? (String) entry.getValue() : null);
+            // Unreadable entries get an expired receive time and are removed by the next eviction
+            index.put(entry.getKey(), snapshot != null ? snapshot.optLong("receivedAt") : Long.MIN_VALUE / 2);
+        }
+    }
+
+    private static JSONObject decode(String stored) {
+        if (stored == null) return null;
+        try {
+            return new JSONObject(stored);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+}
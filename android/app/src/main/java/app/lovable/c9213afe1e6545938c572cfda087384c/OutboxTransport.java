@@ -0,0 +1,181 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * JSON POST and retry bookkeeping shared by the native outboxes
+ * (TokenSyncOutbox, OrderActionOutbox); QuoteTiers uses the POST alone.
+ *
+ * The attempt count and next attempt time live in the outbox's own prefs, so
+ * a backoff survives process death; the retry alarm is inexact and wakes the
+ * outbox's receiver, which calls flush() again.
+ */
+final class OutboxTransport {
+    private static final String KEY_ATTEMPTS = "attempts";
+    private static final String KEY_NEXT_ATTEMPT_AT = "next_attempt_at";
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 20000;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final String tag;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final Class<?> receiver;
+    private final int alarmRequestCode;
+
+    OutboxTransport(Context context, SharedPreferences prefs, String tag, long baseBackoffMs, long maxBackoffMs,
+                    Class<?> receiver, int alarmRequestCode) {
+        this.context = context;
+        this.prefs = prefs;
+        this.tag = tag;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.receiver = receiver;
+        this.alarmRequestCode = alarmRequestCode;
+    }
+
+    static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        /**
+         * Worth sending again later: timeouts, rate limits and server errors.
+         */
+        boolean isRetryable() {
+            return status == 408 || status == 429 || status >= 500;
+        }
+    }
+
+    /**
+     * POST a JSON body. Authorized as the signed-in user when accessToken is
+     * set, otherwise with the anon key only.
+     */
+    static Response post(String url, String apiKey, String accessToken, String json) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("apikey", apiKey);
+            connection.setRequestProperty("Authorization", "Bearer " + (accessToken != null ? accessToken : apiKey));
+            byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+            connection.setFixedLengthStreamingMode(payload.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(payload);
+            }
+
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            return new Response(status, readAll(in));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Whether a backoff is still running; if so the retry alarm is re-armed for its end.
+     */
+    boolean isBackingOff() {
+        long nextAttemptAt = getNextAttemptAt();
+        if (nextAttemptAt <= System.currentTimeMillis()) return false;
+        scheduleAlarm(nextAttemptAt);
+        return true;
+    }
+
+    /**
+     * Something new was queued: send it right away instead of waiting out the backoff.
+     */
+    void resetBackoff(SharedPreferences.Editor editor) {
+        editor.putInt(KEY_ATTEMPTS, 0).putLong(KEY_NEXT_ATTEMPT_AT, 0L);
+    }
+
+    /**
+     * A send went through; clear the backoff and its alarm.
+     */
+    void clearBackoff(SharedPreferences.Editor editor) {
+        editor.remove(KEY_ATTEMPTS).remove(KEY_NEXT_ATTEMPT_AT);
+        cancelAlarm();
+    }
+
+    synchronized void retryLater() {
+        int attempts = getAttempts() + 1;
+        long backoff = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts - 1, 20));
+        // Jitter so devices failing on the same outage don't retry in lockstep
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        long nextAttemptAt = System.currentTimeMillis() + delay;
+        prefs.edit()
+            .putInt(KEY_ATTEMPTS, attempts)
+            .putLong(KEY_NEXT_ATTEMPT_AT, nextAttemptAt)
+            .apply();
+        scheduleAlarm(nextAttemptAt);
+        AppLog.i(tag, "⏳ Attempt {} failed, next in {}s", attempts, delay / 1000);
+    }
+
+    int getAttempts() {
+        return prefs.getInt(KEY_ATTEMPTS, 0);
+    }
+
+    long getNextAttemptAt() {
+        return prefs.getLong(KEY_NEXT_ATTEMPT_AT, 0L);
+    }
+
+    private void scheduleAlarm(long atMillis) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) return;
+        alarmManager.set(AlarmManager.RTC_WAKEUP, atMillis, alarmIntent());
+    }
+
+    private void cancelAlarm() {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(alarmIntent());
+        }
+    }
+
+    private PendingIntent alarmIntent() {
+        Intent intent = new Intent(context, receiver);
+        return PendingIntent.getBroadcast(
+            context,
+            alarmRequestCode,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        if (in == null) return "";
+        try (InputStream stream = in) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
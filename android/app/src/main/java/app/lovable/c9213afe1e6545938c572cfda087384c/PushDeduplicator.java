@@ -0,0 +1,149 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Drops repeated deliveries of the same push.
+ * send-push-notification sends both a notification and a data block and FCM
+ * retries, so the same order can reach onMessageReceived more than once.
+ * Offers and expiries happen once per order and are keyed by orderId + type;
+ * status changes repeat for the same order, so their key also carries the
+ * new status (or, without one, the FCM message id, which retries keep).
+ * Keys are held in a bounded LRU with a TTL; the table is persisted so a
+ * retry that arrives after the process was killed is still recognised.
+ */
+final class PushDeduplicator {
+    private static final String TAG = "PushDeduplicator";
+    private static final String PREFS_NAME = "push_dedup";
+    private static final String KEY_ENTRIES = "entries";
+    private static final int MAX_ENTRIES = 128;
+    private static final long TTL_MS = 10 * 60 * 1000L;
+
+    private static volatile PushDeduplicator instance;
+
+    private final SharedPreferences prefs;
+    // key -> expiry (wall clock ms), oldest first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, false);
+    private boolean loaded;
+
+    static PushDeduplicator getInstance(Context context) {
+        PushDeduplicator local = instance;
+        if (local == null) {
+            synchronized (PushDeduplicator.class) {
+                local = instance;
+                if (local == null) {
+                    local = new PushDeduplicator(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private PushDeduplicator(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Record a delivery and report whether it is the first one inside the TTL.
+     *
+     * @return true if the push should be shown, false if it is a duplicate
+     */
+    synchronized boolean shouldDeliver(OrderPush push) {
+        String key = deliveryKey(push);
+        if (key == null) {
+            // Nothing to identify the push by; let it through
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        ensureLoaded();
+        evictExpired(now);
+
+        Long expiry = entries.get(key);
+        if (expiry != null && expiry > now) {
+            AppLog.i(TAG, "🔁 Duplicate push dropped: {}", key);
+            return false;
+        }
+
+        entries.remove(key);
+        entries.put(key, now + TTL_MS);
+        while (entries.size() > MAX_ENTRIES) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        persist();
+        return true;
+    }
+
+    static String deliveryKey(OrderPush push) {
+        if (!push.hasOrderId() || push.callStyle || OrderPush.TYPE_ORDER_EXPIRED.equals(push.type)) {
+            return keyFor(push.orderId, push.type, push.messageId);
+        }
+        if (push.status != null) {
+            return keyFor(push.orderId, push.type, null) + ':' + push.status;
+        }
+        if (push.messageId != null && !push.messageId.isEmpty()) {
+            return "msg:" + push.messageId;
+        }
+        return keyFor(push.orderId, push.type, null);
+    }
+
+    /**
+     * One key per order and type; also the notification id seed, so a later
+     * status of an order replaces its earlier notification.
+     */
+    static String keyFor(String orderId, String type, String messageId) {
+        if (orderId != null && !orderId.isEmpty()) {
+            return orderId + ':' + (type != null ? type : "");
+        }
+        if (messageId != null && !messageId.isEmpty()) {
+            return "msg:" + messageId;
+        }
+        return null;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue() <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        String stored = prefs.getString(KEY_ENTRIES, null);
+        if (stored == null || stored.isEmpty()) return;
+
+        // Format: key '\t' expiry '\n' ...
+        int start = 0;
+        int length = stored.length();
+        while (start < length) {
+            int lineEnd = stored.indexOf('\n', start);
+            if (lineEnd < 0) lineEnd = length;
+            int tab = stored.lastIndexOf('\t', lineEnd - 1);
+            if (tab > start) {
+                try {
+                    entries.put(stored.substring(start, tab), Long.parseLong(stored.substring(tab + 1, lineEnd)));
+                } catch (NumberFormatException ignored) {}
+            }
+            start = lineEnd + 1;
+        }
+    }
+
+    private void persist() {
+        StringBuilder sb = new StringBuilder(entries.size() * 48);
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            sb.append(entry.getKey()).append('\t').append(entry.getValue().longValue()).append('\n');
+        }
+        prefs.edit().putString(KEY_ENTRIES, sb.toString()).apply();
+    }
+}
@@ -0,0 +1,187 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Locally cached price tiers for the quote panel of IncomingOrderActivity.
+ *
+ * A tier is an offset over the order's listed price (the customer budget),
+ * so the panel can be built the instant the order UI opens, without any
+ * network call. The offsets default to the offers screen's (+0/+3/+6/+9)
+ * and are replaced by the ones this specialist quotes most, fetched from
+ * mobile-api's /quote-tiers route as the signed-in user in the background
+ * once REFRESH_MS has passed.
+ */
+final class QuoteTiers {
+    private static final String TAG = "QuoteTiers";
+    private static final String PREFS_NAME = "quote_tiers";
+    private static final String KEY_OFFSETS = "offsets";
+    private static final String KEY_CURRENCY = "currency";
+    private static final String KEY_FETCHED_AT = "fetched_at";
+
+    private static final String TIERS_PATH = "/functions/v1/mobile-api/quote-tiers";
+    private static final double[] DEFAULT_OFFSETS = {0, 3, 6, 9};
+    private static final String DEFAULT_CURRENCY = "QAR";
+    private static final int MAX_TIERS = 4;
+    private static final long REFRESH_MS = 12 * 60 * 60 * 1000L;
+
+    private static volatile QuoteTiers instance;
+
+    private final SharedPreferences prefs;
+    private final SupabaseSession session;
+    private final String endpoint;
+    private final String apiKey;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "quote-tiers"));
+    private volatile double[] offsets;
+    private volatile String currency;
+    private volatile boolean refreshing;
+
+    static QuoteTiers getInstance(Context context) {
+        QuoteTiers local = instance;
+        if (local == null) {
+            synchronized (QuoteTiers.class) {
+                local = instance;
+                if (local == null) {
+                    local = new QuoteTiers(
+                        context.getApplicationContext(),
+                        BuildConfig.SUPABASE_URL,
+                        BuildConfig.SUPABASE_ANON_KEY
+                    );
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @param baseUrl Supabase project URL
+     */
+    QuoteTiers(Context context, String baseUrl, String apiKey) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.session = new SupabaseSession(context, baseUrl, apiKey);
+        this.endpoint = baseUrl + TIERS_PATH;
+        this.apiKey = apiKey;
+        this.offsets = decode(prefs.getString(KEY_OFFSETS, null));
+        this.currency = prefs.getString(KEY_CURRENCY, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Quote prices for an order listed at listedPrice, lowest first; empty if
+     * the listed price is missing or not a number.
+     */
+    double[] pricesFor(String listedPrice) {
+        double base = parsePrice(listedPrice);
+        if (base <= 0) return new double[0];
+        double[] current = offsets;
+        double[] prices = new double[current.length];
+        for (int i = 0; i < current.length; i++) {
+            prices[i] = base + current[i];
+        }
+        return prices;
+    }
+
+    String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * A price the way the offers screen shows it: no trailing ".0".
+     */
+    static String format(double price) {
+        return price == Math.rint(price) ? Long.toString((long) price) : Double.toString(price);
+    }
+
+    /**
+     * Fetch this specialist's tiers on the worker thread if the cached ones are old.
+     */
+    void refreshIfStale() {
+        if (refreshing) return;
+        if (System.currentTimeMillis() - prefs.getLong(KEY_FETCHED_AT, 0L) < REFRESH_MS) return;
+        refreshing = true;
+        worker.execute(() -> {
+            try {
+                refreshNow();
+            } finally {
+                refreshing = false;
+            }
+        });
+    }
+
+    private void refreshNow() {
+        String accessToken = session.accessToken();
+        if (accessToken == null) return;
+
+        try {
+            OutboxTransport.Response result = OutboxTransport.post(endpoint, apiKey, accessToken, "{}");
+            if (!result.isSuccess()) {
+                AppLog.w(TAG, "⚠️ Quote tiers refresh got HTTP {}", result.status);
+                return;
+            }
+            JSONObject response = new JSONObject(result.body);
+            JSONArray fetchedOffsets = response.optJSONArray("offsets");
+            double[] fetched = decode(fetchedOffsets != null ? fetchedOffsets.toString() : null);
+            String fetchedCurrency = response.optString("currency", DEFAULT_CURRENCY);
+
+            offsets = fetched;
+            currency = fetchedCurrency;
+            prefs.edit()
+                .putString(KEY_OFFSETS, encode(fetched))
+                .putString(KEY_CURRENCY, fetchedCurrency)
+                .putLong(KEY_FETCHED_AT, System.currentTimeMillis())
+                .apply();
+            AppLog.i(TAG, "💱 Quote tiers refreshed: {}", Arrays.toString(fetched));
+        } catch (IOException | JSONException e) {
+            AppLog.w(TAG, "⚠️ Quote tiers refresh failed: {}", e.getMessage());
+        }
+    }
+
+    static double parsePrice(String value) {
+        if (value == null) return -1;
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.') digits.append(c);
+        }
+        try {
+            return digits.length() > 0 ? Double.parseDouble(digits.toString()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static double[] decode(String stored) {
+        if (stored == null || stored.isEmpty()) return DEFAULT_OFFSETS;
+        try {
+            JSONArray array = new JSONArray(stored);
+            int count = Math.min(array.length(), MAX_TIERS);
+            double[] result = new double[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = array.getDouble(i);
+                if (result[i] < 0) return DEFAULT_OFFSETS;
+            }
+            Arrays.sort(result);
+            return count > 0 ? result : DEFAULT_OFFSETS;
+        } catch (JSONException e) {
+            return DEFAULT_OFFSETS;
+        }
+    }
+
+    private static String encode(double[] values) {
+        JSONArray array = new JSONArray();
+        for (double value : values) {
+            try {
+                array.put(value);
+            } catch (JSONException ignored) {}
+        }
+        return array.toString();
+    }
+}
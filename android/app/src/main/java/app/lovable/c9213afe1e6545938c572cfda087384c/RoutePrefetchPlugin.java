@@ -0,0 +1,75 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.SystemClock;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import org.json.JSONException;
+
+/**
+ * Capacitor plugin handing RoutePrefetcher results to the web layer. Each
+ * result can be taken once; a take() for a request still in flight resolves
+ * when it finishes or after waitMs, whichever comes first.
+ */
+@CapacitorPlugin(name = "RoutePrefetch")
+public class RoutePrefetchPlugin extends Plugin {
+    private static final String TAG = "RoutePrefetchPlugin";
+    private static final long DEFAULT_WAIT_MS = 3000L;
+    private static final long MAX_WAIT_MS = 10000L;
+
+    @PluginMethod
+    public void take(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null || key.isEmpty()) {
+            call.reject("key is required");
+            return;
+        }
+        long waitMs = Math.min(MAX_WAIT_MS, Math.max(0L, call.getLong("waitMs", DEFAULT_WAIT_MS)));
+
+        RoutePrefetcher.getInstance(getContext()).take(key, waitMs, result -> {
+            JSObject ret = new JSObject();
+            if (result == null || result.data == null) {
+                ret.put("data", JSObject.NULL);
+                ret.put("status", result != null ? result.status : 0);
+            } else {
+                ret.put("data", toJSObject(result));
+                ret.put("status", result.status);
+                ret.put("fetchedAgoMs", SystemClock.elapsedRealtime() - result.fetchedAt);
+                ret.put("durationMs", result.durationMs);
+            }
+            call.resolve(ret);
+        });
+    }
+
+    /**
+     * Start the prefetch of a route from JS, e.g. for links opened outside MainActivity's intents.
+     */
+    @PluginMethod
+    public void prefetch(PluginCall call) {
+        String route = call.getString("route");
+        if (route == null || route.isEmpty()) {
+            call.reject("route is required");
+            return;
+        }
+        RoutePrefetcher.getInstance(getContext()).prefetch(route);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("cached", RoutePrefetcher.getInstance(getContext()).getCachedCount());
+        call.resolve(ret);
+    }
+
+    private static Object toJSObject(RoutePrefetcher.Result result) {
+        try {
+            return JSObject.fromJSONObject(result.data);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "❌ Failed to convert prefetched {}", result.key, e);
+            return JSObject.NULL;
+        }
+    }
+}
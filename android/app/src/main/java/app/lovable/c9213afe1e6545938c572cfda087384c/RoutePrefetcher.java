@@ -0,0 +1,397 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Starts the Supabase queries of a notification route while the WebView boots.
+ *
+ * A tap on an order notification used to do nothing natively except hand the
+ * route to JS; the order screen only started its queries once the bundle had
+ * loaded and auth had restored. resolve() maps a route to the REST requests
+ * its screen makes first, and prefetch() runs them in parallel on a small
+ * pool, authenticated with the session useAuth persists to Capacitor
+ * Preferences. Results sit in a short-lived in-memory cache that the web
+ * layer drains through RoutePrefetchPlugin; each result is handed out once,
+ * and a read that arrives while its request is still in flight waits for it.
+ *
+ * Nothing is fetched without a live session: the screen then simply runs its
+ * own queries as before.
+ */
+final class RoutePrefetcher {
+    private static final String TAG = "RoutePrefetcher";
+
+    private static final long RESULT_TTL_MS = 60 * 1000L;
+    // Do not start requests with a token that expires before they could be used
+    private static final long SESSION_MARGIN_MS = 30 * 1000L;
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+    private static final int POOL_SIZE = 3;
+
+    static final String KEY_ORDER = "order:";
+    static final String KEY_ORDER_STAGE = "orderStage:";
+    static final String KEY_OFFER = "offer:";
+
+    // Same columns as OrderTracking's fetchOrder, so the web layer can use the result as is
+    private static final String ORDER_TRACKING_SELECT =
+        "id,order_number,service_type,notes,booking_date,hours_count,gps_latitude,gps_longitude,"
+            + "building_info,company_id,customer_id,"
+            + "customer:customers(name,whatsapp_number,area,budget,budget_type),"
+            + "company:companies(id,name,logo_url),"
+            + "order_specialists(quoted_price,is_accepted)";
+    private static final String ORDER_STAGE_SELECT = "tracking_stage";
+    // Same columns as SpecialistNewOrders' fetchOrders
+    private static final String OFFER_SELECT =
+        "id,order_number,created_at,expires_at,service_type,notes,booking_type,hours_count,"
+            + "booking_date,booking_time,customer:customers(name,area,budget)";
+
+    private static volatile RoutePrefetcher instance;
+
+    private final Context context;
+    private final String baseUrl;
+    private final String apiKey;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE, new PoolThreads());
+
+    static RoutePrefetcher getInstance(Context context) {
+        RoutePrefetcher local = instance;
+        if (local == null) {
+            synchronized (RoutePrefetcher.class) {
+                local = instance;
+                if (local == null) {
+                    local = new RoutePrefetcher(
+                        context.getApplicationContext(),
+                        BuildConfig.SUPABASE_URL,
+                        BuildConfig.SUPABASE_ANON_KEY
+                    );
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @param baseUrl Supabase project URL; tests can point this at a local HTTP stand-in
+     */
+    RoutePrefetcher(Context context, String baseUrl, String apiKey) {
+        this.context = context;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * One REST request a screen makes on open; path is relative to the project URL.
+     */
+    static final class Request {
+        final String key;
+        final String path;
+
+        Request(String key, String path) {
+            this.key = key;
+            this.path = path;
+        }
+    }
+
+    /**
+     * A finished prefetch. data is null when the request failed; status is 0 without a response.
+     */
+    static final class Result {
+        final String key;
+        final int status;
+        final JSONObject data;
+        final long fetchedAt;
+        final long durationMs;
+
+        Result(String key, int status, JSONObject data, long fetchedAt, long durationMs) {
+            this.key = key;
+            this.status = status;
+            this.data = data;
+            this.fetchedAt = fetchedAt;
+            this.durationMs = durationMs;
+        }
+    }
+
+    interface Callback {
+        /**
+         * @param result the prefetched result, or null if there is none (not prefetched, expired, timed out)
+         */
+        void onResult(Result result);
+    }
+
+    /**
+     * Requests the screen behind a route makes first; empty for routes with nothing to prefetch.
+     */
+    static List<Request> resolve(String route) {
+        List<Request> requests = new ArrayList<>(2);
+        if (route == null || route.isEmpty()) return requests;
+
+        int q = route.indexOf('?');
+        String path = q < 0 ? route : route.substring(0, q);
+        String query = q < 0 ? "" : route.substring(q + 1);
+
+        if (path.startsWith("/order-tracking/")) {
+            String orderId = path.substring("/order-tracking/".length());
+            if (!isId(orderId)) return requests;
+            requests.add(orderRequest(KEY_ORDER + orderId, ORDER_TRACKING_SELECT, orderId));
+            requests.add(orderRequest(KEY_ORDER_STAGE + orderId, ORDER_STAGE_SELECT, orderId));
+        } else if ("/specialist/offers".equals(path)) {
+            String orderId = queryParameter(query, "orderId");
+            if (!isId(orderId)) return requests;
+            requests.add(orderRequest(KEY_OFFER + orderId, OFFER_SELECT, orderId));
+        }
+        return requests;
+    }
+
+    /**
+     * Start the requests of a route in parallel. Returns immediately; the
+     * session is read and the requests are sent on the pool.
+     */
+    void prefetch(String route) {
+        List<Request> requests = resolve(route);
+        if (requests.isEmpty()) return;
+
+        List<Entry> started = new ArrayList<>(requests.size());
+        synchronized (this) {
+            pruneExpired(SystemClock.elapsedRealtime());
+            for (Request request : requests) {
+                // A repeated tap reuses what is in flight or fetched; only failures are retried
+                Entry existing = entries.get(request.key);
+                if (existing != null && (existing.result == null || existing.result.data != null)) continue;
+                Entry entry = new Entry(request);
+                entries.put(request.key, entry);
+                started.add(entry);
+            }
+        }
+        if (started.isEmpty()) return;
+
+        AppLog.d(TAG, "🚀 Prefetching {} request(s) for {}", started.size(), route);
+        pool.execute(() -> {
+            String accessToken = readAccessToken();
+            for (Entry entry : started) {
+                if (accessToken == null) {
+                    complete(entry, 0, null, 0L);
+                } else {
+                    pool.execute(() -> fetch(entry, accessToken));
+                }
+            }
+        });
+    }
+
+    /**
+     * Hand out the result for a key once, waiting up to waitMs if its request is
+     * still in flight. The callback runs on the thread that completes the result,
+     * or on the main thread when the wait times out.
+     */
+    void take(String key, long waitMs, Callback callback) {
+        Entry entry;
+        Waiter waiter;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                waiter = null;
+            } else if (entry.result != null) {
+                entries.remove(key);
+                waiter = null;
+            } else {
+                waiter = new Waiter(callback);
+                entry.waiters.add(waiter);
+            }
+        }
+        if (entry == null) {
+            callback.onResult(null);
+            return;
+        }
+        if (waiter == null) {
+            callback.onResult(fresh(entry.result));
+            return;
+        }
+        mainHandler.postDelayed(() -> {
+            synchronized (this) {
+                if (!entry.waiters.remove(waiter)) return;
+            }
+            AppLog.d(TAG, "⏱️ Prefetch of {} still running after {}ms", key, waitMs);
+            waiter.callback.onResult(null);
+        }, Math.max(0L, waitMs));
+    }
+
+    synchronized int getCachedCount() {
+        pruneExpired(SystemClock.elapsedRealtime());
+        return entries.size();
+    }
+
+    private void fetch(Entry entry, String accessToken) {
+        long start = SystemClock.elapsedRealtime();
+        int status = 0;
+        JSONObject data = null;
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + entry.request.path).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestProperty("apikey", apiKey);
+            connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+            // PostgREST returns the single row as an object rather than a one-element array
+            connection.setRequestProperty("Accept", "application/vnd.pgrst.object+json");
+            status = connection.getResponseCode();
+            if (status >= 200 && status < 300) {
+                data = new JSONObject(readAll(connection.getInputStream()));
+            } else {
+                AppLog.w(TAG, "⚠️ Prefetch of {} got HTTP {}", entry.request.key, status);
+            }
+        } catch (IOException | JSONException e) {
+            AppLog.w(TAG, "⚠️ Prefetch of {} failed: {}", entry.request.key, e.getMessage());
+        } finally {
+            if (connection != null) connection.disconnect();
+        }
+        complete(entry, status, data, SystemClock.elapsedRealtime() - start);
+    }
+
+    private void complete(Entry entry, int status, JSONObject data, long durationMs) {
+        Result result = new Result(entry.request.key, status, data, SystemClock.elapsedRealtime(), durationMs);
+        List<Waiter> waiters;
+        synchronized (this) {
+            entry.result = result;
+            waiters = new ArrayList<>(entry.waiters);
+            entry.waiters.clear();
+            // Handed out to whoever was waiting; otherwise kept for a later take()
+            if (!waiters.isEmpty() && entries.get(entry.request.key) == entry) {
+                entries.remove(entry.request.key);
+            }
+        }
+        if (data != null) {
+            AppLog.d(TAG, "✅ Prefetched {} in {}ms", entry.request.key, durationMs);
+        }
+        for (Waiter waiter : waiters) {
+            waiter.callback.onResult(result);
+        }
+    }
+
+    private static Result fresh(Result result) {
+        if (SystemClock.elapsedRealtime() - result.fetchedAt > RESULT_TTL_MS) return null;
+        return result;
+    }
+
+    private void pruneExpired(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Result result = it.next().result;
+            if (result != null && now - result.fetchedAt > RESULT_TTL_MS) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Access token of the persisted session, or null if signed out or about to expire.
+     * Never refreshes: the booting web app restores the session itself and
+     * would race a native refresh for the single-use refresh token.
+     */
+    private String readAccessToken() {
+        String accessToken = SupabaseSession.peekAccessToken(context, SESSION_MARGIN_MS);
+        if (accessToken == null) {
+            AppLog.d(TAG, "🔒 No live stored session, skipping prefetch");
+        }
+        return accessToken;
+    }
+
+    private static Request orderRequest(String key, String select, String orderId) {
+        return new Request(key, "/rest/v1/orders?select=" + encode(select) + "&id=eq." + orderId);
+    }
+
+    // Order ids are UUIDs; anything else is not put into a query string
+    private static boolean isId(String value) {
+        if (value == null || value.isEmpty() || value.length() > 64) return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean ok = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-';
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static String queryParameter(String query, String name) {
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(pair.substring(0, eq))) {
+                try {
+                    return URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        if (in == null) return "";
+        try (InputStream stream = in) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Entry {
+        final Request request;
+        final List<Waiter> waiters = new ArrayList<>(1);
+        Result result;
+
+        Entry(Request request) {
+            this.request = request;
+        }
+    }
+
+    private static final class Waiter {
+        final Callback callback;
+
+        Waiter(Callback callback) {
+            this.callback = callback;
+        }
+    }
+
+    private static final class PoolThreads implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "route-prefetch-" + count.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timings of one MainActivity start: every startup task plus named marks
+ * such as the first frame. Offsets are ms since onCreate began; the process
+ * start offset shows how much of a cold start happened before onCreate.
+ *
+ * The first report of a process is kept as the cold start, later ones
+ * (recreations, warm starts) only replace the latest report.
+ */
+final class StartupReport {
+    private static volatile StartupReport coldStart;
+    private static volatile StartupReport latest;
+
+    final boolean cold;
+    final long createdAtElapsed;
+    /** ms from process start to onCreate, or -1 where the platform can't tell (API < 24). */
+    final long processToCreateMs;
+    /** WebView warm state when the bridge was built, see WebViewWarmer. */
+    private volatile String webViewState = WebViewWarmer.STATE_COLD;
+    private final List<TaskTiming> tasks = new ArrayList<>();
+    private final List<Mark> marks = new ArrayList<>();
+
+    private StartupReport(boolean cold, long createdAtElapsed) {
+        this.cold = cold;
+        this.createdAtElapsed = createdAtElapsed;
+        this.processToCreateMs = cold && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+            ? createdAtElapsed - Process.getStartElapsedRealtime()
+            : -1L;
+    }
+
+    /**
+     * Start a report for the activity being created now.
+     */
+    static synchronized StartupReport begin() {
+        StartupReport report = new StartupReport(coldStart == null, SystemClock.elapsedRealtime());
+        if (coldStart == null) {
+            coldStart = report;
+        }
+        latest = report;
+        return report;
+    }
+
+    static StartupReport getColdStart() {
+        return coldStart;
+    }
+
+    static StartupReport getLatest() {
+        return latest;
+    }
+
+    synchronized void recordTask(String name, StartupScheduler.Mode mode, String thread,
+                                 long startElapsed, long durationMs, boolean failed) {
+        tasks.add(new TaskTiming(name, mode, thread, startElapsed - createdAtElapsed, durationMs, failed));
+    }
+
+    /**
+     * Record a named point in time; only the first occurrence of a name is kept.
+     */
+    synchronized void mark(String name) {
+        for (Mark mark : marks) {
+            if (mark.name.equals(name)) return;
+        }
+        marks.add(new Mark(name, SystemClock.elapsedRealtime() - createdAtElapsed));
+    }
+
+    void setWebViewState(String state) {
+        webViewState = state;
+    }
+
+    String getWebViewState() {
+        return webViewState;
+    }
+
+    synchronized List<TaskTiming> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    synchronized List<Mark> getMarks() {
+        return new ArrayList<>(marks);
+    }
+
+    static final class TaskTiming {
+        final String name;
+        final StartupScheduler.Mode mode;
+        final String thread;
+        final long startOffsetMs;
+        final long durationMs;
+        final boolean failed;
+
+        TaskTiming(String name, StartupScheduler.Mode mode, String thread, long startOffsetMs, long durationMs, boolean failed) {
+            this.name = name;
+            this.mode = mode;
+            this.thread = thread;
+            this.startOffsetMs = startOffsetMs;
+            this.durationMs = durationMs;
+            this.failed = failed;
+        }
+    }
+
+    static final class Mark {
+        final String name;
+        final long offsetMs;
+
+        Mark(String name, long offsetMs) {
+            this.name = name;
+            this.offsetMs = offsetMs;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs MainActivity's startup work in dependency order, split by urgency:
+ *  - CRITICAL tasks run inline in onCreate, before the first frame
+ *  - IDLE tasks run on the main thread once its queue goes idle (after the first frame)
+ *  - BACKGROUND tasks run on a single worker thread
+ *
+ * A task starts only after all of its dependencies finished, whatever their
+ * mode. CRITICAL tasks may only depend on other CRITICAL tasks, since they
+ * cannot wait. Every task's duration is recorded in the StartupReport.
+ */
+final class StartupScheduler {
+    private static final String TAG = "StartupScheduler";
+
+    enum Mode { CRITICAL, IDLE, BACKGROUND }
+
+    private static final ExecutorService BACKGROUND =
+        Executors.newSingleThreadExecutor(r -> new Thread(r, "startup-background"));
+
+    private final StartupReport report;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+
+    StartupScheduler(StartupReport report) {
+        this.report = report;
+    }
+
+    StartupScheduler add(String name, Mode mode, Runnable action, String... dependsOn) {
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup task: " + name);
+        }
+        tasks.put(name, new Task(name, mode, action, dependsOn));
+        return this;
+    }
+
+    /**
+     * Validate the graph, run CRITICAL tasks now and schedule the rest. Call on the main thread.
+     */
+    void start() {
+        List<Task> ordered = topologicalOrder();
+        for (Task task : ordered) {
+            for (String dependency : task.dependsOn) {
+                Task parent = tasks.get(dependency);
+                parent.dependents.add(task);
+                if (task.mode == Mode.CRITICAL && parent.mode != Mode.CRITICAL) {
+                    throw new IllegalStateException("Critical task " + task.name + " depends on deferred " + dependency);
+                }
+            }
+            task.remaining = task.dependsOn.length;
+        }
+
+        // Critical tasks are already in dependency order; run them straight through
+        for (Task task : ordered) {
+            if (task.mode == Mode.CRITICAL) {
+                run(task);
+            }
+        }
+        // Deferred tasks with dependencies are scheduled when their last dependency finishes
+        for (Task task : ordered) {
+            if (task.mode != Mode.CRITICAL && task.dependsOn.length == 0) {
+                schedule(task);
+            }
+        }
+    }
+
+    private void schedule(Task task) {
+        switch (task.mode) {
+            case BACKGROUND:
+                BACKGROUND.execute(() -> run(task));
+                break;
+            case IDLE:
+                mainHandler.post(() -> Looper.myQueue().addIdleHandler(() -> {
+                    run(task);
+                    return false;
+                }));
+                break;
+            default:
+                run(task);
+                break;
+        }
+    }
+
+    private void run(Task task) {
+        long start = SystemClock.elapsedRealtime();
+        boolean failed = false;
+        try {
+            task.action.run();
+        } catch (RuntimeException e) {
+            // One broken task must not take startup down with it
+            failed = true;
+            AppLog.e(TAG, "❌ Startup task {} failed", task.name, e);
+        }
+        long duration = SystemClock.elapsedRealtime() - start;
+        report.recordTask(task.name, task.mode, Thread.currentThread().getName(), start, duration, failed);
+        AppLog.d(TAG, "🚀 {} ({}) took {}ms", task.name, task.mode, duration);
+
+        List<Task> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Task dependent : task.dependents) {
+                if (--dependent.remaining == 0 && dependent.mode != Mode.CRITICAL) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        for (Task dependent : ready) {
+            schedule(dependent);
+        }
+    }
+
+    private List<Task> topologicalOrder() {
+        List<Task> ordered = new ArrayList<>(tasks.size());
+        Set<String> done = new HashSet<>();
+        Set<String> visiting = new HashSet<>();
+        for (Task task : tasks.values()) {
+            visit(task, done, visiting, ordered);
+        }
+        return ordered;
+    }
+
+    private void visit(Task task, Set<String> done, Set<String> visiting, List<Task> ordered) {
+        if (done.contains(task.name)) return;
+        if (!visiting.add(task.name)) {
+            throw new IllegalStateException("Startup dependency cycle at " + task.name);
+        }
+        for (String dependency : task.dependsOn) {
+            Task parent = tasks.get(dependency);
+            if (parent == null) {
+                throw new IllegalArgumentException("Startup task " + task.name + " depends on unknown " + dependency);
+            }
+            visit(parent, done, visiting, ordered);
+        }
+        visiting.remove(task.name);
+        done.add(task.name);
+        ordered.add(task);
+    }
+
+    private static final class Task {
+        final String name;
+        final Mode mode;
+        final Runnable action;
+        final String[] dependsOn;
+        final List<Task> dependents = new ArrayList<>();
+        // Guarded by the scheduler
+        int remaining;
+
+        Task(String name, Mode mode, Runnable action, String[] dependsOn) {
+            this.name = name;
+            this.mode = mode;
+            this.action = action;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
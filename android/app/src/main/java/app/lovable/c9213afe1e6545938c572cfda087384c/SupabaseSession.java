@@ -0,0 +1,170 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.getcapacitor.JSObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The signed-in user's Supabase session as useAuth persists it to Capacitor
+ * Preferences, for native requests that must act as that user while the
+ * WebView is closed.
+ *
+ * Supabase rotates the refresh token on every use and signs the user out
+ * when a spent one is used again, so the session has one refresher at a
+ * time. While an activity's bridge is alive that is supabase-js in the page,
+ * and native callers only take a token that is still valid; they wait for
+ * the page to store a fresh session (see addStoreListener). With no bridge,
+ * an access token about to expire is refreshed here and the new session is
+ * written back; the next page copies it into supabase-js's storage before
+ * creating the client, and "sessionRefreshed" is queued for its ready().
+ */
+final class SupabaseSession {
+    private static final String TAG = "SupabaseSession";
+    // @capacitor/preferences default group, and the key useAuth stores the session under
+    private static final String PREFS_NAME = "CapacitorStorage";
+    private static final String KEY_SESSION = "supabase_session";
+    private static final String REFRESH_PATH = "/auth/v1/token?grant_type=refresh_token";
+    static final String EVENT_REFRESHED = "sessionRefreshed";
+    // Refresh before this little is left, so the token outlives the request it goes out with
+    private static final long REFRESH_MARGIN_MS = 60 * 1000L;
+    // Refresh tokens are single-use: never refresh twice at once in this process
+    private static final Object REFRESH_LOCK = new Object();
+    // SharedPreferences only keeps weak references to its listeners
+    private static final List<SharedPreferences.OnSharedPreferenceChangeListener> STORE_LISTENERS = new ArrayList<>();
+
+    private final Context context;
+    private final String baseUrl;
+    private final String apiKey;
+
+    /**
+     * @param baseUrl Supabase project URL
+     */
+    SupabaseSession(Context context, String baseUrl, String apiKey) {
+        this.context = context;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Whether a session is stored at all, expired or not; never touches the network.
+     */
+    static boolean isSignedIn(Context context) {
+        JSONObject session = read(context);
+        return session != null && !session.optString("refresh_token", "").isEmpty();
+    }
+
+    /**
+     * Stored access token if it stays valid for at least marginMs; never touches the network.
+     */
+    static String peekAccessToken(Context context, long marginMs) {
+        JSONObject session = read(context);
+        if (session == null) return null;
+        String accessToken = session.optString("access_token", null);
+        if (accessToken == null || expiresAtMillis(session) - marginMs < System.currentTimeMillis()) {
+            return null;
+        }
+        return accessToken;
+    }
+
+    /**
+     * Whether an expired session is left to the page to refresh; native
+     * callers then wait for the next stored session instead of retrying.
+     */
+    static boolean isRefreshedByPage() {
+        return NativeEventQueue.getInstance().hasBridge();
+    }
+
+    /**
+     * Call onStored on the main thread whenever a session is stored, by the
+     * page or by a native refresh.
+     */
+    static void addStoreListener(Context context, Runnable onStored) {
+        SharedPreferences.OnSharedPreferenceChangeListener listener = (prefs, key) -> {
+            if (KEY_SESSION.equals(key) && prefs.getString(KEY_SESSION, null) != null) {
+                onStored.run();
+            }
+        };
+        synchronized (STORE_LISTENERS) {
+            STORE_LISTENERS.add(listener);
+        }
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).registerOnSharedPreferenceChangeListener(listener);
+    }
+
+    /**
+     * Access token of the signed-in user, refreshing the stored session first
+     * if it is about to expire and no page can do it. Blocks on the network,
+     * so call it on a worker thread. Null when nobody is signed in, the
+     * refresh failed, or the page has yet to refresh an expired session.
+     */
+    String accessToken() {
+        synchronized (REFRESH_LOCK) {
+            if (isRefreshedByPage()) {
+                // Anything still valid will do; the page refreshes ahead of expiry
+                String accessToken = peekAccessToken(context, 0L);
+                if (accessToken == null) AppLog.d(TAG, "⏳ Session expired while the app is open, leaving the refresh to the page");
+                return accessToken;
+            }
+            String accessToken = peekAccessToken(context, REFRESH_MARGIN_MS);
+            if (accessToken != null) return accessToken;
+            JSONObject session = read(context);
+            return session != null ? refresh(session) : null;
+        }
+    }
+
+    private String refresh(JSONObject session) {
+        String refreshToken = session.optString("refresh_token", "");
+        if (refreshToken.isEmpty()) return null;
+        try {
+            OutboxTransport.Response result = OutboxTransport.post(baseUrl + REFRESH_PATH, apiKey, null,
+                new JSONObject().put("refresh_token", refreshToken).toString());
+            if (!result.isSuccess()) {
+                // A spent or revoked refresh token; the web app asks the user to sign in again
+                AppLog.w(TAG, "⚠️ Session refresh got HTTP {}", result.status);
+                return null;
+            }
+            JSONObject refreshed = new JSONObject(result.body);
+            String accessToken = refreshed.optString("access_token", null);
+            if (accessToken == null || refreshed.optString("refresh_token", "").isEmpty()) {
+                AppLog.w(TAG, "⚠️ Session refresh returned no tokens");
+                return null;
+            }
+            if (!refreshed.has("expires_at")) {
+                long expiresIn = refreshed.optLong("expires_in", 0L);
+                refreshed.put("expires_at", System.currentTimeMillis() / 1000L + expiresIn);
+            }
+            // Same shape as the supabase-js session useAuth stores
+            context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putString(KEY_SESSION, refreshed.toString())
+                .apply();
+            // Kept for the next page's ready(): no page is listening now
+            NativeEventQueue.getInstance().emitLatest(EVENT_REFRESHED, KEY_SESSION, new JSObject());
+            AppLog.i(TAG, "🔑 Session refreshed natively");
+            return accessToken;
+        } catch (IOException | JSONException e) {
+            AppLog.w(TAG, "⚠️ Session refresh failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static JSONObject read(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String stored = prefs.getString(KEY_SESSION, null);
+        if (stored == null || stored.isEmpty()) return null;
+        try {
+            return new JSONObject(stored);
+        } catch (JSONException e) {
+            AppLog.w(TAG, "⚠️ Unreadable stored session: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // expires_at is in seconds
+    private static long expiresAtMillis(JSONObject session) {
+        return session.optLong("expires_at", 0L) * 1000L;
+    }
+}
@@ -0,0 +1,319 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable outbox that registers rotated FCM tokens without the WebView.
+ *
+ * onNewToken() can fire while the app is closed; the JS bundle would only
+ * register the new token on the next launch, and pushes to the old token are
+ * lost in between. Rotations are persisted here and sent to mobile-api's
+ * /device-tokens/rotate route as the signed-in user (see SupabaseSession);
+ * the server swaps the previous token for the new one only on rows of that
+ * user's specialist.
+ *
+ * Consecutive rotations coalesce into one pending operation per previous
+ * token, all pending operations go out in a single request, and failures are
+ * retried with capped exponential backoff via an inexact alarm. Without a
+ * usable session nothing is scheduled; rotations wait for the next one.
+ */
+final class TokenSyncOutbox {
+    private static final String TAG = "TokenSyncOutbox";
+    private static final String PREFS_NAME = "token_sync";
+    private static final String KEY_REGISTERED_TOKEN = "registered_token";
+    private static final String KEY_PENDING = "pending";
+    private static final String KEY_LAST_SYNC_AT = "last_sync_at";
+
+    private static final String ROTATE_PATH = "/functions/v1/mobile-api/device-tokens/rotate";
+    private static final long BASE_BACKOFF_MS = 30 * 1000L;
+    private static final long MAX_BACKOFF_MS = 6 * 60 * 60 * 1000L;
+    private static final int ALARM_REQUEST_CODE = 4;
+
+    private static volatile TokenSyncOutbox instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final OutboxTransport transport;
+    private final SupabaseSession session;
+    private final String endpoint;
+    private final String apiKey;
+    // Rotations of the request currently on the wire
+    private List<Rotation> inFlight = Collections.emptyList();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "token-sync"));
+
+    static TokenSyncOutbox getInstance(Context context) {
+        TokenSyncOutbox local = instance;
+        if (local == null) {
+            synchronized (TokenSyncOutbox.class) {
+                local = instance;
+                if (local == null) {
+                    local = new TokenSyncOutbox(
+                        context.getApplicationContext(),
+                        BuildConfig.SUPABASE_URL,
+                        BuildConfig.SUPABASE_ANON_KEY
+                    );
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @param baseUrl Supabase project URL; tests can point this at a local HTTP stand-in
+     */
+    TokenSyncOutbox(Context context, String baseUrl, String apiKey) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.transport = new OutboxTransport(context, prefs, TAG, BASE_BACKOFF_MS, MAX_BACKOFF_MS,
+            TokenSyncReceiver.class, ALARM_REQUEST_CODE);
+        this.session = new SupabaseSession(context, baseUrl, apiKey);
+        this.endpoint = baseUrl + ROTATE_PATH;
+        this.apiKey = apiKey;
+        // Rotations parked without a usable session go out once one is stored
+        SupabaseSession.addStoreListener(context, this::flush);
+    }
+
+    /**
+     * Queue a rotation from the last registered token to this one and try to send it.
+     */
+    synchronized void onNewToken(String token) {
+        if (token == null || token.isEmpty()) return;
+        String registered = prefs.getString(KEY_REGISTERED_TOKEN, null);
+        if (token.equals(registered)) return;
+
+        List<Rotation> pending = loadPending();
+        String previous = registered;
+        if (!pending.isEmpty()) {
+            Rotation last = pending.get(pending.size() - 1);
+            if (inFlight.contains(last)) {
+                // Already on the wire: once it lands the server knows its token, so chain from that
+                previous = last.token;
+            } else {
+                // Coalesce: a rotation not sent yet keeps its previous token and just gets a newer target
+                previous = last.previous;
+                pending.remove(pending.size() - 1);
+            }
+        }
+        if (previous == null) {
+            // The server has never seen this device; the web app registers it on next launch
+            AppLog.w(TAG, "⚠️ New token before any registration; leaving it to the web app");
+            return;
+        }
+        pending.add(new Rotation(previous, token, System.currentTimeMillis()));
+        SharedPreferences.Editor editor = prefs.edit().putString(KEY_PENDING, encode(pending));
+        transport.resetBackoff(editor);
+        editor.apply();
+        AppLog.i(TAG, "📮 Token rotation queued ({} pending)", pending.size());
+        flush();
+    }
+
+    /**
+     * The web app registered this token itself; anything pending up to it is done.
+     */
+    synchronized void markRegistered(String token) {
+        if (token == null || token.isEmpty()) return;
+        SharedPreferences.Editor editor = prefs.edit().putString(KEY_REGISTERED_TOKEN, token);
+        List<Rotation> pending = loadPending();
+        if (!pending.isEmpty() && token.equals(pending.get(pending.size() - 1).token)) {
+            editor.remove(KEY_PENDING);
+            transport.clearBackoff(editor);
+        }
+        editor.apply();
+    }
+
+    /**
+     * Send pending rotations on the worker thread unless a backoff is still running.
+     */
+    void flush() {
+        worker.execute(this::flushNow);
+    }
+
+    synchronized int getPendingCount() {
+        return loadPending().size();
+    }
+
+    /**
+     * The token the server currently knows this device by, or null if never registered.
+     */
+    String getRegisteredToken() {
+        return prefs.getString(KEY_REGISTERED_TOKEN, null);
+    }
+
+    int getAttempts() {
+        return transport.getAttempts();
+    }
+
+    long getNextAttemptAt() {
+        return transport.getNextAttemptAt();
+    }
+
+    long getLastSyncAt() {
+        return prefs.getLong(KEY_LAST_SYNC_AT, 0L);
+    }
+
+    private void flushNow() {
+        List<Rotation> batch;
+        synchronized (this) {
+            batch = loadPending();
+            if (batch.isEmpty() || transport.isBackingOff()) return;
+            inFlight = batch;
+        }
+        try {
+            send(batch);
+        } finally {
+            synchronized (this) {
+                inFlight = Collections.emptyList();
+            }
+        }
+    }
+
+    private void send(List<Rotation> batch) {
+        String accessToken = session.accessToken();
+        if (accessToken == null) {
+            if (!SupabaseSession.isSignedIn(context) || SupabaseSession.isRefreshedByPage()) {
+                // No alarm: the next stored session (a sign-in, or the page's refresh) flushes it
+                AppLog.i(TAG, "⏳ No usable session, token rotation parked until one is stored");
+                return;
+            }
+            AppLog.w(TAG, "⚠️ Could not refresh the user session, retrying later");
+            transport.retryLater();
+            return;
+        }
+
+        OutboxTransport.Response result;
+        JSONObject response;
+        try {
+            JSONArray rotations = new JSONArray();
+            for (Rotation rotation : batch) {
+                rotations.put(new JSONObject()
+                    .put("previous", rotation.previous)
+                    .put("token", rotation.token)
+                    .put("platform", "android")
+                    .put("rotatedAt", rotation.queuedAt));
+            }
+            result = OutboxTransport.post(endpoint, apiKey, accessToken,
+                new JSONObject().put("rotations", rotations).toString());
+            response = result.body.isEmpty() ? new JSONObject() : new JSONObject(result.body);
+        } catch (IOException | JSONException e) {
+            AppLog.w(TAG, "⚠️ Token sync failed: {}", e.getMessage());
+            transport.retryLater();
+            return;
+        }
+
+        if (result.isSuccess()) {
+            complete(batch, response.optJSONArray("results"));
+        } else if (result.isRetryable() || result.status == 401) {
+            // A 401 is a session revoked or expired on the way; the next attempt refreshes it
+            AppLog.w(TAG, "⚠️ Token sync got HTTP {}, retrying later", result.status);
+            transport.retryLater();
+        } else {
+            // Anything else will not succeed on retry; the web app re-registers on next launch
+            AppLog.e(TAG, "❌ Token sync rejected with HTTP {}", result.status);
+            synchronized (this) {
+                removeSent(batch);
+            }
+        }
+    }
+
+    private synchronized void complete(List<Rotation> batch, JSONArray results) {
+        String registered = null;
+        for (int i = 0; results != null && i < results.length(); i++) {
+            JSONObject result = results.optJSONObject(i);
+            if (result != null && "rotated".equals(result.optString("status"))) {
+                registered = result.optString("token", null);
+            }
+        }
+        SharedPreferences.Editor editor = prefs.edit().putLong(KEY_LAST_SYNC_AT, System.currentTimeMillis());
+        transport.clearBackoff(editor);
+        if (registered != null) {
+            editor.putString(KEY_REGISTERED_TOKEN, registered);
+        }
+        editor.apply();
+        removeSent(batch);
+        AppLog.i(TAG, "✅ Token sync done ({} sent, registered: {})", batch.size(), registered != null);
+    }
+
+    /**
+     * Drop the rotations that were sent, keeping any queued while the request was in flight.
+     */
+    private void removeSent(List<Rotation> batch) {
+        List<Rotation> pending = loadPending();
+        pending.removeAll(batch);
+        prefs.edit().putString(KEY_PENDING, encode(pending)).apply();
+        if (!pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    private List<Rotation> loadPending() {
+        List<Rotation> pending = new ArrayList<>();
+        String stored = prefs.getString(KEY_PENDING, null);
+        if (stored == null || stored.isEmpty()) return pending;
+
+        // Format: previous '\t' token '\t' queuedAt '\n' ... (FCM tokens never contain tabs)
+        int start = 0;
+        int length = stored.length();
+        while (start < length) {
+            int lineEnd = stored.indexOf('\n', start);
+            if (lineEnd < 0) lineEnd = length;
+            int t1 = stored.indexOf('\t', start);
+            int t2 = t1 < 0 ? -1 : stored.indexOf('\t', t1 + 1);
+            if (t2 > 0 && t2 < lineEnd) {
+                try {
+                    pending.add(new Rotation(
+                        stored.substring(start, t1),
+                        stored.substring(t1 + 1, t2),
+                        Long.parseLong(stored.substring(t2 + 1, lineEnd))
+                    ));
+                } catch (NumberFormatException ignored) {}
+            }
+            start = lineEnd + 1;
+        }
+        return pending;
+    }
+
+    private static String encode(List<Rotation> pending) {
+        StringBuilder sb = new StringBuilder(pending.size() * 360);
+        for (Rotation rotation : pending) {
+            sb.append(rotation.previous).append('\t')
+                .append(rotation.token).append('\t')
+                .append(rotation.queuedAt).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static final class Rotation {
+        final String previous;
+        final String token;
+        final long queuedAt;
+
+        Rotation(String previous, String token, long queuedAt) {
+            this.previous = previous;
+            this.token = token;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Rotation)) return false;
+            Rotation that = (Rotation) other;
+            return previous.equals(that.previous) && token.equals(that.token) && queuedAt == that.queuedAt;
+        }
+
+        @Override
+        public int hashCode() {
+            return token.hashCode();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Capacitor plugin linking the web token registration with the native outbox.
+ * The web app reports each token it saved to device_tokens, so native code
+ * knows which token the server can identify this device by.
+ */
+@CapacitorPlugin(name = "TokenSync")
+public class TokenSyncPlugin extends Plugin {
+
+    @PluginMethod
+    public void markRegistered(PluginCall call) {
+        String token = call.getString("token");
+        if (token == null || token.isEmpty()) {
+            call.reject("token is required");
+            return;
+        }
+        TokenSyncOutbox.getInstance(getContext()).markRegistered(token);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        TokenSyncOutbox outbox = TokenSyncOutbox.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("pending", outbox.getPendingCount());
+        result.put("attempts", outbox.getAttempts());
+        result.put("nextAttemptAt", outbox.getNextAttemptAt());
+        result.put("lastSyncAt", outbox.getLastSyncAt());
+        call.resolve(result);
+    }
+}
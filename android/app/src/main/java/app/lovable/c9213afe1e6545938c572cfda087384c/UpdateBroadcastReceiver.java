@@ -4,50 +4,58 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import com.getcapacitor.Plugin;
-import com.getcapacitor.annotation.CapacitorPlugin;
-import org.json.JSONObject;
+import androidx.core.content.ContextCompat;
+import com.getcapacitor.JSObject;
 
-@CapacitorPlugin(name = "UpdateBroadcastReceiver")
+/**
+ * Forwards the buttons of UpdateNotificationActivity to the web layer.
+ *
+ * Registered once per process on the application context, so activity
+ * recreation neither leaks it nor multiplies callbacks. Events go through
+ * NativeEventQueue, which delivers to whichever bridge is current; an update
+ * tapped while no page is loaded is shown once the app's page is ready.
+ */
 public class UpdateBroadcastReceiver extends BroadcastReceiver {
-    private static final String UPDATE_ACTION = "app.lovable.UPDATE_ACTION";
-    private static final String CLOSE_APP = "app.lovable.CLOSE_APP";
+    private static final String TAG = "UpdateBroadcastReceiver";
+    static final String UPDATE_ACTION = "app.lovable.UPDATE_ACTION";
+    static final String CLOSE_APP = "app.lovable.CLOSE_APP";
+
+    static final String EVENT_UPDATE_ACTION = "updateAction";
+    static final String EVENT_CLOSE_APP = "closeApp";
+
+    private static boolean registered;
 
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
-        
-        if (UPDATE_ACTION.equals(action)) {
-            try {
-                JSONObject data = new JSONObject();
-                data.put("version_id", intent.getStringExtra("version_id"));
-                data.put("version_code", intent.getStringExtra("version_code"));
-                data.put("version_name", intent.getStringExtra("version_name"));
-                data.put("apk_url", intent.getStringExtra("apk_url"));
-                data.put("is_mandatory", intent.getStringExtra("is_mandatory"));
-                data.put("changelog", intent.getStringExtra("changelog"));
 
-                // Send to JavaScript
-                MainActivity.getWebView().evaluateJavascript(
-                    "if (window.UpdateBroadcastReceiver && window.UpdateBroadcastReceiver.onUpdateAction) { " +
-                    "window.UpdateBroadcastReceiver.onUpdateAction('" + data.toString().replace("'", "\\'") + "'); " +
-                    "}", null);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        if (UPDATE_ACTION.equals(action)) {
+            JSObject data = new JSObject();
+            data.put("version_id", intent.getStringExtra("version_id"));
+            data.put("version_code", intent.getStringExtra("version_code"));
+            data.put("version_name", intent.getStringExtra("version_name"));
+            data.put("apk_url", intent.getStringExtra("apk_url"));
+            data.put("is_mandatory", intent.getStringExtra("is_mandatory"));
+            data.put("changelog", intent.getStringExtra("changelog"));
+            // A newer update offer supersedes one the page has not seen yet
+            NativeEventQueue.getInstance().emitLatest(EVENT_UPDATE_ACTION, "update", data);
         } else if (CLOSE_APP.equals(action)) {
-            // Send close app signal to JavaScript
-            MainActivity.getWebView().evaluateJavascript(
-                "if (window.UpdateBroadcastReceiver && window.UpdateBroadcastReceiver.onCloseApp) { " +
-                "window.UpdateBroadcastReceiver.onCloseApp(); " +
-                "}", null);
+            // Only meaningful for a running page; must not close the app on its next start
+            NativeEventQueue.getInstance().emitIfReady(EVENT_CLOSE_APP, null);
         }
     }
 
-    public static void register(Context context) {
+    /**
+     * Register the process-wide receiver; later calls are no-ops.
+     */
+    public static synchronized void register(Context context) {
+        if (registered) return;
         IntentFilter filter = new IntentFilter();
         filter.addAction(UPDATE_ACTION);
         filter.addAction(CLOSE_APP);
-        context.registerReceiver(new UpdateBroadcastReceiver(), filter);
+        ContextCompat.registerReceiver(context.getApplicationContext(), new UpdateBroadcastReceiver(),
+            filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+        registered = true;
+        AppLog.d(TAG, "📡 Update receiver registered");
     }
 }
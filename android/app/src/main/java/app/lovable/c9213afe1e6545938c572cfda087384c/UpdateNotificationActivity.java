@@ -1,7 +1,9 @@
 package app.lovable.c9213afe1e6545938c572cfda087384c;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
+import android.content.pm.PackageInstaller;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
@@ -11,14 +13,19 @@ import android.view.animation.TranslateAnimation;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.LinearLayout;
+import java.io.File;
 
 public class UpdateNotificationActivity extends Activity {
+    private static final String TAG = "UpdateNotificationActivity";
+
     private String versionId;
     private String versionCode;
     private String versionName;
     private String apkUrl;
+    private String apkSha256;
     private boolean isMandatory;
     private String changelog;
+    private String route;
     private LinearLayout notificationContainer;
 
     @Override
@@ -41,8 +48,10 @@ public class UpdateNotificationActivity extends Activity {
         versionCode = intent.getStringExtra("version_code");
         versionName = intent.getStringExtra("version_name");
         apkUrl = intent.getStringExtra("apk_url");
+        apkSha256 = intent.getStringExtra("apk_sha256");
         isMandatory = "true".equals(intent.getStringExtra("is_mandatory"));
         changelog = intent.getStringExtra("changelog");
+        route = intent.getStringExtra("route");
 
         // If device is already on this version or newer, close immediately
         try {
@@ -87,22 +96,23 @@ public class UpdateNotificationActivity extends Activity {
 
         // Button handlers
         updateButton.setOnClickListener(v -> {
-            // Broadcast update action to the app
-            Intent updateIntent = new Intent("app.lovable.UPDATE_ACTION");
-            updateIntent.putExtra("version_id", versionId);
-            updateIntent.putExtra("version_code", versionCode);
-            updateIntent.putExtra("version_name", versionName);
-            updateIntent.putExtra("apk_url", apkUrl);
-            updateIntent.putExtra("is_mandatory", String.valueOf(isMandatory));
-            updateIntent.putExtra("changelog", changelog);
-            sendBroadcast(updateIntent);
+            // Only a download verified against the announced digest is installed from cache
+            File cached = apkUrl != null && apkSha256 != null
+                ? ApkDownloader.getInstance(this).cached(apkUrl, apkSha256) : null;
+            if (cached != null) {
+                // Pre-downloaded by UpdatePrefetchJobService; straight to the installer
+                installFromCache(getApplicationContext());
+            } else {
+                sendUpdateBroadcast(this);
+            }
             finish();
         });
 
         skipButton.setOnClickListener(v -> {
             if (isMandatory) {
                 // Close the app
-                Intent closeIntent = new Intent("app.lovable.CLOSE_APP");
+                Intent closeIntent = new Intent(UpdateBroadcastReceiver.CLOSE_APP);
+                closeIntent.setPackage(getPackageName());
                 sendBroadcast(closeIntent);
                 finishAffinity();
             } else {
@@ -115,6 +125,61 @@ public class UpdateNotificationActivity extends Activity {
         slideUp();
     }
 
+    /**
+     * Install the verified cached APK; if that fails, hand over to the app's
+     * update flow as if nothing had been cached.
+     */
+    private void installFromCache(Context appContext) {
+        ApkSessionInstaller.getInstance(appContext).install(apkUrl, apkSha256, new ApkSessionInstaller.Callback() {
+            @Override
+            public void onProgress(long downloaded, long total) {}
+
+            @Override
+            public void onComplete(ApkDownloader.Result result) {}
+
+            @Override
+            public void onFailed(String message) {
+                AppLog.w(TAG, "⚠️ Install from cache failed: {}", message);
+                sendUpdateBroadcast(appContext);
+            }
+
+            @Override
+            public void onStatus(int status, String message) {
+                // Declined by the user (ABORTED) is not a failure to recover from
+                if (status != PackageInstaller.STATUS_SUCCESS && status != PackageInstaller.STATUS_FAILURE_ABORTED) {
+                    onFailed(message);
+                }
+            }
+        });
+    }
+
+    /**
+     * Hand the update to the app's own flow: an "updateAction" event, and the
+     * app itself when it is not open (the sheet is started from the update
+     * notification, with or without it).
+     */
+    private void sendUpdateBroadcast(Context context) {
+        // Queued by NativeEventQueue until the app's page is ready
+        UpdateBroadcastReceiver.register(context);
+        Intent updateIntent = new Intent(UpdateBroadcastReceiver.UPDATE_ACTION);
+        updateIntent.setPackage(context.getPackageName());
+        updateIntent.putExtra("version_id", versionId);
+        updateIntent.putExtra("version_code", versionCode);
+        updateIntent.putExtra("version_name", versionName);
+        updateIntent.putExtra("apk_url", apkUrl);
+        updateIntent.putExtra("is_mandatory", String.valueOf(isMandatory));
+        updateIntent.putExtra("changelog", changelog);
+        context.sendBroadcast(updateIntent);
+
+        if (!NativeEventQueue.getInstance().hasBridge()) {
+            Intent appIntent = new Intent(context, MainActivity.class);
+            appIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+            appIntent.putExtra("fromNotification", true);
+            if (route != null) appIntent.putExtra("route", route);
+            context.startActivity(appIntent);
+        }
+    }
+
     private void slideUp() {
         TranslateAnimation animate = new TranslateAnimation(
             0,
@@ -0,0 +1,102 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.PersistableBundle;
+import java.io.IOException;
+
+/**
+ * Downloads an announced update ahead of time, so "Update now" installs
+ * from the verified cache instead of starting a download while the user
+ * waits.
+ *
+ * Scheduled when an app_update push arrives and run by JobScheduler only
+ * on an unmetered network while charging; the job survives reboots. The
+ * download goes through ApkDownloader as a background job held to
+ * MAX_BYTES_PER_SECOND, so it never competes with the user's own traffic,
+ * and resumes where it stopped when the constraints are lost and met again.
+ * A newer push replaces the pending job.
+ */
+public class UpdatePrefetchJobService extends JobService {
+    private static final String TAG = "UpdatePrefetchJob";
+    private static final int JOB_ID = 9990;
+    private static final String EXTRA_URL = "apk_url";
+    private static final String EXTRA_SHA256 = "apk_sha256";
+    private static final String EXTRA_VERSION_CODE = "version_code";
+    private static final long MAX_BYTES_PER_SECOND = 512 * 1024L;
+    private static final long BACKOFF_MS = 60000L;
+
+    static void schedule(Context context, OrderPush push) {
+        // Without a digest the download could not be verified, and an unverified APK is never installed from cache
+        if (push.apkUrl == null || push.apkSha256 == null) return;
+        long versionCode = parseVersionCode(push.versionCode);
+        ApkDownloader downloader = ApkDownloader.getInstance(context);
+        if (versionCode > 0 && versionCode <= downloader.installedVersionCode()) return;
+        if (downloader.cached(push.apkUrl, push.apkSha256) != null) return;
+
+        PersistableBundle extras = new PersistableBundle();
+        extras.putString(EXTRA_URL, push.apkUrl);
+        extras.putString(EXTRA_SHA256, push.apkSha256);
+        extras.putLong(EXTRA_VERSION_CODE, versionCode);
+
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, UpdatePrefetchJobService.class))
+            .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+            .setRequiresCharging(true)
+            .setPersisted(true)
+            .setBackoffCriteria(BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+            .setExtras(extras)
+            .build();
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        int result = scheduler.schedule(job);
+        AppLog.i(TAG, "🗓️ Update prefetch scheduled for version {} (result {})", versionCode, result);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        PersistableBundle extras = params.getExtras();
+        String url = extras.getString(EXTRA_URL);
+        String sha256 = extras.getString(EXTRA_SHA256);
+        long versionCode = extras.getLong(EXTRA_VERSION_CODE, -1L);
+        ApkDownloader downloader = ApkDownloader.getInstance(this);
+        if (url == null || sha256 == null || (versionCode > 0 && versionCode <= downloader.installedVersionCode())) {
+            // Installed some other way since the push
+            return false;
+        }
+
+        downloader.submitBackground(MAX_BYTES_PER_SECOND, () -> {
+            boolean retry = false;
+            try {
+                ApkDownloader.Result result = downloader.download(url, sha256, null);
+                AppLog.i(TAG, "✅ Update prefetched: {} bytes, sha256 {}", result.bytes, result.sha256);
+            } catch (ApkDownloader.DigestMismatchException e) {
+                // Not the announced release; fetching it again would not help
+                AppLog.w(TAG, "⚠️ Prefetched update rejected: {}", e.getMessage());
+            } catch (IOException e) {
+                AppLog.w(TAG, "⚠️ Update prefetch stopped: {}", e.getMessage());
+                retry = true;
+            }
+            jobFinished(params, retry);
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Constraints lost: stop at the next buffer, the checkpoint lets the rerun resume
+        ApkDownloader.getInstance(this).cancelBackground();
+        return true;
+    }
+
+    private static long parseVersionCode(String value) {
+        if (value == null) return -1L;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
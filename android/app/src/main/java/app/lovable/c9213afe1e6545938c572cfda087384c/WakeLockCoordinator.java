@@ -0,0 +1,190 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+/**
+ * Process-wide owner of the screen wake lock used for incoming orders.
+ *
+ * Instead of a new FULL_WAKE_LOCK + Handler per push, overlapping pushes
+ * extend a single lease on one non-reference-counted lock. The lock is
+ * released as soon as IncomingOrderActivity is on screen (it keeps the screen
+ * on itself) or when the lease runs out. The system-side timeout is only
+ * refreshed when a lease outgrows it, so a burst costs one acquire Binder call
+ * instead of one per order.
+ *
+ * Cumulative held time and lease counters are persisted so the battery cost
+ * of order alerts can be tracked across process restarts.
+ */
+final class WakeLockCoordinator {
+    private static final String TAG = "WakeLockCoordinator";
+    private static final String WAKE_LOCK_TAG = "RequestMastermind:NotificationWakeLock";
+    static final long DEFAULT_LEASE_MS = 12_000L;
+    // Extra time granted to the system timeout so our own release normally wins
+    private static final long SYSTEM_TIMEOUT_SLACK_MS = 3_000L;
+
+    private static final String PREFS_NAME = "wake_lock_stats";
+    private static final String KEY_HELD_MS = "cumulative_held_ms";
+    private static final String KEY_LEASES = "leases";
+    private static final String KEY_EXTENSIONS = "extensions";
+    private static final String KEY_ACQUISITIONS = "acquisitions";
+
+    private static volatile WakeLockCoordinator instance;
+
+    private final PowerManager powerManager;
+    private final SharedPreferences prefs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable leaseTimer = this::onLeaseTimer;
+
+    private PowerManager.WakeLock wakeLock;
+    private boolean held;
+    private long heldSince;
+    private long leaseDeadline;
+    private long systemDeadline;
+
+    private long cumulativeHeldMs;
+    private long leases;
+    private long extensions;
+    private long acquisitions;
+
+    static WakeLockCoordinator getInstance(Context context) {
+        WakeLockCoordinator local = instance;
+        if (local == null) {
+            synchronized (WakeLockCoordinator.class) {
+                local = instance;
+                if (local == null) {
+                    local = new WakeLockCoordinator(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private WakeLockCoordinator(Context context) {
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.cumulativeHeldMs = prefs.getLong(KEY_HELD_MS, 0L);
+        this.leases = prefs.getLong(KEY_LEASES, 0L);
+        this.extensions = prefs.getLong(KEY_EXTENSIONS, 0L);
+        this.acquisitions = prefs.getLong(KEY_ACQUISITIONS, 0L);
+    }
+
+    /**
+     * Wake the screen (or keep it awake) for at least leaseMs from now.
+     * Overlapping calls extend the current lease instead of stacking locks.
+     */
+    synchronized void acquireLease(long leaseMs) {
+        if (powerManager == null) return;
+        long now = SystemClock.elapsedRealtime();
+        long deadline = now + leaseMs;
+        leases++;
+
+        try {
+            if (!held) {
+                if (wakeLock == null) {
+                    // Use FULL_WAKE_LOCK for maximum screen wake capability (especially for Xiaomi)
+                    wakeLock = powerManager.newWakeLock(
+                        PowerManager.FULL_WAKE_LOCK |
+                        PowerManager.ACQUIRE_CAUSES_WAKEUP |
+                        PowerManager.ON_AFTER_RELEASE,
+                        WAKE_LOCK_TAG
+                    );
+                    wakeLock.setReferenceCounted(false);
+                }
+                wakeLock.acquire(leaseMs + SYSTEM_TIMEOUT_SLACK_MS);
+                acquisitions++;
+                held = true;
+                heldSince = now;
+                leaseDeadline = deadline;
+                systemDeadline = deadline + SYSTEM_TIMEOUT_SLACK_MS;
+                handler.removeCallbacks(leaseTimer);
+                handler.postDelayed(leaseTimer, leaseMs);
+                AppLog.d(TAG, "📱 Wake lock acquired for {}ms", leaseMs);
+                return;
+            }
+
+            extensions++;
+            if (deadline <= leaseDeadline) return;
+            leaseDeadline = deadline;
+            if (leaseDeadline + SYSTEM_TIMEOUT_SLACK_MS > systemDeadline) {
+                // Only now does the system timeout need pushing out; grant a whole lease of headroom
+                long timeout = leaseDeadline - now + leaseMs;
+                wakeLock.acquire(timeout);
+                systemDeadline = now + timeout;
+            }
+            AppLog.d(TAG, "📱 Wake lock lease extended by {}ms", leaseMs);
+        } catch (Exception e) {
+            AppLog.e(TAG, "❌ Error acquiring wake lock", e);
+        }
+    }
+
+    /**
+     * Drop the lease early, e.g. once the full-screen order UI is visible.
+     */
+    synchronized void release(String reason) {
+        if (!held) return;
+        handler.removeCallbacks(leaseTimer);
+        releaseLocked(SystemClock.elapsedRealtime());
+        AppLog.d(TAG, "📱 Wake lock released early: {}", reason);
+    }
+
+    synchronized boolean isHeld() {
+        return held;
+    }
+
+    synchronized long getCumulativeHeldMillis() {
+        long total = cumulativeHeldMs;
+        if (held) {
+            total += Math.min(SystemClock.elapsedRealtime(), systemDeadline) - heldSince;
+        }
+        return total;
+    }
+
+    synchronized long getLeaseCount() {
+        return leases;
+    }
+
+    synchronized long getExtensionCount() {
+        return extensions;
+    }
+
+    synchronized long getAcquisitionCount() {
+        return acquisitions;
+    }
+
+    private synchronized void onLeaseTimer() {
+        if (!held) return;
+        long now = SystemClock.elapsedRealtime();
+        if (now < leaseDeadline) {
+            // Lease was extended after this timer was posted
+            handler.postDelayed(leaseTimer, leaseDeadline - now);
+            return;
+        }
+        releaseLocked(now);
+        AppLog.d(TAG, "📱 Wake lock lease expired");
+    }
+
+    private void releaseLocked(long now) {
+        try {
+            if (wakeLock != null && wakeLock.isHeld()) {
+                wakeLock.release();
+            }
+        } catch (Exception e) {
+            AppLog.e(TAG, "❌ Error releasing wake lock", e);
+        }
+        // The system may already have timed the lock out; never count past that
+        cumulativeHeldMs += Math.min(now, systemDeadline) - heldSince;
+        held = false;
+        prefs.edit()
+            .putLong(KEY_HELD_MS, cumulativeHeldMs)
+            .putLong(KEY_LEASES, leases)
+            .putLong(KEY_EXTENSIONS, extensions)
+            .putLong(KEY_ACQUISITIONS, acquisitions)
+            .apply();
+    }
+}
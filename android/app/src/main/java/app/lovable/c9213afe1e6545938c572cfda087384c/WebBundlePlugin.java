@@ -0,0 +1,43 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import org.json.JSONException;
+
+/**
+ * Capacitor plugin for WebBundleUpdater. The web layer calls notifyReady()
+ * once it has rendered; until then a newly switched-to bundle is on trial
+ * and gets rolled back.
+ */
+@CapacitorPlugin(name = "WebBundle")
+public class WebBundlePlugin extends Plugin {
+    private static final String TAG = "WebBundlePlugin";
+
+    @PluginMethod
+    public void notifyReady(PluginCall call) {
+        WebBundleUpdater.getInstance(getContext()).notifyReady();
+        call.resolve();
+    }
+
+    /**
+     * Check for a newer bundle now instead of waiting for the next interval.
+     */
+    @PluginMethod
+    public void check(PluginCall call) {
+        WebBundleUpdater.getInstance(getContext()).checkForUpdate(true);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        try {
+            call.resolve(JSObject.fromJSONObject(WebBundleUpdater.getInstance(getContext()).getStatus()));
+        } catch (JSONException e) {
+            AppLog.e(TAG, "❌ Failed to read web bundle status", e);
+            call.reject("Failed to read web bundle status");
+        }
+    }
+}
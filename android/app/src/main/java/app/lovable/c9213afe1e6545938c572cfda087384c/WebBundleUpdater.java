@@ -0,0 +1,436 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import com.getcapacitor.Bridge;
+import com.getcapacitor.plugin.WebView;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Over-the-air updates of the web bundle the bridge serves.
+ *
+ * Bundles (zips of the built web app) are announced by mobile-api's
+ * /web-bundle route, downloaded and verified through ApkDownloader's engine,
+ * and unpacked in the background into a staging directory that is renamed
+ * into place only once complete. Nothing changes for the running page: the
+ * new bundle becomes pending and is switched to on the next cold start,
+ * before the bridge is created, by pointing Capacitor's persisted server
+ * base path at it.
+ *
+ * A switched-to bundle is on trial until the web layer calls
+ * WebBundle.notifyReady(). If it does not within READY_TIMEOUT_MS, or the
+ * app is cold-started MAX_TRIAL_LAUNCHES times without it, the previous
+ * bundle (or the one built into the APK) is restored and the version is
+ * never tried again. A new APK resets everything, as Capacitor itself does.
+ */
+final class WebBundleUpdater {
+    private static final String TAG = "WebBundleUpdater";
+    private static final String PREFS_NAME = "web_bundle";
+    private static final String KEY_CURRENT = "current";
+    private static final String KEY_CURRENT_PATH = "current_path";
+    private static final String KEY_PENDING = "pending";
+    private static final String KEY_PENDING_PATH = "pending_path";
+    private static final String KEY_TRIAL = "trial";
+    private static final String KEY_TRIAL_PATH = "trial_path";
+    private static final String KEY_TRIAL_LAUNCHES = "trial_launches";
+    private static final String KEY_PREVIOUS_PATH = "previous_path";
+    private static final String KEY_BAD = "bad";
+    private static final String KEY_NATIVE_VERSION = "native_version";
+    private static final String KEY_CHECKED_AT = "checked_at";
+
+    private static final String BUILT_IN_ASSET_PATH = "public";
+
+    private static final String BUNDLE_PATH = "/functions/v1/mobile-api/web-bundle";
+    private static final String DIR_NAME = "web_bundles";
+    private static final String STAGING_NAME = "staging";
+    private static final String DOWNLOAD_STATE_KEY = "web_bundle";
+    private static final int MAX_TRIAL_LAUNCHES = 2;
+    private static final long READY_TIMEOUT_MS = 20000L;
+    private static final long CHECK_INTERVAL_MS = 30 * 60 * 1000L;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+
+    private static volatile WebBundleUpdater instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final SharedPreferences capacitorPrefs;
+    private final File dir;
+    private final String endpoint;
+    private final String apiKey;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable readyTimeout = this::onReadyTimeout;
+    private WeakReference<Bridge> trialBridge = new WeakReference<>(null);
+    private volatile boolean checking;
+    // Activity recreation is not a new launch of the bundle
+    private boolean coldStartHandled;
+
+    static WebBundleUpdater getInstance(Context context) {
+        WebBundleUpdater local = instance;
+        if (local == null) {
+            synchronized (WebBundleUpdater.class) {
+                local = instance;
+                if (local == null) {
+                    local = new WebBundleUpdater(
+                        context.getApplicationContext(),
+                        BuildConfig.SUPABASE_URL + BUNDLE_PATH,
+                        BuildConfig.SUPABASE_ANON_KEY
+                    );
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * @param endpoint full web-bundle URL; tests can point this at a local HTTP stand-in
+     */
+    WebBundleUpdater(Context context, String endpoint, String apiKey) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        // The Bridge loads from the path persisted here when it starts, as after WebView.persistServerBasePath()
+        this.capacitorPrefs = context.getSharedPreferences(WebView.WEBVIEW_PREFS_NAME, Context.MODE_PRIVATE);
+        this.dir = new File(context.getFilesDir(), DIR_NAME);
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Before the bridge is created: roll back a bundle that never became
+     * ready, or switch to a pending one. Main thread, cold start only.
+     */
+    void onColdStart() {
+        if (coldStartHandled) return;
+        coldStartHandled = true;
+        long nativeVersion = nativeVersionCode();
+        if (prefs.getLong(KEY_NATIVE_VERSION, -1L) != nativeVersion) {
+            // Bundles were built for the previous APK; Capacitor drops the path on a new binary too
+            if (prefs.contains(KEY_NATIVE_VERSION)) {
+                AppLog.i(TAG, "📦 New APK installed, dropping downloaded web bundles");
+                deleteRecursively(dir);
+            }
+            prefs.edit().clear().putLong(KEY_NATIVE_VERSION, nativeVersion).apply();
+            return;
+        }
+
+        String trial = prefs.getString(KEY_TRIAL, null);
+        if (trial != null) {
+            int launches = prefs.getInt(KEY_TRIAL_LAUNCHES, 0);
+            if (launches >= MAX_TRIAL_LAUNCHES) {
+                AppLog.w(TAG, "⚠️ Web bundle {} never signalled ready, rolling back", trial);
+                rollBack();
+            } else {
+                prefs.edit().putInt(KEY_TRIAL_LAUNCHES, launches + 1).apply();
+            }
+            return;
+        }
+
+        String pending = prefs.getString(KEY_PENDING, null);
+        String pendingPath = prefs.getString(KEY_PENDING_PATH, null);
+        if (pending == null || pendingPath == null) return;
+        if (!new File(pendingPath, "index.html").isFile()) {
+            prefs.edit().remove(KEY_PENDING).remove(KEY_PENDING_PATH).apply();
+            return;
+        }
+        prefs.edit()
+            .putString(KEY_TRIAL, pending)
+            .putString(KEY_TRIAL_PATH, pendingPath)
+            .putInt(KEY_TRIAL_LAUNCHES, 1)
+            .putString(KEY_PREVIOUS_PATH, prefs.getString(KEY_CURRENT_PATH, null))
+            .remove(KEY_PENDING)
+            .remove(KEY_PENDING_PATH)
+            .apply();
+        capacitorPrefs.edit().putString(WebView.CAP_SERVER_PATH, pendingPath).apply();
+        AppLog.i(TAG, "🔀 Switching to web bundle {}", pending);
+    }
+
+    /**
+     * After the bridge is created: start the ready timer of a bundle on trial.
+     */
+    void onBridgeCreated(Bridge bridge) {
+        if (prefs.getString(KEY_TRIAL, null) == null) return;
+        trialBridge = new WeakReference<>(bridge);
+        mainHandler.removeCallbacks(readyTimeout);
+        mainHandler.postDelayed(readyTimeout, READY_TIMEOUT_MS);
+    }
+
+    /**
+     * The web layer booted; a bundle on trial becomes the current one.
+     */
+    void notifyReady() {
+        mainHandler.removeCallbacks(readyTimeout);
+        String trial = prefs.getString(KEY_TRIAL, null);
+        if (trial == null) return;
+        String trialPath = prefs.getString(KEY_TRIAL_PATH, null);
+        prefs.edit()
+            .putString(KEY_CURRENT, trial)
+            .putString(KEY_CURRENT_PATH, trialPath)
+            .remove(KEY_TRIAL)
+            .remove(KEY_TRIAL_PATH)
+            .remove(KEY_TRIAL_LAUNCHES)
+            .remove(KEY_PREVIOUS_PATH)
+            .apply();
+        AppLog.i(TAG, "✅ Web bundle {} is ready", trial);
+        ApkDownloader.getInstance(context).submitInternal(() -> deleteBundlesExcept(trialPath, prefs.getString(KEY_PENDING_PATH, null)));
+    }
+
+    /**
+     * Ask mobile-api for a newer bundle and stage it; at most every CHECK_INTERVAL_MS unless forced.
+     */
+    void checkForUpdate(boolean force) {
+        if (checking) return;
+        if (!force && System.currentTimeMillis() - prefs.getLong(KEY_CHECKED_AT, 0L) < CHECK_INTERVAL_MS) return;
+        checking = true;
+        // Same worker as APK downloads, so the two never compete for bandwidth;
+        // not a user waiting, so an update prefetch ahead of it stays throttled
+        ApkDownloader.getInstance(context).submitInternal(() -> {
+            try {
+                checkNow();
+            } finally {
+                checking = false;
+            }
+        });
+    }
+
+    JSONObject getStatus() throws JSONException {
+        JSONObject status = new JSONObject();
+        status.put("current", prefs.getString(KEY_CURRENT, null));
+        status.put("trial", prefs.getString(KEY_TRIAL, null));
+        status.put("pending", prefs.getString(KEY_PENDING, null));
+        status.put("checkedAt", prefs.getLong(KEY_CHECKED_AT, 0L));
+        return status;
+    }
+
+    private void checkNow() {
+        String running = prefs.getString(KEY_TRIAL, prefs.getString(KEY_CURRENT, null));
+        String known = prefs.getString(KEY_PENDING, running);
+        JSONObject bundle;
+        try {
+            bundle = fetchLatest(known);
+        } catch (IOException | JSONException e) {
+            AppLog.w(TAG, "⚠️ Web bundle check failed: {}", e.getMessage());
+            return;
+        }
+        prefs.edit().putLong(KEY_CHECKED_AT, System.currentTimeMillis()).apply();
+        if (bundle == null) return;
+
+        String version = bundle.optString("version", null);
+        String url = bundle.optString("bundle_url", null);
+        String sha256 = bundle.optString("sha256", null);
+        if (version == null || url == null || sha256 == null) return;
+        if (version.equals(known) || version.equals(running) || isBad(version)) return;
+
+        File zip = new File(dir, "download.zip");
+        File staging = new File(dir, STAGING_NAME);
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+            ApkDownloader downloader = ApkDownloader.getInstance(context);
+            downloader.downloadTo(url, sha256, DOWNLOAD_STATE_KEY, new ApkDownloader.FileSink(zip), null);
+
+            deleteRecursively(staging);
+            unzip(zip, staging);
+            if (!new File(staging, "index.html").isFile()) throw new IOException("Bundle has no index.html");
+
+            File target = new File(dir, "v-" + version.replaceAll("[^A-Za-z0-9._-]", "_"));
+            deleteRecursively(target);
+            // Same filesystem, so the complete bundle appears in one step
+            if (!staging.renameTo(target)) throw new IOException("Cannot move bundle into place");
+
+            String replaced = prefs.getString(KEY_PENDING_PATH, null);
+            prefs.edit()
+                .putString(KEY_PENDING, version)
+                .putString(KEY_PENDING_PATH, target.getAbsolutePath())
+                .apply();
+            if (replaced != null && !replaced.equals(target.getAbsolutePath())) {
+                deleteRecursively(new File(replaced));
+            }
+            AppLog.i(TAG, "📦 Web bundle {} staged ({} bytes), applied on next start", version, zip.length());
+        } catch (IOException e) {
+            AppLog.w(TAG, "⚠️ Web bundle {} not staged: {}", version, e.getMessage());
+            deleteRecursively(staging);
+        } finally {
+            // The zip is only kept while its download can still be resumed
+            if (prefs.getString(KEY_PENDING, "").equals(version)) {
+                zip.delete();
+                ApkDownloader.getInstance(context).forget(DOWNLOAD_STATE_KEY);
+            }
+        }
+    }
+
+    private JSONObject fetchLatest(String currentVersion) throws IOException, JSONException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("apikey", apiKey);
+            connection.setRequestProperty("Authorization", "Bearer " + apiKey);
+            JSONObject body = new JSONObject()
+                .put("versionCode", nativeVersionCode())
+                .put("currentVersion", currentVersion != null ? currentVersion : JSONObject.NULL);
+            byte[] payload = body.toString().getBytes(StandardCharsets.UTF_8);
+            connection.setFixedLengthStreamingMode(payload.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(payload);
+            }
+
+            int status = connection.getResponseCode();
+            if (status < 200 || status >= 300) throw new IOException("HTTP " + status);
+            JSONObject response = new JSONObject(readAll(connection.getInputStream()));
+            return response.optJSONObject("bundle");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void onReadyTimeout() {
+        if (prefs.getString(KEY_TRIAL, null) == null) return;
+        AppLog.w(TAG, "⚠️ Web bundle {} not ready after {} ms, rolling back", prefs.getString(KEY_TRIAL, null), READY_TIMEOUT_MS);
+        String restored = rollBack();
+        Bridge bridge = trialBridge.get();
+        if (bridge != null) {
+            // Both reload the WebView from the restored location
+            if (restored != null) {
+                bridge.setServerBasePath(restored);
+            } else {
+                bridge.setServerAssetPath(BUILT_IN_ASSET_PATH);
+            }
+        }
+    }
+
+    /**
+     * Restore the bundle that ran before the trial and ban the trial version.
+     * Returns the restored path, or null for the bundle built into the APK.
+     */
+    private String rollBack() {
+        String trial = prefs.getString(KEY_TRIAL, null);
+        String trialPath = prefs.getString(KEY_TRIAL_PATH, null);
+        String previousPath = prefs.getString(KEY_PREVIOUS_PATH, null);
+        if (previousPath != null && !new File(previousPath, "index.html").isFile()) {
+            previousPath = null;
+        }
+
+        SharedPreferences.Editor editor = prefs.edit()
+            .remove(KEY_TRIAL)
+            .remove(KEY_TRIAL_PATH)
+            .remove(KEY_TRIAL_LAUNCHES)
+            .remove(KEY_PREVIOUS_PATH)
+            .putString(KEY_CURRENT_PATH, previousPath);
+        if (previousPath == null) editor.remove(KEY_CURRENT);
+        if (trial != null) editor.putString(KEY_BAD, prefs.getString(KEY_BAD, "") + trial + "\n");
+        editor.apply();
+        capacitorPrefs.edit().putString(WebView.CAP_SERVER_PATH, previousPath != null ? previousPath : "").apply();
+
+        if (trialPath != null) {
+            File broken = new File(trialPath);
+            ApkDownloader.getInstance(context).submitInternal(() -> deleteRecursively(broken));
+        }
+        return previousPath;
+    }
+
+    private boolean isBad(String version) {
+        for (String bad : prefs.getString(KEY_BAD, "").split("\n")) {
+            if (bad.equals(version)) return true;
+        }
+        return false;
+    }
+
+    private void deleteBundlesExcept(String keep, String alsoKeep) {
+        File[] bundles = dir.listFiles();
+        if (bundles == null) return;
+        for (File bundle : bundles) {
+            String path = bundle.getAbsolutePath();
+            if (bundle.isDirectory() && !path.equals(keep) && !path.equals(alsoKeep)) {
+                deleteRecursively(bundle);
+            }
+        }
+    }
+
+    /**
+     * Streamed through one fixed buffer; entries that would land outside target are refused.
+     */
+    private static void unzip(File zip, File target) throws IOException {
+        if (!target.mkdirs()) throw new IOException("Cannot create " + target);
+        String root = target.getCanonicalPath() + File.separator;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(new FileInputStream(zip), BUFFER_SIZE))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                File file = new File(target, entry.getName());
+                if (!file.getCanonicalPath().startsWith(root)) {
+                    throw new IOException("Bundle entry outside target: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    if (!file.isDirectory() && !file.mkdirs()) throw new IOException("Cannot create " + file);
+                    continue;
+                }
+                File parent = file.getParentFile();
+                if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Cannot create " + parent);
+                }
+                try (OutputStream out = new FileOutputStream(file)) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private long nativeVersionCode() {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).getLongVersionCode();
+            }
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        if (in == null) return "";
+        try (InputStream stream = in) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
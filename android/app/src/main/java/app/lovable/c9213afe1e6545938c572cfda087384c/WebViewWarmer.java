@@ -0,0 +1,178 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+
+/**
+ * Opt-in pre-warming of the WebView engine when an order push arrives.
+ *
+ * Most of a cold BridgeActivity start is the WebView provider loading its
+ * native library and spawning a renderer. When a call-style push arrives and
+ * no bridge exists, this loads the provider and keeps one blank spare WebView
+ * alive, so the renderer process is already up when the specialist taps and
+ * MainActivity builds its own WebView. The spare is destroyed once the bridge
+ * exists or after SPARE_TTL_MS, and nothing is warmed on low-RAM devices or
+ * when available memory is under the budget.
+ *
+ * Warming runs on the main thread (WebView requires it) but only after the
+ * full-screen order UI had time to come up, and only when the queue is idle.
+ */
+final class WebViewWarmer {
+    private static final String TAG = "WebViewWarmer";
+    private static final String PREFS_NAME = "webview_prewarm";
+    private static final String KEY_ENABLED = "enabled";
+
+    private static final long START_DELAY_MS = 1500L;
+    private static final long SPARE_TTL_MS = 2 * 60 * 1000L;
+    private static final long MIN_AVAILABLE_BYTES = 300L * 1024 * 1024;
+
+    static final String STATE_COLD = "cold";
+    static final String STATE_PROVIDER = "provider";
+    static final String STATE_RENDERER = "renderer";
+
+    private static volatile WebViewWarmer instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable releaseSpare = this::releaseSpare;
+
+    // Main thread only
+    private WebView spare;
+    private volatile boolean bridgeAlive;
+    private volatile String state = STATE_COLD;
+    private volatile boolean warming;
+    private volatile long lastWarmMs = -1L;
+    private volatile int warmCount;
+    private volatile int skippedForMemory;
+
+    static WebViewWarmer getInstance(Context context) {
+        WebViewWarmer local = instance;
+        if (local == null) {
+            synchronized (WebViewWarmer.class) {
+                local = instance;
+                if (local == null) {
+                    local = new WebViewWarmer(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private WebViewWarmer(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    boolean isEnabled() {
+        return prefs.getBoolean(KEY_ENABLED, false);
+    }
+
+    void setEnabled(boolean enabled) {
+        prefs.edit().putBoolean(KEY_ENABLED, enabled).apply();
+        AppLog.i(TAG, "⚙️ WebView pre-warm {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Warm the engine for an upcoming tap. Safe to call from any thread.
+     */
+    void warmForPush() {
+        if (!isEnabled() || warming || bridgeAlive || STATE_RENDERER.equals(state)) return;
+        if (!withinMemoryBudget()) {
+            skippedForMemory++;
+            AppLog.i(TAG, "🧠 Pre-warm skipped: memory budget");
+            return;
+        }
+        warming = true;
+        mainHandler.postDelayed(() -> Looper.myQueue().addIdleHandler(() -> {
+            warmOnMainThread();
+            return false;
+        }), START_DELAY_MS);
+    }
+
+    private void warmOnMainThread() {
+        warming = false;
+        if (bridgeAlive || STATE_RENDERER.equals(state)) return;
+
+        long start = SystemClock.elapsedRealtime();
+        try {
+            // Loads and initializes the WebView provider without creating a view
+            WebSettings.getDefaultUserAgent(context);
+            state = STATE_PROVIDER;
+
+            // A live WebView keeps the renderer process up for the bridge to reuse
+            spare = new WebView(context);
+            spare.loadUrl("about:blank");
+            state = STATE_RENDERER;
+            mainHandler.postDelayed(releaseSpare, SPARE_TTL_MS);
+        } catch (RuntimeException e) {
+            // Missing or updating WebView package; the bridge will report it properly
+            AppLog.w(TAG, "⚠️ WebView pre-warm failed: {}", e.getMessage());
+        }
+        lastWarmMs = SystemClock.elapsedRealtime() - start;
+        warmCount++;
+        AppLog.i(TAG, "🔥 WebView pre-warmed to {} in {}ms", state, lastWarmMs);
+    }
+
+    /**
+     * Called by MainActivity before it builds the bridge; returns the warm state it will start from.
+     */
+    String onBridgeCreating() {
+        bridgeAlive = true;
+        return state;
+    }
+
+    /**
+     * The bridge WebView now holds the renderer, so the spare can go.
+     */
+    void onBridgeCreated() {
+        mainHandler.removeCallbacks(releaseSpare);
+        releaseSpare();
+    }
+
+    void onBridgeDestroyed() {
+        bridgeAlive = false;
+    }
+
+    String getState() {
+        return state;
+    }
+
+    long getLastWarmMillis() {
+        return lastWarmMs;
+    }
+
+    int getWarmCount() {
+        return warmCount;
+    }
+
+    int getSkippedForMemory() {
+        return skippedForMemory;
+    }
+
+    private void releaseSpare() {
+        if (spare != null) {
+            spare.destroy();
+            spare = null;
+        }
+        // The provider stays loaded for the life of the process
+        if (STATE_RENDERER.equals(state)) {
+            state = STATE_PROVIDER;
+        }
+    }
+
+    private boolean withinMemoryBudget() {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null || activityManager.isLowRamDevice()) return false;
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        return !memoryInfo.lowMemory && memoryInfo.availMem >= MIN_AVAILABLE_BYTES;
+    }
+}
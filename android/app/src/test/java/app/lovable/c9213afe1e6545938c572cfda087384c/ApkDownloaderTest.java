@@ -0,0 +1,157 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.core.app.ApplicationProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * ApkDownloader against a local server that drops the first connection
+ * halfway through the body.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApkDownloaderTest {
+    private static final int APK_BYTES = 3 * 1024 * 1024;
+    private static final String ETAG = "\"release-43\"";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private ApkDownloader downloader;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        downloader = new ApkDownloader(ApplicationProvider.getApplicationContext(), folder.newFolder("updates"), 10L);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void resumesWithRangeAfterTheConnectionDrops() throws Exception {
+        byte[] apk = randomBytes(1);
+        server.setDispatcher(new DroppingServer(apk, ETAG, apk));
+
+        ApkDownloader.Result result = downloader.download(server.url("/app.apk").toString(), sha256(apk), null);
+
+        assertEquals(APK_BYTES, result.bytes);
+        assertEquals(sha256(apk), result.sha256);
+        assertTrue(result.resumed);
+        assertArrayEquals(apk, Files.readAllBytes(result.file.toPath()));
+
+        RecordedRequest first = server.takeRequest();
+        assertNull(first.getHeader("Range"));
+        assertEquals("identity", first.getHeader("Accept-Encoding"));
+        RecordedRequest resume = server.takeRequest();
+        String range = resume.getHeader("Range");
+        long offset = Long.parseLong(range.substring("bytes=".length(), range.length() - 1));
+        assertTrue("resumed at " + offset, offset > 0 && offset < APK_BYTES);
+        assertEquals(ETAG, resume.getHeader("If-Range"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void restartsFromZeroWhenTheFileChangedOnTheServer() throws Exception {
+        byte[] stale = randomBytes(1);
+        byte[] replaced = randomBytes(2);
+        server.setDispatcher(new DroppingServer(stale, "\"release-42\"", replaced));
+
+        ApkDownloader.Result result = downloader.download(server.url("/app.apk").toString(), sha256(replaced), null);
+
+        assertEquals(sha256(replaced), result.sha256);
+        assertArrayEquals(replaced, Files.readAllBytes(result.file.toPath()));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void verifiedDownloadIsReusedWithoutARequest() throws Exception {
+        byte[] apk = randomBytes(3);
+        server.setDispatcher(new DroppingServer(apk, ETAG, apk));
+        String url = server.url("/app.apk").toString();
+        downloader.download(url, sha256(apk), null);
+        int requests = server.getRequestCount();
+
+        ApkDownloader.Result again = downloader.download(url, sha256(apk), null);
+
+        assertEquals(sha256(apk), again.sha256);
+        assertEquals(requests, server.getRequestCount());
+        assertEquals(again.file, downloader.cached(url, sha256(apk)));
+    }
+
+    /**
+     * Serves the first request in full but drops the connection halfway
+     * through the body. A Range request whose If-Range still matches gets
+     * the rest of it; otherwise the server now has afterDrop and sends it
+     * whole, as a real server does when If-Range fails.
+     */
+    private static final class DroppingServer extends Dispatcher {
+        private final byte[] body;
+        private final String etag;
+        private final byte[] afterDrop;
+
+        DroppingServer(byte[] body, String etag, byte[] afterDrop) {
+            this.body = body;
+            this.etag = etag;
+            this.afterDrop = afterDrop;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String range = request.getHeader("Range");
+            if (range == null) {
+                return new MockResponse()
+                    .setHeader("ETag", etag)
+                    .setBody(new Buffer().write(body))
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+            }
+            if (afterDrop != body || !etag.equals(request.getHeader("If-Range"))) {
+                return new MockResponse()
+                    .setHeader("ETag", "\"replaced\"")
+                    .setBody(new Buffer().write(afterDrop));
+            }
+            int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+            return new MockResponse()
+                .setResponseCode(206)
+                .setHeader("ETag", etag)
+                .setHeader("Content-Range", "bytes " + start + "-" + (body.length - 1) + "/" + body.length)
+                .setBody(new Buffer().write(body, start, body.length - start));
+        }
+    }
+
+    private static byte[] randomBytes(long seed) {
+        byte[] bytes = new byte[APK_BYTES];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Benchmark of ApkPatcher.apply on a release-sized APK: p50/max apply time
+ * and peak heap growth over a few runs. Reports on stdout
+ * (build/test-results); it asserts no timings, so a slow CI machine cannot
+ * fail the build, only that every run rebuilds the expected file.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApkPatcherBenchmark {
+    private static final int APK_BYTES = 32 * 1024 * 1024;
+    private static final int INSERTED_BYTES = 2 * 1024 * 1024;
+    private static final int CHANGED_BYTES = 4096;
+    private static final int WARMUP_RUNS = 1;
+    private static final int MEASURED_RUNS = 5;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void applyReleaseSizedPatch() throws Exception {
+        Random random = new Random(43);
+        byte[] oldApk = new byte[APK_BYTES];
+        random.nextBytes(oldApk);
+        byte[] inserted = new byte[INSERTED_BYTES];
+        random.nextBytes(inserted);
+
+        // New release: a block inserted halfway and scattered bytes changed
+        // around it, the shape bsdiff gives for an app update
+        int split = APK_BYTES / 2;
+        byte[] newApk = new byte[APK_BYTES + INSERTED_BYTES];
+        System.arraycopy(oldApk, 0, newApk, 0, split);
+        System.arraycopy(inserted, 0, newApk, split, INSERTED_BYTES);
+        System.arraycopy(oldApk, split, newApk, split + INSERTED_BYTES, APK_BYTES - split);
+        for (int i = 0; i < CHANGED_BYTES; i++) {
+            newApk[random.nextInt(newApk.length)] ^= (byte) (1 + random.nextInt(255));
+        }
+
+        File oldFile = folder.newFile("old.apk");
+        Files.write(oldFile.toPath(), oldApk);
+        File patchFile = folder.newFile("release.rmpatch");
+        writePatch(patchFile, oldApk, newApk, split);
+        File newFile = new File(folder.getRoot(), "new.apk");
+        String expectedSha256 = ApkDownloader.toHex(ApkDownloader.newDigest().digest(newApk));
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            ApkPatcher.apply(oldFile, patchFile, newFile);
+        }
+        long[] applyMs = new long[MEASURED_RUNS];
+        long peakHeapBytes = 0L;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            ApkPatcher.Result result = ApkPatcher.apply(oldFile, patchFile, newFile);
+            assertEquals(expectedSha256, result.sha256);
+            assertEquals(newApk.length, result.bytes);
+            applyMs[i] = result.applyMs;
+            peakHeapBytes = Math.max(peakHeapBytes, result.peakHeapBytes);
+        }
+        Arrays.sort(applyMs);
+
+        System.out.printf(Locale.ROOT, "ApkPatcher %d MB APK, %d KB patch: p50 %d ms, max %d ms, heap +%d KB%n",
+            newApk.length / (1024 * 1024), patchFile.length() / 1024,
+            applyMs[MEASURED_RUNS / 2], applyMs[MEASURED_RUNS - 1], peakHeapBytes / 1024);
+    }
+
+    /**
+     * RMPATCH1 for newApk as oldApk with INSERTED_BYTES inserted at split:
+     * a diff record up to split plus the insertion as extra, then a diff
+     * record for the rest.
+     */
+    private static void writePatch(File patchFile, byte[] oldApk, byte[] newApk, int split) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(patchFile)) {
+            DataOutputStream header = new DataOutputStream(file);
+            header.write("RMPATCH1".getBytes(StandardCharsets.US_ASCII));
+            header.writeLong(newApk.length);
+            header.flush();
+            try (DataOutputStream records = new DataOutputStream(new GZIPOutputStream(file, 64 * 1024))) {
+                records.writeLong(split);
+                records.writeLong(INSERTED_BYTES);
+                records.writeLong(0L);
+                writeDiff(records, oldApk, 0, newApk, 0, split);
+                records.write(newApk, split, INSERTED_BYTES);
+
+                records.writeLong(oldApk.length - split);
+                records.writeLong(0L);
+                records.writeLong(0L);
+                writeDiff(records, oldApk, split, newApk, split + INSERTED_BYTES, oldApk.length - split);
+            }
+        }
+    }
+
+    private static void writeDiff(DataOutputStream out, byte[] oldApk, int oldStart, byte[] newApk, int newStart,
+                                  int length) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        for (int done = 0; done < length; done += chunk.length) {
+            int n = Math.min(chunk.length, length - done);
+            for (int i = 0; i < n; i++) {
+                chunk[i] = (byte) (newApk[newStart + done + i] - oldApk[oldStart + done + i]);
+            }
+            out.write(chunk, 0, n);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Round trip through the release tooling: scripts/make-apk-patch.js builds
+ * an RMPATCH1 patch between two releases and ApkPatcher.apply rebuilds the
+ * new APK from the old one and the patch.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApkPatcherTest {
+    private static final String SCRIPT = "scripts/make-apk-patch.js";
+    private static final long SCRIPT_TIMEOUT_S = 60L;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void patchFromTheScriptRebuildsTheNewRelease() throws Exception {
+        Random random = new Random(7);
+        byte[] dex = randomBytes(random, 3 * 1024 * 1024);
+        byte[] nativeLib = randomBytes(random, 2 * 1024 * 1024);
+        byte[] resources = resourceTable(random, 1024 * 1024);
+
+        // Next release: code added in the middle of the dex, a few resource
+        // values changed, a new asset and a bumped manifest
+        byte[] newDex = new byte[dex.length + 64 * 1024];
+        int split = dex.length / 2;
+        System.arraycopy(dex, 0, newDex, 0, split);
+        System.arraycopy(randomBytes(random, 64 * 1024), 0, newDex, split, 64 * 1024);
+        System.arraycopy(dex, split, newDex, split + 64 * 1024, dex.length - split);
+        byte[] newResources = resources.clone();
+        for (int i = 0; i < 64; i++) {
+            newResources[random.nextInt(newResources.length)] ^= 0x20;
+        }
+
+        File oldApk = folder.newFile("app-41.apk");
+        writeApk(oldApk, "<manifest android:versionCode=\"41\"/>", dex, resources, nativeLib, null);
+        File newApk = folder.newFile("app-42.apk");
+        writeApk(newApk, "<manifest android:versionCode=\"42\"/>", newDex, newResources, nativeLib,
+            "<!doctype html><div id=\"root\"></div>");
+        File patch = new File(folder.getRoot(), "app-42.rmpatch");
+
+        makePatch(oldApk, newApk, patch);
+        File rebuilt = new File(folder.getRoot(), "rebuilt.apk");
+        ApkPatcher.Result result = ApkPatcher.apply(oldApk, patch, rebuilt);
+
+        byte[] expected = Files.readAllBytes(newApk.toPath());
+        assertEquals(ApkDownloader.toHex(ApkDownloader.newDigest().digest(expected)), result.sha256);
+        assertEquals(expected.length, result.bytes);
+        assertArrayEquals(expected, Files.readAllBytes(rebuilt.toPath()));
+        assertTrue("patch is " + patch.length() + " bytes", patch.length() < newApk.length() / 10);
+    }
+
+    private static void makePatch(File oldApk, File newApk, File patch) throws Exception {
+        File root = repoRoot();
+        Process process = new ProcessBuilder("node", SCRIPT, oldApk.getPath(), newApk.getPath(), patch.getPath())
+            .directory(root)
+            .redirectErrorStream(true)
+            .start();
+        String output = readAll(process.getInputStream());
+        assertTrue(SCRIPT + " timed out", process.waitFor(SCRIPT_TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals(SCRIPT + " failed: " + output, 0, process.exitValue());
+        assertTrue(patch.isFile());
+    }
+
+    /**
+     * Unit tests run from the module directory; the script lives at the repo root.
+     */
+    private static File repoRoot() {
+        for (File dir = new File(System.getProperty("user.dir")).getAbsoluteFile(); dir != null; dir = dir.getParentFile()) {
+            if (new File(dir, SCRIPT).isFile()) return dir;
+        }
+        throw new AssertionError(SCRIPT + " not found above " + System.getProperty("user.dir"));
+    }
+
+    /**
+     * The layout of a release APK: manifest and dex deflated, resources.arsc
+     * and native libraries stored so they can be mapped in place.
+     */
+    private static void writeApk(File file, String manifest, byte[] dex, byte[] resources, byte[] nativeLib,
+                                 String indexHtml) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            deflated(out, "AndroidManifest.xml", manifest.getBytes(StandardCharsets.UTF_8));
+            deflated(out, "classes.dex", dex);
+            stored(out, "resources.arsc", resources);
+            stored(out, "lib/arm64-v8a/libapp.so", nativeLib);
+            if (indexHtml != null) {
+                deflated(out, "assets/public/index.html", indexHtml.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void deflated(ZipOutputStream out, String name, byte[] content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        // Fixed time so that both releases only differ where their content does
+        entry.setTime(0L);
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static void stored(ZipOutputStream out, String name, byte[] content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(0L);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setCrc(crc.getValue());
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Repetitive text standing in for a resource table's string pools.
+     */
+    private static byte[] resourceTable(Random random, int length) {
+        String[] words = {"layout/", "string/", "color/", "drawable/", "attr/", "style/"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 16);
+        while (out.size() < length) {
+            byte[] word = words[random.nextInt(words.length)].getBytes(StandardCharsets.US_ASCII);
+            out.write(word, 0, word.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,102 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Microbenchmark of OrderPush.fromData over the three payload shapes the
+ * service sees, against the map lookups and route.split() it replaced.
+ * Reports ns/op on stdout (build/test-results); it asserts no timings, so a
+ * slow CI machine cannot fail the build.
+ */
+public class OrderPushDecodeBenchmark {
+    private static final int WARMUP_ROUNDS = 50_000;
+    private static final int MEASURED_ROUNDS = 200_000;
+
+    // Keeps the JIT from discarding the decoded results
+    private int sink;
+
+    @Test
+    public void decodeCurrentPayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_order");
+        data.put("title", "طلب تنظيف");
+        data.put("body", "الدوحة - 3 ساعات");
+        data.put("route", "/specialist/offers?orderId=5b9a7c0e-4f1d-4b7a-9c3e-2d8f6a1b0c9d");
+        data.put("orderId", "5b9a7c0e-4f1d-4b7a-9c3e-2d8f6a1b0c9d");
+        data.put("customerId", "c-9");
+        data.put("serviceType", "cleaning");
+        data.put("price", "150");
+        data.put("click_action", "FLUTTER_NOTIFICATION_CLICK");
+        run("current", data);
+    }
+
+    @Test
+    public void decodeLegacyPayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_order");
+        data.put("title", "طلب تنظيف");
+        data.put("body", "الدوحة - 3 ساعات");
+        data.put("route", "/specialist/offers?tab=new&orderId=5b9a7c0e-4f1d-4b7a-9c3e-2d8f6a1b0c9d");
+        run("legacy", data);
+    }
+
+    @Test
+    public void decodeMalformedPayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "  ");
+        data.put("title", "");
+        data.put("route", "offers?orderId=");
+        data.put("orderId", " ");
+        data.put("is_mandatory", "maybe");
+        run("malformed", data);
+    }
+
+    private void run(String shape, Map<String, String> data) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += decode(data);
+            sink += decodeWithLookups(data);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += decode(data);
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += decodeWithLookups(data);
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        System.out.printf(Locale.ROOT, "OrderPush %s: fromData %.1f ns/op, map lookups + split %.1f ns/op%n",
+            shape, (double) decodeNanos / MEASURED_ROUNDS, (double) lookupNanos / MEASURED_ROUNDS);
+        assertTrue(sink != 0);
+    }
+
+    private static int decode(Map<String, String> data) {
+        OrderPush push = OrderPush.fromData(data, "msg");
+        return push.route.length() + (push.orderId != null ? push.orderId.length() : 0);
+    }
+
+    /**
+     * The decoding this replaced: repeated getData() lookups and the route split.
+     */
+    private static int decodeWithLookups(Map<String, String> data) {
+        String title = data.get("title") != null ? data.get("title") : OrderPush.DEFAULT_ORDER_TITLE;
+        String route = data.get("route") != null ? data.get("route") : OrderPush.DEFAULT_ORDER_ROUTE;
+        String orderId = null;
+        if (route.contains("orderId=")) {
+            String[] parts = route.split("orderId=");
+            if (parts.length > 1) {
+                orderId = parts[1].split("&")[0];
+            }
+        }
+        return title.length() + route.length() + (orderId != null ? orderId.length() : 0);
+    }
+}
@@ -0,0 +1,167 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class OrderPushTest {
+
+    @Test
+    public void fromData_decodesCurrentNewOrderPayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_order");
+        data.put("title", "طلب تنظيف");
+        data.put("body", "الدوحة - 3 ساعات");
+        data.put("route", "/specialist/offers?orderId=abc-123");
+        data.put("orderId", "abc-123");
+        data.put("customerId", "c-9");
+        data.put("serviceType", "cleaning");
+        data.put("price", "150");
+
+        OrderPush push = OrderPush.fromData(data, "msg-1");
+
+        assertEquals("msg-1", push.messageId);
+        assertEquals(OrderPush.TYPE_NEW_ORDER, push.type);
+        assertEquals("طلب تنظيف", push.title);
+        assertEquals("الدوحة - 3 ساعات", push.body);
+        assertEquals("/specialist/offers?orderId=abc-123", push.route);
+        assertEquals("abc-123", push.orderId);
+        assertEquals("c-9", push.customerId);
+        assertEquals("cleaning", push.serviceType);
+        assertEquals("150", push.price);
+        assertTrue(push.callStyle);
+        assertTrue(push.hasOrderId());
+        assertFalse(push.isAppUpdate());
+    }
+
+    @Test
+    public void fromData_decodesAppUpdatePayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "app_update");
+        data.put("version_id", "v-1");
+        data.put("version_code", "43");
+        data.put("version_name", "1.3.18");
+        data.put("apk_url", "https://example.com/app.apk");
+        data.put("apk_sha256", "ab12");
+        data.put("is_mandatory", "TRUE");
+        data.put("changelog", "إصلاحات");
+
+        OrderPush push = OrderPush.fromData(data, "msg-2");
+
+        assertTrue(push.isAppUpdate());
+        assertFalse(push.callStyle);
+        assertEquals("43", push.versionCode);
+        assertEquals("1.3.18", push.versionName);
+        assertEquals("https://example.com/app.apk", push.apkUrl);
+        assertEquals("ab12", push.apkSha256);
+        assertTrue(push.mandatory);
+        assertEquals(OrderPush.DEFAULT_UPDATE_TITLE, push.title);
+        assertEquals(OrderPush.DEFAULT_UPDATE_BODY, push.body);
+        assertEquals(OrderPush.DEFAULT_UPDATE_ROUTE, push.route);
+    }
+
+    @Test
+    public void fromData_recoversOrderIdFromLegacyRoute() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_order");
+        data.put("route", "/specialist/offers?tab=new&orderId=legacy-7#top");
+
+        OrderPush push = OrderPush.fromData(data, null);
+
+        assertEquals("legacy-7", push.orderId);
+        assertNull(push.messageId);
+    }
+
+    @Test
+    public void fromData_prefersPayloadOrderIdOverRoute() {
+        Map<String, String> data = new HashMap<>();
+        data.put("orderId", "from-payload");
+        data.put("route", "/specialist/offers?orderId=from-route");
+
+        assertEquals("from-payload", OrderPush.fromData(data, null).orderId);
+    }
+
+    @Test
+    public void fromData_defaultsMissingFields() {
+        OrderPush push = OrderPush.fromData(new HashMap<>(), "msg-3");
+
+        assertEquals("", push.type);
+        assertEquals(OrderPush.DEFAULT_ORDER_TITLE, push.title);
+        assertEquals(OrderPush.DEFAULT_ORDER_BODY, push.body);
+        assertEquals(OrderPush.DEFAULT_ORDER_ROUTE, push.route);
+        assertNull(push.orderId);
+        assertFalse(push.hasOrderId());
+        assertFalse(push.callStyle);
+        assertFalse(push.mandatory);
+    }
+
+    @Test
+    public void fromData_treatsBlankAndMalformedValuesAsMissing() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "  NEW_ORDER ");
+        data.put("title", "   ");
+        data.put("body", "");
+        data.put("orderId", "");
+        data.put("customerId", null);
+        // Not an app route: no leading slash, or just "/"
+        data.put("route", "https://evil.example/offers?orderId=x");
+        data.put("is_mandatory", "yes");
+        data.put("unexpected", "ignored");
+
+        OrderPush push = OrderPush.fromData(data, "msg-4");
+
+        assertEquals(OrderPush.TYPE_NEW_ORDER, push.type);
+        assertTrue(push.callStyle);
+        assertEquals(OrderPush.DEFAULT_ORDER_TITLE, push.title);
+        assertEquals(OrderPush.DEFAULT_ORDER_BODY, push.body);
+        assertEquals(OrderPush.DEFAULT_ORDER_ROUTE, push.route);
+        assertNull(push.orderId);
+        assertNull(push.customerId);
+        assertFalse(push.mandatory);
+
+        data.put("route", "/");
+        assertEquals(OrderPush.DEFAULT_ORDER_ROUTE, OrderPush.fromData(data, null).route);
+    }
+
+    @Test
+    public void fromData_trimsValues() {
+        Map<String, String> data = new HashMap<>();
+        data.put("orderId", "  id-5\n");
+        data.put("route", " /order-tracking/id-5 ");
+
+        OrderPush push = OrderPush.fromData(data, null);
+
+        assertEquals("id-5", push.orderId);
+        assertEquals("/order-tracking/id-5", push.route);
+    }
+
+    @Test
+    public void fromNotification_isTreatedAsNewOrder() {
+        OrderPush push = OrderPush.fromNotification(" ", null, "msg-6");
+
+        assertTrue(push.callStyle);
+        assertEquals(OrderPush.DEFAULT_ORDER_TITLE, push.title);
+        assertEquals(OrderPush.DEFAULT_ORDER_BODY, push.body);
+        assertEquals(OrderPush.DEFAULT_ORDER_ROUTE, push.route);
+        assertEquals("msg-6", push.messageId);
+    }
+
+    @Test
+    public void orderIdFromRoute_readsWholeParameterOnly() {
+        assertEquals("1", OrderPush.orderIdFromRoute("/offers?orderId=1"));
+        assertEquals("2", OrderPush.orderIdFromRoute("/offers?a=b&orderId=2&c=d"));
+        assertEquals("3", OrderPush.orderIdFromRoute("/offers?parentOrderId=9&orderId=3"));
+        assertEquals("4", OrderPush.orderIdFromRoute("/offers?orderId=4#details"));
+        assertNull(OrderPush.orderIdFromRoute("/offers?parentOrderId=9"));
+        assertNull(OrderPush.orderIdFromRoute("/offers/orderId=5"));
+        assertNull(OrderPush.orderIdFromRoute("/offers?orderId="));
+        assertNull(OrderPush.orderIdFromRoute("/offers?orderId=&x=1"));
+        assertNull(OrderPush.orderIdFromRoute("/offers"));
+        assertNull(OrderPush.orderIdFromRoute(null));
+    }
+}
@@ -0,0 +1,88 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Quote tiers built from the pushes send-push-notification actually sends.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class QuoteTiersTest {
+    private Context context;
+    private QuoteTiers quoteTiers;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        // Never refreshed in these tests, so the URL is not contacted
+        quoteTiers = new QuoteTiers(context, "http://localhost", "anon-key");
+    }
+
+    @Test
+    public void offerPushBuildsTiersOverTheListedPrice() {
+        OrderPush push = OrderPush.fromData(offerPush("150"), "msg-1");
+
+        assertEquals("150", push.price);
+        assertArrayEquals(new double[] {150, 153, 156, 159}, quoteTiers.pricesFor(push.price), 0.0);
+        assertEquals("QAR", quoteTiers.getCurrency());
+    }
+
+    @Test
+    public void fractionalBudgetKeepsItsDecimals() {
+        OrderPush push = OrderPush.fromData(offerPush("87.5"), "msg-2");
+
+        double[] prices = quoteTiers.pricesFor(push.price);
+
+        assertEquals(4, prices.length);
+        assertEquals("87.5", QuoteTiers.format(prices[0]));
+        assertEquals("96.5", QuoteTiers.format(prices[3]));
+    }
+
+    @Test
+    public void orderWithoutABudgetHasNoTiers() {
+        OrderPush push = OrderPush.fromData(offerPush(""), "msg-3");
+
+        assertEquals(0, quoteTiers.pricesFor(push.price).length);
+    }
+
+    @Test
+    public void cachedOffsetsReplaceTheDefaults() {
+        context.getSharedPreferences("quote_tiers", Context.MODE_PRIVATE).edit()
+            .putString("offsets", "[10,0,5]")
+            .putString("currency", "QAR")
+            .commit();
+        QuoteTiers cached = new QuoteTiers(context, "http://localhost", "anon-key");
+
+        double[] prices = cached.pricesFor(OrderPush.fromData(offerPush("150"), "msg-4").price);
+
+        assertArrayEquals(new double[] {150, 155, 160}, prices, 0.0);
+    }
+
+    /**
+     * The data block send-push-notification builds for a new_order push;
+     * price is the order's customers.budget, normalized to a plain number.
+     */
+    private static Map<String, String> offerPush(String price) {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_order");
+        data.put("title", "طلب جديد");
+        data.put("body", "لديك طلب جديد");
+        data.put("route", "/specialist-orders/new");
+        data.put("click_action", "FLUTTER_NOTIFICATION_CLICK");
+        data.put("orderId", "5b9a7c0e-4f1d-4b7a-9c3e-2d8f6a1b0c9d");
+        data.put("customerId", "");
+        data.put("serviceType", "");
+        data.put("price", price);
+        data.put("timestamp", "2025-11-20T09:00:00.000Z");
+        return data;
+    }
+}
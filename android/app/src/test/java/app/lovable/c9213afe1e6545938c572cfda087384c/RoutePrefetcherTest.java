@@ -0,0 +1,121 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * RoutePrefetcher against a local stand-in for the Supabase REST API.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RoutePrefetcherTest {
+    private static final String ORDER_ID = "5b9a7c0e-4f1d-4b7a-9c3e-2d8f6a1b0c9d";
+    private static final long WAIT_MS = 5000L;
+
+    private final MockWebServer server = new MockWebServer();
+    private Context context;
+    private RoutePrefetcher prefetcher;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        context = ApplicationProvider.getApplicationContext();
+        String baseUrl = server.url("/").toString();
+        prefetcher = new RoutePrefetcher(context, baseUrl.substring(0, baseUrl.length() - 1), "anon-key");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void requestsOfARouteRunInParallel() throws Exception {
+        storeSession(System.currentTimeMillis() / 1000L + 3600);
+        // Each response waits until both requests have arrived: sequential requests would time out
+        CountDownLatch bothArrived = new CountDownLatch(2);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                bothArrived.countDown();
+                if (!bothArrived.await(WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    return new MockResponse().setResponseCode(504);
+                }
+                return new MockResponse().setBody("{\"id\":\"" + ORDER_ID + "\",\"tracking_stage\":\"on_the_way\"}");
+            }
+        });
+
+        prefetcher.prefetch("/order-tracking/" + ORDER_ID);
+        // A repeated tap reuses the requests in flight
+        prefetcher.prefetch("/order-tracking/" + ORDER_ID);
+
+        RoutePrefetcher.Result order = take(RoutePrefetcher.KEY_ORDER + ORDER_ID);
+        RoutePrefetcher.Result stage = take(RoutePrefetcher.KEY_ORDER_STAGE + ORDER_ID);
+        assertEquals(200, order.status);
+        assertEquals(ORDER_ID, order.data.getString("id"));
+        assertEquals(200, stage.status);
+        assertEquals("on_the_way", stage.data.getString("tracking_stage"));
+        assertEquals(2, server.getRequestCount());
+
+        RecordedRequest request = server.takeRequest();
+        assertTrue(request.getPath().startsWith("/rest/v1/orders?select="));
+        assertTrue(request.getPath().endsWith("&id=eq." + ORDER_ID));
+        assertEquals("Bearer user-jwt", request.getHeader("Authorization"));
+        assertEquals("application/vnd.pgrst.object+json", request.getHeader("Accept"));
+
+        // Each result is handed out once
+        assertNull(take(RoutePrefetcher.KEY_ORDER + ORDER_ID));
+    }
+
+    @Test
+    public void nothingIsFetchedWithAnExpiredSession() throws Exception {
+        storeSession(System.currentTimeMillis() / 1000L - 60);
+
+        prefetcher.prefetch("/specialist/offers?orderId=" + ORDER_ID);
+
+        RoutePrefetcher.Result offer = take(RoutePrefetcher.KEY_OFFER + ORDER_ID);
+        assertEquals(0, offer.status);
+        assertNull(offer.data);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private RoutePrefetcher.Result take(String key) throws InterruptedException {
+        AtomicReference<RoutePrefetcher.Result> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        prefetcher.take(key, WAIT_MS, value -> {
+            result.set(value);
+            done.countDown();
+        });
+        assertTrue("no result for " + key, done.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        return result.get();
+    }
+
+    private void storeSession(long expiresAtSeconds) throws JSONException {
+        String session = new JSONObject()
+            .put("access_token", "user-jwt")
+            .put("refresh_token", "refresh-1")
+            .put("expires_at", expiresAtSeconds)
+            .toString();
+        context.getSharedPreferences("CapacitorStorage", Context.MODE_PRIVATE).edit()
+            .putString("supabase_session", session)
+            .commit();
+    }
+}
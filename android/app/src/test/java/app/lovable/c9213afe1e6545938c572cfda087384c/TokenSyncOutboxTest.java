@@ -0,0 +1,259 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * TokenSyncOutbox against a local stand-in for mobile-api and Supabase Auth.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TokenSyncOutboxTest {
+    private static final String ROTATE_PATH = "/functions/v1/mobile-api/device-tokens/rotate";
+    private static final long BASE_BACKOFF_MS = 30 * 1000L;
+    private static final long WAIT_MS = 5000L;
+
+    private final MockWebServer server = new MockWebServer();
+    private Context context;
+    private TokenSyncOutbox outbox;
+
+    @Before
+    public void setUp() throws IOException, JSONException {
+        server.start();
+        context = ApplicationProvider.getApplicationContext();
+        storeSession("user-jwt", "refresh-1", System.currentTimeMillis() / 1000L + 3600);
+        String baseUrl = server.url("/").toString();
+        outbox = new TokenSyncOutbox(context, baseUrl.substring(0, baseUrl.length() - 1), "anon-key");
+        outbox.markRegistered("token-a");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void rotationIsSentAsTheSignedInUser() throws Exception {
+        server.enqueue(rotated("token-b"));
+
+        outbox.onNewToken("token-b");
+
+        RecordedRequest request = server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(request);
+        assertEquals(ROTATE_PATH, request.getPath());
+        assertEquals("Bearer user-jwt", request.getHeader("Authorization"));
+        assertEquals("anon-key", request.getHeader("apikey"));
+        JSONObject rotation = new JSONObject(request.getBody().readUtf8())
+            .getJSONArray("rotations").getJSONObject(0);
+        assertEquals("token-a", rotation.getString("previous"));
+        assertEquals("token-b", rotation.getString("token"));
+
+        waitUntil(() -> outbox.getPendingCount() == 0);
+        assertEquals("token-b", outbox.getRegisteredToken());
+        assertEquals(0, outbox.getAttempts());
+    }
+
+    @Test
+    public void serverErrorsBackOffExponentially() throws Exception {
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+            if (attempt == 1) {
+                outbox.onNewToken("token-b");
+            } else {
+                endBackoff();
+                outbox.flush();
+            }
+            assertNotNull(server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS));
+            int expectedAttempts = attempt;
+            waitUntil(() -> outbox.getAttempts() == expectedAttempts);
+
+            // Half to all of the doubled backoff, jittered
+            long backoff = BASE_BACKOFF_MS << (attempt - 1);
+            long delay = outbox.getNextAttemptAt() - System.currentTimeMillis();
+            assertTrue("delay " + delay + " for attempt " + attempt, delay > backoff / 2 - 1000 && delay <= backoff);
+        }
+        assertEquals(1, outbox.getPendingCount());
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        assertNotNull(shadowOf(alarmManager).getNextScheduledAlarm());
+
+        // Still backing off: a flush sends nothing
+        outbox.flush();
+        assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+
+        server.enqueue(rotated("token-b"));
+        endBackoff();
+        outbox.flush();
+        assertNotNull(server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS));
+        waitUntil(() -> outbox.getPendingCount() == 0);
+        assertEquals(0, outbox.getAttempts());
+        assertEquals("token-b", outbox.getRegisteredToken());
+    }
+
+    @Test
+    public void rejectedRotationIsDroppedWithoutRetry() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        outbox.onNewToken("token-b");
+
+        assertNotNull(server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS));
+        waitUntil(() -> outbox.getPendingCount() == 0);
+        assertEquals(0, outbox.getAttempts());
+        assertEquals("token-a", outbox.getRegisteredToken());
+    }
+
+    @Test
+    public void rotationWhileAnotherIsInFlightChainsFromItsToken() throws Exception {
+        server.enqueue(rotated("token-b").setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(rotated("token-c"));
+
+        outbox.onNewToken("token-b");
+        assertNotNull(server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS));
+        outbox.onNewToken("token-c");
+
+        RecordedRequest second = server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(second);
+        JSONObject rotation = new JSONObject(second.getBody().readUtf8())
+            .getJSONArray("rotations").getJSONObject(0);
+        assertEquals("token-b", rotation.getString("previous"));
+        assertEquals("token-c", rotation.getString("token"));
+        waitUntil(() -> outbox.getPendingCount() == 0);
+        assertEquals("token-c", outbox.getRegisteredToken());
+    }
+
+    @Test
+    public void expiredSessionIsRefreshedAndWrittenBack() throws Exception {
+        storeSession("stale-jwt", "refresh-1", System.currentTimeMillis() / 1000L - 60);
+        server.enqueue(new MockResponse().setBody(new JSONObject()
+            .put("access_token", "fresh-jwt")
+            .put("refresh_token", "refresh-2")
+            .put("expires_in", 3600)
+            .toString()));
+        server.enqueue(rotated("token-b"));
+
+        outbox.onNewToken("token-b");
+
+        RecordedRequest refresh = server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(refresh);
+        assertEquals("/auth/v1/token?grant_type=refresh_token", refresh.getPath());
+        assertEquals("refresh-1", new JSONObject(refresh.getBody().readUtf8()).getString("refresh_token"));
+        RecordedRequest rotate = server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(rotate);
+        assertEquals("Bearer fresh-jwt", rotate.getHeader("Authorization"));
+
+        JSONObject stored = new JSONObject(context.getSharedPreferences("CapacitorStorage", Context.MODE_PRIVATE)
+            .getString("supabase_session", "{}"));
+        assertEquals("refresh-2", stored.getString("refresh_token"));
+        assertTrue(stored.getLong("expires_at") > System.currentTimeMillis() / 1000L);
+    }
+
+    @Test
+    public void signedOutRotationIsParkedUntilSignIn() throws Exception {
+        context.getSharedPreferences("CapacitorStorage", Context.MODE_PRIVATE).edit()
+            .remove("supabase_session")
+            .commit();
+        server.enqueue(rotated("token-b"));
+
+        outbox.onNewToken("token-b");
+
+        // Parked: no request, no backoff and no alarm
+        assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, outbox.getPendingCount());
+        assertEquals(0, outbox.getAttempts());
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        assertNull(shadowOf(alarmManager).getNextScheduledAlarm());
+
+        // Signing in stores a session, which sends the rotation
+        storeSession("user-jwt", "refresh-1", System.currentTimeMillis() / 1000L + 3600);
+
+        RecordedRequest rotate = server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(rotate);
+        assertEquals("Bearer user-jwt", rotate.getHeader("Authorization"));
+        waitUntil(() -> outbox.getPendingCount() == 0);
+        assertEquals("token-b", outbox.getRegisteredToken());
+    }
+
+    @Test
+    public void expiredSessionIsLeftToAnOpenPage() throws Exception {
+        NativeEventsPlugin page = new NativeEventsPlugin();
+        NativeEventQueue.getInstance().attach(page);
+        try {
+            storeSession("stale-jwt", "refresh-1", System.currentTimeMillis() / 1000L - 60);
+            server.enqueue(rotated("token-b"));
+
+            outbox.onNewToken("token-b");
+
+            // Neither a native refresh nor a backoff: the rotation waits for the page
+            assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+            assertEquals(1, outbox.getPendingCount());
+            assertEquals(0, outbox.getAttempts());
+
+            // supabase-js refreshed the session and useAuth stored it
+            storeSession("page-jwt", "refresh-2", System.currentTimeMillis() / 1000L + 3600);
+
+            RecordedRequest rotate = server.takeRequest(WAIT_MS, TimeUnit.MILLISECONDS);
+            assertNotNull(rotate);
+            assertEquals(ROTATE_PATH, rotate.getPath());
+            assertEquals("Bearer page-jwt", rotate.getHeader("Authorization"));
+            waitUntil(() -> outbox.getPendingCount() == 0);
+        } finally {
+            NativeEventQueue.getInstance().detach(page);
+        }
+    }
+
+    private void storeSession(String accessToken, String refreshToken, long expiresAtSeconds) throws JSONException {
+        String session = new JSONObject()
+            .put("access_token", accessToken)
+            .put("refresh_token", refreshToken)
+            .put("expires_at", expiresAtSeconds)
+            .toString();
+        context.getSharedPreferences("CapacitorStorage", Context.MODE_PRIVATE).edit()
+            .putString("supabase_session", session)
+            .commit();
+    }
+
+    private void endBackoff() {
+        context.getSharedPreferences("token_sync", Context.MODE_PRIVATE).edit()
+            .putLong("next_attempt_at", 0L)
+            .commit();
+    }
+
+    private static MockResponse rotated(String token) throws JSONException {
+        String body = new JSONObject()
+            .put("results", new JSONArray().put(new JSONObject()
+                .put("token", token)
+                .put("status", "rotated")))
+            .toString();
+        return new MockResponse().setBody(body);
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void waitUntil(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.holds()) {
+            assertTrue("timed out waiting for the outbox", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package app.lovable.c9213afe1e6545938c572cfda087384c;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import com.getcapacitor.plugin.WebView;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * WebBundleUpdater against a local stand-in for mobile-api's /web-bundle
+ * route and the bundle download.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WebBundleUpdaterTest {
+    private static final String VERSION = "2025.11.20-1";
+    private static final String INDEX_HTML = "<!doctype html><div id=\"root\"></div>";
+    private static final long WAIT_MS = 5000L;
+
+    private final MockWebServer server = new MockWebServer();
+    private Context context;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        context = ApplicationProvider.getApplicationContext();
+        // The first cold start records the installed APK
+        newUpdater().onColdStart();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void newerBundleIsStagedAndSwitchedToOnTheNextColdStart() throws Exception {
+        byte[] zip = zip("index.html", INDEX_HTML, "assets/app.js", "console.log('v2')");
+        server.enqueue(announce(sha256(zip)));
+        server.enqueue(new MockResponse().setBody(new Buffer().write(zip)));
+        WebBundleUpdater updater = newUpdater();
+
+        updater.checkForUpdate(true);
+        drainWorker();
+
+        RecordedRequest check = server.takeRequest();
+        assertEquals("/web-bundle", check.getPath());
+        assertEquals("anon-key", check.getHeader("apikey"));
+        assertTrue(new JSONObject(check.getBody().readUtf8()).isNull("currentVersion"));
+        assertEquals("/bundle.zip", server.takeRequest().getPath());
+        assertEquals(VERSION, updater.getStatus().optString("pending", null));
+
+        // Nothing changes for the running page until the next cold start
+        assertNull(serverBasePath());
+        WebBundleUpdater nextLaunch = newUpdater();
+        nextLaunch.onColdStart();
+
+        String path = serverBasePath();
+        assertNotNull(path);
+        assertEquals(INDEX_HTML, new String(Files.readAllBytes(new File(path, "index.html").toPath()), StandardCharsets.UTF_8));
+        assertTrue(new File(path, "assets/app.js").isFile());
+        JSONObject status = nextLaunch.getStatus();
+        assertEquals(VERSION, status.optString("trial", null));
+        assertNull(status.optString("pending", null));
+    }
+
+    @Test
+    public void bundleWithTheWrongDigestIsNotStaged() throws Exception {
+        byte[] zip = zip("index.html", INDEX_HTML);
+        server.enqueue(announce(sha256("another bundle".getBytes(StandardCharsets.UTF_8))));
+        server.enqueue(new MockResponse().setBody(new Buffer().write(zip)));
+        WebBundleUpdater updater = newUpdater();
+
+        updater.checkForUpdate(true);
+        drainWorker();
+
+        assertEquals(2, server.getRequestCount());
+        assertNull(updater.getStatus().optString("pending", null));
+        newUpdater().onColdStart();
+        assertNull(serverBasePath());
+    }
+
+    @Test
+    public void bundleWithAnEntryOutsideItsDirectoryIsRefused() throws Exception {
+        byte[] zip = zip("index.html", INDEX_HTML, "../../shared_prefs/web_bundle.xml", "<map />");
+        server.enqueue(announce(sha256(zip)));
+        server.enqueue(new MockResponse().setBody(new Buffer().write(zip)));
+        WebBundleUpdater updater = newUpdater();
+
+        updater.checkForUpdate(true);
+        drainWorker();
+
+        assertNull(updater.getStatus().optString("pending", null));
+        File bundles = new File(context.getFilesDir(), "web_bundles");
+        assertFalse(new File(bundles, "staging").exists());
+    }
+
+    private WebBundleUpdater newUpdater() {
+        return new WebBundleUpdater(context, server.url("/web-bundle").toString(), "anon-key");
+    }
+
+    private String serverBasePath() {
+        String path = context.getSharedPreferences(WebView.WEBVIEW_PREFS_NAME, Context.MODE_PRIVATE)
+            .getString(WebView.CAP_SERVER_PATH, null);
+        return path == null || path.isEmpty() ? null : path;
+    }
+
+    /**
+     * Checks and downloads run on ApkDownloader's single worker; wait for it to go idle.
+     */
+    private void drainWorker() throws InterruptedException {
+        CountDownLatch idle = new CountDownLatch(1);
+        ApkDownloader.getInstance(context).submitInternal(idle::countDown);
+        assertTrue("worker still busy", idle.await(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    private MockResponse announce(String sha256) throws JSONException {
+        String body = new JSONObject()
+            .put("bundle", new JSONObject()
+                .put("version", VERSION)
+                .put("bundle_url", server.url("/bundle.zip").toString())
+                .put("sha256", sha256))
+            .toString();
+        return new MockResponse().setBody(body);
+    }
+
+    private static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putNextEntry(new ZipEntry(namesAndContents[i]));
+                out.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
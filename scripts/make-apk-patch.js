@@ -0,0 +1,216 @@
+#!/usr/bin/env node
+
+/**
+ * إنشاء ملف تصحيح (RMPATCH1) من APK الإصدار السابق إلى APK الإصدار الجديد،
+ * ليحمّله التطبيق بدلاً من الـ APK الكامل ويعيد بناءه عبر ApkPatcher.
+ *
+ * الاستخدام:
+ *   node scripts/make-apk-patch.js <old.apk> <new.apk> <out.rmpatch>
+ *
+ * الصيغة (انظر ApkPatcher.java): "RMPATCH1"، ثم طول الملف الجديد int64
+ * big-endian، ثم تيار gzip واحد من سجلات bsdiff:
+ *   int64 diffLength, int64 extraLength, int64 oldSeek
+ *   diffLength بايت: (الجديد - القديم) mod 256 عند نفس الموضع
+ *   extraLength بايت: تُنسخ كما هي
+ *
+ * بعد الإنشاء يُطبَّق التصحيح هنا للتحقق، ثم تُطبع بصمة SHA-256 للـ APK
+ * الجديد: ضعها في apk_sha256، ورابط التصحيح في patch_url، و versionCode
+ * الإصدار السابق في patch_base_version_code (جدول app_versions).
+ */
+
+import crypto from 'node:crypto';
+import fs from 'node:fs';
+import { pathToFileURL } from 'node:url';
+import zlib from 'node:zlib';
+
+const MAGIC = Buffer.from('RMPATCH1', 'ascii');
+// طول النافذة المستخدمة للبحث عن تطابق في الملف القديم
+const WINDOW = 32;
+const TABLE_BITS = 22;
+const BASE = 257;
+
+function hashAt(buf, pos) {
+  let h = 0;
+  for (let i = 0; i < WINDOW; i++) {
+    h = (Math.imul(h, BASE) + buf[pos + i]) >>> 0;
+  }
+  return h;
+}
+
+function bucket(h) {
+  return Math.imul(h, 0x9e3779b1) >>> (32 - TABLE_BITS);
+}
+
+// فهرس لمواضع كل نافذة في الملف القديم (آخر موضع لكل خانة)
+function indexOld(oldBuf) {
+  const table = new Int32Array(1 << TABLE_BITS).fill(-1);
+  if (oldBuf.length < WINDOW) return table;
+  let h = hashAt(oldBuf, 0);
+  for (let pos = 0; ; pos++) {
+    table[bucket(h)] = pos;
+    if (pos + WINDOW >= oldBuf.length) break;
+    h = roll(h, oldBuf[pos], oldBuf[pos + WINDOW]);
+  }
+  return table;
+}
+
+// BASE^(WINDOW-1)، لإخراج البايت الأول من النافذة
+const OUT_FACTOR = (() => {
+  let pow = 1;
+  for (let i = 1; i < WINDOW; i++) pow = Math.imul(pow, BASE) >>> 0;
+  return pow;
+})();
+
+function roll(h, out, next) {
+  return (Math.imul((h - Math.imul(out, OUT_FACTOR)) >>> 0, BASE) + next) >>> 0;
+}
+
+function sameWindow(oldBuf, o, newBuf, n) {
+  if (o < 0 || o + WINDOW > oldBuf.length) return false;
+  for (let i = 0; i < WINDOW; i++) {
+    if (oldBuf[o + i] !== newBuf[n + i]) return false;
+  }
+  return true;
+}
+
+// مقاطع الملف الجديد التي لها أصل في الملف القديم: {newStart, oldStart, length}
+function findMatches(oldBuf, newBuf) {
+  const table = indexOld(oldBuf);
+  const matches = [];
+  let n = 0;
+  let h = newBuf.length >= WINDOW ? hashAt(newBuf, 0) : 0;
+  while (n + WINDOW <= newBuf.length) {
+    const o = table[bucket(h)];
+    if (o < 0 || !sameWindow(oldBuf, o, newBuf, n)) {
+      if (n + WINDOW < newBuf.length) h = roll(h, newBuf[n], newBuf[n + WINDOW]);
+      n++;
+      continue;
+    }
+    let start = n;
+    let oldStart = o;
+    const floor = matches.length ? matches[matches.length - 1].newStart + matches[matches.length - 1].length : 0;
+    while (start > floor && oldStart > 0 && oldBuf[oldStart - 1] === newBuf[start - 1]) {
+      start--;
+      oldStart--;
+    }
+    let end = n + WINDOW;
+    let oldEnd = o + WINDOW;
+    while (end < newBuf.length && oldEnd < oldBuf.length && oldBuf[oldEnd] === newBuf[end]) {
+      end++;
+      oldEnd++;
+    }
+    matches.push({ newStart: start, oldStart, length: end - start });
+    n = end;
+    if (n + WINDOW <= newBuf.length) h = hashAt(newBuf, n);
+  }
+  return matches;
+}
+
+// كما في bsdiff: يمتد التطابق للأمام ما دام أكثر من نصف البايتات متساوية،
+// فتصبح الفروقات الصغيرة (إزاحات، CRC) جزءاً من diff بدلاً من extra
+function extendApproximately(oldBuf, newBuf, match, limit) {
+  let same = 0;
+  let best = 0;
+  let bestLength = 0;
+  const newEnd = match.newStart + match.length;
+  const oldEnd = match.oldStart + match.length;
+  for (let i = 0; newEnd + i < limit && oldEnd + i < oldBuf.length; i++) {
+    if (oldBuf[oldEnd + i] === newBuf[newEnd + i]) same++;
+    if (same * 2 - (i + 1) > best * 2 - bestLength) {
+      best = same;
+      bestLength = i + 1;
+    }
+  }
+  return match.length + bestLength;
+}
+
+function writeRecord(chunks, oldBuf, newBuf, newStart, oldStart, diffLength, extraLength, oldSeek) {
+  const header = Buffer.alloc(24);
+  header.writeBigInt64BE(BigInt(diffLength), 0);
+  header.writeBigInt64BE(BigInt(extraLength), 8);
+  header.writeBigInt64BE(BigInt(oldSeek), 16);
+  chunks.push(header);
+  const diff = Buffer.alloc(diffLength);
+  for (let i = 0; i < diffLength; i++) {
+    diff[i] = (newBuf[newStart + i] - oldBuf[oldStart + i]) & 0xff;
+  }
+  chunks.push(diff);
+  chunks.push(newBuf.subarray(newStart + diffLength, newStart + diffLength + extraLength));
+}
+
+export function makePatch(oldBuf, newBuf) {
+  const matches = findMatches(oldBuf, newBuf);
+  const chunks = [];
+  // السجل الأول يبدأ بلا diff إن لم يبدأ الملف الجديد بتطابق
+  let current = { newStart: 0, oldStart: 0, length: 0 };
+  for (let i = 0; i <= matches.length; i++) {
+    const next = i < matches.length ? matches[i] : null;
+    const limit = next ? next.newStart : newBuf.length;
+    const diffLength = current.length > 0 ? extendApproximately(oldBuf, newBuf, current, limit) : 0;
+    const extraLength = limit - current.newStart - diffLength;
+    const oldSeek = next ? next.oldStart - (current.oldStart + diffLength) : 0;
+    writeRecord(chunks, oldBuf, newBuf, current.newStart, current.oldStart, diffLength, extraLength, oldSeek);
+    current = next;
+  }
+
+  const size = Buffer.alloc(8);
+  size.writeBigInt64BE(BigInt(newBuf.length), 0);
+  return Buffer.concat([MAGIC, size, zlib.gzipSync(Buffer.concat(chunks), { level: 9 })]);
+}
+
+// نفس خطوات ApkPatcher.apply، للتحقق قبل رفع التصحيح
+export function applyPatch(oldBuf, patch) {
+  if (!patch.subarray(0, MAGIC.length).equals(MAGIC)) throw new Error('ليس ملف RMPATCH1');
+  const newSize = Number(patch.readBigInt64BE(MAGIC.length));
+  const records = zlib.gunzipSync(patch.subarray(MAGIC.length + 8));
+  const out = Buffer.alloc(newSize);
+  let at = 0;
+  let newPos = 0;
+  let oldPos = 0;
+  while (newPos < newSize) {
+    const diffLength = Number(records.readBigInt64BE(at));
+    const extraLength = Number(records.readBigInt64BE(at + 8));
+    const oldSeek = Number(records.readBigInt64BE(at + 16));
+    at += 24;
+    for (let i = 0; i < diffLength; i++) {
+      out[newPos + i] = (records[at + i] + oldBuf[oldPos + i]) & 0xff;
+    }
+    at += diffLength;
+    records.copy(out, newPos + diffLength, at, at + extraLength);
+    at += extraLength;
+    newPos += diffLength + extraLength;
+    oldPos += diffLength + oldSeek;
+  }
+  return out;
+}
+
+function main() {
+  const [oldPath, newPath, outPath] = process.argv.slice(2);
+  if (!oldPath || !newPath || !outPath) {
+    console.error('الاستخدام: node scripts/make-apk-patch.js <old.apk> <new.apk> <out.rmpatch>');
+    process.exit(1);
+  }
+
+  const oldBuf = fs.readFileSync(oldPath);
+  const newBuf = fs.readFileSync(newPath);
+  const startedAt = Date.now();
+  const patch = makePatch(oldBuf, newBuf);
+  if (!applyPatch(oldBuf, patch).equals(newBuf)) {
+    console.error('❌ التصحيح لا يعيد بناء الـ APK الجديد، لم يُكتب شيء');
+    process.exit(1);
+  }
+  fs.writeFileSync(outPath, patch);
+
+  const sha256 = crypto.createHash('sha256').update(newBuf).digest('hex');
+  console.log(`✅ ${outPath}: ${patch.length} بايت (${(100 * patch.length / newBuf.length).toFixed(1)}% من الـ APK) في ${Date.now() - startedAt}ms`);
+  console.log(`   apk_sha256: ${sha256}`);
+}
+
+if (import.meta.url === pathToFileURL(process.argv[1]).href) {
+  try {
+    main();
+  } catch (error) {
+    console.error('❌ خطأ:', error.message);
+    process.exit(1);
+  }
+}
@@ -6,6 +6,7 @@ import { BrowserRouter, Routes, Route, Navigate, useNavigate } from "react-route
 import { useEffect, useState } from "react";
 import { UpdateDialog } from "@/components/update/UpdateDialog";
 import { useAppUpdate } from "@/hooks/useAppUpdate";
+import { notifyWebBundleReady } from "@/lib/webBundle";
 import Dashboard from "./pages/Dashboard";
 import Auth from "./pages/Auth";
 import Companies from "./pages/Companies";
@@ -465,6 +466,11 @@ const AppWithUpdates = () => {
   const [showUpdateDialog, setShowUpdateDialog] = useState(false);
   const location = window.location;
 
+  // Rendering got this far, so an over-the-air web bundle is good to keep
+  useEffect(() => {
+    notifyWebBundleReady();
+  }, []);
+
   useEffect(() => {
     // Check for updates on app start (only on mobile)
     if (isCapacitorApp) {
@@ -3,6 +3,7 @@ import { useNavigate } from "react-router-dom";
 import { Capacitor } from "@capacitor/core";
 import { App as CapApp } from "@capacitor/app";
 import { useAuth } from "@/hooks/useAuth";
+import { nativeEventsReady, subscribeNativeEvent } from "@/lib/nativeEvents";
 
 // Centralized deep-link and post-login routing for Capacitor apps
 // Single source of truth. Do not duplicate routing logic elsewhere.
@@ -51,125 +52,103 @@ const DeepLinkController = () => {
     }
   };
 
-  // One-time setup for pending route and deep-link listeners
+  // Listeners are registered once; they read auth state through refs
+  const userRef = useRef(user);
+  const loadingRef = useRef(loading);
+  userRef.current = user;
+  loadingRef.current = loading;
+
+  const lastRouteRef = useRef<{ route: string; at: number } | null>(null);
+
+  // Route now when auth is known, otherwise keep it for the initial navigation.
+  // A tap can reach us through both native and JS push handlers; handle it once.
+  const handleRoute = (route: string, source: string) => {
+    const now = Date.now();
+    const last = lastRouteRef.current;
+    if (last && last.route === route && now - last.at < 2000) {
+      console.log(`🔁 [DeepLinkController] Ignoring duplicate ${source} route:`, route);
+      return;
+    }
+    lastRouteRef.current = { route, at: now };
+
+    if (!loadingRef.current && hasHandledInitialRef.current) {
+      console.log(`✅ [DeepLinkController] Navigating (${source}) to:`, route);
+      if (userRef.current) {
+        navigate(route, { replace: true });
+      } else {
+        deepLinkRef.current = route;
+        navigate("/specialist-auth", { replace: true });
+      }
+    } else {
+      console.log(`💾 [DeepLinkController] Saving ${source} route for initial navigation:`, route);
+      deepLinkRef.current = route;
+    }
+  };
+
+  // One-time setup for deep-link and notification listeners
   useEffect(() => {
     if (!isMobile) return;
 
+    let cancelled = false;
     let appUrlOpenListener: { remove: () => void } | undefined;
-    let notificationNavigateListener: ((event: CustomEvent) => void) | undefined;
+    // On Android MainActivity turns every launch intent (deep link or
+    // notification tap) into a queued native event, so the Capacitor
+    // launch URL / appUrlOpen would only repeat the same route
+    const viaNativeQueue = Capacitor.getPlatform() === "android";
+
+    // 1) Routes from native MainActivity, buffered until we are listening
+    const unsubscribeNative = subscribeNativeEvent<{ route?: string }>("notificationRoute", (payload) => {
+      if (payload?.route) handleRoute(payload.route, "native");
+    });
+
+    // 2) Notification taps handled by the JS push listener
+    const notificationNavigateListener = ((event: CustomEvent) => {
+      const route = event.detail?.route;
+      if (route) handleRoute(route, "push");
+    }) as EventListener;
+    window.addEventListener("notificationNavigate", notificationNavigateListener);
 
     const setup = async () => {
-      // 1) Check pending route saved by notification tap while logged out
-      try {
-        const { Preferences } = await import("@capacitor/preferences");
-        const { value } = await Preferences.get({ key: "pendingRoute" });
-        if (value) {
-          deepLinkRef.current = value;
-          await Preferences.remove({ key: "pendingRoute" });
+      if (viaNativeQueue) {
+        // Queued launch route (if any) is delivered before this resolves
+        await nativeEventsReady();
+      } else {
+        // Cold start deep links
+        try {
+          const launchUrl = await CapApp.getLaunchUrl();
+          const route = launchUrl?.url ? extractRoute(launchUrl.url) : null;
+          if (route) handleRoute(route, "launchUrl");
+        } catch (e) {
+          console.warn("[DeepLinkController] getLaunchUrl failed", e);
         }
-      } catch (e) {
-        console.warn("[DeepLinkController] Preferences unavailable", e);
-      } finally {
-        setPendingChecked(true);
-      }
 
-      // 2) Handle cold start deep links
-      try {
-        const launchUrl = await CapApp.getLaunchUrl();
-        if (launchUrl?.url) {
-          const route = extractRoute(launchUrl.url);
-          if (route) deepLinkRef.current = route;
+        // Warm start deep links
+        try {
+          const listener = await CapApp.addListener("appUrlOpen", (data) => {
+            const route = data?.url ? extractRoute(data.url) : null;
+            if (route) handleRoute(route, "appUrlOpen");
+          });
+          if (cancelled) listener.remove();
+          else appUrlOpenListener = listener;
+        } catch (e) {
+          console.warn("[DeepLinkController] addListener appUrlOpen failed", e);
         }
-      } catch (e) {
-        console.warn("[DeepLinkController] getLaunchUrl failed", e);
       }
-
-      // 3) Listen for warm start deep links
-      try {
-        appUrlOpenListener = await CapApp.addListener("appUrlOpen", (data) => {
-          if (!data?.url) return;
-          const route = extractRoute(data.url);
-          if (!route) return;
-
-          deepLinkRef.current = route;
-
-          // If auth state known, route immediately on warm starts
-          if (!loading) {
-            if (user) navigate(route, { replace: true });
-            else navigate("/specialist-auth", { replace: true });
-            hasHandledInitialRef.current = true;
-          }
-        });
-      } catch (e) {
-        console.warn("[DeepLinkController] addListener appUrlOpen failed", e);
-      }
-
-      // 4) Listen for notification taps when app is already running
-      notificationNavigateListener = ((event: CustomEvent) => {
-        const route = event.detail?.route;
-        console.log('🔔 [DeepLinkController] notificationNavigate event received!');
-        console.log('🔔 [DeepLinkController] Event detail:', event.detail);
-        console.log('🔔 [DeepLinkController] Route:', route);
-        console.log('🔔 [DeepLinkController] User:', user ? 'logged in' : 'not logged in');
-        console.log('🔔 [DeepLinkController] Loading:', loading);
-        
-        if (!route) {
-          console.log('❌ [DeepLinkController] No route in event detail!');
-          return;
-        }
-        
-        // Navigate immediately if user is logged in
-        if (user && !loading) {
-          console.log('✅ [DeepLinkController] Navigating to:', route);
-          navigate(route, { replace: true });
-        } else {
-          console.log('💾 [DeepLinkController] Saving route for post-login navigation');
-          deepLinkRef.current = route;
-        }
-      }) as (event: CustomEvent) => void;
-
-      console.log('🎧 [DeepLinkController] Setting up notificationNavigate listener...');
-      window.addEventListener('notificationNavigate', notificationNavigateListener as EventListener);
-      console.log('✅ [DeepLinkController] notificationNavigate listener ready!');
-      
-      // 5) Listen for notification route from native MainActivity
-      const notificationRouteListener = ((event: CustomEvent) => {
-        const route = event.detail?.route;
-        if (!route) return;
-        
-        console.log('📱 [DeepLinkController] Native notification route received:', route);
-        
-        // Navigate immediately if user is logged in
-        if (user && !loading) {
-          console.log('✅ [DeepLinkController] Navigating to:', route);
-          navigate(route, { replace: true });
-        } else {
-          console.log('💾 [DeepLinkController] Saving route for post-login navigation');
-          deepLinkRef.current = route;
-        }
-      }) as (event: CustomEvent) => void;
-
-      window.addEventListener('notificationRoute', notificationRouteListener as EventListener);
-      
-      // Clean up both listeners
-      return () => {
-        if (notificationNavigateListener) {
-          window.removeEventListener('notificationNavigate', notificationNavigateListener as EventListener);
-        }
-        window.removeEventListener('notificationRoute', notificationRouteListener as EventListener);
-      };
+      if (!cancelled) setPendingChecked(true);
     };
 
     setup();
 
     return () => {
+      cancelled = true;
+      unsubscribeNative();
+      window.removeEventListener("notificationNavigate", notificationNavigateListener);
       try {
         appUrlOpenListener?.remove();
       } catch {}
-      // Listeners are cleaned up in their own setup
     };
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [isMobile, user, loading, navigate]);
+  }, [isMobile]);
 
   // Perform initial navigation once auth + pending check are ready
   useEffect(() => {
@@ -4,7 +4,8 @@ import { useToast } from "@/hooks/use-toast";
 import { Capacitor } from "@capacitor/core";
 import { PushNotifications } from "@capacitor/push-notifications";
 import { requestFullScreenPermission } from "@/lib/notificationPermissions";
-import { requestBatteryOptimizationExemption, isXiaomiDevice, openAutostartSettings } from "@/lib/batteryOptimization";
+import { requestBatteryOptimizationExemption, openAutostartSettings } from "@/lib/batteryOptimization";
+import { getDeviceCapabilities } from "@/lib/deviceCapabilities";
 import { supabase } from "@/integrations/supabase/client";
 
 interface Props {
@@ -32,8 +33,8 @@ export function NotificationFix({ specialistId }: Props) {
       await requestBatteryOptimizationExemption();
 
       // Xiaomi/Redmi autostart settings
-      const xiaomi = await isXiaomiDevice();
-      if (xiaomi) {
+      const capabilities = await getDeviceCapabilities();
+      if (capabilities?.oem === "xiaomi") {
         await openAutostartSettings();
         toast({ title: "Xiaomi settings", description: "Opened Autostart/No restrictions" });
       }
@@ -10,6 +10,7 @@ import { useToast } from '@/hooks/use-toast';
 import { useLanguage } from '@/hooks/useLanguage';
 import { useTranslation } from '@/i18n';
 import { Progress } from '@/components/ui/progress';
+import { downloadAndInstallApk } from '@/lib/apkInstaller';
 
 interface UpdateDialogProps {
   open: boolean;
@@ -40,11 +41,44 @@ export const UpdateDialog = ({ open, onOpenChange, version }: UpdateDialogProps)
     setShowUninstallPopup(true);
   };
 
-  const handleProceedToDownload = () => {
+  const handleProceedToDownload = async () => {
     setShowUninstallPopup(false);
-    
-    // Open APK download in system browser using standard window.open
     const apkUrl = version.apk_url;
+
+    // Android: native resumable download, so a dropped connection does not restart from zero
+    if (Capacitor.getPlatform() === 'android') {
+      setDownloading(true);
+      setDownloadProgress(1);
+      try {
+        await downloadAndInstallApk({
+          url: apkUrl,
+          sha256: version.apk_sha256 ?? undefined,
+          patchUrl: version.patch_url ?? undefined,
+          patchBaseVersionCode: version.patch_base_version_code ?? undefined,
+        }, (progress) => {
+          if (progress.percent >= 0) {
+            setDownloadProgress(Math.max(1, progress.percent));
+          }
+        });
+        setDownloadProgress(100);
+        toast({
+          title: t.updateDialog.installStarted,
+          description: t.updateDialog.installStartedDesc,
+        });
+        return;
+      } catch (error) {
+        console.error('[Update] Native download failed, falling back to browser:', error);
+        toast({
+          title: t.updateDialog.downloadError,
+          description: t.updateDialog.downloadErrorDesc,
+          variant: "destructive",
+        });
+      } finally {
+        setDownloading(false);
+      }
+    }
+
+    // Open APK download in system browser using standard window.open
     console.log('[Update] Opening APK URL in default browser:', apkUrl);
     
     // For native apps, use window.open which opens in default browser
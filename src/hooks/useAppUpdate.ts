@@ -10,6 +10,9 @@ export interface AppVersion {
   version_code: number;
   version_name: string;
   apk_url: string;
+  apk_sha256?: string | null;
+  patch_url?: string | null;
+  patch_base_version_code?: number | null;
   changelog: string | null;
   is_mandatory: boolean;
   created_at: string;
@@ -2,6 +2,7 @@ import { useEffect, useState } from "react";
 import { User, Session } from "@supabase/supabase-js";
 import { supabase } from "@/integrations/supabase/client";
 import { Preferences } from '@capacitor/preferences';
+import { subscribeNativeEvent } from "@/lib/nativeEvents";
 
 // Singleton Auth State to avoid duplicate subscriptions across components
 const SESSION_KEY = 'supabase_session';
@@ -47,6 +48,26 @@ async function restoreFromPreferences() {
   return false;
 }
 
+// Native code refreshed the stored session (SupabaseSession.java) while no page was open.
+// main.tsx normally hands it to supabase-js before the client exists; this catches the
+// queued sessionRefreshed event when that did not happen in time.
+async function adoptNativeSession() {
+  try {
+    const { value } = await Preferences.get({ key: SESSION_KEY });
+    if (!value) return;
+    const stored = JSON.parse(value);
+    if (!stored?.access_token || !stored?.refresh_token) return;
+    if (stored.refresh_token === state.session?.refresh_token) return;
+    console.log('🔑 [AUTH] Adopting session refreshed natively');
+    await supabase.auth.setSession({
+      access_token: stored.access_token,
+      refresh_token: stored.refresh_token,
+    });
+  } catch (error) {
+    console.error('❌ [AUTH] Error adopting native session:', error);
+  }
+}
+
 function initAuthOnce() {
   if (initialized) return;
   initialized = true;
@@ -76,7 +97,13 @@ function initAuthOnce() {
       Preferences.remove({ key: SESSION_KEY }).catch(() => {});
     }
   });
-  unsub = () => subscription.unsubscribe();
+  const unsubscribeNative = subscribeNativeEvent('sessionRefreshed', () => {
+    void adoptNativeSession();
+  });
+  unsub = () => {
+    subscription.unsubscribe();
+    unsubscribeNative();
+  };
 
   // 2) Try to restore from persistent storage, then fall back to current session
   (async () => {
@@ -49,31 +49,40 @@ export type Database = {
       }
       app_versions: {
         Row: {
+          apk_sha256: string | null
           apk_url: string
           changelog: string | null
           created_at: string | null
           id: string
           is_mandatory: boolean | null
+          patch_base_version_code: number | null
+          patch_url: string | null
           updated_at: string | null
           version_code: number
           version_name: string
         }
         Insert: {
+          apk_sha256?: string | null
           apk_url: string
           changelog?: string | null
           created_at?: string | null
           id?: string
           is_mandatory?: boolean | null
+          patch_base_version_code?: number | null
+          patch_url?: string | null
           updated_at?: string | null
           version_code: number
           version_name: string
         }
         Update: {
+          apk_sha256?: string | null
           apk_url?: string
           changelog?: string | null
           created_at?: string | null
           id?: string
           is_mandatory?: boolean | null
+          patch_base_version_code?: number | null
+          patch_url?: string | null
           updated_at?: string | null
           version_code?: number
           version_name?: string
@@ -702,6 +711,7 @@ export type Database = {
           created_at: string | null
           id: string
           is_accepted: boolean | null
+          native_action_id: string | null
           order_id: string
           quote_notes: string | null
           quoted_at: string | null
@@ -714,6 +724,7 @@ export type Database = {
           created_at?: string | null
           id?: string
           is_accepted?: boolean | null
+          native_action_id?: string | null
           order_id: string
           quote_notes?: string | null
           quoted_at?: string | null
@@ -726,6 +737,7 @@ export type Database = {
           created_at?: string | null
           id?: string
           is_accepted?: boolean | null
+          native_action_id?: string | null
           order_id?: string
           quote_notes?: string | null
           quoted_at?: string | null
@@ -1730,6 +1742,39 @@ export type Database = {
           },
         ]
       }
+      web_bundles: {
+        Row: {
+          bundle_url: string
+          created_at: string | null
+          id: string
+          is_active: boolean
+          min_version_code: number
+          sha256: string
+          size_bytes: number | null
+          version: string
+        }
+        Insert: {
+          bundle_url: string
+          created_at?: string | null
+          id?: string
+          is_active?: boolean
+          min_version_code?: number
+          sha256: string
+          size_bytes?: number | null
+          version: string
+        }
+        Update: {
+          bundle_url?: string
+          created_at?: string | null
+          id?: string
+          is_active?: boolean
+          min_version_code?: number
+          sha256?: string
+          size_bytes?: number | null
+          version?: string
+        }
+        Relationships: []
+      }
       whatsapp_message_templates: {
         Row: {
           category: string
@@ -1,11 +1,90 @@
 import { registerPlugin } from '@capacitor/core';
 
+export interface ApkDownloadProgress {
+  url: string;
+  downloaded: number;
+  /** -1 when the server did not announce a length */
+  total: number;
+  /** -1 when the total is unknown */
+  percent: number;
+}
+
+export interface ApkDownloadResult {
+  filePath: string;
+  sha256: string;
+  bytes: number;
+  resumed: boolean;
+  /** Rebuilt on device from the installed APK and a patch */
+  patched: boolean;
+  patchApplyMs?: number;
+  patchPeakHeapBytes?: number;
+}
+
+export interface ApkDownloadOptions {
+  url: string;
+  sha256?: string;
+  /** Patch against patchBaseVersionCode; only tried when sha256 is known */
+  patchUrl?: string;
+  patchBaseVersionCode?: number;
+}
+
+export interface SessionInstallResult {
+  success: boolean;
+  /** PackageInstaller.STATUS_* */
+  status: number;
+  message: string | null;
+}
+
 export interface ApkInstallerPlugin {
   installApk(options: { filePath: string }): Promise<{ success: boolean }>;
+  downloadApk(options: ApkDownloadOptions): Promise<ApkDownloadResult>;
+  installFromUrl(options: { url: string; sha256?: string }): Promise<SessionInstallResult>;
+  cancelDownload(): Promise<{ success: boolean }>;
   uninstallApp(): Promise<{ success: boolean }>;
   uninstallThenOpen(options: { url: string }): Promise<{ success: boolean }>;
+  addListener(
+    eventName: 'downloadProgress',
+    listener: (progress: ApkDownloadProgress) => void
+  ): Promise<{ remove: () => void }>;
 }
 
+// PackageInstaller.STATUS_FAILURE_ABORTED
+const STATUS_FAILURE_ABORTED = 3;
+
 const ApkInstaller = registerPlugin<ApkInstallerPlugin>('ApkInstaller');
 
+/**
+ * Download an APK with the native resumable engine and install it.
+ * Without a patch the download streams straight into an install session and
+ * this resolves with the real install outcome; with a patch the rebuilt APK
+ * goes to the system installer.
+ * Rejects if a step fails, so callers can fall back to the browser.
+ */
+export async function downloadAndInstallApk(
+  options: ApkDownloadOptions,
+  onProgress?: (progress: ApkDownloadProgress) => void
+): Promise<void> {
+  const handle = onProgress ? await ApkInstaller.addListener('downloadProgress', onProgress) : null;
+  try {
+    if (!options.patchUrl) {
+      const result = await ApkInstaller.installFromUrl({ url: options.url, sha256: options.sha256 });
+      console.log(`📦 Install session finished with status ${result.status}`);
+      // The user declined the system prompt; nothing to fall back to
+      if (result.status === STATUS_FAILURE_ABORTED) {
+        return;
+      }
+      if (!result.success) {
+        throw new Error(result.message ?? `Install failed with status ${result.status}`);
+      }
+      return;
+    }
+
+    const result = await ApkInstaller.downloadApk(options);
+    console.log(`📦 APK ready (${result.bytes} bytes, resumed: ${result.resumed}, patched: ${result.patched})`);
+    await ApkInstaller.installApk({ filePath: result.filePath });
+  } finally {
+    handle?.remove();
+  }
+}
+
 export default ApkInstaller;
@@ -0,0 +1,101 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+import { supabase } from '@/integrations/supabase/client';
+
+export interface LatencyStats {
+  count: number;
+  p50: number;
+  p90: number;
+  p99: number;
+}
+
+export interface DeliverySummary {
+  messages: number;
+  deprioritized: number;
+  fcm: LatencyStats;
+  dispatch: LatencyStats;
+  launch: LatencyStats;
+  render: LatencyStats;
+  response: LatencyStats;
+  answer: LatencyStats;
+  endToEnd: LatencyStats;
+}
+
+export interface DeliveryRecord {
+  messageId: string;
+  sentAt: number | null;
+  receivedAt: number | null;
+  notifiedAt: number | null;
+  activityCreatedAt: number | null;
+  firstFrameAt: number | null;
+  tappedAt: number | null;
+  answeredAt: number | null;
+  priorities: string | null;
+  action: string | null;
+}
+
+interface DeliveryMetricsPlugin {
+  getSummary(): Promise<DeliverySummary>;
+  getPendingBatch(options: { limit?: number }): Promise<{ records: DeliveryRecord[]; cursor: number }>;
+  ackBatch(options: { cursor: number }): Promise<void>;
+}
+
+const DeliveryMetrics = registerPlugin<DeliveryMetricsPlugin>('DeliveryMetrics');
+
+const BATCH_SIZE = 50;
+const MAX_BATCHES_PER_RUN = 5;
+
+/**
+ * Get p50/p90/p99 push delivery latencies recorded on this device
+ */
+export async function getDeliverySummary(): Promise<DeliverySummary | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await DeliveryMetrics.getSummary();
+  } catch (error) {
+    console.error('❌ Error getting delivery summary:', error);
+    return null;
+  }
+}
+
+/**
+ * Upload settled delivery records to mobile-api in batches.
+ * Each batch is acknowledged only after the server accepted it, so a failed
+ * upload is retried on the next run.
+ */
+export async function uploadDeliveryMetrics(specialistId?: string): Promise<number> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return 0;
+  }
+
+  let uploaded = 0;
+  try {
+    for (let i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+      const { records, cursor } = await DeliveryMetrics.getPendingBatch({ limit: BATCH_SIZE });
+      if (records.length === 0) break;
+
+      const { error } = await supabase.functions.invoke('mobile-api/delivery-metrics', {
+        body: { specialistId, records }
+      });
+      if (error) {
+        console.error('❌ Error uploading delivery metrics:', error);
+        break;
+      }
+
+      await DeliveryMetrics.ackBatch({ cursor });
+      uploaded += records.length;
+      if (records.length < BATCH_SIZE) break;
+    }
+    if (uploaded > 0) {
+      console.log(`📊 Uploaded ${uploaded} delivery records`);
+    }
+  } catch (error) {
+    console.error('❌ Error reading delivery metrics:', error);
+  }
+  return uploaded;
+}
+
+export default DeliveryMetrics;
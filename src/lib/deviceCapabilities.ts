@@ -0,0 +1,78 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export type StandbyBucket = 'exempted' | 'active' | 'working_set' | 'frequent' | 'rare' | 'restricted' | 'unknown';
+
+export interface DeviceCapabilities {
+  fullScreenIntent: boolean;
+  overlay: boolean;
+  batteryExempt: boolean;
+  backgroundRestricted: boolean;
+  oem: 'xiaomi' | 'samsung' | 'huawei' | 'oppo' | 'vivo' | 'oneplus' | 'other';
+  manufacturer: string;
+  standbyBucket: StandbyBucket;
+  notificationsEnabled: boolean;
+  /** Importance per channel id; -1 when the channel does not exist */
+  channelImportance: Record<string, number>;
+  computedAt: number;
+}
+
+interface DeviceCapabilitiesPlugin {
+  get(): Promise<DeviceCapabilities>;
+  refresh(): Promise<DeviceCapabilities>;
+  addListener(
+    eventName: 'capabilitiesChanged',
+    listener: (capabilities: DeviceCapabilities) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+const DeviceCapabilitiesNative = registerPlugin<DeviceCapabilitiesPlugin>('DeviceCapabilities');
+
+/**
+ * Get the cached device capability snapshot (permissions, battery, OEM, channels) in one call
+ */
+export async function getDeviceCapabilities(): Promise<DeviceCapabilities | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await DeviceCapabilitiesNative.get();
+  } catch (error) {
+    console.error('❌ Error getting device capabilities:', error);
+    return null;
+  }
+}
+
+/**
+ * Recompute the snapshot now instead of waiting for the next app resume
+ */
+export async function refreshDeviceCapabilities(): Promise<DeviceCapabilities | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await DeviceCapabilitiesNative.refresh();
+  } catch (error) {
+    console.error('❌ Error refreshing device capabilities:', error);
+    return null;
+  }
+}
+
+/**
+ * Listen for capability changes, e.g. a permission granted in system settings.
+ * Returns an unsubscribe function.
+ */
+export function onDeviceCapabilitiesChange(listener: (capabilities: DeviceCapabilities) => void): () => void {
+  if (Capacitor.getPlatform() !== 'android') {
+    return () => {};
+  }
+
+  const handle = DeviceCapabilitiesNative.addListener('capabilitiesChanged', listener);
+  return () => {
+    handle.then((h) => h.remove()).catch(() => {});
+  };
+}
+
+export default DeviceCapabilitiesNative;
@@ -0,0 +1,154 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export interface NativeLogEntry {
+  seq: number;
+  time: number;
+  level: 'verbose' | 'debug' | 'info' | 'warn' | 'error' | 'assert';
+  tag: string;
+  message: string;
+}
+
+export interface WakeLockStats {
+  held: boolean;
+  cumulativeHeldMs: number;
+  leases: number;
+  extensions: number;
+  acquisitions: number;
+}
+
+export type WebViewWarmState = 'cold' | 'provider' | 'renderer';
+
+export interface WebViewPrewarmStatus {
+  enabled: boolean;
+  state: WebViewWarmState;
+  lastWarmMs: number;
+  warmCount: number;
+  skippedForMemory: number;
+}
+
+export interface StartupTaskTiming {
+  name: string;
+  mode: 'critical' | 'idle' | 'background';
+  thread: string;
+  startMs: number;
+  durationMs: number;
+  failed: boolean;
+}
+
+export interface StartupBreakdown {
+  cold: boolean;
+  processToCreateMs: number;
+  webViewState: WebViewWarmState;
+  tasks: StartupTaskTiming[];
+  marks: Record<string, number>;
+}
+
+interface DiagnosticsPlugin {
+  dumpLog(): Promise<{ entries: NativeLogEntry[]; capacity: number; recorded: number }>;
+  clearLog(): Promise<void>;
+  getWakeLockStats(): Promise<WakeLockStats>;
+  getStartupReport(): Promise<{ coldStart: StartupBreakdown | null; latest: StartupBreakdown | null }>;
+  setWebViewPrewarm(options: { enabled: boolean }): Promise<void>;
+  getWebViewPrewarmStatus(): Promise<WebViewPrewarmStatus>;
+}
+
+const Diagnostics = registerPlugin<DiagnosticsPlugin>('Diagnostics');
+
+/**
+ * Dump recent native log events from the in-memory ring buffer
+ */
+export async function dumpNativeLog(): Promise<NativeLogEntry[]> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return [];
+  }
+
+  try {
+    const result = await Diagnostics.dumpLog();
+    return result.entries;
+  } catch (error) {
+    console.error('❌ Error dumping native log:', error);
+    return [];
+  }
+}
+
+/**
+ * Clear the native in-memory log ring buffer
+ */
+export async function clearNativeLog(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+
+  try {
+    await Diagnostics.clearLog();
+  } catch (error) {
+    console.error('❌ Error clearing native log:', error);
+  }
+}
+
+/**
+ * Get cumulative wake lock usage for order alerts (battery cost tracking)
+ */
+export async function getWakeLockStats(): Promise<WakeLockStats | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await Diagnostics.getWakeLockStats();
+  } catch (error) {
+    console.error('❌ Error getting wake lock stats:', error);
+    return null;
+  }
+}
+
+/**
+ * Get per-task native startup timings (cold start and most recent start)
+ */
+export async function getStartupReport(): Promise<{ coldStart: StartupBreakdown | null; latest: StartupBreakdown | null } | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await Diagnostics.getStartupReport();
+  } catch (error) {
+    console.error('❌ Error getting startup report:', error);
+    return null;
+  }
+}
+
+/**
+ * Opt in/out of warming the WebView engine when a new-order push arrives
+ */
+export async function setWebViewPrewarm(enabled: boolean): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+
+  try {
+    await Diagnostics.setWebViewPrewarm({ enabled });
+    console.log('✅ WebView pre-warm', enabled ? 'enabled' : 'disabled');
+  } catch (error) {
+    console.error('❌ Error setting WebView pre-warm:', error);
+  }
+}
+
+/**
+ * Get WebView pre-warm state and counters
+ */
+export async function getWebViewPrewarmStatus(): Promise<WebViewPrewarmStatus | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await Diagnostics.getWebViewPrewarmStatus();
+  } catch (error) {
+    console.error('❌ Error getting WebView pre-warm status:', error);
+    return null;
+  }
+}
+
+export default Diagnostics;
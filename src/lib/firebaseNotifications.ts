@@ -3,6 +3,8 @@ import { supabase } from '@/integrations/supabase/client';
 import { Capacitor } from '@capacitor/core';
 import { Device } from '@capacitor/device';
 import { requestFullScreenPermission, checkFullScreenPermission } from './notificationPermissions';
+import { markTokenRegistered } from './tokenSync';
+import { getDeviceCapabilities } from './deviceCapabilities';
 
 export class FirebaseNotificationManager {
   private static instance: FirebaseNotificationManager;
@@ -48,7 +50,10 @@ export class FirebaseNotificationManager {
         
         // Step 1.5: Request full-screen intent permission (Android 12+)
         if (platform === 'android') {
-          const hasFullScreenPermission = await checkFullScreenPermission();
+          const capabilities = await getDeviceCapabilities();
+          const hasFullScreenPermission = capabilities
+            ? capabilities.fullScreenIntent && capabilities.overlay
+            : await checkFullScreenPermission();
           if (!hasFullScreenPermission) {
             console.log('⚠️ Full-screen intent permission not granted, requesting...');
             await requestFullScreenPermission();
@@ -200,14 +205,6 @@ export class FirebaseNotificationManager {
           
           console.log('🔀 [NAVIGATION] Final target route:', route);
           
-          const { Preferences } = await import('@capacitor/preferences');
-          await Preferences.set({
-            key: 'pendingRoute',
-            value: route,
-          });
-          
-          console.log('✅ [SAVED] Route saved to preferences:', route);
-          
           // CRITICAL: Emit event for immediate navigation when app is running
           console.log('📤 [DISPATCH] Dispatching navigation events...');
           
@@ -310,6 +307,7 @@ export class FirebaseNotificationManager {
       }
 
       console.log('✅ [DB] تم حفظ Token بنجاح');
+      await markTokenRegistered(token);
     } catch (error) {
       console.error('❌ [DB] Fatal error saving token:', error);
       throw error;
@@ -0,0 +1,201 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export interface NativeEvent<T = Record<string, unknown>> {
+  epoch: number;
+  seq: number;
+  name: string;
+  payload: T;
+}
+
+type NativeEventHandler<T = Record<string, unknown>> = (payload: T) => void;
+
+interface NativeEventBatch {
+  events: NativeEvent[];
+}
+
+export interface NativeEventStats {
+  pending: number;
+  dropped: number;
+  batches: number;
+}
+
+interface NativeEventsPlugin {
+  ready(): Promise<void>;
+  ack(options: { seq?: number; seqs?: number[] }): Promise<void>;
+  getPendingCount(): Promise<NativeEventStats>;
+  addListener(eventName: 'nativeEvents', listener: (batch: NativeEventBatch) => void): Promise<{ remove: () => void }>;
+}
+
+const NativeEvents = registerPlugin<NativeEventsPlugin>('NativeEvents');
+
+// Handled seqs survive a page reload so redelivered events are not handled twice
+const HANDLED_KEY = 'nativeEvents:handled';
+const MAX_HANDLED = 64;
+
+const handlers = new Map<string, Set<NativeEventHandler<any>>>();
+// Events that arrived before anyone subscribed to their name
+const unclaimed: NativeEvent[] = [];
+let listening: Promise<void> | null = null;
+
+const loadHandled = (): { epoch: number; seqs: number[] } => {
+  try {
+    const stored = sessionStorage.getItem(HANDLED_KEY);
+    if (stored) return JSON.parse(stored);
+  } catch {}
+  return { epoch: 0, seqs: [] };
+};
+
+const isHandled = (event: NativeEvent): boolean => {
+  const handled = loadHandled();
+  return handled.epoch === event.epoch && handled.seqs.includes(event.seq);
+};
+
+const markHandled = (events: NativeEvent[]) => {
+  if (events.length === 0) return;
+  const handled = loadHandled();
+  const epoch = events[events.length - 1].epoch;
+  // A new epoch means a new native process, whose seqs start over
+  const seqs = handled.epoch === epoch ? handled.seqs : [];
+  for (const event of events) {
+    if (event.epoch === epoch) seqs.push(event.seq);
+  }
+  try {
+    sessionStorage.setItem(HANDLED_KEY, JSON.stringify({
+      epoch,
+      seqs: seqs.slice(-MAX_HANDLED),
+    }));
+  } catch {}
+};
+
+const ack = (seqs: number[]) => {
+  if (seqs.length === 0) return;
+  void NativeEvents.ack({ seqs }).catch((error) => {
+    console.error('❌ Error acknowledging native events:', error);
+  });
+};
+
+/**
+ * Run the handlers of one event. Returns false if nobody is subscribed yet,
+ * in which case the event is kept until someone subscribes to its name.
+ */
+const handle = (event: NativeEvent): boolean => {
+  const subscribers = handlers.get(event.name);
+  if (!subscribers || subscribers.size === 0) {
+    if (!unclaimed.some((e) => e.epoch === event.epoch && e.seq === event.seq)) {
+      unclaimed.push(event);
+    }
+    return false;
+  }
+
+  subscribers.forEach((handler) => {
+    try {
+      handler(event.payload);
+    } catch (error) {
+      console.error(`❌ Error handling native event ${event.name}:`, error);
+    }
+  });
+  return true;
+};
+
+// One sessionStorage write and one ack call per batch, however many events it holds
+const dispatch = (events: NativeEvent[]) => {
+  const handledEvents: NativeEvent[] = [];
+  const acked: number[] = [];
+  for (const event of events) {
+    if (isHandled(event)) {
+      acked.push(event.seq);
+    } else if (handle(event)) {
+      handledEvents.push(event);
+      acked.push(event.seq);
+    }
+  }
+  markHandled(handledEvents);
+  ack(acked);
+};
+
+const ensureListening = (): Promise<void> => {
+  if (!listening) {
+    listening = (async () => {
+      try {
+        await NativeEvents.addListener('nativeEvents', (batch) => dispatch(batch?.events ?? []));
+        // Native holds events until this call, then flushes them in order
+        await NativeEvents.ready();
+      } catch (error) {
+        console.error('❌ Error connecting to native events:', error);
+      }
+    })();
+  }
+  return listening;
+};
+
+/**
+ * Subscribe to an event queued by native code (e.g. notificationRoute).
+ * Events emitted before the web layer was ready are delivered on subscribe,
+ * each one exactly once. Returns an unsubscribe function.
+ */
+export function subscribeNativeEvent<T = Record<string, unknown>>(
+  name: string,
+  handler: NativeEventHandler<T>
+): () => void {
+  if (Capacitor.getPlatform() !== 'android') {
+    return () => {};
+  }
+
+  let subscribers = handlers.get(name);
+  if (!subscribers) {
+    subscribers = new Set();
+    handlers.set(name, subscribers);
+  }
+  subscribers.add(handler);
+
+  const claimed = unclaimed.filter((e) => e.name === name);
+  for (const event of claimed) {
+    unclaimed.splice(unclaimed.indexOf(event), 1);
+  }
+  dispatch(claimed);
+  void ensureListening();
+
+  return () => {
+    handlers.get(name)?.delete(handler);
+  };
+}
+
+/**
+ * Resolves once native has flushed the events queued before the web layer
+ * was ready, e.g. the route of the notification that launched the app
+ */
+export function nativeEventsReady(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return Promise.resolve();
+  }
+  return ensureListening();
+}
+
+/**
+ * Number of native events not yet acknowledged by the web layer
+ */
+export async function getPendingNativeEvents(): Promise<number> {
+  const { pending } = await getNativeEventStats();
+  return pending;
+}
+
+/**
+ * Queue counters: unacknowledged events, events dropped because the queue
+ * was full, and batches dispatched since the process started
+ */
+export async function getNativeEventStats(): Promise<NativeEventStats> {
+  const empty = { pending: 0, dropped: 0, batches: 0 };
+  if (Capacitor.getPlatform() !== 'android') {
+    return empty;
+  }
+
+  try {
+    return { ...empty, ...(await NativeEvents.getPendingCount()) };
+  } catch (error) {
+    console.error('❌ Error getting native event stats:', error);
+    return empty;
+  }
+}
+
+export default NativeEvents;
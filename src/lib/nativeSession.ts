@@ -0,0 +1,40 @@
+import { Capacitor } from '@capacitor/core';
+import { Preferences } from '@capacitor/preferences';
+
+// Where useAuth and SupabaseSession.java keep the session
+const SESSION_KEY = 'supabase_session';
+
+// supabase-js's default storage key for this project
+const clientStorageKey = () =>
+  `sb-${new URL(import.meta.env.VITE_SUPABASE_URL).hostname.split('.')[0]}-auth-token`;
+
+/**
+ * Copy a session that native code refreshed while the app was closed into
+ * supabase-js's storage. Refresh tokens are single-use, so the pair
+ * supabase-js kept is spent, and the client refreshes an expired session as
+ * soon as it is created: run this before anything imports the client.
+ */
+export async function adoptNativeSessionBeforeClient(): Promise<void> {
+  if (!Capacitor.isNativePlatform()) return;
+
+  try {
+    const { value } = await Preferences.get({ key: SESSION_KEY });
+    if (!value) return;
+    const stored = JSON.parse(value);
+    if (!stored?.access_token || !stored?.refresh_token || !stored?.expires_at) return;
+
+    const key = clientStorageKey();
+    const current = localStorage.getItem(key);
+    // Signed out in the page: useAuth restores the stored session itself
+    if (!current) return;
+    const local = JSON.parse(current);
+    if (local?.refresh_token === stored.refresh_token) return;
+    // Only a newer session; one the page refreshed itself is already in its storage
+    if ((local?.expires_at ?? 0) >= stored.expires_at) return;
+
+    localStorage.setItem(key, JSON.stringify(stored));
+    console.log('🔑 [AUTH] Adopted session refreshed natively before creating the client');
+  } catch (error) {
+    console.error('❌ [AUTH] Error adopting native session:', error);
+  }
+}
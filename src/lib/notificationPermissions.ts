@@ -4,6 +4,16 @@ import { Capacitor } from '@capacitor/core';
 interface NotificationPermissionPlugin {
   requestFullScreenPermission(): Promise<void>;
   checkFullScreenPermission(): Promise<{ hasPermission: boolean }>;
+  getChannelStatus(): Promise<{ schemaVersion: number; lastReconcileMs: number; reconciledAt: number }>;
+  getDigestSettings(): Promise<DigestSettings>;
+  setDigestWindow(options: { windowMs: number }): Promise<void>;
+}
+
+export interface DigestSettings {
+  windowMs: number;
+  maxWindowMs: number;
+  pending: number;
+  flushAt: number;
 }
 
 const NotificationPermission = registerPlugin<NotificationPermissionPlugin>('NotificationPermission');
@@ -44,3 +54,51 @@ export async function checkFullScreenPermission(): Promise<boolean> {
     return false;
   }
 }
+
+/**
+ * Get native notification channel registry status (schema version and last reconcile cost)
+ */
+export async function getChannelStatus(): Promise<{ schemaVersion: number; lastReconcileMs: number; reconciledAt: number } | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await NotificationPermission.getChannelStatus();
+  } catch (error) {
+    console.error('❌ Error getting channel status:', error);
+    return null;
+  }
+}
+
+/**
+ * Get the batching window for low-urgency notifications (status updates, reminders)
+ */
+export async function getDigestSettings(): Promise<DigestSettings | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await NotificationPermission.getDigestSettings();
+  } catch (error) {
+    console.error('❌ Error getting digest settings:', error);
+    return null;
+  }
+}
+
+/**
+ * Set the digest window in ms; 0 posts every notification immediately
+ */
+export async function setDigestWindow(windowMs: number): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+
+  try {
+    await NotificationPermission.setDigestWindow({ windowMs });
+    console.log('✅ Digest window set to', windowMs, 'ms');
+  } catch (error) {
+    console.error('❌ Error setting digest window:', error);
+  }
+}
@@ -0,0 +1,38 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export interface OrderActionResult {
+  orderId: string;
+  action: 'skip' | 'accept' | 'quote';
+  status: string;
+  applied: boolean;
+  roundTripMs: number;
+}
+
+interface OrderActionsPlugin {
+  getStatus(): Promise<{
+    pendingOrderIds: string[];
+    attempts: number;
+    nextAttemptAt: number;
+    lastSyncAt: number;
+  }>;
+}
+
+const OrderActionsNative = registerPlugin<OrderActionsPlugin>('OrderActions');
+
+/**
+ * Orders answered from the full-screen order UI whose answer is still being sent natively
+ */
+export async function getPendingOrderActions(): Promise<Set<string>> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return new Set();
+  }
+
+  try {
+    const { pendingOrderIds } = await OrderActionsNative.getStatus();
+    return new Set(pendingOrderIds);
+  } catch (error) {
+    console.error('❌ Error getting pending order actions:', error);
+    return new Set();
+  }
+}
@@ -0,0 +1,76 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export interface OrderSnapshot {
+  orderId: string;
+  type: string;
+  title: string;
+  body: string;
+  route: string;
+  customerId?: string;
+  serviceType?: string;
+  price?: string;
+  receivedAt: number;
+  expiresAt: number;
+}
+
+interface OrderSnapshotPlugin {
+  get(options: { orderId: string }): Promise<{ snapshot: OrderSnapshot | null }>;
+  list(): Promise<{ snapshots: OrderSnapshot[] }>;
+  remove(options: { orderId: string }): Promise<void>;
+}
+
+const OrderSnapshotNative = registerPlugin<OrderSnapshotPlugin>('OrderSnapshot');
+
+const OFFER_TYPES = new Set(['new_order', 'resend_order']);
+
+/**
+ * Get the cached push payload for an order, if it is still fresh
+ */
+export async function getOrderSnapshot(orderId: string): Promise<OrderSnapshot | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    const result = await OrderSnapshotNative.get({ orderId });
+    return result.snapshot;
+  } catch (error) {
+    console.error('❌ Error reading order snapshot:', error);
+    return null;
+  }
+}
+
+/**
+ * Get cached new-order pushes (newest first) to paint the offers list before it is fetched
+ */
+export async function getOfferSnapshots(): Promise<OrderSnapshot[]> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return [];
+  }
+
+  try {
+    const result = await OrderSnapshotNative.list();
+    return result.snapshots.filter(snapshot => OFFER_TYPES.has(snapshot.type));
+  } catch (error) {
+    console.error('❌ Error listing order snapshots:', error);
+    return [];
+  }
+}
+
+/**
+ * Drop a snapshot once the order is quoted, skipped or expired
+ */
+export async function removeOrderSnapshot(orderId: string): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+
+  try {
+    await OrderSnapshotNative.remove({ orderId });
+  } catch (error) {
+    console.error('❌ Error removing order snapshot:', error);
+  }
+}
+
+export default OrderSnapshotNative;
@@ -0,0 +1,44 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+interface RoutePrefetchPlugin {
+  take(options: { key: string; waitMs?: number }): Promise<{
+    data: Record<string, unknown> | null;
+    status: number;
+    fetchedAgoMs?: number;
+    durationMs?: number;
+  }>;
+  prefetch(options: { route: string }): Promise<void>;
+  getStatus(): Promise<{ cached: number }>;
+}
+
+const RoutePrefetchNative = registerPlugin<RoutePrefetchPlugin>('RoutePrefetch');
+
+// Keys RoutePrefetcher files each route's requests under
+export const prefetchKeys = {
+  order: (orderId: string) => `order:${orderId}`,
+  orderStage: (orderId: string) => `orderStage:${orderId}`,
+  offer: (orderId: string) => `offer:${orderId}`,
+};
+
+/**
+ * Take a row native code fetched when the notification was tapped, waiting up
+ * to waitMs if that request is still in flight. Each result is handed out once;
+ * null means the caller should run its own query.
+ */
+export async function takePrefetched<T>(key: string, waitMs = 3000): Promise<T | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    const result = await RoutePrefetchNative.take({ key, waitMs });
+    if (result.data) {
+      console.log(`⚡ Using prefetched ${key} (fetched ${result.fetchedAgoMs}ms ago in ${result.durationMs}ms)`);
+    }
+    return (result.data as T) ?? null;
+  } catch (error) {
+    console.error('❌ Error taking prefetched data:', error);
+    return null;
+  }
+}
@@ -0,0 +1,50 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export interface TokenSyncStatus {
+  pending: number;
+  attempts: number;
+  nextAttemptAt: number;
+  lastSyncAt: number;
+}
+
+interface TokenSyncPlugin {
+  markRegistered(options: { token: string }): Promise<void>;
+  getStatus(): Promise<TokenSyncStatus>;
+}
+
+const TokenSync = registerPlugin<TokenSyncPlugin>('TokenSync');
+
+/**
+ * Tell native code which FCM token is saved in device_tokens, so it can
+ * rotate it by itself when FCM issues a new one while the app is closed
+ */
+export async function markTokenRegistered(token: string): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+
+  try {
+    await TokenSync.markRegistered({ token });
+  } catch (error) {
+    console.error('❌ Error marking token registered:', error);
+  }
+}
+
+/**
+ * Get native token sync outbox status (pending rotations, retry state)
+ */
+export async function getTokenSyncStatus(): Promise<TokenSyncStatus | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await TokenSync.getStatus();
+  } catch (error) {
+    console.error('❌ Error getting token sync status:', error);
+    return null;
+  }
+}
+
+export default TokenSync;
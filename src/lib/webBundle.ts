@@ -0,0 +1,51 @@
+import { registerPlugin } from '@capacitor/core';
+import { Capacitor } from '@capacitor/core';
+
+export interface WebBundleStatus {
+  /** Downloaded bundle being served; null for the one built into the APK */
+  current: string | null;
+  /** Switched to on this launch and not yet confirmed */
+  trial: string | null;
+  /** Downloaded and applied on the next cold start */
+  pending: string | null;
+  checkedAt: number;
+}
+
+interface WebBundlePlugin {
+  notifyReady(): Promise<void>;
+  check(): Promise<void>;
+  getStatus(): Promise<WebBundleStatus>;
+}
+
+const WebBundleNative = registerPlugin<WebBundlePlugin>('WebBundle');
+
+/**
+ * Tell native code this bundle booted. A newly installed web bundle that never
+ * calls this is rolled back to the previous one.
+ */
+export async function notifyWebBundleReady(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return;
+  }
+
+  try {
+    await WebBundleNative.notifyReady();
+  } catch (error) {
+    console.error('❌ Error confirming web bundle:', error);
+  }
+}
+
+export async function getWebBundleStatus(): Promise<WebBundleStatus | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+
+  try {
+    return await WebBundleNative.getStatus();
+  } catch (error) {
+    console.error('❌ Error reading web bundle status:', error);
+    return null;
+  }
+}
+
+export default WebBundleNative;
@@ -1,7 +1,7 @@
 import { createRoot } from "react-dom/client";
-import App from "./App.tsx";
 import "./index.css";
 import { QueryProvider } from "./providers/QueryProvider";
+import { adoptNativeSessionBeforeClient } from "./lib/nativeSession";
 
 // Initialize language direction on first load
 const storedLanguage = localStorage.getItem('language-storage');
@@ -25,8 +25,18 @@ if (window.location.hash) {
   window.history.replaceState(null, '', window.location.pathname + window.location.search);
 }
 
-createRoot(document.getElementById("root")!).render(
-  <QueryProvider>
-    <App />
-  </QueryProvider>
-);
+// App imports the Supabase client, which refreshes the stored session as soon
+// as it is created: hand it the session native code may have refreshed first
+const ADOPT_TIMEOUT_MS = 1000;
+Promise.race([
+  adoptNativeSessionBeforeClient(),
+  new Promise<void>((resolve) => setTimeout(resolve, ADOPT_TIMEOUT_MS)),
+])
+  .then(() => import("./App.tsx"))
+  .then(({ default: App }) => {
+    createRoot(document.getElementById("root")!).render(
+      <QueryProvider>
+        <App />
+      </QueryProvider>
+    );
+  });
@@ -33,6 +33,7 @@ import { Capacitor } from '@capacitor/core';
 import { sendTemplateMessage } from "@/lib/whatsappTemplateHelper";
 import { PaymentConfirmationDialog } from "@/components/orders/PaymentConfirmationDialog";
 import { InlineLoader } from "@/components/ui/app-loader";
+import { prefetchKeys, takePrefetched } from "@/lib/routePrefetch";
 
 type Stage = 'initial' | 'moving' | 'arrived' | 'waiting_for_customer' | 'working' | 'completed' | 'cancelled' | 'invoice_requested' | 'invoice_details' | 'customer_rating' | 'payment_received';
 
@@ -157,13 +158,13 @@ export default function OrderTracking() {
 
     // Check if order already has a tracking stage
     const checkAndSetStage = async () => {
-      const currentOrderResult: any = await supabase
-        .from('orders')
-        .select('tracking_stage')
-        .eq('id', orderId)
-        .single();
-
-      const currentOrder = currentOrderResult.data;
+      // Started natively when the notification was tapped
+      const currentOrder: any = await takePrefetched(prefetchKeys.orderStage(orderId))
+        ?? (await supabase
+          .from('orders')
+          .select('tracking_stage')
+          .eq('id', orderId)
+          .single()).data;
 
       if (currentOrder?.tracking_stage) {
         // Resume from existing stage
@@ -494,39 +495,43 @@ export default function OrderTracking() {
       // Add timeout wrapper for entire fetch operation (15 seconds max)
       const fetchWithTimeout = Promise.race([
         (async () => {
-          const { data, error } = await supabase
-            .from('orders')
-            .select(`
-              id,
-              order_number,
-              service_type,
-              notes,
-              booking_date,
-              hours_count,
-              gps_latitude,
-              gps_longitude,
-              building_info,
-              company_id,
-              customer_id,
-              customer:customers (
-                name,
-                whatsapp_number,
-                area,
-                budget,
-                budget_type
-              ),
-              company:companies (
+          // Started natively when the notification was tapped; same columns as the query below
+          const prefetched = await takePrefetched<Order>(prefetchKeys.order(orderId));
+          const { data, error } = prefetched
+            ? { data: prefetched, error: null }
+            : await supabase
+              .from('orders')
+              .select(`
                 id,
-                name,
-                logo_url
-              ),
-              order_specialists (
-                quoted_price,
-                is_accepted
-              )
-            `)
-            .eq('id', orderId)
-            .single();
+                order_number,
+                service_type,
+                notes,
+                booking_date,
+                hours_count,
+                gps_latitude,
+                gps_longitude,
+                building_info,
+                company_id,
+                customer_id,
+                customer:customers (
+                  name,
+                  whatsapp_number,
+                  area,
+                  budget,
+                  budget_type
+                ),
+                company:companies (
+                  id,
+                  name,
+                  logo_url
+                ),
+                order_specialists (
+                  quoted_price,
+                  is_accepted
+                )
+              `)
+              .eq('id', orderId)
+              .single();
 
           if (error) throw error;
           
@@ -20,6 +20,7 @@ import { formatDuration } from "@/lib/utils";
 import { parseISO, format, isToday, isFuture } from "date-fns";
 import { ar, enUS } from "date-fns/locale";
 import { firebaseNotifications } from "@/lib/firebaseNotifications";
+import { uploadDeliveryMetrics } from "@/lib/deliveryMetrics";
 import { ReadinessCheckDialog } from "@/components/specialist/ReadinessCheckDialog";
 import { useLanguage } from "@/hooks/useLanguage";
 import { useTranslation } from "@/i18n";
@@ -247,6 +248,8 @@ export default function SpecialistHome() {
           try {
             await firebaseNotifications.initialize(specialist.id);
             console.log('✅ [SPECIALIST] Firebase initialized successfully');
+            // Background upload of push delivery timings; never blocks the screen
+            void uploadDeliveryMetrics(specialist.id);
           } catch (error) {
             console.error('❌ [SPECIALIST] Failed to initialize Firebase:', error);
           }
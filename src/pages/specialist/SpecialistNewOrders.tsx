@@ -28,6 +28,10 @@ import { NotificationStatusChecker } from "@/components/specialist/NotificationS
 import { OnlineStatusToggle } from "@/components/specialist/OnlineStatusToggle";
 import { TranslateButton } from "@/components/specialist/TranslateButton";
 import { ReadinessCheckDialog } from "@/components/specialist/ReadinessCheckDialog";
+import { getOfferSnapshots, removeOrderSnapshot, OrderSnapshot } from "@/lib/orderSnapshots";
+import { prefetchKeys, takePrefetched } from "@/lib/routePrefetch";
+import { getPendingOrderActions, OrderActionResult } from "@/lib/orderActions";
+import { subscribeNativeEvent } from "@/lib/nativeEvents";
 import { useReadinessCheckMonitor } from "@/hooks/useReadinessCheckMonitor";
 
 interface Order {
@@ -59,6 +63,33 @@ interface Order {
   };
 }
 
+function snapshotToOrder(snapshot: OrderSnapshot): Order {
+  return {
+    id: snapshot.orderId,
+    order_number: null,
+    created_at: new Date(snapshot.receivedAt).toISOString(),
+    expires_at: null,
+    service_type: snapshot.serviceType || snapshot.body,
+    notes: null,
+    booking_type: null,
+    hours_count: null,
+    booking_date: null,
+    booking_time: null,
+    customer: snapshot.price ? { name: '', area: null, budget: snapshot.price } : null,
+    isNew: true,
+  };
+}
+
+// Snapshots for offers that are no longer open (quoted, skipped, expired) must not be painted again
+async function pruneOfferSnapshots(openOrderIds: Set<string>) {
+  const snapshots = await getOfferSnapshots();
+  await Promise.all(
+    snapshots
+      .filter(snapshot => !openOrderIds.has(snapshot.orderId))
+      .map(snapshot => removeOrderSnapshot(snapshot.orderId))
+  );
+}
+
 export default function SpecialistNewOrders() {
   const [orders, setOrders] = useState<Order[]>([]);
   const [isLoading, setIsLoading] = useState(true);
@@ -74,6 +105,7 @@ export default function SpecialistNewOrders() {
   const { toast } = useToast();
   const navigate = useNavigate();
   const soundNotification = useRef(getSoundNotification());
+  const paintedFromSnapshotRef = useRef(false);
   
   // Language management
   const { language, setLanguage, initializeLanguage } = useLanguage();
@@ -83,6 +115,36 @@ export default function SpecialistNewOrders() {
   // Monitor for pending readiness checks
   useReadinessCheckMonitor();
 
+  // Paint offers cached from their pushes right away; fetchOrders revalidates them
+  useEffect(() => {
+    getOfferSnapshots().then(snapshots => {
+      if (snapshots.length === 0) return;
+      setOrders(prev => {
+        if (prev.length > 0) return prev;
+        paintedFromSnapshotRef.current = true;
+        return snapshots.map(snapshotToOrder);
+      });
+      setIsLoading(false);
+      console.log(`⚡ Painted ${snapshots.length} offers from push snapshots`);
+    });
+  }, []);
+
+  // The tapped offer's full row, fetched natively while the WebView started; fetchOrders revalidates it
+  useEffect(() => {
+    const orderId = new URLSearchParams(window.location.search).get('orderId');
+    if (!orderId) return;
+    takePrefetched<Order>(prefetchKeys.offer(orderId)).then(row => {
+      if (!row) return;
+      setOrders(prev => {
+        if (prev.length > 0 && !paintedFromSnapshotRef.current) return prev;
+        paintedFromSnapshotRef.current = true;
+        const offer = { ...row, isNew: true };
+        return [offer, ...prev.filter(order => order.id !== row.id)];
+      });
+      setIsLoading(false);
+    });
+  }, []);
+
   useEffect(() => {
     let audioInitialized = false;
     
@@ -263,6 +325,17 @@ export default function SpecialistNewOrders() {
     fetchOrders(specialistId);
     fetchNewOrdersCount(specialistId);
 
+    // Answers given natively from the full-screen order UI
+    const unsubscribeActions = subscribeNativeEvent<OrderActionResult>('orderActionResult', (result) => {
+      if (result.applied) {
+        if (result.action === 'skip') sonnerToast.success(t.specialist.orderSkippedSuccess);
+      } else {
+        sonnerToast.error(result.action === 'skip' ? t.specialist.skipFailed : t.specialist.quoteFailed);
+      }
+      fetchOrders(specialistId);
+      fetchNewOrdersCount(specialistId);
+    });
+
     // Enhanced notification function with GUARANTEED sound + vibration
     const triggerNotification = async (type: 'new' | 'resend' = 'new') => {
       const notificationId = Date.now();
@@ -402,6 +475,7 @@ export default function SpecialistNewOrders() {
 
     return () => {
       supabase.removeChannel(channel);
+      unsubscribeActions();
     };
   }, [specialistId, toast]);
 
@@ -524,18 +598,27 @@ export default function SpecialistNewOrders() {
 
   const fetchOrders = async (specId: string) => {
     try {
-      setIsLoading(true);
+      // Keep showing snapshot offers while revalidating instead of flashing the spinner
+      if (!paintedFromSnapshotRef.current) {
+        setIsLoading(true);
+      }
 
-      const { data: orderSpecialists } = await supabase
-        .from('order_specialists')
-        .select('order_id, id')
-        .eq('specialist_id', specId)
-        .is('quoted_price', null)
-        .is('rejected_at', null);
+      const [{ data: openOrderSpecialists }, answeredNatively] = await Promise.all([
+        supabase
+          .from('order_specialists')
+          .select('order_id, id')
+          .eq('specialist_id', specId)
+          .is('quoted_price', null)
+          .is('rejected_at', null),
+        getPendingOrderActions(),
+      ]);
+      // Answered from the full-screen UI; the server just has not received it yet
+      const orderSpecialists = openOrderSpecialists?.filter(os => !answeredNatively.has(os.order_id));
 
       if (!orderSpecialists || orderSpecialists.length === 0) {
         setOrders([]);
         setIsLoading(false);
+        pruneOfferSnapshots(new Set());
         return;
       }
 
@@ -605,6 +688,7 @@ export default function SpecialistNewOrders() {
       // Show orders immediately without translation
       setOrders(ordersWithSpec || []);
       setIsLoading(false);
+      pruneOfferSnapshots(new Set((ordersWithSpec || []).map(order => order.id)));
       
       // Translate in background if needed (non-blocking)
       if (preferredLanguage && preferredLanguage !== 'ar' && ordersWithSpec.length > 0) {
@@ -13,6 +13,34 @@ serve(async (req) => {
   }
 
   try {
+    const url = new URL(req.url);
+    const path = url.pathname.split('/mobile-api')[1];
+
+    // POST /device-tokens/rotate - Swap a rotated FCM token, sent natively by the Android app
+    // with the signed-in user's JWT. Only tokens of that user's specialist are touched.
+    if (req.method === 'POST' && path === '/device-tokens/rotate') {
+      return await rotateDeviceTokens(req);
+    }
+
+    // POST /order-actions - Skip or accept-at-listed-price from the Android full-screen
+    // order UI, sent natively without booting the WebView. Authenticated like the
+    // rotation above: the user's JWT identifies the specialist.
+    if (req.method === 'POST' && path === '/order-actions') {
+      return await applyOrderActions(req);
+    }
+
+    // POST /quote-tiers - Price offsets (over the customer budget) this specialist quotes
+    // most, cached by the Android app for its native quote panel. Same JWT auth.
+    if (req.method === 'POST' && path === '/quote-tiers') {
+      return await getQuoteTiers(req);
+    }
+
+    // POST /web-bundle - Newest active web bundle the calling native shell can run,
+    // polled by the Android live updater. Public like check-app-update: no session needed.
+    if (req.method === 'POST' && path === '/web-bundle') {
+      return await getLatestWebBundle(req);
+    }
+
     const supabaseClient = createClient(
       Deno.env.get('SUPABASE_URL') ?? '',
       Deno.env.get('SUPABASE_ANON_KEY') ?? '',
@@ -58,9 +86,6 @@ serve(async (req) => {
       .eq('company_id', profile.company_id)
       .single();
 
-    const url = new URL(req.url);
-    const path = url.pathname.split('/mobile-api')[1];
-
     // GET /orders - Get orders for specialist's company
     if (req.method === 'GET' && path === '/orders') {
       const status = url.searchParams.get('status');
@@ -218,6 +243,56 @@ serve(async (req) => {
       );
     }
 
+    // POST /delivery-metrics - Store push delivery timings uploaded by the Android app
+    if (req.method === 'POST' && path === '/delivery-metrics') {
+      const { records } = await req.json();
+
+      if (!Array.isArray(records) || records.length === 0 || records.length > 100) {
+        return new Response(
+          JSON.stringify({ error: 'Invalid records' }),
+          { status: 400, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+        );
+      }
+
+      const toTimestamp = (value: unknown) =>
+        typeof value === 'number' && value > 0 ? new Date(value).toISOString() : null;
+
+      const rows = records
+        .filter((record: any) => typeof record?.messageId === 'string' && record.messageId.length <= 200)
+        .map((record: any) => ({
+          user_id: user.id,
+          specialist_id: specialist?.id ?? null,
+          message_id: record.messageId,
+          sent_at: toTimestamp(record.sentAt),
+          received_at: toTimestamp(record.receivedAt),
+          notified_at: toTimestamp(record.notifiedAt),
+          activity_created_at: toTimestamp(record.activityCreatedAt),
+          first_frame_at: toTimestamp(record.firstFrameAt),
+          tapped_at: toTimestamp(record.tappedAt),
+          answered_at: toTimestamp(record.answeredAt),
+          priorities: typeof record.priorities === 'string' ? record.priorities : null,
+          action: typeof record.action === 'string' ? record.action : null,
+        }));
+
+      // Re-uploads after a lost ack are ignored by the (user_id, message_id) key
+      const { error: insertError } = await supabaseClient
+        .from('push_delivery_metrics')
+        .upsert(rows, { onConflict: 'user_id,message_id', ignoreDuplicates: true });
+
+      if (insertError) {
+        console.error('Error storing delivery metrics:', insertError);
+        return new Response(
+          JSON.stringify({ error: insertError.message }),
+          { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+        );
+      }
+
+      return new Response(
+        JSON.stringify({ stored: rows.length }),
+        { status: 200, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+      );
+    }
+
     return new Response(
       JSON.stringify({ error: 'Not found' }),
       { status: 404, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
@@ -231,3 +306,372 @@ serve(async (req) => {
     );
   }
 });
+
+/**
+ * Specialist id of the user whose JWT authorizes the request, or null for
+ * anyone else: no or invalid session, or a user who is not a specialist.
+ */
+async function authenticateSpecialist(req: Request): Promise<string | null> {
+  const supabaseClient = createClient(
+    Deno.env.get('SUPABASE_URL') ?? '',
+    Deno.env.get('SUPABASE_ANON_KEY') ?? '',
+    {
+      global: {
+        headers: { Authorization: req.headers.get('Authorization') ?? '' },
+      },
+    }
+  );
+
+  const {
+    data: { user },
+    error: userError,
+  } = await supabaseClient.auth.getUser();
+  if (userError || !user) return null;
+
+  const { data: profile } = await supabaseClient
+    .from('profiles')
+    .select('company_id, phone')
+    .eq('user_id', user.id)
+    .maybeSingle();
+  if (!profile?.company_id || !profile.phone) return null;
+
+  const { data: specialist } = await supabaseClient
+    .from('specialists')
+    .select('id')
+    .eq('phone', profile.phone)
+    .eq('company_id', profile.company_id)
+    .maybeSingle();
+  return specialist?.id ?? null;
+}
+
+async function rotateDeviceTokens(req: Request): Promise<Response> {
+  const specialistId = await authenticateSpecialist(req);
+  if (!specialistId) {
+    return new Response(
+      JSON.stringify({ error: 'Unauthorized' }),
+      { status: 401, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const { rotations } = await req.json();
+
+  if (!Array.isArray(rotations) || rotations.length === 0 || rotations.length > 10) {
+    return new Response(
+      JSON.stringify({ error: 'Invalid rotations' }),
+      { status: 400, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const adminClient = createClient(
+    Deno.env.get('SUPABASE_URL') ?? '',
+    Deno.env.get('SUPABASE_SERVICE_ROLE_KEY') ?? ''
+  );
+
+  const results = [];
+  for (const rotation of rotations) {
+    const previous = typeof rotation?.previous === 'string' ? rotation.previous : '';
+    const token = typeof rotation?.token === 'string' ? rotation.token : '';
+    if (!previous || !token || token.length > 4096) {
+      results.push({ token, status: 'invalid' });
+      continue;
+    }
+
+    const { data: existing, error: lookupError } = await adminClient
+      .from('device_tokens')
+      .select('id')
+      .eq('token', previous)
+      .eq('specialist_id', specialistId)
+      .maybeSingle();
+
+    if (lookupError) {
+      console.error('Error looking up device token:', lookupError);
+      return new Response(
+        JSON.stringify({ error: lookupError.message }),
+        { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+      );
+    }
+
+    if (!existing) {
+      console.log('🔎 [TOKEN] Unknown previous token, skipping rotation');
+      results.push({ token, status: 'unknown' });
+      continue;
+    }
+
+    // The new token may already be registered by the web app; keep that row and drop the old one
+    await adminClient
+      .from('device_tokens')
+      .delete()
+      .eq('token', token)
+      .eq('specialist_id', specialistId)
+      .neq('id', existing.id);
+
+    // Still registered to another specialist (tokens are unique): not ours to take over
+    const { data: foreign } = await adminClient
+      .from('device_tokens')
+      .select('id')
+      .eq('token', token)
+      .neq('specialist_id', specialistId)
+      .maybeSingle();
+    if (foreign) {
+      console.log('🚫 [TOKEN] New token belongs to another specialist, skipping rotation');
+      results.push({ token, status: 'conflict' });
+      continue;
+    }
+
+    const { error: updateError } = await adminClient
+      .from('device_tokens')
+      .update({ token, last_used_at: new Date().toISOString() })
+      .eq('id', existing.id);
+
+    if (updateError) {
+      console.error('Error rotating device token:', updateError);
+      return new Response(
+        JSON.stringify({ error: updateError.message }),
+        { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+      );
+    }
+
+    console.log(`🔄 [TOKEN] Rotated device token for specialist ${specialistId}`);
+    results.push({ token, status: 'rotated' });
+  }
+
+  return new Response(
+    JSON.stringify({ results }),
+    { status: 200, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+  );
+}
+
+async function applyOrderActions(req: Request): Promise<Response> {
+  const specialistId = await authenticateSpecialist(req);
+  if (!specialistId) {
+    return new Response(
+      JSON.stringify({ error: 'Unauthorized' }),
+      { status: 401, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const { actions } = await req.json();
+
+  if (!Array.isArray(actions) || actions.length === 0 || actions.length > 20) {
+    return new Response(
+      JSON.stringify({ error: 'Invalid order actions' }),
+      { status: 400, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const adminClient = createClient(
+    Deno.env.get('SUPABASE_URL') ?? '',
+    Deno.env.get('SUPABASE_SERVICE_ROLE_KEY') ?? ''
+  );
+
+  const results = [];
+  for (const action of actions) {
+    const id = typeof action?.id === 'string' ? action.id : '';
+    const orderId = typeof action?.orderId === 'string' ? action.orderId : '';
+    const type = action?.action;
+    const price = typeof action?.price === 'number' ? action.price : NaN;
+    if (!id || !orderId || (type !== 'skip' && type !== 'accept' && type !== 'quote') ||
+        (type === 'quote' && !(price > 0 && price < 1000000))) {
+      results.push({ id, status: 'invalid' });
+      continue;
+    }
+
+    const { data: assignment, error: lookupError } = await adminClient
+      .from('order_specialists')
+      .select('id, quoted_price, rejected_at, native_action_id, orders!inner (expires_at, customer:customers (budget))')
+      .eq('order_id', orderId)
+      .eq('specialist_id', specialistId)
+      .maybeSingle();
+
+    if (lookupError) {
+      console.error('Error looking up order assignment:', lookupError);
+      return new Response(
+        JSON.stringify({ error: lookupError.message }),
+        { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+      );
+    }
+
+    if (!assignment) {
+      results.push({ id, status: 'not_found' });
+      continue;
+    }
+
+    // A retry of this very action is a success; any other earlier answer (from the app,
+    // or a different native action) wins and this one conflicts with it
+    if (assignment.quoted_price !== null || assignment.rejected_at !== null) {
+      results.push({ id, status: assignment.native_action_id === id ? 'applied' : 'conflict' });
+      continue;
+    }
+
+    const order = (assignment as any).orders;
+    if (order?.expires_at && new Date(order.expires_at).getTime() < Date.now()) {
+      results.push({ id, status: 'expired' });
+      continue;
+    }
+
+    let update: Record<string, unknown>;
+    if (type === 'skip') {
+      update = {
+        is_accepted: false,
+        rejected_at: new Date().toISOString(),
+        rejection_reason: 'Skipped by specialist from notification',
+        native_action_id: id,
+      };
+    } else if (type === 'quote') {
+      // Same format as the price options of the offers screen
+      update = {
+        quoted_price: `${price} QAR`,
+        quoted_at: new Date().toISOString(),
+        native_action_id: id,
+      };
+    } else {
+      // Same value as the first price option of the offers screen
+      const budget = parseFloat(String(order?.customer?.budget ?? '').replace(/[^0-9.]/g, ''));
+      if (isNaN(budget) || budget <= 0) {
+        results.push({ id, status: 'no_listed_price' });
+        continue;
+      }
+      update = {
+        quoted_price: `${budget} QAR`,
+        quoted_at: new Date().toISOString(),
+        native_action_id: id,
+      };
+    }
+
+    // The null checks make a concurrent answer from the app win instead of being overwritten
+    const { data: updated, error: updateError } = await adminClient
+      .from('order_specialists')
+      .update(update)
+      .eq('id', assignment.id)
+      .is('quoted_price', null)
+      .is('rejected_at', null)
+      .select('id');
+
+    if (updateError) {
+      console.error('Error applying order action:', updateError);
+      return new Response(
+        JSON.stringify({ error: updateError.message }),
+        { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+      );
+    }
+
+    let status = 'applied';
+    if (!Array.isArray(updated) || updated.length === 0) {
+      // Answered between the lookup and the update: by this action's own retry, or by someone else
+      const { data: current } = await adminClient
+        .from('order_specialists')
+        .select('native_action_id')
+        .eq('id', assignment.id)
+        .maybeSingle();
+      status = current?.native_action_id === id ? 'applied' : 'conflict';
+    }
+    console.log(`📲 [ORDER] ${type} from notification for order ${orderId}: ${status}`);
+    results.push({ id, status });
+  }
+
+  return new Response(
+    JSON.stringify({ results }),
+    { status: 200, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+  );
+}
+
+const DEFAULT_QUOTE_OFFSETS = [0, 3, 6, 9];
+const QUOTE_TIER_COUNT = 4;
+const QUOTE_HISTORY_LIMIT = 50;
+
+async function getQuoteTiers(req: Request): Promise<Response> {
+  const specialistId = await authenticateSpecialist(req);
+  if (!specialistId) {
+    return new Response(
+      JSON.stringify({ error: 'Unauthorized' }),
+      { status: 401, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const adminClient = createClient(
+    Deno.env.get('SUPABASE_URL') ?? '',
+    Deno.env.get('SUPABASE_SERVICE_ROLE_KEY') ?? ''
+  );
+
+  const { data: quotes, error: quotesError } = await adminClient
+    .from('order_specialists')
+    .select('quoted_price, orders!inner (customer:customers (budget))')
+    .eq('specialist_id', specialistId)
+    .not('quoted_price', 'is', null)
+    .order('quoted_at', { ascending: false })
+    .limit(QUOTE_HISTORY_LIMIT);
+
+  if (quotesError) {
+    console.error('Error loading quote history:', quotesError);
+    return new Response(
+      JSON.stringify({ error: quotesError.message }),
+      { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const numeric = (value: unknown) => parseFloat(String(value ?? '').replace(/[^0-9.]/g, ''));
+  const counts = new Map<number, number>();
+  for (const quote of quotes ?? []) {
+    const offset = numeric(quote.quoted_price) - numeric((quote as any).orders?.customer?.budget);
+    if (!Number.isFinite(offset) || offset < 0 || offset > 100) continue;
+    counts.set(offset, (counts.get(offset) ?? 0) + 1);
+  }
+
+  // The listed price always stays first; then the offsets this specialist uses most
+  const offsets = [0, ...[...counts.entries()]
+    .filter(([offset]) => offset !== 0)
+    .sort((a, b) => b[1] - a[1])
+    .slice(0, QUOTE_TIER_COUNT - 1)
+    .map(([offset]) => offset)
+    .sort((a, b) => a - b)];
+  for (const fallback of DEFAULT_QUOTE_OFFSETS) {
+    if (offsets.length >= QUOTE_TIER_COUNT) break;
+    if (!offsets.includes(fallback)) offsets.push(fallback);
+  }
+  offsets.sort((a, b) => a - b);
+
+  return new Response(
+    JSON.stringify({ currency: 'QAR', offsets, basedOn: quotes?.length ?? 0 }),
+    { status: 200, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+  );
+}
+
+async function getLatestWebBundle(req: Request): Promise<Response> {
+  const { versionCode, currentVersion } = await req.json();
+  const nativeVersionCode = parseInt(String(versionCode));
+
+  if (!Number.isFinite(nativeVersionCode)) {
+    return new Response(
+      JSON.stringify({ error: 'Invalid version code' }),
+      { status: 400, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const adminClient = createClient(
+    Deno.env.get('SUPABASE_URL') ?? '',
+    Deno.env.get('SUPABASE_SERVICE_ROLE_KEY') ?? ''
+  );
+
+  const { data: bundle, error } = await adminClient
+    .from('web_bundles')
+    .select('version, bundle_url, sha256, size_bytes')
+    .eq('is_active', true)
+    .lte('min_version_code', nativeVersionCode)
+    .order('created_at', { ascending: false })
+    .limit(1)
+    .maybeSingle();
+
+  if (error) {
+    console.error('Error loading web bundle:', error);
+    return new Response(
+      JSON.stringify({ error: error.message }),
+      { status: 500, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+    );
+  }
+
+  const upToDate = !bundle || bundle.version === currentVersion;
+  return new Response(
+    JSON.stringify({ bundle: upToDate ? null : bundle }),
+    { status: 200, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+  );
+}
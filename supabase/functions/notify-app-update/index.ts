@@ -141,6 +141,8 @@ Deno.serve(async (req) => {
       version_code: String(version.version_code),
       version_name: version.version_name,
       apk_url: version.apk_url,
+      // Lets devices verify an APK they pre-download in the background
+      apk_sha256: version.apk_sha256 || '',
       is_mandatory: String(!!version.is_mandatory),
       changelog: version.changelog || '',
       route: '/specialist-orders?showUpdate=true',
@@ -203,6 +203,27 @@ serve(async (req) => {
 
     console.log(`✅ [FCM] Found ${tokens.length} device tokens`);
 
+    // Listed price of an offered order: the native order UI offers "accept at
+    // this price", and mobile-api's /order-actions stores the same customers.budget
+    const pushType = (data.type as string) || 'new_order';
+    const offersOrder = pushType === 'new_order' || pushType === 'resend_order';
+    let listedPrice = '';
+    if (offersOrder && data.orderId) {
+      const { data: order, error: orderError } = await supabase
+        .from('orders')
+        .select('customer:customers (budget)')
+        .eq('id', data.orderId)
+        .maybeSingle();
+      if (orderError) {
+        console.error('⚠️ [FCM] Error fetching order budget:', orderError);
+      }
+      const budget = parseFloat(String((order as any)?.customer?.budget ?? '').replace(/[^0-9.]/g, ''));
+      if (!isNaN(budget) && budget > 0) {
+        listedPrice = String(budget);
+      }
+      console.log(`💰 [FCM] Listed price for order ${data.orderId}: ${listedPrice || 'none'}`);
+    }
+
     // Send FCM notifications using Firebase Admin SDK v1 API
     const results = await Promise.allSettled(
       tokens.map(async (deviceToken) => {
@@ -274,6 +295,10 @@ serve(async (req) => {
             Object.entries(data).map(([k, v]) => [k, String(v)])
           ),
         };
+        if (offersOrder) {
+          // Never a caller-supplied price: the button must show what /order-actions stores
+          baseData.price = listedPrice;
+        }
 
         // Choose Android channel: use call-style for new orders/tests, standard otherwise
         const androidChannelId =
@@ -0,0 +1,36 @@
+-- جدول توقيتات وصول إشعارات الطلبات (Push delivery timings uploaded by the Android app)
+CREATE TABLE IF NOT EXISTS public.push_delivery_metrics (
+  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  user_id UUID NOT NULL,
+  specialist_id UUID REFERENCES public.specialists(id) ON DELETE SET NULL,
+  message_id TEXT NOT NULL,
+  sent_at TIMESTAMP WITH TIME ZONE, -- وقت الإرسال من FCM
+  received_at TIMESTAMP WITH TIME ZONE, -- وقت الاستلام على الجهاز
+  notified_at TIMESTAMP WITH TIME ZONE, -- وقت عرض الإشعار
+  activity_created_at TIMESTAMP WITH TIME ZONE, -- فتح شاشة الطلب
+  first_frame_at TIMESTAMP WITH TIME ZONE, -- أول إطار مرسوم
+  tapped_at TIMESTAMP WITH TIME ZONE, -- ضغط المحترف
+  priorities TEXT, -- priority/originalPriority
+  action TEXT,
+  created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+  UNIQUE(user_id, message_id)
+);
+
+-- Index لتحسين الأداء
+CREATE INDEX idx_push_delivery_metrics_specialist_id ON public.push_delivery_metrics(specialist_id);
+CREATE INDEX idx_push_delivery_metrics_received_at ON public.push_delivery_metrics(received_at);
+
+-- Enable RLS
+ALTER TABLE public.push_delivery_metrics ENABLE ROW LEVEL SECURITY;
+
+-- Users can upload their own delivery timings
+CREATE POLICY "Users can insert own delivery metrics"
+  ON public.push_delivery_metrics
+  FOR INSERT
+  WITH CHECK (auth.uid() = user_id);
+
+-- Admins can view delivery metrics
+CREATE POLICY "Admins can view delivery metrics"
+  ON public.push_delivery_metrics
+  FOR SELECT
+  USING (is_admin(auth.uid()));
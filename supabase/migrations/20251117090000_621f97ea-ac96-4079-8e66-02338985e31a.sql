@@ -0,0 +1,3 @@
+-- وقت تأكيد الخادم لرد المحترف من شاشة الطلب الأصلية (تخطي / قبول / عرض سعر)
+ALTER TABLE public.push_delivery_metrics
+  ADD COLUMN IF NOT EXISTS answered_at TIMESTAMP WITH TIME ZONE;
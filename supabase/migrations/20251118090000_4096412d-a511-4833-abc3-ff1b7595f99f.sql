@@ -0,0 +1,5 @@
+-- تحديثات الفروقات: ملف تصحيح ثنائي من إصدار سابق إلى هذا الإصدار، مع بصمة SHA-256 للـ APK الكامل للتحقق بعد التطبيق
+ALTER TABLE public.app_versions
+  ADD COLUMN IF NOT EXISTS apk_sha256 TEXT,
+  ADD COLUMN IF NOT EXISTS patch_url TEXT,
+  ADD COLUMN IF NOT EXISTS patch_base_version_code INTEGER;
@@ -0,0 +1,39 @@
+-- حزم الواجهة (الويب) التي تُحدَّث عبر الهواء دون إصدار APK جديد
+CREATE TABLE IF NOT EXISTS public.web_bundles (
+  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  version TEXT NOT NULL UNIQUE,
+  bundle_url TEXT NOT NULL,
+  sha256 TEXT NOT NULL,
+  size_bytes BIGINT,
+  -- أقدم إصدار أصلي (version_code) يمكنه تشغيل هذه الحزمة
+  min_version_code INTEGER NOT NULL DEFAULT 0,
+  is_active BOOLEAN NOT NULL DEFAULT true,
+  created_at TIMESTAMP WITH TIME ZONE DEFAULT now()
+);
+
+ALTER TABLE public.web_bundles ENABLE ROW LEVEL SECURITY;
+
+-- Allow anyone to read bundles (needed for update checks)
+CREATE POLICY "Anyone can read web bundles"
+  ON public.web_bundles
+  FOR SELECT
+  USING (true);
+
+-- Only admins can manage bundles
+CREATE POLICY "Only admins can insert web bundles"
+  ON public.web_bundles
+  FOR INSERT
+  WITH CHECK (is_admin(auth.uid()));
+
+CREATE POLICY "Only admins can update web bundles"
+  ON public.web_bundles
+  FOR UPDATE
+  USING (is_admin(auth.uid()));
+
+CREATE POLICY "Only admins can delete web bundles"
+  ON public.web_bundles
+  FOR DELETE
+  USING (is_admin(auth.uid()));
+
+CREATE INDEX IF NOT EXISTS idx_web_bundles_active_created
+  ON public.web_bundles (is_active, created_at DESC);
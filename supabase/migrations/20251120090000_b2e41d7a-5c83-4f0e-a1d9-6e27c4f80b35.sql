@@ -0,0 +1,4 @@
+-- معرّف الإجراء الذي أرسله التطبيق الأصلي (تخطي/قبول/عرض سعر) لهذا التعيين،
+-- حتى تُعرف إعادة إرسال الإجراء نفسه وتُميَّز عن إجابة أخرى
+ALTER TABLE public.order_specialists
+  ADD COLUMN IF NOT EXISTS native_action_id TEXT;